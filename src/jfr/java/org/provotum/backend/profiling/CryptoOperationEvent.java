@@ -0,0 +1,11 @@
+package org.provotum.backend.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.provotum.CryptoOperation")
+@Label("Crypto Operation")
+@Description("Encrypting, deserializing, verifying or decrypting a vote")
+class CryptoOperationEvent extends ProvotumEvent {
+}
@@ -0,0 +1,60 @@
+package org.provotum.backend.profiling;
+
+import jdk.jfr.EventType;
+
+/**
+ * Creates spans backed by Flight Recorder events.
+ * Only loaded by {@link Profiling} if the JVM supports Flight Recorder.
+ */
+class JfrSpanFactory implements SpanFactory {
+
+    private final EventType cryptoType = EventType.getEventType(CryptoOperationEvent.class);
+    private final EventType rpcType = EventType.getEventType(RpcCallEvent.class);
+    private final EventType tallyStageType = EventType.getEventType(TallyStageEvent.class);
+
+    @Override
+    public Span crypto(String operation, String ballot, long voteIndex) {
+        if (! this.cryptoType.isEnabled()) {
+            return Span.NOOP;
+        }
+
+        return new JfrSpan(new CryptoOperationEvent(), operation, ballot, voteIndex);
+    }
+
+    @Override
+    public Span rpc(String method, String ballot, long voteIndex) {
+        if (! this.rpcType.isEnabled()) {
+            return Span.NOOP;
+        }
+
+        return new JfrSpan(new RpcCallEvent(), method, ballot, voteIndex);
+    }
+
+    @Override
+    public Span tallyStage(String stage, String ballot, long voteIndex) {
+        if (! this.tallyStageType.isEnabled()) {
+            return Span.NOOP;
+        }
+
+        return new JfrSpan(new TallyStageEvent(), stage, ballot, voteIndex);
+    }
+
+    private static class JfrSpan implements Span {
+
+        private final ProvotumEvent event;
+
+        private JfrSpan(ProvotumEvent event, String operation, String ballot, long voteIndex) {
+            this.event = event;
+            this.event.operation = operation;
+            this.event.ballot = ballot;
+            this.event.voteIndex = voteIndex;
+            this.event.begin();
+        }
+
+        @Override
+        public void end(String outcome) {
+            this.event.outcome = outcome;
+            this.event.commit();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.provotum.backend.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * The fields shared by all Flight Recorder events of the backend.
+ */
+@Category("Provotum")
+abstract class ProvotumEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Ballot Address")
+    String ballot;
+
+    @Label("Vote Index")
+    long voteIndex;
+
+    @Label("Outcome")
+    String outcome;
+}
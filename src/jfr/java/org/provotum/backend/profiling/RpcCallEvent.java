@@ -0,0 +1,11 @@
+package org.provotum.backend.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.provotum.RpcCall")
+@Label("RPC Call")
+@Description("A JSON-RPC request sent to the Ethereum node")
+class RpcCallEvent extends ProvotumEvent {
+}
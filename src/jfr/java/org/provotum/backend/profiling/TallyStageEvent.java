@@ -0,0 +1,11 @@
+package org.provotum.backend.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.provotum.TallyStage")
+@Label("Tally Stage")
+@Description("A stage of tallying the votes of a ballot")
+class TallyStageEvent extends ProvotumEvent {
+}
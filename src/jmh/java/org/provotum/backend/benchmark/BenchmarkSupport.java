@@ -0,0 +1,117 @@
+package org.provotum.backend.benchmark;
+
+import org.provotum.backend.Application;
+import org.provotum.backend.config.SecurityConfiguration;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.security.VerificationCache;
+import org.provotum.backend.security.engine.ElGamalEngine;
+import org.provotum.backend.timer.EvaluationLogWriter;
+import org.provotum.backend.timer.EvaluationTimer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.web3j.crypto.WalletUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the keys and components measured by the benchmarks, without starting the application context,
+ * resp. starts the application for end-to-end benchmarks.
+ */
+final class BenchmarkSupport {
+
+    /**
+     * The length of the RSA key encrypting the random values of votes, as in {@link SecurityConfiguration}.
+     */
+    static final int RSA_KEY_LENGTH = 1024;
+
+    private static final String WALLET_PASSWORD = "benchmark";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param keyLength The bit length of the prime.
+     * @return An engine with a newly generated election key pair.
+     */
+    static ElGamalEngine createEngine(int keyLength) {
+        ElGamalEngine engine = new ElGamalEngine(keyLength);
+        engine.generateKeys();
+
+        return engine;
+    }
+
+    static KeyPair createRsaKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(RSA_KEY_LENGTH);
+
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * @return A timer writing its measurements to a temporary file, which has to be shut down after the benchmark.
+     */
+    static EvaluationTimer createTimer() throws IOException {
+        File file = File.createTempFile("provotum-benchmark", ".bin");
+        file.deleteOnExit();
+
+        return new EvaluationTimer(new EvaluationLogWriter(file, EvaluationLogWriter.Format.BINARY, 65536));
+    }
+
+    /**
+     * @return A manager verifying every proof, as the verification cache is disabled.
+     */
+    static EncryptionManager createEncryptionManager(ElGamalEngine engine, KeyPair rsaKeyPair, EvaluationTimer timer) {
+        SecurityConfiguration configuration = new SecurityConfiguration(timer) {
+            @Override
+            public KeyPair getRsaKeyPair() {
+                return rsaKeyPair;
+            }
+        };
+
+        return new EncryptionManager(configuration, engine, timer, new VerificationCache(0, null));
+    }
+
+    /**
+     * Starts the application on a random port with a new wallet, keys, checkpoints and evaluation output
+     * in a temporary directory, and generates the election keys.
+     *
+     * @param rpcHost    The RPC host to connect to, usually an in-memory chain.
+     * @param properties Further properties like <code>tally.ingestion=logs</code>.
+     * @return The context of the application, which has to be closed after the benchmark.
+     */
+    static ConfigurableApplicationContext startApplication(String rpcHost, String... properties) throws Exception {
+        File directory = Files.createTempDirectory("provotum-benchmark").toFile();
+        File wallet = new File(directory, WalletUtils.generateLightNewWalletFile(WALLET_PASSWORD, directory));
+
+        List<String> args = new ArrayList<>(Arrays.asList(
+            "--server.port=0",
+            "--ethereum.web3j.rpchost=" + rpcHost,
+            "--ethereum.wallet.location=" + wallet.getAbsolutePath(),
+            "--ethereum.wallet.password=" + WALLET_PASSWORD,
+            "--security.cache.size=0",
+            "--security.output.electionpublickey=" + new File(directory, "publickey.pub").getAbsolutePath(),
+            "--security.output.electionprivatekey=" + new File(directory, "privatekey.priv").getAbsolutePath(),
+            "--security.output.rsapublickey=" + new File(directory, "rsa-publickey.pub").getAbsolutePath(),
+            "--security.output.rsaprivatekey=" + new File(directory, "rsa-privatekey.priv").getAbsolutePath(),
+            "--evaluation.output=" + new File(directory, "evaluation").getAbsolutePath(),
+            "--tally.checkpoint.directory=" + new File(directory, "checkpoints").getAbsolutePath()
+        ));
+
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        ConfigurableApplicationContext context = SpringApplication.run(Application.class, args.toArray(new String[args.size()]));
+        context.getBean(SecurityConfiguration.class).initializeKeys();
+
+        return context;
+    }
+}
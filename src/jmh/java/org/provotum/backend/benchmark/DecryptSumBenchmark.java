@@ -0,0 +1,67 @@
+package org.provotum.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.security.engine.ElGamalEngine;
+import org.provotum.backend.security.engine.VoteCipherText;
+import org.provotum.backend.timer.EvaluationTimer;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decrypting the sum of a ballot. Since the sum is recovered from the exponent,
+ * the duration grows with the number of yes votes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DecryptSumBenchmark {
+
+    @Param({"160", "512", "1024"})
+    public int keyLength;
+
+    @Param({"1", "100", "10000"})
+    public int sum;
+
+    private EvaluationTimer timer;
+    private EncryptionManager manager;
+    private VoteCipherText sumCipherText;
+
+    @Setup
+    public void setUp() throws Exception {
+        ElGamalEngine engine = BenchmarkSupport.createEngine(this.keyLength);
+
+        this.timer = BenchmarkSupport.createTimer();
+        this.manager = BenchmarkSupport.createEncryptionManager(engine, BenchmarkSupport.createRsaKeyPair(), this.timer);
+        this.sumCipherText = engine.encrypt(BigInteger.valueOf(this.sum));
+
+        if (! BigInteger.valueOf(this.sum).equals(this.manager.decryptSum(this.sumCipherText))) {
+            throw new IllegalStateException("The benchmarked sum does not decrypt to " + this.sum);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.timer.shutdown();
+    }
+
+    @Benchmark
+    public BigInteger decryptSum() {
+        return this.manager.decryptSum(this.sumCipherText);
+    }
+}
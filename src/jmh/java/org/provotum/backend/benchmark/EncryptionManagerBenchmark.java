@@ -0,0 +1,83 @@
+package org.provotum.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.provotum.backend.security.CipherTextWrapper;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.security.engine.VoteCipherText;
+import org.provotum.backend.security.engine.VoteProof;
+import org.provotum.backend.timer.EvaluationTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations of the {@link EncryptionManager} performed for each vote:
+ * encrypting and proving it on the client side, restoring and verifying it when tallying.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EncryptionManagerBenchmark {
+
+    @Param({"160", "512", "1024"})
+    public int keyLength;
+
+    private EvaluationTimer timer;
+    private EncryptionManager manager;
+
+    private CipherTextWrapper wrapper;
+    private VoteCipherText cipherText;
+    private VoteProof proof;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.timer = BenchmarkSupport.createTimer();
+        this.manager = BenchmarkSupport.createEncryptionManager(BenchmarkSupport.createEngine(this.keyLength), BenchmarkSupport.createRsaKeyPair(), this.timer);
+
+        this.wrapper = this.manager.encryptVoteAndGenerateProof(1);
+        this.cipherText = this.manager.deserializeCiphertext(this.wrapper.getCiphertext(), this.wrapper.getRandom());
+        this.proof = this.manager.deserializeMembershipProof(this.wrapper.getProof());
+
+        if (! this.manager.verifyProof(this.cipherText, this.proof)) {
+            throw new IllegalStateException("The proof of the benchmarked vote is invalid");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.timer.shutdown();
+    }
+
+    @Benchmark
+    public CipherTextWrapper encryptVoteAndGenerateProof() throws Exception {
+        return this.manager.encryptVoteAndGenerateProof(1);
+    }
+
+    @Benchmark
+    public VoteCipherText deserializeCiphertext() throws Exception {
+        return this.manager.deserializeCiphertext(this.wrapper.getCiphertext(), this.wrapper.getRandom());
+    }
+
+    @Benchmark
+    public VoteProof deserializeMembershipProof() {
+        return this.manager.deserializeMembershipProof(this.wrapper.getProof());
+    }
+
+    @Benchmark
+    public boolean verifyProof() {
+        return this.manager.verifyProof(this.cipherText, this.proof);
+    }
+}
@@ -0,0 +1,83 @@
+package org.provotum.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.provotum.security.arithmetic.ModInteger;
+import org.provotum.security.elgamal.PublicKey;
+import org.provotum.security.elgamal.additive.CipherText;
+import org.provotum.security.elgamal.additive.Encryption;
+import org.provotum.security.elgamal.proof.noninteractive.MembershipProof;
+import org.provotum.security.serializer.KeyPairSerializer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the primitives of provotum-security the vote operations are built of:
+ * committing to and verifying a membership proof and adding two ciphertexts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MembershipProofBenchmark {
+
+    @Param({"160", "512", "1024"})
+    public int keyLength;
+
+    private PublicKey publicKey;
+    private List<ModInteger> domain;
+    private ModInteger message;
+
+    private CipherText cipherText;
+    private CipherText otherCipherText;
+    private MembershipProof proof;
+
+    @Setup
+    public void setUp() {
+        this.publicKey = KeyPairSerializer.publicKeyFromString(BenchmarkSupport.createEngine(this.keyLength).serializePublicKey());
+
+        this.domain = new ArrayList<>();
+        this.domain.add(new ModInteger(BigInteger.ZERO));
+        this.domain.add(new ModInteger(BigInteger.ONE));
+
+        this.message = new ModInteger("1", this.publicKey.getP());
+
+        Encryption encryption = new Encryption();
+        this.cipherText = encryption.encrypt(this.publicKey, this.message);
+        this.otherCipherText = encryption.encrypt(this.publicKey, new ModInteger("0", this.publicKey.getP()));
+        this.proof = MembershipProof.commit(this.publicKey, this.message, this.cipherText, this.domain);
+
+        if (! this.proof.verify(this.publicKey, this.cipherText, this.domain)) {
+            throw new IllegalStateException("The benchmarked proof is invalid");
+        }
+    }
+
+    @Benchmark
+    public MembershipProof commit() {
+        return MembershipProof.commit(this.publicKey, this.message, this.cipherText, this.domain);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return this.proof.verify(this.publicKey, this.cipherText, this.domain);
+    }
+
+    @Benchmark
+    public CipherText operate() {
+        return this.cipherText.operate(this.otherCipherText);
+    }
+}
@@ -0,0 +1,69 @@
+package org.provotum.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encrypting and decrypting the random value of a vote with RSA,
+ * the way the {@link org.provotum.backend.security.EncryptionManager} does.
+ * The size of the random value follows the ElGamal key length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RsaRandomBenchmark {
+
+    private static final String TRANSFORMATION = "RSA/ECB/PKCS1Padding";
+
+    @Param({"160", "512", "1024"})
+    public int keyLength;
+
+    private KeyPair keyPair;
+    private byte[] random;
+    private byte[] encryptedRandom;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.keyPair = BenchmarkSupport.createRsaKeyPair();
+
+        // PKCS#1 padding takes 11 bytes of the RSA block
+        int maxLength = (BenchmarkSupport.RSA_KEY_LENGTH / 8 - 11) * 8;
+        this.random = new BigInteger(Math.min(this.keyLength, maxLength) - 1, new SecureRandom()).toByteArray();
+
+        this.encryptedRandom = this.encrypt();
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, this.keyPair.getPublic());
+
+        return cipher.doFinal(this.random);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, this.keyPair.getPrivate());
+
+        return cipher.doFinal(this.encryptedRandom);
+    }
+}
@@ -0,0 +1,69 @@
+package org.provotum.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.provotum.security.arithmetic.ModInteger;
+import org.provotum.security.elgamal.PublicKey;
+import org.provotum.security.elgamal.additive.CipherText;
+import org.provotum.security.elgamal.additive.Encryption;
+import org.provotum.security.elgamal.proof.noninteractive.MembershipProof;
+import org.provotum.security.serializer.CipherTextSerializer;
+import org.provotum.security.serializer.KeyPairSerializer;
+import org.provotum.security.serializer.MembershipProofSerializer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing and deserializing ciphertexts and membership proofs,
+ * as done for every vote sent to and read from the ballot contract.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"160", "512", "1024"})
+    public int keyLength;
+
+    private CipherText cipherText;
+    private MembershipProof proof;
+
+    @Setup
+    public void setUp() {
+        PublicKey publicKey = KeyPairSerializer.publicKeyFromString(BenchmarkSupport.createEngine(this.keyLength).serializePublicKey());
+
+        List<ModInteger> domain = new ArrayList<>();
+        domain.add(new ModInteger(BigInteger.ZERO));
+        domain.add(new ModInteger(BigInteger.ONE));
+
+        ModInteger message = new ModInteger("1", publicKey.getP());
+
+        this.cipherText = new Encryption().encrypt(publicKey, message);
+        this.proof = MembershipProof.commit(publicKey, message, this.cipherText, domain);
+    }
+
+    @Benchmark
+    public CipherText cipherTextRoundTrip() {
+        return CipherTextSerializer.fromString(CipherTextSerializer.serialize(this.cipherText));
+    }
+
+    @Benchmark
+    public MembershipProof membershipProofRoundTrip() {
+        return MembershipProofSerializer.fromString(MembershipProofSerializer.serialize(this.proof));
+    }
+}
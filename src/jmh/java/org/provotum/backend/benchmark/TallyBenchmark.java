@@ -0,0 +1,122 @@
+package org.provotum.backend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.provotum.backend.config.EthereumConfiguration;
+import org.provotum.backend.ethereum.accessor.BallotContractAccessor;
+import org.provotum.backend.ethereum.memory.InMemoryEthereum;
+import org.provotum.backend.ethereum.memory.InMemoryWeb3jService;
+import org.provotum.backend.ethereum.wrappers.Ballot;
+import org.provotum.backend.security.CipherTextWrapper;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.tally.TallyCheckpointStore;
+import org.provotum.backend.tally.TallyJob;
+import org.provotum.backend.tally.TallyJobState;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tallying a closed ballot end-to-end: the application is started against
+ * an in-memory chain, which is seeded with the encrypted votes of generated voters.
+ * Each invocation tallies the ballot from scratch, i.e. fetches and verifies every vote
+ * and decrypts the sum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TallyBenchmark {
+
+    private static final String CHAIN = "tally-benchmark";
+    private static final long POLL_INTERVAL = 10;
+
+    @Param({"100", "1000"})
+    public int voters;
+
+    /**
+     * The latency of each JSON-RPC request in milliseconds.
+     */
+    @Param({"0", "2"})
+    public int latency;
+
+    @Param({"storage", "logs"})
+    public String ingestion;
+
+    private ConfigurableApplicationContext context;
+    private BallotContractAccessor accessor;
+    private TallyCheckpointStore checkpointStore;
+    private String ballotAddress;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.context = BenchmarkSupport.startApplication(
+            InMemoryWeb3jService.SCHEME + CHAIN + "?latency=" + this.latency,
+            "tally.ingestion=" + this.ingestion
+        );
+
+        this.accessor = this.context.getBean(BallotContractAccessor.class);
+        this.checkpointStore = this.context.getBean(TallyCheckpointStore.class);
+
+        Web3j web3j = this.context.getBean(Web3j.class);
+        Credentials credentials = this.context.getBean(EthereumConfiguration.class).getWalletCredentials();
+
+        Ballot ballot = Ballot.deploy(web3j, credentials, Ballot.GAS_PRICE, Ballot.GAS_LIMIT, "Benchmark?", InMemoryEthereum.ZERO_ADDRESS).send();
+        ballot.openVoting().send();
+
+        this.ballotAddress = ballot.getContractAddress();
+
+        // votes are seeded directly, as each voter would have to sign with its own account
+        EncryptionManager encryptionManager = this.context.getBean(EncryptionManager.class);
+        InMemoryEthereum chain = InMemoryEthereum.named(CHAIN);
+
+        for (int i = 0; i < this.voters; i++) {
+            CipherTextWrapper vote = encryptionManager.encryptVoteAndGenerateProof(i % 2);
+            chain.castVote(this.ballotAddress, String.format("0x%040x", i + 1), vote.getCiphertext(), vote.getProof(), vote.getRandom());
+        }
+
+        ballot.closeVoting().send();
+    }
+
+    @Setup(Level.Iteration)
+    public void deleteCheckpoint() {
+        // otherwise, the next tally would resume from the last one
+        this.checkpointStore.delete(this.ballotAddress);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+        InMemoryEthereum.discard(CHAIN);
+    }
+
+    @Benchmark
+    public TallyJob tally() throws InterruptedException {
+        TallyJob job = this.accessor.getResults(this.ballotAddress);
+
+        while (! job.getState().isFinished()) {
+            Thread.sleep(POLL_INTERVAL);
+        }
+
+        if (TallyJobState.COMPLETED != job.getState() || this.voters != job.getVerified()) {
+            throw new IllegalStateException("The tally finished as " + job.getState() + " with " + job.getVerified() + " of " + this.voters + " votes verified: " + job.getMessage());
+        }
+
+        return job;
+    }
+}
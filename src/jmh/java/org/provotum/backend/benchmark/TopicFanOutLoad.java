@@ -0,0 +1,421 @@
+package org.provotum.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.provotum.backend.communication.message.base.Status;
+import org.provotum.backend.communication.socket.message.event.VoteEventResponse;
+import org.provotum.backend.communication.socket.publisher.TopicPublisher;
+import org.provotum.backend.ethereum.memory.InMemoryEthereum;
+import org.provotum.backend.ethereum.memory.InMemoryWeb3jService;
+import org.provotum.backend.execution.NamedThreadFactory;
+import org.provotum.backend.timer.LatencyHistogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.Transport;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how many STOMP subscribers the simple broker serves while events arrive:
+ * the application is started against an in-memory chain, SockJS sessions subscribe to
+ * the topics at <code>/sockjs-websocket</code> and {@link TopicPublisher#send} is driven
+ * at a fixed rate on each topic.
+ * <p>
+ * Reports the delivery latency percentiles, missed deliveries, dropped sessions, CPU time and heap.
+ * As the sessions run in the same process as the broker, process CPU time and heap include the clients,
+ * while the CPU time of the messaging threads is spent by the server alone.
+ * <p>
+ * Options, given as <code>--name=value</code>:
+ * <ul>
+ * <li><code>sessions</code>: The number of sessions, 1000 by default.</li>
+ * <li><code>rate</code>: The messages per second sent to each topic, 10 by default.</li>
+ * <li><code>duration</code>: The seconds during which messages are sent, 30 by default.</li>
+ * <li><code>topics</code>: A comma separated list of topics, all topics of the {@link TopicPublisher} by default.</li>
+ * <li><code>connections</code>: The number of sessions connecting at once, 32 by default.</li>
+ * </ul>
+ * Any other option is passed to the application as property, e.g. <code>--websocket.batch.interval=50</code>.
+ */
+public class TopicFanOutLoad {
+
+    private static final String CHAIN = "fanout-load";
+    private static final String ENDPOINT = "/sockjs-websocket";
+    private static final String SENDER = "0x0000000000000000000000000000000000000001";
+
+    private static final long CONNECT_TIMEOUT = 30;
+    private static final long SETTLE_MILLIS = 2000;
+    private static final long DRAIN_MILLIS = 10000;
+    private static final long HEAP_SAMPLE_MILLIS = 100;
+
+    /**
+     * Threads of the simple broker, of the channels between broker and sessions and of the embedded Tomcat.
+     */
+    private static final List<String> SERVER_THREADS = Arrays.asList(
+        "clientInboundChannel", "clientOutboundChannel", "brokerChannel", "MessageBroker", "http-nio"
+    );
+
+    private static final List<String> OPTIONS = Arrays.asList("sessions", "rate", "duration", "topics", "connections");
+
+    private static final List<String> ALL_TOPICS = Arrays.asList(
+        TopicPublisher.DEPLOYMENT_TOPIC,
+        TopicPublisher.REMOVAL_TOPIC,
+        TopicPublisher.EVENT_TOPIC,
+        TopicPublisher.VOTE_TOPIC,
+        TopicPublisher.META_TOPIC,
+        TopicPublisher.STATE_TOPIC
+    );
+
+    private final int sessions;
+    private final int rate;
+    private final int duration;
+    private final List<String> topics;
+    private final int connections;
+    private final String[] properties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentMap<String, Long> sentAt = new ConcurrentHashMap<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder summarized = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong maxHeap = new AtomicLong();
+
+    private TopicFanOutLoad(int sessions, int rate, int duration, List<String> topics, int connections, String[] properties) {
+        if (sessions <= 0 || rate <= 0 || duration <= 0 || connections <= 0 || topics.isEmpty()) {
+            throw new IllegalArgumentException("Sessions, rate, duration, connections and topics must be positive");
+        }
+
+        this.sessions = sessions;
+        this.rate = rate;
+        this.duration = duration;
+        this.topics = topics;
+        this.connections = connections;
+        this.properties = properties;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (! arg.startsWith("--") || ! arg.contains("=")) {
+                throw new IllegalArgumentException("Options must be given as --name=value. Got " + arg);
+            }
+
+            String[] pair = arg.substring(2).split("=", 2);
+            options.put(pair[0], pair[1]);
+        }
+
+        TopicFanOutLoad load = new TopicFanOutLoad(
+            Integer.parseInt(options.getOrDefault("sessions", "1000")),
+            Integer.parseInt(options.getOrDefault("rate", "10")),
+            Integer.parseInt(options.getOrDefault("duration", "30")),
+            options.containsKey("topics") ? Arrays.asList(options.get("topics").split(",")) : ALL_TOPICS,
+            Integer.parseInt(options.getOrDefault("connections", "32")),
+            options.entrySet().stream()
+                .filter(option -> ! OPTIONS.contains(option.getKey()))
+                .map(option -> option.getKey() + "=" + option.getValue())
+                .toArray(String[]::new)
+        );
+
+        load.run();
+
+        // the sessions of the client are not shut down by closing the application
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = BenchmarkSupport.startApplication(InMemoryWeb3jService.SCHEME + CHAIN, this.properties);
+
+        try {
+            String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + ENDPOINT;
+            TopicPublisher publisher = context.getBean(TopicPublisher.class);
+
+            List<Transport> transports = Collections.singletonList(new WebSocketTransport(new StandardWebSocketClient()));
+            WebSocketStompClient client = new WebSocketStompClient(new SockJsClient(transports));
+
+            long connectStart = System.nanoTime();
+            List<StompSession> connected = this.connect(client, url);
+            System.out.printf("Connected %d of %d sessions in %d ms%n", connected.size(), this.sessions, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+
+            // the broker does not acknowledge subscriptions
+            Thread.sleep(SETTLE_MILLIS);
+
+            ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("fanout-heap"));
+            heapSampler.scheduleAtFixedRate(this::sampleHeap, 0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+
+            OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+            long processCpuStart = processCpuTime(os);
+            Map<Long, Long> serverCpuStart = serverThreadCpuTimes();
+            long start = System.nanoTime();
+
+            this.publish(publisher);
+
+            long expected = this.sent.sum() * connected.size();
+            long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_MILLIS);
+
+            while (this.delivered.sum() < expected && System.nanoTime() < drainDeadline) {
+                Thread.sleep(100);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            long processCpu = processCpuTime(os) - processCpuStart;
+            long serverCpu = serverCpuSince(serverCpuStart);
+
+            heapSampler.shutdownNow();
+
+            this.report(connected.size(), expected, elapsed, processCpu, serverCpu);
+
+            for (StompSession session : connected) {
+                session.disconnect();
+            }
+            client.stop();
+        } finally {
+            context.close();
+            InMemoryEthereum.discard(CHAIN);
+        }
+    }
+
+    private List<StompSession> connect(WebSocketStompClient client, String url) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(this.connections, new NamedThreadFactory("fanout-connect"));
+        List<Future<StompSession>> futures = new ArrayList<>(this.sessions);
+
+        for (int i = 0; i < this.sessions; i++) {
+            futures.add(executor.submit(() -> {
+                Subscriber subscriber = new Subscriber();
+                StompSession session = client.connect(url, subscriber).get(CONNECT_TIMEOUT, TimeUnit.SECONDS);
+
+                for (String topic : this.topics) {
+                    session.subscribe(topic, subscriber);
+                }
+
+                return session;
+            }));
+        }
+
+        List<StompSession> connected = new ArrayList<>(this.sessions);
+        int failed = 0;
+
+        for (Future<StompSession> future : futures) {
+            try {
+                connected.add(future.get());
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+
+        executor.shutdown();
+
+        if (failed > 0) {
+            System.out.printf("Failed to connect %d sessions%n", failed);
+        }
+
+        return connected;
+    }
+
+    private void publish(TopicPublisher publisher) throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(this.topics.size(), new NamedThreadFactory("fanout-publish"));
+        long period = TimeUnit.SECONDS.toNanos(1) / this.rate;
+
+        for (String topic : this.topics) {
+            executor.scheduleAtFixedRate(() -> {
+                String id = topic + "-" + this.sequence.incrementAndGet();
+                this.sentAt.put(id, System.nanoTime());
+
+                try {
+                    publisher.send(topic, new VoteEventResponse(id, Status.SUCCESS, "Voted", SENDER));
+                    this.sent.increment();
+                } catch (RuntimeException e) {
+                    // a failing send would cancel any further sends to the topic
+                    this.sentAt.remove(id);
+                    System.out.println("Failed to send " + id + ": " + e.getMessage());
+                }
+            }, 0, period, TimeUnit.NANOSECONDS);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(this.duration));
+
+        executor.shutdownNow();
+        executor.awaitTermination(CONNECT_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    private void receive(byte[] payload) {
+        long receivedAt = System.nanoTime();
+
+        try {
+            JsonNode frame = this.objectMapper.readTree(payload);
+
+            // a frame holds a single response or, if published in batches, an array of responses
+            if (frame.isArray()) {
+                for (JsonNode response : frame) {
+                    this.receive(response, receivedAt);
+                }
+            } else {
+                this.receive(frame, receivedAt);
+            }
+        } catch (IOException e) {
+            this.unknown.increment();
+        }
+    }
+
+    private void receive(JsonNode response, long receivedAt) {
+        if (response.has("senderAddresses")) {
+            // merged vote events do not carry their ids, so only their delivery is counted
+            int votes = response.path("senderAddresses").size();
+            this.delivered.add(votes);
+            this.summarized.add(votes);
+            return;
+        }
+
+        Long sentAt = this.sentAt.get(response.path("id").asText());
+
+        if (null == sentAt) {
+            // e.g. published by the application itself
+            this.unknown.increment();
+            return;
+        }
+
+        this.latencies.record(receivedAt - sentAt);
+        this.delivered.increment();
+    }
+
+    private void sampleHeap() {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long currentMax = this.maxHeap.get();
+
+        while (used > currentMax && ! this.maxHeap.compareAndSet(currentMax, used)) {
+            currentMax = this.maxHeap.get();
+        }
+    }
+
+    private void report(int connected, long expected, long elapsedNanos, long processCpuNanos, long serverCpuNanos) {
+        LatencyHistogram.Snapshot snapshot = this.latencies.getSnapshot();
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.println();
+        System.out.printf("Sessions:          %d connected, %d dropped%n", connected, this.dropped.sum());
+        System.out.printf("Topics:            %s at %d messages per second each%n", String.join(", ", this.topics), this.rate);
+        System.out.printf("Messages sent:     %d%n", this.sent.sum());
+        System.out.printf("Deliveries:        %d of %d (%d missed, %d merged, %d unknown)%n", this.delivered.sum(), expected, Math.max(0, expected - this.delivered.sum()), this.summarized.sum(), this.unknown.sum());
+        System.out.printf("Throughput:        %.0f deliveries per second%n", this.delivered.sum() / seconds);
+        System.out.printf("Latency (ms):      p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f, mean %.2f%n",
+            snapshot.getPercentile(50) / 1e6,
+            snapshot.getPercentile(90) / 1e6,
+            snapshot.getPercentile(99) / 1e6,
+            snapshot.getPercentile(99.9) / 1e6,
+            snapshot.getMax() / 1e6,
+            snapshot.getMean() / 1e6
+        );
+        System.out.printf("CPU (cores):       %.2f process, %.2f messaging threads%n", processCpuNanos / (double) elapsedNanos, serverCpuNanos / (double) elapsedNanos);
+        System.out.printf("Heap (MB):         %d peak, %d max%n", this.maxHeap.get() >> 20, Runtime.getRuntime().maxMemory() >> 20);
+    }
+
+    /**
+     * @return The CPU time used by this process in nanoseconds, -1 if it is not available on this JVM.
+     */
+    private static long processCpuTime(OperatingSystemMXBean os) {
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+
+        return -1;
+    }
+
+    private static Map<Long, Long> serverThreadCpuTimes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> cpuTimes = new HashMap<>();
+
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (null != info && isServerThread(info.getThreadName())) {
+                cpuTimes.put(info.getThreadId(), threads.getThreadCpuTime(info.getThreadId()));
+            }
+        }
+
+        return cpuTimes;
+    }
+
+    /**
+     * @return The CPU time in nanoseconds used by server threads since the given times, including threads started since.
+     */
+    private static long serverCpuSince(Map<Long, Long> start) {
+        long total = 0;
+
+        for (Map.Entry<Long, Long> entry : serverThreadCpuTimes().entrySet()) {
+            if (entry.getValue() >= 0) {
+                total += entry.getValue() - Math.max(0, start.getOrDefault(entry.getKey(), 0L));
+            }
+        }
+
+        return total;
+    }
+
+    private static boolean isServerThread(String name) {
+        for (String prefix : SERVER_THREADS) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Receives the messages of a session and counts it as dropped once its established connection fails.
+     */
+    private class Subscriber extends StompSessionHandlerAdapter {
+
+        private final AtomicBoolean isDropped = new AtomicBoolean();
+        private volatile boolean isConnected;
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            this.isConnected = true;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            TopicFanOutLoad.this.receive((byte[]) payload);
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            // failures to connect are reported separately
+            if (this.isConnected && this.isDropped.compareAndSet(false, true)) {
+                TopicFanOutLoad.this.dropped.increment();
+            }
+        }
+    }
+}
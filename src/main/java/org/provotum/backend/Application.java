@@ -1,6 +1,7 @@
 package org.provotum.backend;
 
 import org.provotum.backend.config.SecurityConfiguration;
+import org.provotum.backend.execution.CorrelationId;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -27,7 +28,7 @@ public class Application {
         return new WebMvcConfigurerAdapter() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
-                registry.addMapping("/**").allowedOrigins("*").allowedMethods("*");
+                registry.addMapping("/**").allowedOrigins("*").allowedMethods("*").exposedHeaders(CorrelationId.HEADER);
             }
         };
     }
@@ -1,29 +1,41 @@
 package org.provotum.backend.communication.message.base;
 
+import org.provotum.backend.execution.CorrelationId;
+
 import java.util.UUID;
 
+/**
+ * A response carrying the correlation id of the request it was created on behalf of, if any.
+ */
 public abstract class AResponse {
 
     private String id;
+    private String correlationId;
     private Status status;
     private String message;
 
     public AResponse(String id, Status status, String message) {
         this.id = id;
+        this.correlationId = CorrelationId.current();
         this.status = status;
         this.message = message;
     }
 
     public AResponse(Status status, String message) {
-        this.id = UUID.randomUUID().toString();
-        this.status = status;
-        this.message = message;
+        this(UUID.randomUUID().toString(), status, message);
     }
 
     public String getId() {
         return id;
     }
 
+    /**
+     * @return The id of the request this response was created for, or null, e.g. for contract events.
+     */
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
     public Status getStatus() {
         return status;
     }
@@ -19,6 +19,9 @@ public enum ResponseType {
     @JsonProperty("vote-event")
     VOTE_EVENT,
 
+    @JsonProperty("vote-event-summary")
+    VOTE_EVENT_SUMMARY,
+
     @JsonProperty("open-vote")
     OPEN_VOTE,
 
@@ -38,6 +41,12 @@ public enum ResponseType {
     GET_RESULTS_EVENT,
 
     @JsonProperty("close-vote")
-    CLOSE_VOTE
+    CLOSE_VOTE,
+
+    @JsonProperty("tally-progress-event")
+    TALLY_PROGRESS_EVENT,
+
+    @JsonProperty("set-sum")
+    SET_SUM
 
 }
@@ -3,6 +3,8 @@ package org.provotum.backend.communication.rest.controller;
 import org.provotum.backend.communication.rest.message.deployment.BallotDeploymentRequest;
 import org.provotum.backend.ethereum.accessor.BallotContractAccessor;
 import org.provotum.backend.ethereum.config.BallotContractConfig;
+import org.provotum.backend.tally.TallyJob;
+import org.provotum.backend.tally.TallyJobManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,10 +21,12 @@ public class BallotController {
     private static final String CONTEXT = "/ballot";
 
     private BallotContractAccessor ballotContractAccessor;
+    private TallyJobManager tallyJobManager;
 
     @Autowired
-    public BallotController(BallotContractAccessor ballotContractAccessor) {
+    public BallotController(BallotContractAccessor ballotContractAccessor, TallyJobManager tallyJobManager) {
         this.ballotContractAccessor = ballotContractAccessor;
+        this.tallyJobManager = tallyJobManager;
     }
 
     @RequestMapping(value = CONTEXT + "/deploy", method = RequestMethod.POST)
@@ -87,10 +91,44 @@ public class BallotController {
     }
 
     @RequestMapping(value = CONTEXT + "/{contractAddress}/results", method = RequestMethod.POST)
-    @ResponseStatus(HttpStatus.ACCEPTED)
-    public void requestVotingResults(@PathVariable String contractAddress) {
+    public ResponseEntity requestVotingResults(@PathVariable String contractAddress) {
         logger.info("Received ballot contract voting result request");
 
-        this.ballotContractAccessor.getResults(contractAddress);
+        TallyJob job = this.ballotContractAccessor.getResults(contractAddress);
+
+        Map<String, String> resultMap = new HashMap<>();
+        resultMap.put("job", job.getId());
+        resultMap.put("state", job.getState().name());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(resultMap);
+    }
+
+    @RequestMapping(value = CONTEXT + "/{contractAddress}/results/{jobId}", method = RequestMethod.GET)
+    public ResponseEntity getVotingResultsProgress(@PathVariable String contractAddress, @PathVariable String jobId) {
+        TallyJob job = this.tallyJobManager.get(jobId);
+
+        if (null == job || ! job.getContractAddress().equalsIgnoreCase(contractAddress)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(TallyJobManager.toResponse(job));
+    }
+
+    @RequestMapping(value = CONTEXT + "/{contractAddress}/results/{jobId}", method = RequestMethod.DELETE)
+    public ResponseEntity cancelVotingResults(@PathVariable String contractAddress, @PathVariable String jobId) {
+        logger.info("Received cancel tally request for job " + jobId);
+
+        TallyJob job = this.tallyJobManager.get(jobId);
+
+        if (null == job || ! job.getContractAddress().equalsIgnoreCase(contractAddress)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        if (! this.tallyJobManager.cancel(jobId)) {
+            // the job has already finished
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(TallyJobManager.toResponse(job));
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(TallyJobManager.toResponse(job));
     }
 }
@@ -7,11 +7,8 @@ import org.provotum.backend.communication.rest.message.vote.VerifySumProofReques
 import org.provotum.backend.security.CipherTextWrapper;
 import org.provotum.backend.security.EncryptionManager;
 import org.provotum.backend.timer.EvaluationTimer;
-import org.provotum.security.arithmetic.ModInteger;
-import org.provotum.security.elgamal.additive.CipherText;
-import org.provotum.security.elgamal.proof.noninteractive.MembershipProof;
-import org.provotum.security.serializer.CipherTextSerializer;
-import org.provotum.security.serializer.MembershipProofSerializer;
+import org.provotum.backend.security.engine.VoteCipherText;
+import org.provotum.backend.security.engine.VoteProof;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,9 +19,6 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
 import java.util.logging.Logger;
 
 @RestController
@@ -64,8 +58,8 @@ public class EncryptionController {
     public ResponseEntity verifyProof(@RequestBody VerifyProofRequest proofRequest) {
         logger.info("Received request to verify proof.");
 
-        CipherText cipherText = CipherTextSerializer.fromString(proofRequest.getCiphertext());
-        MembershipProof proof = MembershipProofSerializer.fromString(proofRequest.getProof());
+        VoteCipherText cipherText = this.encryptionManager.deserializeCiphertext(proofRequest.getCiphertext());
+        VoteProof proof = this.encryptionManager.deserializeMembershipProof(proofRequest.getProof());
 
         try {
             boolean isProven = this.encryptionManager.verifyProof(cipherText, proof);
@@ -87,13 +81,11 @@ public class EncryptionController {
     public ResponseEntity verifySumProof(@RequestBody VerifySumProofRequest proofRequest) {
         logger.info("Received request to verify sum proof.");
 
-        CipherText cipherText = CipherTextSerializer.fromString(proofRequest.getCiphertext());
-        MembershipProof proof = MembershipProofSerializer.fromString(proofRequest.getProof());
+        VoteCipherText cipherText = this.encryptionManager.deserializeCiphertext(proofRequest.getCiphertext());
+        VoteProof proof = this.encryptionManager.deserializeMembershipProof(proofRequest.getProof());
 
         try {
-            List<ModInteger> sumDomain = new ArrayList<>();
-            sumDomain.add(new ModInteger(proofRequest.getSum()));
-            boolean isProven = this.encryptionManager.verifySumProof(cipherText, proof, sumDomain);
+            boolean isProven = this.encryptionManager.verifySumProof(cipherText, proof, proofRequest.getSum());
 
             if (isProven) {
                 return ResponseEntity.status(HttpStatus.OK).body(null);
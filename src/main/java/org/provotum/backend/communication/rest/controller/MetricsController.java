@@ -0,0 +1,27 @@
+package org.provotum.backend.communication.rest.controller;
+
+import org.provotum.backend.metrics.MetricsExporter;
+import org.provotum.backend.metrics.PrometheusWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes runtime statistics in the Prometheus text format.
+ */
+@RestController
+public class MetricsController {
+
+    private MetricsExporter metricsExporter;
+
+    @Autowired
+    public MetricsController(MetricsExporter metricsExporter) {
+        this.metricsExporter = metricsExporter;
+    }
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET, produces = PrometheusWriter.CONTENT_TYPE)
+    public String getMetrics() {
+        return this.metricsExporter.export();
+    }
+}
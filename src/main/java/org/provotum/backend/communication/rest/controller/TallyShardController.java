@@ -0,0 +1,101 @@
+package org.provotum.backend.communication.rest.controller;
+
+import org.provotum.backend.communication.rest.message.tally.TallyShardRequest;
+import org.provotum.backend.communication.rest.message.tally.TallyShardResponse;
+import org.provotum.backend.config.TallyConfiguration;
+import org.provotum.backend.ethereum.accessor.BallotContractAccessor;
+import org.provotum.backend.ethereum.rpc.NodeUnavailableException;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.tally.PartialTally;
+import org.provotum.backend.tally.TallyShardCoordinator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Lets this instance act as worker of a distributed tally coordinated by another instance.
+ * Shards are tallied like any other tally of this instance, i.e. in the mailbox of the ballot
+ * and subject to the bulkhead of tallies. Since a shard holds a slot of that bulkhead for a while,
+ * only coordinators knowing the shared secret may request shards, and at most of the configured size.
+ */
+@RestController
+public class TallyShardController {
+
+    private static final Logger logger = Logger.getLogger(TallyShardController.class.getName());
+
+    private BallotContractAccessor ballotContractAccessor;
+    private EncryptionManager encryptionManager;
+    private TallyConfiguration tallyConfiguration;
+
+    @Autowired
+    public TallyShardController(BallotContractAccessor ballotContractAccessor, EncryptionManager encryptionManager, TallyConfiguration tallyConfiguration) {
+        this.ballotContractAccessor = ballotContractAccessor;
+        this.encryptionManager = encryptionManager;
+        this.tallyConfiguration = tallyConfiguration;
+    }
+
+    @RequestMapping(value = TallyShardCoordinator.SHARD_PATH, method = RequestMethod.POST)
+    public ResponseEntity tallyShard(@RequestHeader(value = TallyShardCoordinator.SECRET_HEADER, required = false) String secret, @RequestBody TallyShardRequest request) {
+        logger.info("Received request to tally votes " + request.getFromIndex() + " to " + request.getToIndex() + " of ballot contract at " + request.getContractAddress());
+
+        if (! this.isSharedSecret(secret)) {
+            logger.warning("Refusing to tally shard for a coordinator without the shared secret.");
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
+
+        if (! this.encryptionManager.getPublicKeyFingerprint().equals(request.getKeyFingerprint())) {
+            logger.severe("Refusing to tally shard for a coordinator using a different election key.");
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        }
+
+        if (request.getFromIndex() < 0 || request.getToIndex() < request.getFromIndex() || request.getToIndex() - request.getFromIndex() > this.tallyConfiguration.getShardSize()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+
+        try {
+            PartialTally shard = this.ballotContractAccessor.tallyShard(request.getContractAddress(), request.getFromIndex(), request.getToIndex(), this.tallyConfiguration.getWorkerTimeout());
+
+            return ResponseEntity.status(HttpStatus.OK).body(new TallyShardResponse(
+                request.getContractAddress(),
+                shard.getStartIndex(),
+                shard.getNextIndex(),
+                shard.getSum().serialize(),
+                shard.getSum().getRandom().toString(16),
+                shard.getInvalidIndices()
+            ));
+        } catch (NodeUnavailableException e) {
+            logger.warning("Rejected tallying shard: " + e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(null);
+        } catch (Exception e) {
+            logger.severe("Failed to tally shard: " + e.getMessage());
+            e.printStackTrace();
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    /**
+     * @return True, if the given secret matches the configured one. Without a configured secret, no requests are accepted.
+     */
+    private boolean isSharedSecret(String secret) {
+        String expected = this.tallyConfiguration.getSecret();
+
+        if (null == secret || expected.isEmpty()) {
+            return false;
+        }
+
+        // compared in constant time, so that the secret cannot be guessed by timing requests
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
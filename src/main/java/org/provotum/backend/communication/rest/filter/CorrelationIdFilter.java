@@ -0,0 +1,45 @@
+package org.provotum.backend.communication.rest.filter;
+
+import org.provotum.backend.execution.CorrelationId;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Binds the correlation id of each request to the thread handling it.
+ * The id is taken from the {@link CorrelationId#HEADER} header or generated if missing or malformed,
+ * and returned in the same header, so that clients can match the responses published over the websocket.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = Logger.getLogger(CorrelationIdFilter.class.getName());
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String id = request.getHeader(CorrelationId.HEADER);
+
+        if (! CorrelationId.isValid(id)) {
+            id = CorrelationId.generate();
+        }
+
+        response.setHeader(CorrelationId.HEADER, id);
+        String previous = CorrelationId.declare(id);
+
+        try {
+            logger.fine("Received " + request.getMethod() + " " + request.getRequestURI());
+            filterChain.doFilter(request, response);
+        } finally {
+            CorrelationId.restore(previous);
+        }
+    }
+}
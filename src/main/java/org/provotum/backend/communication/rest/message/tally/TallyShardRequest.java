@@ -0,0 +1,34 @@
+package org.provotum.backend.communication.rest.message.tally;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class TallyShardRequest {
+
+    private String contractAddress;
+    private long fromIndex;
+    private long toIndex;
+    private String keyFingerprint;
+
+    public TallyShardRequest(@JsonProperty("contractAddress") String contractAddress, @JsonProperty("fromIndex") long fromIndex, @JsonProperty("toIndex") long toIndex, @JsonProperty("keyFingerprint") String keyFingerprint) {
+        this.contractAddress = contractAddress;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.keyFingerprint = keyFingerprint;
+    }
+
+    public String getContractAddress() {
+        return contractAddress;
+    }
+
+    public long getFromIndex() {
+        return fromIndex;
+    }
+
+    public long getToIndex() {
+        return toIndex;
+    }
+
+    public String getKeyFingerprint() {
+        return keyFingerprint;
+    }
+}
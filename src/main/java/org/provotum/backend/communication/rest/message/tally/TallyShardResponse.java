@@ -0,0 +1,54 @@
+package org.provotum.backend.communication.rest.message.tally;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class TallyShardResponse {
+
+    private String contractAddress;
+    private long fromIndex;
+    private long toIndex;
+    private String ciphertext;
+    private String random;
+    private List<Long> invalid;
+
+    public TallyShardResponse(@JsonProperty("contractAddress") String contractAddress, @JsonProperty("fromIndex") long fromIndex, @JsonProperty("toIndex") long toIndex, @JsonProperty("ciphertext") String ciphertext, @JsonProperty("random") String random, @JsonProperty("invalid") List<Long> invalid) {
+        this.contractAddress = contractAddress;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.ciphertext = ciphertext;
+        this.random = random;
+        this.invalid = invalid;
+    }
+
+    public String getContractAddress() {
+        return contractAddress;
+    }
+
+    public long getFromIndex() {
+        return fromIndex;
+    }
+
+    public long getToIndex() {
+        return toIndex;
+    }
+
+    public String getCiphertext() {
+        return ciphertext;
+    }
+
+    /**
+     * @return The hex encoded random value of the ciphertext.
+     */
+    public String getRandom() {
+        return random;
+    }
+
+    /**
+     * @return The indices of the votes with an invalid proof.
+     */
+    public List<Long> getInvalid() {
+        return invalid;
+    }
+}
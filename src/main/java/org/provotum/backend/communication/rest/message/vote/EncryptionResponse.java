@@ -1,8 +1,7 @@
 package org.provotum.backend.communication.rest.message.vote;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-
-import javax.xml.bind.DatatypeConverter;
+import org.bouncycastle.util.encoders.Hex;
 
 public class EncryptionResponse {
 
@@ -25,6 +24,6 @@ public class EncryptionResponse {
     }
 
     public String getRandom() {
-        return "0x" + DatatypeConverter.printHexBinary(this.random);
+        return "0x" + Hex.toHexString(this.random).toUpperCase();
     }
 }
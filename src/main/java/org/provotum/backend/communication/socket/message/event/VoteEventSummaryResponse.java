@@ -0,0 +1,48 @@
+package org.provotum.backend.communication.socket.message.event;
+
+import org.provotum.backend.communication.message.base.AResponse;
+import org.provotum.backend.communication.message.base.ResponseType;
+import org.provotum.backend.communication.message.base.Status;
+
+import java.util.List;
+
+/**
+ * Summarizes a burst of vote events, which were merged before being published.
+ */
+public class VoteEventSummaryResponse extends AResponse {
+
+    private int accepted;
+    private int rejected;
+    private List<String> senderAddresses;
+    private final ResponseType responseType = ResponseType.VOTE_EVENT_SUMMARY;
+
+    public VoteEventSummaryResponse(String id, Status status, String message, int accepted, int rejected, List<String> senderAddresses) {
+        super(id, status, message);
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.senderAddresses = senderAddresses;
+    }
+
+    public VoteEventSummaryResponse(Status status, String message, int accepted, int rejected, List<String> senderAddresses) {
+        super(status, message);
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.senderAddresses = senderAddresses;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<String> getSenderAddresses() {
+        return senderAddresses;
+    }
+
+    public ResponseType getResponseType() {
+        return responseType;
+    }
+}
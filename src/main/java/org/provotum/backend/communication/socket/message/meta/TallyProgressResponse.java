@@ -0,0 +1,61 @@
+package org.provotum.backend.communication.socket.message.meta;
+
+import org.provotum.backend.communication.message.base.AResponse;
+import org.provotum.backend.communication.message.base.ResponseType;
+import org.provotum.backend.communication.message.base.Status;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TallyProgressResponse extends AResponse {
+
+    private String job;
+    private String contract;
+    private String state;
+    private Map<String, Long> progress = new HashMap<>();
+    private final ResponseType responseType = ResponseType.TALLY_PROGRESS_EVENT;
+
+    public TallyProgressResponse(String id, Status status, String message, String job, String contract, String state, long total, long fetched, long verified, long invalid, long eta) {
+        super(id, status, message);
+
+        this.init(job, contract, state, total, fetched, verified, invalid, eta);
+    }
+
+    public TallyProgressResponse(Status status, String message, String job, String contract, String state, long total, long fetched, long verified, long invalid, long eta) {
+        super(status, message);
+
+        this.init(job, contract, state, total, fetched, verified, invalid, eta);
+    }
+
+    private void init(String job, String contract, String state, long total, long fetched, long verified, long invalid, long eta) {
+        this.job = job;
+        this.contract = contract;
+        this.state = state;
+
+        progress.put("total", total);
+        progress.put("fetched", fetched);
+        progress.put("verified", verified);
+        progress.put("invalid", invalid);
+        progress.put("eta", eta);
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public String getContract() {
+        return contract;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public Map<String, Long> getProgress() {
+        return progress;
+    }
+
+    public ResponseType getResponseType() {
+        return responseType;
+    }
+}
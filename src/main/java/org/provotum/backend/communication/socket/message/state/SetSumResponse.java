@@ -0,0 +1,29 @@
+package org.provotum.backend.communication.socket.message.state;
+
+import org.provotum.backend.communication.message.base.AResponse;
+import org.provotum.backend.communication.message.base.ResponseType;
+import org.provotum.backend.communication.message.base.Status;
+
+public class SetSumResponse extends AResponse {
+
+    private String transaction;
+    private final ResponseType responseType = ResponseType.SET_SUM;
+
+    public SetSumResponse(String id, Status status, String message, String transaction) {
+        super(id, status, message);
+        this.transaction = transaction;
+    }
+
+    public SetSumResponse(Status status, String message, String transaction) {
+        super(status, message);
+        this.transaction = transaction;
+    }
+
+    public String getTransaction() {
+        return transaction;
+    }
+
+    public ResponseType getResponseType() {
+        return responseType;
+    }
+}
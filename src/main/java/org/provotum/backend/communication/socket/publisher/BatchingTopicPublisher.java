@@ -0,0 +1,225 @@
+package org.provotum.backend.communication.socket.publisher;
+
+import org.provotum.backend.communication.message.base.AResponse;
+import org.provotum.backend.communication.message.base.Status;
+import org.provotum.backend.communication.socket.message.event.VoteEventResponse;
+import org.provotum.backend.communication.socket.message.event.VoteEventSummaryResponse;
+import org.provotum.backend.execution.NamedThreadFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Publishes responses asynchronously, so that callers like the handlers of contract events
+ * never wait on websocket delivery: responses are queued and sent in an interval as one
+ * array frame per topic.
+ * <p>
+ * While the queue is full, contract events are dropped. Any other response, e.g. of a deployment,
+ * a removal or a tally, waits briefly for the queue. If it is still full, the queued responses
+ * are sent on the calling thread, followed by the response itself.
+ * <p>
+ * If enabled, consecutive vote events of a topic are merged into one {@link VoteEventSummaryResponse}.
+ */
+public class BatchingTopicPublisher extends TopicPublisher {
+
+    private static final Logger logger = Logger.getLogger(BatchingTopicPublisher.class.getName());
+
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    /**
+     * The time in milliseconds a response which must not be dropped waits for the queue.
+     */
+    private static final long OFFER_TIMEOUT = 100;
+
+    private final BlockingQueue<Pending> queue;
+    private final boolean isCoalescingVotes;
+    private final ScheduledExecutorService flusher;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong droppedSinceFlush = new AtomicLong();
+
+    /**
+     * @param messageTemplate   The template to send frames with.
+     * @param intervalMillis    The interval in milliseconds in which queued responses are sent.
+     * @param queueCapacity     The maximum number of queued responses.
+     * @param isCoalescingVotes Whether to merge consecutive vote events into a summary.
+     */
+    public BatchingTopicPublisher(SimpMessagingTemplate messageTemplate, long intervalMillis, int queueCapacity, boolean isCoalescingVotes) {
+        super(messageTemplate);
+
+        if (intervalMillis <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Interval and queue capacity must be positive. Got " + intervalMillis + " and " + queueCapacity);
+        }
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.isCoalescingVotes = isCoalescingVotes;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("publisher"));
+        this.flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void send(String topic, AResponse response) {
+        logger.fine("Queueing response with id " + response.getId() + " for topic " + topic);
+
+        Pending pending = new Pending(topic, response);
+
+        if (this.queue.offer(pending)) {
+            return;
+        }
+
+        if (EVENT_TOPIC.equals(topic)) {
+            this.dropped.increment();
+            this.droppedSinceFlush.incrementAndGet();
+
+            return;
+        }
+
+        try {
+            if (this.queue.offer(pending, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.flushAndDeliver(pending);
+    }
+
+    @Override
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Stops sending in the interval and sends the responses queued so far.
+     */
+    @Override
+    public void shutdown() {
+        this.flusher.shutdown();
+
+        try {
+            if (! this.flusher.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                logger.warning("Publisher did not finish sending within " + SHUTDOWN_TIMEOUT + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.flush();
+    }
+
+    /**
+     * Send the queued responses and then the given one, bypassing the queue.
+     */
+    private synchronized void flushAndDeliver(Pending pending) {
+        logger.warning("Sending response with id " + pending.response.getId() + " to topic " + pending.topic + " on the calling thread as the queue of the publisher is full");
+
+        this.flush();
+
+        try {
+            this.deliver(pending.topic, Collections.singletonList(pending.response), 1);
+        } catch (RuntimeException e) {
+            logger.severe("Failed to send response to topic " + pending.topic + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void flush() {
+        long droppedCount = this.droppedSinceFlush.getAndSet(0);
+        if (droppedCount > 0) {
+            logger.warning("Dropped " + droppedCount + " responses as the queue of the publisher was full");
+        }
+
+        List<Pending> pending = new ArrayList<>(this.queue.size());
+        this.queue.drainTo(pending);
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // keep the order of topics and of responses within a topic
+        Map<String, List<AResponse>> batches = new LinkedHashMap<>();
+        for (Pending entry : pending) {
+            batches.computeIfAbsent(entry.topic, key -> new ArrayList<>()).add(entry.response);
+        }
+
+        for (Map.Entry<String, List<AResponse>> batch : batches.entrySet()) {
+            List<AResponse> responses = batch.getValue();
+            List<AResponse> frame = this.isCoalescingVotes ? coalesceVotes(responses) : responses;
+
+            try {
+                this.deliver(batch.getKey(), frame, responses.size());
+            } catch (RuntimeException e) {
+                // must not end the flusher, the next batch may succeed
+                logger.severe("Failed to send " + responses.size() + " responses to topic " + batch.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return The given responses, with runs of at least two vote events replaced by a summary of each run.
+     * A summary is successful if at least one of its votes was accepted.
+     */
+    private static List<AResponse> coalesceVotes(List<AResponse> responses) {
+        List<AResponse> coalesced = new ArrayList<>(responses.size());
+        List<VoteEventResponse> run = new ArrayList<>();
+
+        for (AResponse response : responses) {
+            if (response instanceof VoteEventResponse) {
+                run.add((VoteEventResponse) response);
+                continue;
+            }
+
+            addRun(coalesced, run);
+            coalesced.add(response);
+        }
+
+        addRun(coalesced, run);
+
+        return coalesced;
+    }
+
+    private static void addRun(List<AResponse> coalesced, List<VoteEventResponse> run) {
+        if (run.size() == 1) {
+            coalesced.add(run.get(0));
+        } else if (run.size() > 1) {
+            int accepted = 0;
+            List<String> senderAddresses = new ArrayList<>(run.size());
+
+            for (VoteEventResponse voteEvent : run) {
+                if (Status.SUCCESS == voteEvent.getStatus()) {
+                    accepted++;
+                }
+
+                senderAddresses.add(voteEvent.getSenderAddress());
+            }
+
+            Status status = (accepted > 0) ? Status.SUCCESS : Status.ERROR;
+
+            coalesced.add(new VoteEventSummaryResponse(status, run.size() + " vote events, " + accepted + " accepted", accepted, run.size() - accepted, senderAddresses));
+        }
+
+        run.clear();
+    }
+
+    private static class Pending {
+
+        private final String topic;
+        private final AResponse response;
+
+        private Pending(String topic, AResponse response) {
+            this.topic = topic;
+            this.response = response;
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package org.provotum.backend.communication.socket.publisher;
 
 import org.provotum.backend.communication.message.base.AResponse;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
-@Component
+/**
+ * Publishes responses to the STOMP topics, synchronously on the calling thread.
+ */
 public class TopicPublisher {
 
     public static final String DEPLOYMENT_TOPIC = "/topic/deployments";
@@ -19,15 +24,48 @@ public class TopicPublisher {
 
     private static final Logger logger = Logger.getLogger(TopicPublisher.class.getName());
     private final SimpMessagingTemplate messageTemplate;
+    private final ConcurrentMap<String, LongAdder> published = new ConcurrentHashMap<>();
 
-    @Autowired
     public TopicPublisher(SimpMessagingTemplate messageTemplate) {
         this.messageTemplate = messageTemplate;
     }
 
     public void send(String topic, AResponse response) {
-        logger.info("Sending response with id " + response.getId() + " to topic " + topic);
-        this.messageTemplate.convertAndSend(topic, response);
+        // logged at fine level, as every vote event is published
+        logger.fine("Sending response with id " + response.getId() + " to topic " + topic);
+        this.deliver(topic, response, 1);
     }
 
+    /**
+     * @return The number of messages sent by topic.
+     */
+    public Map<String, Long> getPublished() {
+        Map<String, Long> counts = new TreeMap<>();
+        this.published.forEach((topic, count) -> counts.put(topic, count.sum()));
+
+        return counts;
+    }
+
+    /**
+     * @return The number of messages which were not sent because the publisher was overloaded.
+     */
+    public long getDropped() {
+        return 0;
+    }
+
+    /**
+     * Sends all pending messages. Messages are sent right away, so there are none.
+     */
+    public void shutdown() {
+    }
+
+    /**
+     * @param topic    The topic to send to.
+     * @param payload  The frame to send.
+     * @param messages The number of messages in the frame.
+     */
+    protected void deliver(String topic, Object payload, int messages) {
+        this.messageTemplate.convertAndSend(topic, payload);
+        this.published.computeIfAbsent(topic, key -> new LongAdder()).add(messages);
+    }
 }
@@ -1,5 +1,7 @@
 package org.provotum.backend.config;
 
+import org.provotum.backend.timer.EvaluationLogWriter;
+import org.provotum.backend.timer.EvaluationTimer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,9 +24,31 @@ public class EvaluationConfiguration {
     @Value("${evaluation.output}")
     private String evaluationOutput;
 
+    @Value("${evaluation.format:text}")
+    private String evaluationFormat;
+
+    @Value("${evaluation.buffer:65536}")
+    private int evaluationBuffer;
+
+    @Bean(destroyMethod = "shutdown")
+    public EvaluationTimer evaluationTimer() throws IOException {
+        return new EvaluationTimer(new EvaluationLogWriter(this.getOutputFile(), this.getFormat(), this.evaluationBuffer));
+    }
+
+    public EvaluationLogWriter.Format getFormat() {
+        switch (this.evaluationFormat) {
+            case "text":
+                return EvaluationLogWriter.Format.TEXT;
+            case "binary":
+                return EvaluationLogWriter.Format.BINARY;
+            default:
+                throw new IllegalArgumentException("Unknown evaluation format " + this.evaluationFormat + ". Expected text or binary.");
+        }
+    }
 
     public File getOutputFile() throws IOException {
-        File outputFile = new File(this.evaluationOutput + "-" + Instant.now().getEpochSecond() + ".log");
+        String extension = (EvaluationLogWriter.Format.BINARY == this.getFormat()) ? ".bin" : ".log";
+        File outputFile = new File(this.evaluationOutput + "-" + Instant.now().getEpochSecond() + extension);
 
         if (outputFile.isDirectory()) {
             throw new IllegalArgumentException("Evaluation timer file is a directory " + outputFile.getAbsolutePath());
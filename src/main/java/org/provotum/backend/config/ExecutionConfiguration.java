@@ -0,0 +1,58 @@
+package org.provotum.backend.config;
+
+import org.provotum.backend.execution.ExecutionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+@Configuration
+@PropertySource("classpath:provotum-backend.properties")
+public class ExecutionConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    @Value("${execution.io.threads:32}")
+    private int ioThreads;
+
+    @Value("${execution.io.queue:256}")
+    private int ioQueueSize;
+
+    @Value("${execution.cpu.threads:0}")
+    private int cpuThreads;
+
+    @Value("${execution.cpu.queue:1024}")
+    private int cpuQueueSize;
+
+    @Value("${execution.event.threads:2}")
+    private int eventThreads;
+
+    @Value("${execution.mailbox.capacity:16}")
+    private int mailboxCapacity;
+
+    @Value("${execution.shutdown.timeout:30000}")
+    private long shutdownTimeout;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutionManager executionManager() {
+        int cpuThreads = this.cpuThreads;
+
+        if (cpuThreads <= 0) {
+            cpuThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        return new ExecutionManager(
+            this.ioThreads,
+            this.ioQueueSize,
+            cpuThreads,
+            this.cpuQueueSize,
+            this.eventThreads,
+            this.mailboxCapacity,
+            this.shutdownTimeout
+        );
+    }
+}
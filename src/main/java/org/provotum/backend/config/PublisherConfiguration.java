@@ -0,0 +1,52 @@
+package org.provotum.backend.config;
+
+import org.provotum.backend.communication.socket.publisher.BatchingTopicPublisher;
+import org.provotum.backend.communication.socket.publisher.TopicPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.logging.Logger;
+
+@Configuration
+@PropertySource("classpath:provotum-backend.properties")
+public class PublisherConfiguration {
+
+    private static final Logger logger = Logger.getLogger(PublisherConfiguration.class.getName());
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    @Value("${websocket.batch.interval:0}")
+    private long batchInterval;
+
+    @Value("${websocket.batch.queue:10000}")
+    private int batchQueueSize;
+
+    @Value("${websocket.batch.coalesce:false}")
+    private boolean isCoalescingVotes;
+
+    /**
+     * Creates the publisher sending responses to the STOMP topics. By default, every response is sent
+     * as its own frame right away. If a batch interval is configured, responses are queued and sent
+     * as one array frame per topic in that interval instead.
+     *
+     * @param messageTemplate The template of the message broker.
+     * @return The publisher.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public TopicPublisher topicPublisher(SimpMessagingTemplate messageTemplate) {
+        if (this.batchInterval <= 0) {
+            return new TopicPublisher(messageTemplate);
+        }
+
+        logger.info("Publishing responses in batches every " + this.batchInterval + "ms" + (this.isCoalescingVotes ? ", merging vote events" : ""));
+
+        return new BatchingTopicPublisher(messageTemplate, this.batchInterval, this.batchQueueSize, this.isCoalescingVotes);
+    }
+}
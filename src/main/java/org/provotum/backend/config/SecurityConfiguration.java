@@ -1,14 +1,10 @@
 package org.provotum.backend.config;
 
-import org.bouncycastle.crypto.generators.ElGamalParametersGenerator;
-import org.bouncycastle.crypto.params.ElGamalParameters;
-import org.bouncycastle.jce.interfaces.ElGamalPrivateKey;
-import org.bouncycastle.jce.interfaces.ElGamalPublicKey;
-import org.bouncycastle.jce.spec.ElGamalParameterSpec;
+import org.provotum.backend.security.VerificationCache;
+import org.provotum.backend.security.engine.EcElGamalEngine;
+import org.provotum.backend.security.engine.ElGamalEngine;
+import org.provotum.backend.security.engine.EncryptionEngine;
 import org.provotum.backend.timer.EvaluationTimer;
-import org.provotum.security.elgamal.PrivateKey;
-import org.provotum.security.elgamal.PublicKey;
-import org.provotum.security.serializer.KeyPairSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -27,7 +23,6 @@ import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
-import java.util.UUID;
 import java.util.logging.Logger;
 
 @Configuration
@@ -37,7 +32,6 @@ public class SecurityConfiguration {
     private static final Logger logger = Logger.getLogger(SecurityConfiguration.class.getName());
 
     private static final int RSA_KEY_LENGTH = 1024;
-    private static final int EL_GAMAL_KEY_LENGTH = 160;
 
     @Bean
     public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
@@ -56,10 +50,25 @@ public class SecurityConfiguration {
     @Value("${security.output.rsaprivatekey}")
     private String rsaPrivateKeyPairStoragePath;
 
-    EvaluationTimer timer;
+    @Value("${security.cache.size:100000}")
+    private int verificationCacheSize;
+
+    @Value("${security.cache.file:}")
+    private String verificationCacheFile;
+
+    @Value("${security.engine:elgamal}")
+    private String engineName;
+
+    @Value("${security.elgamal.bits:160}")
+    private int elGamalKeyLength;
 
-    private PublicKey publicKey;
-    private PrivateKey privateKey;
+    @Value("${security.ec.curve:secp256r1}")
+    private String curveName;
+
+    @Value("${security.ec.maxsum:10000000}")
+    private long maxSum;
+
+    EvaluationTimer timer;
 
     private RSAPublicKey rsaPublicKey;
     private RSAPrivateKey rsaPrivateKey;
@@ -69,7 +78,37 @@ public class SecurityConfiguration {
         this.timer = timer;
     }
 
-    public void initializeKeys() throws InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException, InvalidKeySpecException {
+    /**
+     * Creates the engine used to encrypt, prove and tally votes:
+     * <ul>
+     * <li><code>elgamal</code>: ElGamal over a prime field with a prime of <code>security.elgamal.bits</code> bits</li>
+     * <li><code>ec-elgamal</code>: ElGamal over the elliptic curve <code>security.ec.curve</code></li>
+     * </ul>
+     *
+     * @return The engine.
+     */
+    @Bean
+    public EncryptionEngine encryptionEngine() {
+        logger.info("Using " + this.engineName + " to encrypt votes");
+
+        switch (this.engineName) {
+            case ElGamalEngine.NAME:
+                return new ElGamalEngine(this.elGamalKeyLength);
+            case EcElGamalEngine.NAME:
+                return new EcElGamalEngine(this.curveName, this.maxSum);
+            default:
+                throw new IllegalArgumentException("The encryption engine must be one of " + ElGamalEngine.NAME + " or " + EcElGamalEngine.NAME + ". Got " + this.engineName);
+        }
+    }
+
+    @Bean(destroyMethod = "persist")
+    public VerificationCache verificationCache() {
+        File file = this.verificationCacheFile.isEmpty() ? null : new File(this.verificationCacheFile);
+
+        return new VerificationCache(this.verificationCacheSize, file);
+    }
+
+    public void initializeKeys() throws NoSuchAlgorithmException, IOException, InvalidKeySpecException {
         if (null == this.publicKeyStoragePath) {
             throw new IllegalArgumentException("Missing or invalid configuration for security.output.election-publickey");
         }
@@ -86,6 +125,8 @@ public class SecurityConfiguration {
             throw new IllegalArgumentException("Missing or invalid configuration for security.output.rsa-privatekey");
         }
 
+        EncryptionEngine engine = this.encryptionEngine();
+
         File publicKeyFile = new File(this.publicKeyStoragePath);
         File privateKeyFile = new File(this.privateKeyStoragePath);
         File rsaPublicKeyFile = new File(this.rsaPublicKeyPairStoragePath);
@@ -98,13 +139,13 @@ public class SecurityConfiguration {
             byte[] publicKeyData = new byte[(int) publicKeyFile.length()];
             publicKeyInput.read(publicKeyData);
             publicKeyInput.close();
-            this.publicKey = KeyPairSerializer.publicKeyFromString(new String(publicKeyData, StandardCharsets.UTF_8));
 
             FileInputStream privateKeyInput = new FileInputStream(privateKeyFile);
             byte[] data = new byte[(int) privateKeyFile.length()];
             privateKeyInput.read(data);
             privateKeyInput.close();
-            this.privateKey = KeyPairSerializer.privateKeyFromString(new String(data, StandardCharsets.UTF_8));
+
+            engine.loadKeys(new String(publicKeyData, StandardCharsets.UTF_8), new String(data, StandardCharsets.UTF_8));
 
             logger.info("Reading RSA keypair from storage...");
 
@@ -125,43 +166,26 @@ public class SecurityConfiguration {
             this.rsaPrivateKey = (RSAPrivateKey) pkf.generatePrivate(privateKeySpec);
         } else {
             logger.info("Generating voting election keypair.");
-            UUID uuid = timer.start();
-            ElGamalParametersGenerator generator = new ElGamalParametersGenerator();
-            generator.init(EL_GAMAL_KEY_LENGTH, 20, new SecureRandom());
-            ElGamalParameters parameters = generator.generateParameters();
-
-            ElGamalParameterSpec elGamalParameterSpec = new ElGamalParameterSpec(parameters.getP(), parameters.getG());
-
-            KeyPairGeneratorSpi keyPairGeneratorSpi = new org.bouncycastle.jcajce.provider.asymmetric.elgamal.KeyPairGeneratorSpi();
-            keyPairGeneratorSpi.initialize(elGamalParameterSpec, new SecureRandom());
-
-            KeyPair keyPair = keyPairGeneratorSpi.generateKeyPair();
-
-            EvaluationTimer.Duration duration = timer.end(uuid);
-            timer.logDuration(EvaluationTimer.LogCategory.KEY_GENERATION_EL_GAMAL, duration);
+            long start = timer.start();
+            engine.generateKeys();
+            timer.stop(EvaluationTimer.LogCategory.KEY_GENERATION_EL_GAMAL, start);
 
             logger.info("Generated voting election keypair.");
 
-            ElGamalPublicKey pubKey = (ElGamalPublicKey) keyPair.getPublic();
-            ElGamalPrivateKey privKey = (ElGamalPrivateKey) keyPair.getPrivate();
-
-            this.publicKey = new PublicKey(pubKey);
-            this.privateKey = new PrivateKey(privKey);
-
             logger.info("Writing election key pair...");
 
             FileOutputStream publicKeyOutput = new FileOutputStream(publicKeyFile);
-            publicKeyOutput.write(KeyPairSerializer.serializePublicKey(this.publicKey).getBytes(StandardCharsets.UTF_8));
+            publicKeyOutput.write(engine.serializePublicKey().getBytes(StandardCharsets.UTF_8));
             publicKeyOutput.flush();
             publicKeyOutput.close();
 
             FileOutputStream privateKeyOutput = new FileOutputStream(privateKeyFile);
-            privateKeyOutput.write(KeyPairSerializer.serializePrivateKey(this.privateKey).getBytes(StandardCharsets.UTF_8));
+            privateKeyOutput.write(engine.serializePrivateKey().getBytes(StandardCharsets.UTF_8));
             privateKeyOutput.flush();
             privateKeyOutput.close();
 
             logger.info("Generating RSA encryption keypair.");
-            uuid = timer.start();
+            start = timer.start();
             KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
             keyGen.initialize(RSA_KEY_LENGTH);
             KeyPair rsaKeyPair = keyGen.generateKeyPair();
@@ -183,18 +207,12 @@ public class SecurityConfiguration {
             rsaPrivateOutput.flush();
             rsaPrivateOutput.close();
 
-            duration = timer.end(uuid);
-            timer.logDuration(EvaluationTimer.LogCategory.KEY_GENERATION_RSA, duration);
+            timer.stop(EvaluationTimer.LogCategory.KEY_GENERATION_RSA, start);
             logger.info("Generated RSA encryption keypair.");
         }
-    }
-
-    public PublicKey getPublicKey() {
-        return this.publicKey;
-    }
 
-    public PrivateKey getPrivateKey() {
-        return this.privateKey;
+        // remembered verification results are only trusted if written with the same key
+        this.verificationCache().load(this.rsaPrivateKey.getEncoded());
     }
 
     public KeyPair getRsaKeyPair() {
@@ -0,0 +1,161 @@
+package org.provotum.backend.config;
+
+import org.provotum.backend.communication.socket.publisher.TopicPublisher;
+import org.provotum.backend.execution.ExecutionManager;
+import org.provotum.backend.tally.TallyCheckpointStore;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.tally.BackgroundVerifier;
+import org.provotum.backend.tally.TallyJobManager;
+import org.provotum.backend.tally.TallyShardCoordinator;
+import org.provotum.backend.tally.VoteFetcher;
+import org.provotum.backend.tally.VoteLogScanner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.web3j.protocol.Web3j;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+@Configuration
+@PropertySource("classpath:provotum-backend.properties")
+public class TallyConfiguration {
+
+    private static final Logger logger = Logger.getLogger(TallyConfiguration.class.getName());
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    @Value("${tally.progress.interval:2000}")
+    private long progressInterval;
+
+    @Value("${tally.jobs.retention:3600000}")
+    private long jobRetention;
+
+    @Value("${tally.checkpoint.directory:checkpoints}")
+    private String checkpointDirectory;
+
+    @Value("${tally.checkpoint.interval:1000}")
+    private long checkpointInterval;
+
+    @Bean
+    public TallyCheckpointStore tallyCheckpointStore() {
+        return new TallyCheckpointStore(new File(this.checkpointDirectory), this.checkpointInterval);
+    }
+
+    @Value("${tally.workers:}")
+    private String workers;
+
+    @Value("${tally.shard.size:1000}")
+    private long shardSize;
+
+    @Value("${tally.worker.timeout:600000}")
+    private int workerTimeout;
+
+    @Value("${tally.secret:}")
+    private String secret;
+
+    /**
+     * @return The maximum number of votes per shard, which is also the most this instance tallies at once as worker.
+     */
+    public long getShardSize() {
+        return this.shardSize;
+    }
+
+    /**
+     * @return The secret shared by the coordinator and the workers of a tally, empty if not configured.
+     */
+    public String getSecret() {
+        return this.secret;
+    }
+
+    /**
+     * @return How many milliseconds a worker may take to tally a shard, which is also how long this instance takes at most as worker.
+     */
+    public int getWorkerTimeout() {
+        return this.workerTimeout;
+    }
+
+    @Value("${tally.background.interval:10000}")
+    private long backgroundInterval;
+
+    @Value("${tally.background.batch:500}")
+    private long backgroundBatchSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public BackgroundVerifier backgroundVerifier(ExecutionManager executionManager) {
+        return new BackgroundVerifier(executionManager.getEventExecutor(), this.backgroundInterval, this.backgroundBatchSize);
+    }
+
+    @Value("${tally.page.size:32}")
+    private int pageSize;
+
+    @Value("${tally.ingestion:storage}")
+    private String ingestion;
+
+    @Value("${tally.logs.blocks:5000}")
+    private long logBlockRange;
+
+    @Bean
+    public VoteFetcher voteFetcher(ExecutionManager executionManager, Web3j web3j) {
+        VoteLogScanner logScanner;
+
+        switch (this.ingestion) {
+            case "storage":
+                logScanner = null;
+                break;
+            case "logs":
+                logScanner = new VoteLogScanner(web3j, this.logBlockRange);
+                break;
+            default:
+                throw new IllegalArgumentException("Vote ingestion must be one of storage or logs. Got " + this.ingestion);
+        }
+
+        logger.info("Reading votes for tallies from " + this.ingestion);
+
+        return new VoteFetcher(executionManager.getIoExecutor(), this.pageSize, logScanner);
+    }
+
+    @Bean
+    public TallyShardCoordinator tallyShardCoordinator(ExecutionManager executionManager, EncryptionManager encryptionManager) {
+        List<String> workerUrls = new ArrayList<>();
+
+        for (String worker : this.workers.split(",")) {
+            if (! worker.trim().isEmpty()) {
+                // strip trailing slashes so that the path can be appended
+                workerUrls.add(worker.trim().replaceAll("/+$", ""));
+            }
+        }
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(this.workerTimeout);
+        requestFactory.setReadTimeout(this.workerTimeout);
+
+        return new TallyShardCoordinator(
+            new RestTemplate(requestFactory),
+            workerUrls,
+            this.shardSize,
+            executionManager.getIoExecutor(),
+            encryptionManager,
+            this.secret
+        );
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public TallyJobManager tallyJobManager(TopicPublisher topicPublisher, ExecutionManager executionManager) {
+        return new TallyJobManager(
+            topicPublisher,
+            executionManager.getEventExecutor(),
+            this.progressInterval,
+            this.jobRetention
+        );
+    }
+}
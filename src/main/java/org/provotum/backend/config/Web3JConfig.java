@@ -1,13 +1,34 @@
 package org.provotum.backend.config;
 
+import org.provotum.backend.ethereum.base.ContractEvents;
+import org.provotum.backend.ethereum.memory.InMemoryWeb3jService;
+import org.provotum.backend.ethereum.rpc.AdaptiveConcurrencyLimiter;
+import org.provotum.backend.ethereum.rpc.CircuitBreaker;
+import org.provotum.backend.ethereum.rpc.CircuitBreakingWeb3jService;
+import org.provotum.backend.ethereum.rpc.LimitedWeb3jService;
+import org.provotum.backend.ethereum.rpc.MeasuredWeb3jService;
+import org.provotum.backend.ethereum.rpc.NodeGuard;
+import org.provotum.backend.ethereum.rpc.OperationClass;
+import org.provotum.backend.ethereum.rpc.RecordingHttpService;
+import org.provotum.backend.ethereum.rpc.ReplayWeb3jService;
+import org.provotum.backend.ethereum.rpc.RpcMetrics;
+import org.provotum.backend.execution.ExecutionManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
 import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.ipc.UnixIpcService;
+import org.web3j.protocol.ipc.WindowsIpcService;
+import org.web3j.protocol.websocket.WebSocketService;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 @Configuration
@@ -16,6 +37,21 @@ public class Web3JConfig {
 
     private static final Logger logger = Logger.getLogger(Web3JConfig.class.getName());
 
+    private static final String IPC_SCHEME = "ipc://";
+
+    /**
+     * The interval in milliseconds in which filters are polled over HTTP.
+     * Equals the block time Web3J uses by default.
+     */
+    private static final long HTTP_POLLING_INTERVAL = 15000;
+
+    /**
+     * The interval in milliseconds in which filters are polled over a persistent
+     * IPC or WebSocket connection. Since these requests neither open a new
+     * connection nor leave the host, we can afford to ask much more often.
+     */
+    private static final long SOCKET_POLLING_INTERVAL = 500;
+
     @Bean
     public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
         return new PropertySourcesPlaceholderConfigurer();
@@ -24,14 +60,190 @@ public class Web3JConfig {
     @Value("${ethereum.web3j.rpchost}")
     private String rpcHost;
 
+    @Value("${ethereum.web3j.pollinginterval:-1}")
+    private long pollingInterval;
+
+    @Value("${ethereum.rpc.limit.initial:10}")
+    private int initialConcurrencyLimit;
+
+    @Value("${ethereum.rpc.limit.min:1}")
+    private int minConcurrencyLimit;
+
+    @Value("${ethereum.rpc.limit.max:200}")
+    private int maxConcurrencyLimit;
+
+    @Value("${ethereum.rpc.queue.size:1000}")
+    private int maxQueueSize;
+
+    @Value("${ethereum.rpc.queue.timeout:60000}")
+    private long maxQueueTime;
+
+    @Value("${ethereum.rpc.record:}")
+    private String recordFile;
+
+    @Value("${ethereum.breaker.failures:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${ethereum.breaker.opentime:30000}")
+    private long breakerOpenDuration;
+
+    @Value("${ethereum.bulkhead.deploy:2}")
+    private int deployCapacity;
+
+    @Value("${ethereum.bulkhead.statechange:8}")
+    private int stateChangeCapacity;
+
+    @Value("${ethereum.bulkhead.read:32}")
+    private int readCapacity;
+
+    @Value("${ethereum.bulkhead.tally:2}")
+    private int tallyCapacity;
+
+    @Value("${ethereum.bulkhead.background:2}")
+    private int backgroundCapacity;
+
+    @Bean
+    public AdaptiveConcurrencyLimiter rpcConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter(
+            this.initialConcurrencyLimit,
+            this.minConcurrencyLimit,
+            this.maxConcurrencyLimit,
+            this.maxQueueSize,
+            this.maxQueueTime
+        );
+    }
+
+    @Bean
+    public CircuitBreaker nodeCircuitBreaker() {
+        return new CircuitBreaker(this.breakerFailureThreshold, this.breakerOpenDuration);
+    }
+
+    @Bean
+    public RpcMetrics rpcMetrics() {
+        return new RpcMetrics();
+    }
+
+    @Bean
+    public NodeGuard nodeGuard(CircuitBreaker nodeCircuitBreaker) {
+        Map<OperationClass, Integer> capacities = new EnumMap<>(OperationClass.class);
+        capacities.put(OperationClass.DEPLOY, this.deployCapacity);
+        capacities.put(OperationClass.STATE_CHANGE, this.stateChangeCapacity);
+        capacities.put(OperationClass.READ, this.readCapacity);
+        capacities.put(OperationClass.TALLY, this.tallyCapacity);
+        capacities.put(OperationClass.BACKGROUND, this.backgroundCapacity);
+
+        return new NodeGuard(nodeCircuitBreaker, capacities);
+    }
+
+    /**
+     * Creates the service over which all RPC requests are sent. Requests are admitted
+     * to the node by the given limiter and rejected right away while the circuit breaker is open.
+     * Requests reaching the node are measured by method.
+     *
+     * @param rpcConcurrencyLimiter The limiter for concurrent requests.
+     * @param nodeCircuitBreaker    The breaker tracking the health of the node.
+     * @param rpcMetrics            The metrics to record latencies and errors in.
+     * @return The service over which all RPC requests are sent.
+     * @throws IOException If the WebSocket connection could not be established or the recording could not be opened.
+     */
     @Bean
-    public Web3j web3j() {
+    public Web3jService web3jService(AdaptiveConcurrencyLimiter rpcConcurrencyLimiter, CircuitBreaker nodeCircuitBreaker, RpcMetrics rpcMetrics) throws IOException {
+        return new LimitedWeb3jService(
+            new CircuitBreakingWeb3jService(new MeasuredWeb3jService(this.createTransport(), rpcMetrics), nodeCircuitBreaker),
+            rpcConcurrencyLimiter
+        );
+    }
+
+    @Bean
+    public Web3j web3j(Web3jService web3jService, ExecutionManager executionManager) {
+        long interval = this.pollingInterval;
+
+        if (interval <= 0) {
+            interval = this.isHttpTransport() ? HTTP_POLLING_INTERVAL : SOCKET_POLLING_INTERVAL;
+        }
+
+        logger.info("Polling for new blocks and logs every " + interval + "ms");
+
+        return Web3j.build(web3jService, interval, executionManager.getEventExecutor());
+    }
+
+    /**
+     * Over a WebSocket connection, contract events are pushed by the node. Web3J 3.5.0 rejects
+     * subscriptions over IPC, so that filters are polled over any other transport.
+     *
+     * @param web3j        The connection to the Ethereum node.
+     * @param web3jService The service over which all RPC requests are sent.
+     * @return The source of contract events.
+     */
+    @Bean
+    public ContractEvents contractEvents(Web3j web3j, Web3jService web3jService) {
+        boolean isSubscribing = this.isWebSocketTransport();
+
+        logger.info(isSubscribing ? "Subscribing to contract events" : "Polling for contract events");
+
+        return new ContractEvents(web3j, web3jService, isSubscribing);
+    }
+
+    /**
+     * Creates the transport to the Ethereum node based on the scheme of the configured RPC host:
+     * <ul>
+     * <li><code>http://</code> resp. <code>https://</code>: JSON-RPC over HTTP, recorded to <code>ethereum.rpc.record</code> if set</li>
+     * <li><code>ws://</code> resp. <code>wss://</code>: JSON-RPC over a WebSocket connection</li>
+     * <li><code>ipc://</code>: JSON-RPC over the IPC socket at the given path, e.g. <code>ipc:///var/lib/geth/geth.ipc</code></li>
+     * <li><code>memory://</code>: an in-memory chain without node, e.g. <code>memory://benchmark?latency=5</code>, see {@link InMemoryWeb3jService}</li>
+     * <li><code>replay://</code>: a recording of HTTP traffic, e.g. <code>replay:///tmp/tally.rpc?scale=0.5</code>, see {@link ReplayWeb3jService}</li>
+     * </ul>
+     *
+     * @return The transport.
+     * @throws IOException If the WebSocket connection could not be established or the recording could not be opened resp. read.
+     */
+    private Web3jService createTransport() throws IOException {
         logger.info("Configuring Web3J to connect to RPC host at " + this.rpcHost);
 
-        if (! "http".equals(this.rpcHost.substring(0, 4))) {
-            throw new IllegalArgumentException("The RPC host for Web3J must start with either https or http. Got " + this.rpcHost);
+        if (this.rpcHost.startsWith("http://") || this.rpcHost.startsWith("https://")) {
+            if (! this.recordFile.isEmpty()) {
+                return new RecordingHttpService(this.rpcHost, new File(this.recordFile));
+            }
+
+            return new HttpService(this.rpcHost);
         }
 
-        return Web3j.build(new HttpService(this.rpcHost));
+        if (this.isWebSocketTransport()) {
+            WebSocketService webSocketService = new WebSocketService(this.rpcHost, false);
+            webSocketService.connect();
+
+            return webSocketService;
+        }
+
+        if (this.rpcHost.startsWith(IPC_SCHEME)) {
+            String socketPath = this.rpcHost.substring(IPC_SCHEME.length());
+
+            if (System.getProperty("os.name").toLowerCase().startsWith("windows")) {
+                return new WindowsIpcService(socketPath);
+            }
+
+            return new UnixIpcService(socketPath);
+        }
+
+        if (this.rpcHost.startsWith(InMemoryWeb3jService.SCHEME)) {
+            return InMemoryWeb3jService.fromUri(this.rpcHost);
+        }
+
+        if (this.rpcHost.startsWith(ReplayWeb3jService.SCHEME)) {
+            return ReplayWeb3jService.fromUri(this.rpcHost);
+        }
+
+        throw new IllegalArgumentException("The RPC host for Web3J must start with one of http, https, ws, wss, ipc, memory or replay. Got " + this.rpcHost);
+    }
+
+    /**
+     * @return True, if requests are sent over HTTP, which includes replaying traffic that was recorded over HTTP.
+     */
+    private boolean isHttpTransport() {
+        return this.rpcHost.startsWith("http://") || this.rpcHost.startsWith("https://") || this.rpcHost.startsWith(ReplayWeb3jService.SCHEME);
+    }
+
+    private boolean isWebSocketTransport() {
+        return this.rpcHost.startsWith("ws://") || this.rpcHost.startsWith("wss://");
     }
 }
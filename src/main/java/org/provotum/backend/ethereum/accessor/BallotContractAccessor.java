@@ -10,32 +10,63 @@ import org.provotum.backend.communication.socket.message.meta.GetResultResponse;
 import org.provotum.backend.communication.socket.message.removal.BallotRemovalResponse;
 import org.provotum.backend.communication.socket.message.state.CloseVoteEventResponse;
 import org.provotum.backend.communication.socket.message.state.OpenVoteEventResponse;
+import org.provotum.backend.communication.socket.message.state.SetSumResponse;
 import org.provotum.backend.communication.socket.publisher.TopicPublisher;
 import org.provotum.backend.config.EthereumConfiguration;
+import org.provotum.backend.ethereum.base.ContractEvents;
 import org.provotum.backend.ethereum.base.TransactionReceiptStatus;
 import org.provotum.backend.ethereum.config.BallotContractConfig;
+import org.provotum.backend.ethereum.rpc.NodeGuard;
+import org.provotum.backend.ethereum.rpc.NodeUnavailableException;
+import org.provotum.backend.ethereum.rpc.OperationClass;
+import org.provotum.backend.ethereum.rpc.RpcPriority;
 import org.provotum.backend.ethereum.wrappers.Ballot;
+import org.provotum.backend.execution.ExecutionManager;
+import org.provotum.backend.execution.KeyedSerialExecutor;
+import org.provotum.backend.profiling.Profiling;
+import org.provotum.backend.profiling.Span;
 import org.provotum.backend.security.EncryptionManager;
-import org.provotum.security.arithmetic.ModInteger;
-import org.provotum.security.elgamal.additive.CipherText;
-import org.provotum.security.elgamal.proof.noninteractive.MembershipProof;
-import org.provotum.security.serializer.CipherTextSerializer;
-import org.provotum.security.serializer.MembershipProofSerializer;
+import org.provotum.backend.security.engine.VoteCipherText;
+import org.provotum.backend.security.engine.VoteProof;
+import org.provotum.backend.tally.BackgroundVerifier;
+import org.provotum.backend.tally.PartialTally;
+import org.provotum.backend.tally.TallyCheckpoint;
+import org.provotum.backend.tally.TallyCheckpointStore;
+import org.provotum.backend.tally.TallyJob;
+import org.provotum.backend.tally.TallyJobManager;
+import org.provotum.backend.tally.TallyShardCoordinator;
+import org.provotum.backend.tally.VoteFetcher;
+import org.provotum.backend.tally.TallyJobState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Utf8String;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.tuples.generated.Tuple4;
 import rx.Observer;
 import rx.Scheduler;
-import rx.schedulers.Schedulers;
 
+import java.io.IOException;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 @Component
@@ -43,28 +74,62 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
 
     private static final Logger logger = Logger.getLogger(BallotContractAccessor.class.getName());
 
+    /**
+     * The maximum number of fetched votes waiting for their proof to be verified.
+     */
+    private static final int VERIFICATION_WINDOW = 64;
+
+    private static final Event VOTE_EVENT = new Event(
+        "VoteEvent",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {})
+    );
+
+    private static final Event CHANGE_EVENT = new Event(
+        "ChangeEvent",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {})
+    );
+
     private Web3j web3j;
+    private ContractEvents contractEvents;
     private TopicPublisher topicPublisher;
     private EthereumConfiguration ethereumConfiguration;
     private EncryptionManager encryptionManager;
+    private NodeGuard nodeGuard;
+    private TallyJobManager tallyJobManager;
+    private TallyCheckpointStore tallyCheckpointStore;
+    private TallyShardCoordinator tallyShardCoordinator;
+    private BackgroundVerifier backgroundVerifier;
+    private VoteFetcher voteFetcher;
 
     private Scheduler subscriptionScheduler;
     private ExecutorService executorService;
+    private ExecutorService cpuExecutorService;
+    private KeyedSerialExecutor ballotMailboxes;
 
     private String ballotContractAddress;
 
     @Autowired
-    public BallotContractAccessor(Web3j web3j, EthereumConfiguration ethereumConfiguration, TopicPublisher topicPublisher, EncryptionManager encryptionManager) {
+    public BallotContractAccessor(Web3j web3j, ContractEvents contractEvents, EthereumConfiguration ethereumConfiguration, TopicPublisher topicPublisher, EncryptionManager encryptionManager, NodeGuard nodeGuard, ExecutionManager executionManager, TallyJobManager tallyJobManager, TallyCheckpointStore tallyCheckpointStore, TallyShardCoordinator tallyShardCoordinator, BackgroundVerifier backgroundVerifier, VoteFetcher voteFetcher) {
         this.web3j = web3j;
+        this.contractEvents = contractEvents;
         this.ethereumConfiguration = ethereumConfiguration;
         this.topicPublisher = topicPublisher;
         this.encryptionManager = encryptionManager;
-
-        ExecutorService executor = Executors.newCachedThreadPool();
-        this.subscriptionScheduler = Schedulers.from(executor);
-
-        // executor for async tasks
-        this.executorService = Executors.newCachedThreadPool();
+        this.nodeGuard = nodeGuard;
+        this.tallyJobManager = tallyJobManager;
+        this.tallyCheckpointStore = tallyCheckpointStore;
+        this.tallyShardCoordinator = tallyShardCoordinator;
+        this.backgroundVerifier = backgroundVerifier;
+        this.voteFetcher = voteFetcher;
+
+        this.subscriptionScheduler = executionManager.getEventScheduler();
+
+        // executor for tasks waiting on the node
+        this.executorService = executionManager.getIoExecutor();
+        // executor for verifying proofs
+        this.cpuExecutorService = executionManager.getCpuExecutor();
+        // operations on the same ballot are run one after another
+        this.ballotMailboxes = executionManager.getBallotMailboxes();
     }
 
     @Override
@@ -73,43 +138,55 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
         // over a websocket connection
         logger.info("Starting ballot contract deployment in a new thread.");
 
-        this.executorService.submit(() -> {
-            logger.info("Ballot deployment in new thread started.");
-
-            Ballot ballot;
-            BallotDeploymentResponse response;
-
-            try {
-                ballot = Ballot.deploy(
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT,
-                    config.getVotingQuestion(),
-                    config.getZeroKnowledgeContractAddress()
-                ).send();
-
-                // TODO: we might have to check that we do not get events duplicated times if we deploy multiple ballots
-                subscribeToVoteEvent(ballot);
-                subscribeToChangeEvent(ballot);
-
-                logger.info("Ballot deployment was successful. Contract address is: " + ballot.getContractAddress());
-                this.ballotContractAddress = ballot.getContractAddress();
-                response = new BallotDeploymentResponse(Status.SUCCESS, "Deployment successful", new Contract("ballot", ballot.getContractAddress()));
-            } catch (Exception e) {
-                logger.severe("Failed to deploy ballot: " + e.getMessage());
-                e.printStackTrace();
-
-                response = new BallotDeploymentResponse(Status.ERROR, "Deployment failed: " + e.getMessage(), new Contract("ballot", null));
-            }
+        try {
+            this.nodeGuard.submit(this.executorService, OperationClass.DEPLOY, () -> {
+                logger.info("Ballot deployment in new thread started.");
+
+                Ballot ballot;
+                BallotDeploymentResponse response;
+
+                try {
+                    ballot = Ballot.deploy(
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT,
+                        config.getVotingQuestion(),
+                        config.getZeroKnowledgeContractAddress()
+                    ).send();
+
+                    // TODO: we might have to check that we do not get events duplicated times if we deploy multiple ballots
+                    subscribeToVoteEvent(ballot);
+                    subscribeToChangeEvent(ballot);
+
+                    // votes cannot be found in blocks before the ballot existed
+                    String contractAddress = ballot.getContractAddress();
+                    ballot.getTransactionReceipt().ifPresent(receipt -> this.voteFetcher.deployed(contractAddress, receipt.getBlockNumber()));
+
+                    logger.info("Ballot deployment was successful. Contract address is: " + ballot.getContractAddress());
+                    this.ballotContractAddress = ballot.getContractAddress();
+                    response = new BallotDeploymentResponse(Status.SUCCESS, "Deployment successful", new Contract("ballot", ballot.getContractAddress()));
+                } catch (Exception e) {
+                    logger.severe("Failed to deploy ballot: " + e.getMessage());
+                    e.printStackTrace();
+
+                    response = new BallotDeploymentResponse(Status.ERROR, "Deployment failed: " + e.getMessage(), new Contract("ballot", null));
+                }
 
-            logger.info("Sending ballot deployment response to subscribers at topic " + TopicPublisher.DEPLOYMENT_TOPIC);
-            // notify any subscribers about the new ballot
+                logger.info("Sending ballot deployment response to subscribers at topic " + TopicPublisher.DEPLOYMENT_TOPIC);
+                // notify any subscribers about the new ballot
+                this.topicPublisher.send(
+                    TopicPublisher.DEPLOYMENT_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected ballot deployment: " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.DEPLOYMENT_TOPIC,
-                response
+                new BallotDeploymentResponse(Status.ERROR, "Deployment failed: " + e.getMessage(), new Contract("ballot", null))
             );
-        });
+        }
     }
 
     /**
@@ -137,41 +214,52 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
         logger.info("Starting ballot contract removal in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Ballot contract removal in new thread started.");
-
-            BallotRemovalResponse response;
-
-            try {
-                TransactionReceipt receipt = Ballot.load(
-                    contractAddress,
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT
-                ).destroy().send();
+        try {
+            this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.DEPLOY, () -> {
+                logger.info("Ballot contract removal in new thread started.");
+
+                BallotRemovalResponse response;
+
+                try {
+                    TransactionReceipt receipt = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    ).destroy().send();
+
+                    // this field is only available from the Byzantium blocks on
+                    if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
+                        logger.info("Failed to remove ballot due to failed transaction " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
+                        response = new BallotRemovalResponse(Status.ERROR, "Failed to remove ballot due to failed transaction.", receipt.getTransactionHash());
+                    } else {
+                        logger.info("Ballot contract removed. Transaction hash is: " + receipt.getTransactionHash());
+                        this.backgroundVerifier.unwatch(contractAddress);
+                        this.tallyCheckpointStore.delete(contractAddress);
+                        this.voteFetcher.forget(contractAddress);
+                        response = new BallotRemovalResponse(Status.SUCCESS, "Successfully removed ballot.", receipt.getTransactionHash());
+                    }
+                } catch (Exception e) {
+                    logger.severe("Failed to remove ballot contract: " + e.getMessage());
+                    e.printStackTrace();
 
-                // this field is only available from the Byzantium blocks on
-                if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
-                    logger.info("Failed to remove ballot due to failed transaction " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
-                    response = new BallotRemovalResponse(Status.ERROR, "Failed to remove ballot due to failed transaction.", receipt.getTransactionHash());
-                } else {
-                    logger.info("Ballot contract removed. Transaction hash is: " + receipt.getTransactionHash());
-                    response = new BallotRemovalResponse(Status.SUCCESS, "Successfully removed ballot.", receipt.getTransactionHash());
+                    response = new BallotRemovalResponse(Status.ERROR, "Failed to remove ballot at " + contractAddress + ": " + e.getMessage(), null);
                 }
-            } catch (Exception e) {
-                logger.severe("Failed to remove ballot contract: " + e.getMessage());
-                e.printStackTrace();
 
-                response = new BallotRemovalResponse(Status.ERROR, "Failed to remove ballot at " + contractAddress + ": " + e.getMessage(), null);
-            }
-
-            logger.info("Sending ballot removal response to subscribers at topic " + TopicPublisher.REMOVAL_TOPIC);
+                logger.info("Sending ballot removal response to subscribers at topic " + TopicPublisher.REMOVAL_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.REMOVAL_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected ballot contract removal: " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.REMOVAL_TOPIC,
-                response
+                new BallotRemovalResponse(Status.ERROR, "Failed to remove ballot at " + contractAddress + ": " + e.getMessage(), null)
             );
-        });
+        }
     }
 
     /**
@@ -183,40 +271,49 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
         logger.info("Starting opening vote in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Opening vote in new thread started.");
-            OpenVoteEventResponse response;
-
-            try {
-                TransactionReceipt receipt = Ballot.load(
-                    contractAddress,
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT
-                ).openVoting().send();
+        try {
+            this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.STATE_CHANGE, () -> {
+                logger.info("Opening vote in new thread started.");
+                OpenVoteEventResponse response;
+
+                try {
+                    TransactionReceipt receipt = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    ).openVoting().send();
+
+                    // this field is only available from the Byzantium blocks on
+                    if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
+                        logger.info("Failed to open vote due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
+                        response = new OpenVoteEventResponse(Status.ERROR, "Failed to open vote due to failed transaction.", receipt.getTransactionHash());
+                    } else {
+                        logger.info("Vote opened. Transaction hash is " + receipt.getTransactionHash());
+                        this.backgroundVerifier.watch(contractAddress, () -> this.verifyInBackground(contractAddress));
+                        response = new OpenVoteEventResponse(Status.SUCCESS, "Opening vote was successful.", receipt.getTransactionHash());
+                    }
+                } catch (Exception e) {
+                    logger.severe("Failed to open vote on ballot contract at " + contractAddress);
+                    e.printStackTrace();
 
-                // this field is only available from the Byzantium blocks on
-                if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
-                    logger.info("Failed to open vote due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
-                    response = new OpenVoteEventResponse(Status.ERROR, "Failed to open vote due to failed transaction.", receipt.getTransactionHash());
-                } else {
-                    logger.info("Vote opened. Transaction hash is " + receipt.getTransactionHash());
-                    response = new OpenVoteEventResponse(Status.SUCCESS, "Opening vote was successful.", receipt.getTransactionHash());
+                    response = new OpenVoteEventResponse(Status.ERROR, "Opening vote failed: " + e.getMessage(), null);
                 }
-            } catch (Exception e) {
-                logger.severe("Failed to open vote on ballot contract at " + contractAddress);
-                e.printStackTrace();
 
-                response = new OpenVoteEventResponse(Status.ERROR, "Opening vote failed: " + e.getMessage(), null);
-            }
-
-            logger.info("Sending open vote response to subscribers at topic " + TopicPublisher.STATE_TOPIC);
+                logger.info("Sending open vote response to subscribers at topic " + TopicPublisher.STATE_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.STATE_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected opening vote on ballot contract at " + contractAddress + ": " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.STATE_TOPIC,
-                response
+                new OpenVoteEventResponse(Status.ERROR, "Opening vote failed: " + e.getMessage(), null)
             );
-        });
+        }
     }
 
     /**
@@ -228,57 +325,292 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
         logger.info("Starting closing vote in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Closing vote in new thread started.");
-            CloseVoteEventResponse response;
-
-            try {
-                TransactionReceipt receipt = Ballot.load(
-                    contractAddress,
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT
-                ).closeVoting().send();
+        try {
+            this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.STATE_CHANGE, () -> {
+                logger.info("Closing vote in new thread started.");
+                CloseVoteEventResponse response;
+
+                try {
+                    TransactionReceipt receipt = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    ).closeVoting().send();
+
+                    // this field is only available from the Byzantium blocks on
+                    if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
+                        logger.info("Failed to close vote due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
+                        response = new CloseVoteEventResponse(Status.ERROR, "Failed to close vote due to failed transaction.", receipt.getTransactionHash());
+                    } else {
+                        logger.info("Vote closed. Transaction hash is " + receipt.getTransactionHash());
+                        this.backgroundVerifier.unwatch(contractAddress);
+                        response = new CloseVoteEventResponse(Status.SUCCESS, "Closing vote was successful.", receipt.getTransactionHash());
+                    }
+                } catch (Exception e) {
+                    logger.severe("Failed to close vote on ballot contract at " + contractAddress);
+                    e.printStackTrace();
 
-                // this field is only available from the Byzantium blocks on
-                if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
-                    logger.info("Failed to close vote due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
-                    response = new CloseVoteEventResponse(Status.ERROR, "Failed to close vote due to failed transaction.", receipt.getTransactionHash());
-                } else {
-                    logger.info("Vote closed. Transaction hash is " + receipt.getTransactionHash());
-                    response = new CloseVoteEventResponse(Status.SUCCESS, "Closing vote was successful.", receipt.getTransactionHash());
+                    response = new CloseVoteEventResponse(Status.ERROR, "Closing vote failed: " + e.getMessage(), null);
                 }
-            } catch (Exception e) {
-                logger.severe("Failed to close vote on ballot contract at " + contractAddress);
-                e.printStackTrace();
-
-                response = new CloseVoteEventResponse(Status.ERROR, "Closing vote failed: " + e.getMessage(), null);
-            }
 
-            logger.info("Sending close vote response to subscribers at topic " + TopicPublisher.STATE_TOPIC);
+                logger.info("Sending close vote response to subscribers at topic " + TopicPublisher.STATE_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.STATE_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected closing vote on ballot contract at " + contractAddress + ": " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.STATE_TOPIC,
-                response
+                new CloseVoteEventResponse(Status.ERROR, "Closing vote failed: " + e.getMessage(), null)
             );
-        });
+        }
     }
 
     /**
-     * Get the voting results from the Ballot at the specified contract.
+     * Tally the votes of the Ballot at the specified contract as of the block at which the tally starts.
+     * If a tally of the ballot is still queued, it is joined instead of starting another one.
+     * Returns right away, without contacting the node.
      *
      * @param contractAddress The address of the contract.
+     * @return The job tallying the votes.
      */
-    public void getResults(String contractAddress) {
+    public TallyJob getResults(String contractAddress) {
+        TallyJobManager.JoinResult joinResult = this.tallyJobManager.join(contractAddress);
+        TallyJob job = joinResult.getJob();
+
+        if (! joinResult.isCreated()) {
+            return job;
+        }
+
         logger.info("Starting retrieving votes in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Retrieving votes in new thread started.");
-            GetResultResponse response;
+        try {
+            this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.TALLY, () -> {
+                logger.info("Retrieving votes in new thread started.");
+                GetResultResponse response;
+                TallyJobState state = TallyJobState.FAILED;
+
+                // reads of a tally get admitted to the node before any dashboard reads
+                RpcPriority previousPriority = RpcPriority.declare(RpcPriority.TALLY);
+                Profiling.Scope scope = Profiling.enter(contractAddress);
+
+                try {
+                    job.start();
+
+                    // resolved here rather than on the request thread, so that requesting a tally never waits on the node
+                    BigInteger blockNumber = this.web3j.ethBlockNumber().send().getBlockNumber();
+                    job.setBlockNumber(blockNumber);
+                    logger.info("Tallying ballot contract at " + contractAddress + " as of block " + blockNumber);
+
+                    // TODO: we might need to subscribe again to vote events in the case when the ballot contract is not deployed but only referenced.
+                    Ballot ballot = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    );
+
+                    BigInteger totalVotes = this.inStage("countVotes", contractAddress, job, () -> ballot.getTotalVotes().send());
+                    logger.info("Fetched a total of " + totalVotes + " votes from the Ballot contract at " + contractAddress);
+                    job.setTotalVotes(totalVotes.longValue());
+
+                    TallyJob previous = this.tallyJobManager.getLastCompleted(contractAddress);
+
+                    if (null != previous && previous.getTotalVotes() == totalVotes.longValue()) {
+                        // no votes were cast since the last tally, so that its result and the sum it published still hold
+                        logger.info("No votes were cast since tally job " + previous.getId() + " of ballot contract at " + contractAddress + ". Taking over its result.");
+                        job.resume(previous.getVerified(), previous.getInvalid());
+                        job.setResult(previous.getYes(), previous.getNo());
+
+                        state = TallyJobState.COMPLETED;
+                        response = new GetResultResponse(job.getId(), Status.SUCCESS, "Successfully fetched votes.", previous.getYes(), previous.getNo(), totalVotes, BigInteger.valueOf(previous.getInvalid()));
+                    } else {
+                        PartialTally tally = this.inStage("resume", contractAddress, job, () -> this.resumeTally(contractAddress, totalVotes.longValue()));
+                        job.resume(tally.getValidVotes(), tally.getInvalidVotes());
+
+                        this.inStage("fetchAndVerify", contractAddress, job, () -> {
+                            if (this.tallyShardCoordinator.isEnabled()) {
+                                this.tallyShardCoordinator.tally(
+                                    contractAddress,
+                                    tally,
+                                    totalVotes.longValue(),
+                                    job,
+                                    (fromIndex, toIndex) -> this.tallyRange(ballot, this.createShard(fromIndex), toIndex, job, false, this.cpuExecutorService),
+                                    merged -> this.saveCheckpoint(contractAddress, merged)
+                                );
+                            } else {
+                                this.tallyRange(ballot, tally, totalVotes.longValue(), job, true, this.cpuExecutorService);
+                            }
+
+                            return tally;
+                        });
+
+                        job.checkCancelled();
+
+                        // later tallies only need to fetch votes cast from now on
+                        this.saveCheckpoint(contractAddress, tally);
+
+                        VoteCipherText counter = tally.getSum();
+                        BigInteger invalidVotes = BigInteger.valueOf(tally.getInvalidVotes());
+
+                        // this may take quite a while...
+                        BigInteger totalYes = this.inStage("decrypt", contractAddress, job, () -> this.encryptionManager.decryptSum(counter));
+                        BigInteger totalNo = totalVotes.subtract(totalYes).subtract(invalidVotes);
+
+                        logger.info("Voting result is: (" + totalYes.toString(10) + " vs. " + totalNo.toString(10) + ") of a total of " + totalVotes.toString(10) + " with " + invalidVotes.toString(10) + " invalid votes");
+
+                        // the result is sent right away, while its proof is created and published to the blockchain
+                        this.publishSum(contractAddress, job.getId(), totalYes, counter);
+
+                        job.setResult(totalYes, totalNo);
+                        state = TallyJobState.COMPLETED;
+                        response = new GetResultResponse(job.getId(), Status.SUCCESS, "Successfully fetched votes.", totalYes, totalNo, totalVotes, invalidVotes);
+                    }
+                } catch (Exception e) {
+                    if (job.isCancelled()) {
+                        logger.info("Retrieving votes of ballot contract at " + contractAddress + " was cancelled.");
+                        state = TallyJobState.CANCELLED;
+                        response = new GetResultResponse(job.getId(), Status.ERROR, "Fetching votes was cancelled.", null, null, null, null);
+                    } else {
+                        logger.severe("Failed to submit vote on ballot contract at " + contractAddress);
+                        e.printStackTrace();
+
+                        response = new GetResultResponse(job.getId(), Status.ERROR, "Fetching votes failed: " + e.getMessage(), null, null, null, null);
+                    }
+                } finally {
+                    scope.close();
+                    RpcPriority.restore(previousPriority);
+                }
+
+                this.tallyJobManager.finish(job, state, response.getMessage());
+
+                logger.info("Sending get votes response to subscribers at topic " + TopicPublisher.META_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.META_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected retrieving votes of ballot contract at " + contractAddress + ": " + e.getMessage());
+            this.tallyJobManager.finish(job, TallyJobState.FAILED, "Fetching votes failed: " + e.getMessage());
+            this.topicPublisher.send(
+                TopicPublisher.META_TOPIC,
+                new GetResultResponse(job.getId(), Status.ERROR, "Fetching votes failed: " + e.getMessage(), null, null, null, null)
+            );
+        }
+
+        return job;
+    }
+
+    /**
+     * Continue from the last checkpoint of the given ballot if it is still valid.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param totalVotes      The number of votes currently stored in the contract.
+     * @return The tally to continue with.
+     */
+    private PartialTally resumeTally(String contractAddress, long totalVotes) {
+        TallyCheckpoint checkpoint = this.tallyCheckpointStore.load(contractAddress, this.encryptionManager.getPublicKeyFingerprint());
+
+        if (null == checkpoint) {
+            return new PartialTally(this.encryptionManager.generateZeroVote(), 0, Collections.emptyList());
+        }
+
+        if (checkpoint.getNextIndex() > totalVotes) {
+            logger.warning("Ignoring checkpoint of ballot contract at " + contractAddress + " which does not match the current votes.");
+            return new PartialTally(this.encryptionManager.generateZeroVote(), 0, Collections.emptyList());
+        }
+
+        logger.info("Resuming tally of ballot contract at " + contractAddress + " from vote at index " + checkpoint.getNextIndex());
+
+        return new PartialTally(
+            this.encryptionManager.restoreCiphertext(checkpoint.getCipherText(), checkpoint.getRandom()),
+            checkpoint.getNextIndex(),
+            checkpoint.getInvalidIndices()
+        );
+    }
+
+    /**
+     * Verify the votes cast since the last checkpoint of the given ballot and advance the checkpoint,
+     * at most a batch of votes at a time. Runs in the mailbox of the ballot at low priority,
+     * so it never interferes with a tally of the same ballot.
+     *
+     * @param contractAddress The address of the ballot contract.
+     */
+    private void verifyInBackground(String contractAddress) {
+        try {
+            this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.BACKGROUND, () -> {
+                RpcPriority previousPriority = RpcPriority.declare(RpcPriority.BACKGROUND);
+                int previousThreadPriority = Thread.currentThread().getPriority();
+                Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+
+                try {
+                    Ballot ballot = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    );
+
+                    long totalVotes = ballot.getTotalVotes().send().longValue();
+                    PartialTally tally = this.resumeTally(contractAddress, totalVotes);
+                    long toIndex = Math.min(totalVotes, tally.getNextIndex() + this.backgroundVerifier.getBatchSize());
+
+                    if (toIndex > tally.getNextIndex()) {
+                        logger.info("Verifying votes " + tally.getNextIndex() + " to " + toIndex + " of ballot contract at " + contractAddress + " in the background.");
+
+                        // not registered anywhere, verification runs on this thread to keep the cpu pool free for tallies
+                        TallyJob job = new TallyJob(contractAddress);
+                        this.inStage("verifyInBackground", contractAddress, job, () -> this.tallyRange(ballot, tally, toIndex, job, false, null));
+                        this.saveCheckpoint(contractAddress, tally);
+                    }
+                } catch (Exception e) {
+                    logger.warning("Background verification of ballot contract at " + contractAddress + " failed: " + e.getMessage());
+                } finally {
+                    Thread.currentThread().setPriority(previousThreadPriority);
+                    RpcPriority.restore(previousPriority);
+                }
+            });
+        } catch (NodeUnavailableException e) {
+            logger.fine("Skipping background verification of ballot contract at " + contractAddress + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tally the votes of the given ballot on this instance. Worker entry point of a distributed tally.
+     * The shard is tallied in the mailbox of the ballot, subject to the bulkhead of tallies,
+     * while the calling thread waits for it at most the given time.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param fromIndex       The index of the first vote to tally.
+     * @param toIndex         The index after the last vote to tally.
+     * @param timeoutMillis   How long to wait for the shard, after which it is cancelled.
+     * @return The tally of the votes in the given range.
+     * @throws NodeUnavailableException If the node is unhealthy or too many tallies are pending.
+     * @throws TimeoutException         If the shard was not tallied in time.
+     * @throws Exception                If the votes could not be fetched or deserialized.
+     */
+    public PartialTally tallyShard(String contractAddress, long fromIndex, long toIndex, long timeoutMillis) throws Exception {
+        logger.info("Tallying votes " + fromIndex + " to " + toIndex + " of ballot contract at " + contractAddress);
+
+        // not registered anywhere, only tracks the progress of this shard and allows to cancel it
+        TallyJob job = new TallyJob(contractAddress);
+        CompletableFuture<PartialTally> result = new CompletableFuture<>();
+
+        this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.TALLY, () -> {
+            RpcPriority previousPriority = RpcPriority.declare(RpcPriority.TALLY);
+            Profiling.Scope scope = Profiling.enter(contractAddress);
 
             try {
-                // TODO: we might need to subscribe again to vote events in the case when the ballot contract is not deployed but only referenced.
+                job.start();
+
                 Ballot ballot = Ballot.load(
                     contractAddress,
                     this.web3j,
@@ -287,102 +619,300 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
                     Ballot.GAS_LIMIT
                 );
 
-                BigInteger totalVotes = ballot.getTotalVotes().send();
-                BigInteger invalidVotes = BigInteger.ZERO;
-                logger.info("Fetched a total of " + totalVotes + " votes from the Ballot contract at " + contractAddress);
+                result.complete(this.inStage("tallyShard", contractAddress, job, () -> this.tallyRange(ballot, this.createShard(fromIndex), toIndex, job, false, this.cpuExecutorService)));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                job.finish(result.isCompletedExceptionally() ? TallyJobState.FAILED : TallyJobState.COMPLETED, null);
+                scope.close();
+                RpcPriority.restore(previousPriority);
+            }
+        });
 
-                CipherText counter = this.encryptionManager.generateZeroVote();
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            logger.warning("Cancelling tally of votes " + fromIndex + " to " + toIndex + " of ballot contract at " + contractAddress + " as it did not finish in time.");
+            job.cancel();
+            throw e;
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+    }
 
-                for (BigInteger i = BigInteger.ZERO; i.compareTo(totalVotes) < 0; i = i.add(BigInteger.ONE)) {
-                    logger.info("Fetching vote at index " + i);
-                    Tuple4<String, String, String, byte[]> tuple = ballot.getVote(i).send();
-                    logger.info("Vote at index " + i + " fetched");
+    private PartialTally createShard(long fromIndex) {
+        return new PartialTally(this.encryptionManager.generateZeroVote(), fromIndex, fromIndex, Collections.emptyList());
+    }
 
-                    logger.info("[" + tuple.getValue1() + "] Deserializing vote and proof...");
-                    CipherText cipherText = this.encryptionManager.deserializeCiphertext(tuple.getValue2(), tuple.getValue4());
-                    MembershipProof proof = this.encryptionManager.deserializeMembershipProof(tuple.getValue3());
-                    logger.info("[" + tuple.getValue1() + "] Deserialized. Verifying proof...");
-                    boolean isValid = this.encryptionManager.verifyProof(cipherText, proof);
+    /**
+     * Fetch and verify the votes from the next index of the given tally up to the given index and add them to it.
+     * Votes are fetched a page ahead and verified on the cpu pool while the next ones are fetched.
+     *
+     * @param ballot          The ballot contract.
+     * @param tally           The tally to add the votes to.
+     * @param toIndex         The index after the last vote to tally.
+     * @param job             The job to report progress to.
+     * @param isCheckpointing Whether checkpoints are saved in between, only sensible if the tally starts at the first vote.
+     * @param verifier        The executor to verify votes on or null to verify them on the current thread.
+     * @return The given tally.
+     * @throws Exception If the votes could not be fetched or deserialized.
+     */
+    private PartialTally tallyRange(Ballot ballot, PartialTally tally, long toIndex, TallyJob job, boolean isCheckpointing, ExecutorService verifier) throws Exception {
+        Deque<Future<VoteCipherText>> verifications = new ArrayDeque<>();
 
-                    if (isValid) {
-                        logger.info("[" + tuple.getValue1() + "] Proof is valid. Adding to result...");
-                        counter = counter.operate(cipherText);
-                    } else {
-                        logger.warning("[" + tuple.getValue1() + "] Proof is invalid. Skipping that vote.");
-                        invalidVotes = invalidVotes.add(BigInteger.ONE);
-                    }
-                }
+        try (VoteFetcher.Cursor votes = this.voteFetcher.open(ballot, tally.getNextIndex(), toIndex)) {
+            for (long i = tally.getNextIndex(); i < toIndex; i++) {
+                job.checkCancelled();
 
-                // this may take quite a while...
-                BigInteger totalYes = this.encryptionManager.decryptSum(counter).asBigInteger();
-                BigInteger totalNo = totalVotes.subtract(totalYes).subtract(invalidVotes);
+                logger.info("Fetching vote at index " + i);
+                Tuple4<String, String, String, byte[]> tuple = votes.next();
+                logger.info("Vote at index " + i + " fetched");
+                job.voteFetched();
 
-                logger.info("Creating proof for sum...");
-                MembershipProof sumProof = this.encryptionManager.createSumProof(totalYes, counter);
+                long index = i;
 
-                List<ModInteger> sumDomain = new ArrayList<>();
-                sumDomain.add(new ModInteger(totalYes));
-                boolean isVerified = this.encryptionManager.verifySumProof(counter, sumProof, sumDomain);
+                if (null == verifier) {
+                    FutureTask<VoteCipherText> verification = new FutureTask<>(() -> this.verifyVote(ballot.getContractAddress(), index, tuple));
+                    verification.run();
+                    verifications.addLast(verification);
+                } else {
+                    verifications.addLast(verifier.submit(() -> this.verifyVote(ballot.getContractAddress(), index, tuple)));
+                }
 
-                if (! isVerified) {
-                    throw new RuntimeException("Proof for sum is invalid");
+                if (verifications.size() >= VERIFICATION_WINDOW) {
+                    this.accumulate(ballot.getContractAddress(), job, tally, verifications.pollFirst(), isCheckpointing);
                 }
+            }
 
-                logger.info("Voting result is: (" + totalYes.toString(10) + " vs. " + totalNo.toString(10) + ") of a total of " + totalVotes.toString(10) + " with " + invalidVotes.toString(10) + " invalid votes");
+            while (! verifications.isEmpty()) {
+                job.checkCancelled();
 
-                // setting the result on ethereum
-                logger.info("Publishing sum along with its ciphertext and proof to the blockchain.");
-                this.setSum(contractAddress, totalYes, CipherTextSerializer.serialize(counter), MembershipProofSerializer.serialize(sumProof));
+                this.accumulate(ballot.getContractAddress(), job, tally, verifications.pollFirst(), isCheckpointing);
+            }
+        } finally {
+            for (Future<VoteCipherText> verification : verifications) {
+                verification.cancel(true);
+            }
+        }
 
-                response = new GetResultResponse(Status.SUCCESS, "Successfully fetched votes.", totalYes, totalNo, totalVotes, invalidVotes);
-            } catch (Exception e) {
-                logger.severe("Failed to submit vote on ballot contract at " + contractAddress);
-                e.printStackTrace();
+        return tally;
+    }
+
+    /**
+     * Add the next verified vote to the tally and save a checkpoint once the interval is reached.
+     */
+    private void accumulate(String contractAddress, TallyJob job, PartialTally tally, Future<VoteCipherText> verification, boolean isCheckpointing) throws Exception {
+        VoteCipherText cipherText = this.awaitVerification(verification);
+        tally.add(cipherText);
+
+        if (null != cipherText) {
+            job.voteVerified();
+        } else {
+            job.voteInvalid();
+        }
+
+        if (isCheckpointing && tally.getNextIndex() % this.tallyCheckpointStore.getInterval() == 0) {
+            this.saveCheckpoint(contractAddress, tally);
+        }
+    }
 
-                response = new GetResultResponse(Status.ERROR, "Fetching votes failed: " + e.getMessage(), null, null, null, null);
+    private void saveCheckpoint(String contractAddress, PartialTally tally) {
+        Span span = Profiling.tallyStage("saveCheckpoint", contractAddress);
+
+        try {
+            this.tallyCheckpointStore.save(new TallyCheckpoint(
+                contractAddress,
+                this.encryptionManager.getPublicKeyFingerprint(),
+                tally.getNextIndex(),
+                tally.getInvalidIndices(),
+                tally.getSum().serialize(),
+                tally.getSum().getRandom()
+            ));
+            span.end(Profiling.SUCCESS);
+        } catch (IOException e) {
+            span.end(Profiling.FAILURE);
+
+            // the tally can go on, it only has to start over from an earlier checkpoint after a restart
+            logger.warning("Failed to save checkpoint of ballot contract at " + contractAddress + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deserialize the given vote and verify its proof.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param index           The index of the vote.
+     * @param vote            The vote as fetched from the Ballot contract.
+     * @return The ciphertext of the vote if its proof is valid, null otherwise.
+     * @throws Exception If the vote could not be deserialized.
+     */
+    private VoteCipherText verifyVote(String contractAddress, long index, Tuple4<String, String, String, byte[]> vote) throws Exception {
+        try (Profiling.Scope scope = Profiling.enter(contractAddress, index)) {
+            logger.info("[" + vote.getValue1() + "] Deserializing vote and proof...");
+            VoteCipherText cipherText = this.encryptionManager.deserializeCiphertext(vote.getValue2(), vote.getValue4());
+            VoteProof proof = this.encryptionManager.deserializeMembershipProof(vote.getValue3());
+            logger.info("[" + vote.getValue1() + "] Deserialized. Verifying proof...");
+            boolean isValid = this.encryptionManager.verifyProof(cipherText, proof);
+
+            if (isValid) {
+                logger.info("[" + vote.getValue1() + "] Proof is valid. Adding to result...");
+                return cipherText;
             }
 
-            logger.info("Sending get votes response to subscribers at topic " + TopicPublisher.META_TOPIC);
+            logger.warning("[" + vote.getValue1() + "] Proof is invalid. Skipping that vote.");
+            return null;
+        }
+    }
+
+    /**
+     * Run the given stage of a tally and emit it as Flight Recorder event while recording.
+     *
+     * @param stage           The name of the stage.
+     * @param contractAddress The address of the tallied ballot contract.
+     * @param job             The job the stage belongs to.
+     * @param callable        The stage.
+     * @return The result of the stage.
+     * @throws Exception If the stage failed.
+     */
+    private <T> T inStage(String stage, String contractAddress, TallyJob job, Callable<T> callable) throws Exception {
+        Span span = Profiling.tallyStage(stage, contractAddress);
+
+        try {
+            T result = callable.call();
+            span.end(Profiling.SUCCESS);
+
+            return result;
+        } catch (Exception e) {
+            span.end(job.isCancelled() ? Profiling.CANCELLED : Profiling.FAILURE);
+            throw e;
+        }
+    }
+
+    private VoteCipherText awaitVerification(Future<VoteCipherText> verification) throws Exception {
+        try {
+            return verification.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Prove the given sum, check the proof and publish both to the Ballot contract.
+     * Runs on the cpu pool, so that the tally does not have to wait for it. If the sum
+     * cannot be published, the result of the tally job is discarded, so that the next
+     * tally decrypts and publishes it again.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param id              The id of the tally job, used as id of the set sum response.
+     * @param sum             The decrypted sum.
+     * @param sumCipherText   The encrypted sum.
+     */
+    private void publishSum(String contractAddress, String id, BigInteger sum, VoteCipherText sumCipherText) {
+        try {
+            this.cpuExecutorService.submit(() -> {
+                Span span = Profiling.tallyStage("proveSum", contractAddress);
+
+                try {
+                    logger.info("Creating proof for sum...");
+                    VoteProof sumProof = this.encryptionManager.createSumProof(sum, sumCipherText);
+
+                    boolean isVerified = this.encryptionManager.verifySumProof(sumCipherText, sumProof, sum);
+
+                    if (! isVerified) {
+                        throw new RuntimeException("Proof for sum is invalid");
+                    }
+
+                    // setting the result on ethereum
+                    logger.info("Publishing sum along with its ciphertext and proof to the blockchain.");
+                    this.setSum(contractAddress, id, sum, sumCipherText.serialize(), sumProof.serialize());
+                    span.end(Profiling.SUCCESS);
+                } catch (Exception e) {
+                    span.end(Profiling.FAILURE);
+                    logger.severe("Failed to prove sum of ballot contract at " + contractAddress + ": " + e.getMessage());
+                    e.printStackTrace();
+                    this.tallyJobManager.discardResult(id);
+
+                    this.topicPublisher.send(
+                        TopicPublisher.STATE_TOPIC,
+                        new SetSumResponse(id, Status.ERROR, "Setting election result failed: " + e.getMessage(), null)
+                    );
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.severe("Rejected proving sum of ballot contract at " + contractAddress + ": " + e.getMessage());
+            this.tallyJobManager.discardResult(id);
             this.topicPublisher.send(
-                TopicPublisher.META_TOPIC,
-                response
+                TopicPublisher.STATE_TOPIC,
+                new SetSumResponse(id, Status.ERROR, "Setting election result failed: " + e.getMessage(), null)
             );
-        });
+        }
     }
 
     /**
-     * Fetch the voting question from the Ballot contract.
+     * Publish the election result to the Ballot contract.
      *
      * @param contractAddress The address of the ballot contract.
+     * @param sum             The decrypted sum.
+     * @param ciphertext      The serialized encrypted sum.
+     * @param proof           The serialized proof that the ciphertext decrypts to the sum.
      */
     public void setSum(String contractAddress, BigInteger sum, String ciphertext, String proof) {
+        this.setSum(contractAddress, UUID.randomUUID().toString(), sum, ciphertext, proof);
+    }
+
+    private void setSum(String contractAddress, String id, BigInteger sum, String ciphertext, String proof) {
         logger.info("Starting setting election result in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Setting election result in new thread started.");
-
-            try {
-                TransactionReceipt receipt = Ballot.load(
-                    contractAddress,
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT
-                ).setSumProof(sum, ciphertext, proof).send();
+        try {
+            this.nodeGuard.submit(this.mailboxOf(contractAddress), OperationClass.STATE_CHANGE, () -> {
+                logger.info("Setting election result in new thread started.");
+                SetSumResponse response;
+
+                try {
+                    TransactionReceipt receipt = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    ).setSumProof(sum, ciphertext, proof).send();
+
+                    // this field is only available from the Byzantium blocks on
+                    if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
+                        logger.severe("Failed to set election result due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
+                        this.tallyJobManager.discardResult(id);
+                        response = new SetSumResponse(id, Status.ERROR, "Failed to set election result due to failed transaction.", receipt.getTransactionHash());
+                    } else {
+                        logger.info("Election results set. Transaction hash is " + receipt.getTransactionHash());
+                        response = new SetSumResponse(id, Status.SUCCESS, "Setting election result was successful.", receipt.getTransactionHash());
+                    }
+                } catch (Exception e) {
+                    logger.severe("Failed to set election result on ballot contract at " + contractAddress);
+                    e.printStackTrace();
+                    this.tallyJobManager.discardResult(id);
 
-                // this field is only available from the Byzantium blocks on
-                if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
-                    logger.severe("Failed to set election result due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
-                } else {
-                    logger.info("Election results set. Transaction hash is " + receipt.getTransactionHash());
+                    response = new SetSumResponse(id, Status.ERROR, "Setting election result failed: " + e.getMessage(), null);
                 }
 
-            } catch (Exception e) {
-                logger.severe("Failed to set election result on ballot contract at " + contractAddress);
-                e.printStackTrace();
-            }
-        });
+                logger.info("Sending set sum response to subscribers at topic " + TopicPublisher.STATE_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.STATE_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected setting election result on ballot contract at " + contractAddress + ": " + e.getMessage());
+            this.tallyJobManager.discardResult(id);
+            this.topicPublisher.send(
+                TopicPublisher.STATE_TOPIC,
+                new SetSumResponse(id, Status.ERROR, "Setting election result failed: " + e.getMessage(), null)
+            );
+        }
     }
 
     /**
@@ -394,39 +924,66 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
         logger.info("Starting retrieving vote question in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Retrieving vote question in new thread started.");
-            GetQuestionResponse response;
-
-            try {
-                String question = Ballot.load(
-                    contractAddress,
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT
-                ).getProposedQuestion().send();
-
-                logger.info("Retrieved question: " + question);
-
-                response = new GetQuestionResponse(Status.SUCCESS, "Successfully retrieved voting question.", question);
-            } catch (Exception e) {
-                logger.severe("Failed to retrieve voting question on ballot contract at " + contractAddress);
-                e.printStackTrace();
-
-                response = new GetQuestionResponse(Status.ERROR, "Retrieving vote question failed: " + e.getMessage(), null);
-            }
+        try {
+            this.nodeGuard.submit(this.executorService, OperationClass.READ, () -> {
+                logger.info("Retrieving vote question in new thread started.");
+                GetQuestionResponse response;
+
+                try {
+                    String question = Ballot.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    ).getProposedQuestion().send();
+
+                    logger.info("Retrieved question: " + question);
+
+                    response = new GetQuestionResponse(Status.SUCCESS, "Successfully retrieved voting question.", question);
+                } catch (Exception e) {
+                    logger.severe("Failed to retrieve voting question on ballot contract at " + contractAddress);
+                    e.printStackTrace();
+
+                    response = new GetQuestionResponse(Status.ERROR, "Retrieving vote question failed: " + e.getMessage(), null);
+                }
 
-            logger.info("Sending voting question response to subscribers at topic " + TopicPublisher.META_TOPIC);
+                logger.info("Sending voting question response to subscribers at topic " + TopicPublisher.META_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.META_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected retrieving voting question on ballot contract at " + contractAddress + ": " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.META_TOPIC,
-                response
+                new GetQuestionResponse(Status.ERROR, "Retrieving vote question failed: " + e.getMessage(), null)
             );
-        });
+        }
+    }
+
+    /**
+     * Operations submitted to the returned executor run after all operations
+     * previously submitted for the same ballot completed.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @return The executor of the ballot's mailbox.
+     */
+    private Executor mailboxOf(String contractAddress) {
+        return this.ballotMailboxes.forKey(contractAddress.toLowerCase());
     }
 
     private void subscribeToVoteEvent(Ballot ballot) {
-        ballot.voteEventEventObservable(DefaultBlockParameterName.EARLIEST, DefaultBlockParameterName.LATEST)
+        this.contractEvents.observe(ballot.getContractAddress(), VOTE_EVENT)
+            .map(eventValues -> {
+                Ballot.VoteEventEventResponse voteEventEventResponse = new Ballot.VoteEventEventResponse();
+                voteEventEventResponse._from = (String) eventValues.getIndexedValues().get(0).getValue();
+                voteEventEventResponse.wasSuccessful = (Boolean) eventValues.getNonIndexedValues().get(0).getValue();
+                voteEventEventResponse.reason = (String) eventValues.getNonIndexedValues().get(1).getValue();
+
+                return voteEventEventResponse;
+            })
             .subscribeOn(this.subscriptionScheduler)
             .subscribe(new Observer<Ballot.VoteEventEventResponse>() {
                 @Override
@@ -455,7 +1012,15 @@ public class BallotContractAccessor extends AContractAccessor<Ballot, BallotCont
     }
 
     private void subscribeToChangeEvent(Ballot ballot) {
-        ballot.changeEventEventObservable(DefaultBlockParameterName.EARLIEST, DefaultBlockParameterName.LATEST)
+        this.contractEvents.observe(ballot.getContractAddress(), CHANGE_EVENT)
+            .map(eventValues -> {
+                Ballot.ChangeEventEventResponse changeEventEventResponse = new Ballot.ChangeEventEventResponse();
+                changeEventEventResponse._from = (String) eventValues.getIndexedValues().get(0).getValue();
+                changeEventEventResponse.wasSuccessful = (Boolean) eventValues.getNonIndexedValues().get(0).getValue();
+                changeEventEventResponse.reason = (String) eventValues.getNonIndexedValues().get(1).getValue();
+
+                return changeEventEventResponse;
+            })
             .subscribeOn(this.subscriptionScheduler)
             .subscribe(new Observer<Ballot.ChangeEventEventResponse>() {
                 @Override
@@ -7,21 +7,29 @@ import org.provotum.backend.communication.socket.message.event.ProofEventRespons
 import org.provotum.backend.communication.socket.message.removal.ZeroKnowledgeRemovalResponse;
 import org.provotum.backend.communication.socket.publisher.TopicPublisher;
 import org.provotum.backend.config.EthereumConfiguration;
+import org.provotum.backend.ethereum.base.ContractEvents;
 import org.provotum.backend.ethereum.base.TransactionReceiptStatus;
 import org.provotum.backend.ethereum.config.ZeroKnowledgeContractConfig;
+import org.provotum.backend.ethereum.rpc.NodeGuard;
+import org.provotum.backend.ethereum.rpc.NodeUnavailableException;
+import org.provotum.backend.ethereum.rpc.OperationClass;
 import org.provotum.backend.ethereum.wrappers.Ballot;
 import org.provotum.backend.ethereum.wrappers.ZeroKnowledgeVerificator;
+import org.provotum.backend.execution.ExecutionManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Utf8String;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import rx.Observer;
 import rx.Scheduler;
-import rx.schedulers.Schedulers;
 
+import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 @Component
@@ -29,24 +37,32 @@ public class ZeroKnowledgeContractAccessor extends AContractAccessor<ZeroKnowled
 
     private static final Logger logger = Logger.getLogger(ZeroKnowledgeContractAccessor.class.getName());
 
+    private static final Event PROOF_EVENT = new Event(
+        "ProofEvent",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {})
+    );
+
     private Web3j web3j;
+    private ContractEvents contractEvents;
     private TopicPublisher topicPublisher;
     private EthereumConfiguration ethereumConfiguration;
+    private NodeGuard nodeGuard;
 
     private ExecutorService executorService;
     private Scheduler scheduler;
 
     @Autowired
-    public ZeroKnowledgeContractAccessor(Web3j web3j, EthereumConfiguration ethereumConfiguration, TopicPublisher topicPublisher) {
+    public ZeroKnowledgeContractAccessor(Web3j web3j, ContractEvents contractEvents, EthereumConfiguration ethereumConfiguration, TopicPublisher topicPublisher, NodeGuard nodeGuard, ExecutionManager executionManager) {
         this.web3j = web3j;
+        this.contractEvents = contractEvents;
         this.ethereumConfiguration = ethereumConfiguration;
         this.topicPublisher = topicPublisher;
+        this.nodeGuard = nodeGuard;
 
-        ExecutorService executor = Executors.newCachedThreadPool();
-        this.scheduler = Schedulers.from(executor);
+        this.scheduler = executionManager.getEventScheduler();
 
-        // executor for async tasks
-        this.executorService = Executors.newCachedThreadPool();
+        // executor for tasks waiting on the node
+        this.executorService = executionManager.getIoExecutor();
     }
 
     @Override
@@ -55,38 +71,46 @@ public class ZeroKnowledgeContractAccessor extends AContractAccessor<ZeroKnowled
         // over a websocket connection
         logger.info("Starting zero-knowledge contract deployment in a new thread.");
 
-        this.executorService.submit(() -> {
-            logger.info("Zero-knowledge deployment in new thread started.");
+        try {
+            this.nodeGuard.submit(this.executorService, OperationClass.DEPLOY, () -> {
+                logger.info("Zero-knowledge deployment in new thread started.");
 
-            ZeroKnowledgeDeploymentResponse response;
+                ZeroKnowledgeDeploymentResponse response;
 
-            try {
-                ZeroKnowledgeVerificator zkVerificator = ZeroKnowledgeVerificator.deploy(
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    Ballot.GAS_PRICE,
-                    Ballot.GAS_LIMIT
-                ).send();
+                try {
+                    ZeroKnowledgeVerificator zkVerificator = ZeroKnowledgeVerificator.deploy(
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        Ballot.GAS_PRICE,
+                        Ballot.GAS_LIMIT
+                    ).send();
 
-                // TODO: we might have to check that we do not get events duplicated times if we deploy multiple zkVerificators
-                this.subscribeToProofEvent(zkVerificator);
+                    // TODO: we might have to check that we do not get events duplicated times if we deploy multiple zkVerificators
+                    this.subscribeToProofEvent(zkVerificator);
 
-                logger.info("Zero-knowledge deployment was successful. Contract address is: " + zkVerificator.getContractAddress());
-                response = new ZeroKnowledgeDeploymentResponse(Status.SUCCESS, "Deployment successful", new Contract("zero-knowledge", zkVerificator.getContractAddress()));
-            } catch (Exception e) {
-                logger.severe("Failed to deploy zero-knowledge verificator: " + e.getMessage());
-                e.printStackTrace();
+                    logger.info("Zero-knowledge deployment was successful. Contract address is: " + zkVerificator.getContractAddress());
+                    response = new ZeroKnowledgeDeploymentResponse(Status.SUCCESS, "Deployment successful", new Contract("zero-knowledge", zkVerificator.getContractAddress()));
+                } catch (Exception e) {
+                    logger.severe("Failed to deploy zero-knowledge verificator: " + e.getMessage());
+                    e.printStackTrace();
 
-                response = new ZeroKnowledgeDeploymentResponse(Status.ERROR, "Deployment failed: " + e.getMessage(), new Contract("zero-knowledge", null));
-            }
+                    response = new ZeroKnowledgeDeploymentResponse(Status.ERROR, "Deployment failed: " + e.getMessage(), new Contract("zero-knowledge", null));
+                }
 
-            logger.info("Sending zero-knowledge deployment response to subscribers at topic " + TopicPublisher.DEPLOYMENT_TOPIC);
-            // notify any subscribers about the new ballot
+                logger.info("Sending zero-knowledge deployment response to subscribers at topic " + TopicPublisher.DEPLOYMENT_TOPIC);
+                // notify any subscribers about the new ballot
+                this.topicPublisher.send(
+                    TopicPublisher.DEPLOYMENT_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected zero-knowledge deployment: " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.DEPLOYMENT_TOPIC,
-                response
+                new ZeroKnowledgeDeploymentResponse(Status.ERROR, "Deployment failed: " + e.getMessage(), new Contract("zero-knowledge", null))
             );
-        });
+        }
 
     }
 
@@ -106,46 +130,62 @@ public class ZeroKnowledgeContractAccessor extends AContractAccessor<ZeroKnowled
         logger.info("Starting zero-knowledge contract removal in new thread.");
 
         // starting execution in a new thread to avoid blocking.
-        this.executorService.submit(() -> {
-            logger.info("Zero-knowledge contract removal in new thread started.");
-
-            ZeroKnowledgeRemovalResponse response;
-
-            try {
-                TransactionReceipt receipt = ZeroKnowledgeVerificator.load(
-                    contractAddress,
-                    this.web3j,
-                    this.ethereumConfiguration.getWalletCredentials(),
-                    ZeroKnowledgeVerificator.GAS_PRICE,
-                    ZeroKnowledgeVerificator.GAS_LIMIT
-                ).destroy().send();
-
-                // this field is only available from the Byzantium blocks on
-                if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
-                    logger.info("Failed to remove zero-knowledge contract due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
-                    response = new ZeroKnowledgeRemovalResponse(Status.ERROR, "Failed to submit vote due to failed transaction.", receipt.getTransactionHash());
-                } else {
-                    logger.info("Zero-knowledge contract removed. Transaction hash is: " + receipt.getTransactionHash());
-                    response = new ZeroKnowledgeRemovalResponse(Status.SUCCESS, "Successfully removed zero-knowledge contract.", receipt.getTransactionHash());
+        try {
+            this.nodeGuard.submit(this.executorService, OperationClass.DEPLOY, () -> {
+                logger.info("Zero-knowledge contract removal in new thread started.");
+
+                ZeroKnowledgeRemovalResponse response;
+
+                try {
+                    TransactionReceipt receipt = ZeroKnowledgeVerificator.load(
+                        contractAddress,
+                        this.web3j,
+                        this.ethereumConfiguration.getWalletCredentials(),
+                        ZeroKnowledgeVerificator.GAS_PRICE,
+                        ZeroKnowledgeVerificator.GAS_LIMIT
+                    ).destroy().send();
+
+                    // this field is only available from the Byzantium blocks on
+                    if (null != receipt.getStatus() && ! TransactionReceiptStatus.SUCCESS.getValue().equals(receipt.getStatus())) {
+                        logger.info("Failed to remove zero-knowledge contract due to failed transaction. Transaction hash is " + receipt.getTransactionHash() + ". Logs are " + receipt.getLogsBloom());
+                        response = new ZeroKnowledgeRemovalResponse(Status.ERROR, "Failed to submit vote due to failed transaction.", receipt.getTransactionHash());
+                    } else {
+                        logger.info("Zero-knowledge contract removed. Transaction hash is: " + receipt.getTransactionHash());
+                        response = new ZeroKnowledgeRemovalResponse(Status.SUCCESS, "Successfully removed zero-knowledge contract.", receipt.getTransactionHash());
+                    }
+                } catch (Exception e) {
+                    logger.severe("Failed to remove zero-knowledge contract: " + e.getMessage());
+                    e.printStackTrace();
+
+                    response = new ZeroKnowledgeRemovalResponse(Status.ERROR, "Failed to remove zero-knowledge contract at " + contractAddress + ": " + e.getMessage(), null);
                 }
-            } catch (Exception e) {
-                logger.severe("Failed to remove zero-knowledge contract: " + e.getMessage());
-                e.printStackTrace();
 
-                response = new ZeroKnowledgeRemovalResponse(Status.ERROR, "Failed to remove zero-knowledge contract at " + contractAddress + ": " + e.getMessage(), null);
-            }
-
-            logger.info("Sending zero-knowledge removal response to subscribers at topic " + TopicPublisher.REMOVAL_TOPIC);
+                logger.info("Sending zero-knowledge removal response to subscribers at topic " + TopicPublisher.REMOVAL_TOPIC);
+                this.topicPublisher.send(
+                    TopicPublisher.REMOVAL_TOPIC,
+                    response
+                );
+            });
+        } catch (NodeUnavailableException e) {
+            logger.severe("Rejected zero-knowledge contract removal: " + e.getMessage());
             this.topicPublisher.send(
                 TopicPublisher.REMOVAL_TOPIC,
-                response
+                new ZeroKnowledgeRemovalResponse(Status.ERROR, "Failed to remove zero-knowledge contract at " + contractAddress + ": " + e.getMessage(), null)
             );
-        });
+        }
 
     }
 
     private void subscribeToProofEvent(ZeroKnowledgeVerificator zkVerificator) {
-        zkVerificator.proofEventEventObservable(DefaultBlockParameterName.EARLIEST, DefaultBlockParameterName.LATEST)
+        this.contractEvents.observe(zkVerificator.getContractAddress(), PROOF_EVENT)
+            .map(eventValues -> {
+                ZeroKnowledgeVerificator.ProofEventEventResponse proofEventEventResponse = new ZeroKnowledgeVerificator.ProofEventEventResponse();
+                proofEventEventResponse._from = (String) eventValues.getIndexedValues().get(0).getValue();
+                proofEventEventResponse.wasSuccessful = (Boolean) eventValues.getNonIndexedValues().get(0).getValue();
+                proofEventEventResponse.reason = (String) eventValues.getNonIndexedValues().get(1).getValue();
+
+                return proofEventEventResponse;
+            })
             .subscribeOn(this.scheduler)
             .subscribe(new Observer<ZeroKnowledgeVerificator.ProofEventEventResponse>() {
                 @Override
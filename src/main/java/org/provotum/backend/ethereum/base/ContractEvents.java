@@ -0,0 +1,113 @@
+package org.provotum.backend.ethereum.base;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.EventValues;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthSubscribe;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.websocket.events.Notification;
+import rx.Observable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Observes the events emitted by a contract.
+ * <p>
+ * The observables of the generated wrappers always install a filter and poll it for changes.
+ * Over a WebSocket connection, the node pushes new logs through an <code>eth_subscribe</code>
+ * subscription instead, see {@link Web3j#logsNotifications(List, List)}. Web3J 3.5.0 implements
+ * subscriptions in its WebSocket transport only, its IPC transports reject them, so that logs
+ * are polled over IPC as well as over HTTP.
+ * <p>
+ * The subscription is made on the service directly, since the notifications of Web3J
+ * drop the flag of logs removed by a reorganisation, which the logs of a filter keep.
+ * <p>
+ * A subscription only receives logs of blocks mined after it was made, whereas a filter
+ * also returns the logs of all blocks since the genesis block.
+ */
+public class ContractEvents {
+
+    private final Web3j web3j;
+    private final Web3jService web3jService;
+    private final boolean isSubscribing;
+
+    /**
+     * @param web3j         The connection to the Ethereum node.
+     * @param web3jService  The service the connection sends its requests over, to subscribe with.
+     * @param isSubscribing Whether to subscribe to logs instead of polling a filter.
+     */
+    public ContractEvents(Web3j web3j, Web3jService web3jService, boolean isSubscribing) {
+        this.web3j = web3j;
+        this.web3jService = web3jService;
+        this.isSubscribing = isSubscribing;
+    }
+
+    /**
+     * @param contractAddress The address of the contract.
+     * @param event           The event to observe.
+     * @return The values of each event emitted by the contract at the given address.
+     */
+    public Observable<EventValues> observe(String contractAddress, Event event) {
+        String topic = EventEncoder.encode(event);
+        Observable<Log> logs;
+
+        if (this.isSubscribing) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("address", Collections.singletonList(contractAddress));
+            params.put("topics", Collections.singletonList(topic));
+
+            Request<?, EthSubscribe> request = new Request<>("eth_subscribe", Arrays.asList("logs", params), this.web3jService, EthSubscribe.class);
+
+            logs = this.web3jService.subscribe(request, "eth_unsubscribe", LogNotification.class)
+                .map(notification -> notification.getParams().getResult())
+                // logs of blocks dropped by a reorganisation are sent again, flagged as removed
+                .filter(log -> ! log.isRemoved());
+        } else {
+            EthFilter filter = new EthFilter(DefaultBlockParameterName.EARLIEST, DefaultBlockParameterName.LATEST, contractAddress);
+            filter.addSingleTopic(topic);
+
+            logs = this.web3j.ethLogObservable(filter);
+        }
+
+        return logs.map(log -> decode(event, log));
+    }
+
+    public boolean isSubscribing() {
+        return this.isSubscribing;
+    }
+
+    /**
+     * @return The indexed and non-indexed values of the given event, decoded from the given log.
+     */
+    private static EventValues decode(Event event, Log log) {
+        List<String> topics = log.getTopics();
+        List<TypeReference<Type>> indexedParameters = event.getIndexedParameters();
+        List<Type> indexedValues = new ArrayList<>(indexedParameters.size());
+
+        // the first topic is the signature of the event
+        for (int i = 0; i < indexedParameters.size(); i++) {
+            indexedValues.add(FunctionReturnDecoder.decodeIndexedValue(topics.get(i + 1), indexedParameters.get(i)));
+        }
+
+        return new EventValues(indexedValues, FunctionReturnDecoder.decode(log.getData(), event.getNonIndexedParameters()));
+    }
+
+    /**
+     * A notification of the <code>logs</code> subscription, holding the log in the form a filter returns it.
+     */
+    public static class LogNotification extends Notification<Log> {
+    }
+}
@@ -0,0 +1,175 @@
+package org.provotum.backend.ethereum.memory;
+
+import org.provotum.backend.tally.VoteLogScanner;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Uint256;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stands in for the ballot contract: holds the question, the votes and the proven sum.
+ * <p>
+ * Votes are accepted while voting is open. For each of them <code>VoteEvent</code> and
+ * <code>VoteAccepted</code> are emitted, state changes emit <code>ChangeEvent</code>.
+ */
+class InMemoryBallot extends InMemoryContract {
+
+    static final Event VOTE_EVENT = new Event(
+        "VoteEvent",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {})
+    );
+
+    static final Event CHANGE_EVENT = new Event(
+        "ChangeEvent",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {})
+    );
+
+    private static final List<TypeReference<?>> CONSTRUCTOR_PARAMETERS = Arrays.<TypeReference<?>>asList(
+        new TypeReference<Utf8String>() {},
+        new TypeReference<Address>() {}
+    );
+
+    private final String question;
+    private final List<Vote> votes = new ArrayList<>();
+
+    private boolean isOpen;
+    private BigInteger sum = BigInteger.ZERO;
+    private String sumCiphertext = "";
+    private String sumProof = "";
+
+    /**
+     * @param address              The address of the ballot.
+     * @param owner                The account which deployed the ballot.
+     * @param constructorArguments The hex encoded question and address of the zero-knowledge verificator.
+     */
+    InMemoryBallot(String address, String owner, String constructorArguments) {
+        super(address, owner);
+
+        List<Type> arguments = decode(constructorArguments, CONSTRUCTOR_PARAMETERS);
+        this.question = (String) arguments.get(0).getValue();
+
+        this.view("getProposedQuestion()", Collections.emptyList(), (args, invocation) ->
+            Collections.singletonList(new Utf8String(this.question))
+        );
+
+        this.view("getTotalVotes()", Collections.emptyList(), (args, invocation) ->
+            Collections.singletonList(new Uint256(BigInteger.valueOf(this.votes.size())))
+        );
+
+        this.view("getVote(uint256)", Collections.singletonList(new TypeReference<Uint256>() {}), (args, invocation) -> {
+            BigInteger index = (BigInteger) args.get(0).getValue();
+
+            if (index.signum() < 0 || index.compareTo(BigInteger.valueOf(this.votes.size())) >= 0) {
+                throw new Revert("No vote at index " + index);
+            }
+
+            Vote vote = this.votes.get(index.intValue());
+
+            return Arrays.<Type>asList(new Address(vote.voter), new Utf8String(vote.ciphertext), new Utf8String(vote.proof), new DynamicBytes(vote.random));
+        });
+
+        this.view("getSumProof()", Collections.emptyList(), (args, invocation) ->
+            Arrays.<Type>asList(new Uint256(this.sum), new Utf8String(this.sumCiphertext), new Utf8String(this.sumProof))
+        );
+
+        this.transaction("openVoting()", Collections.emptyList(), (args, invocation) -> {
+            this.isOpen = true;
+            this.emitChange(invocation, "Opened voting");
+
+            return Collections.emptyList();
+        });
+
+        this.transaction("closeVoting()", Collections.emptyList(), (args, invocation) -> {
+            this.isOpen = false;
+            this.emitChange(invocation, "Closed voting");
+
+            return Collections.emptyList();
+        });
+
+        this.transaction(
+            "vote(string,string,bytes)",
+            Arrays.<TypeReference<?>>asList(new TypeReference<Utf8String>() {}, new TypeReference<Utf8String>() {}, new TypeReference<DynamicBytes>() {}),
+            (args, invocation) -> {
+                this.vote(invocation, (String) args.get(0).getValue(), (String) args.get(1).getValue(), (byte[]) args.get(2).getValue());
+
+                return Collections.emptyList();
+            }
+        );
+
+        this.transaction(
+            "setSumProof(uint256,string,string)",
+            Arrays.<TypeReference<?>>asList(new TypeReference<Uint256>() {}, new TypeReference<Utf8String>() {}, new TypeReference<Utf8String>() {}),
+            (args, invocation) -> {
+                this.sum = (BigInteger) args.get(0).getValue();
+                this.sumCiphertext = (String) args.get(1).getValue();
+                this.sumProof = (String) args.get(2).getValue();
+
+                return Collections.emptyList();
+            }
+        );
+
+        this.transaction("destroy()", Collections.emptyList(), (args, invocation) -> {
+            if (! this.getOwner().equalsIgnoreCase(invocation.getSender())) {
+                throw new Revert("Only the owner may destroy the ballot");
+            }
+
+            invocation.selfDestruct();
+
+            return Collections.emptyList();
+        });
+    }
+
+    /**
+     * Cast a vote of the sender of the given invocation.
+     *
+     * @return True, if the vote was accepted.
+     */
+    boolean vote(Invocation invocation, String ciphertext, String proof, byte[] random) {
+        if (! this.isOpen) {
+            invocation.emit(VOTE_EVENT, Collections.singletonList(new Address(invocation.getSender())), Arrays.<Type>asList(new Bool(false), new Utf8String("Voting is closed")));
+
+            return false;
+        }
+
+        BigInteger index = BigInteger.valueOf(this.votes.size());
+        this.votes.add(new Vote(invocation.getSender(), ciphertext, proof, random));
+
+        invocation.emit(VOTE_EVENT, Collections.singletonList(new Address(invocation.getSender())), Arrays.<Type>asList(new Bool(true), new Utf8String("Voted")));
+        invocation.emit(
+            VoteLogScanner.VOTE_ACCEPTED_EVENT,
+            Collections.singletonList(new Address(invocation.getSender())),
+            Arrays.<Type>asList(new Uint256(index), new Utf8String(ciphertext), new Utf8String(proof), new DynamicBytes(random))
+        );
+
+        return true;
+    }
+
+    private void emitChange(Invocation invocation, String reason) {
+        invocation.emit(CHANGE_EVENT, Collections.singletonList(new Address(invocation.getSender())), Arrays.<Type>asList(new Bool(true), new Utf8String(reason)));
+    }
+
+    private static class Vote {
+
+        private final String voter;
+        private final String ciphertext;
+        private final String proof;
+        private final byte[] random;
+
+        private Vote(String voter, String ciphertext, String proof, byte[] random) {
+            this.voter = voter;
+            this.ciphertext = ciphertext;
+            this.proof = proof;
+            this.random = random;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.provotum.backend.ethereum.memory;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeEncoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.Utils;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.crypto.Hash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state and methods of a contract deployed to an {@link InMemoryEthereum}.
+ * <p>
+ * Methods are registered by their Solidity signature, e.g. <code>vote(string,string,bytes)</code>,
+ * and invoked with the ABI decoded arguments of a call or transaction.
+ * Their return values are ABI encoded the way a node returns them.
+ */
+abstract class InMemoryContract {
+
+    private final String address;
+    private final String owner;
+    private final Map<String, Method> methods = new HashMap<>();
+
+    /**
+     * @param address The address of the contract.
+     * @param owner   The account which deployed the contract.
+     */
+    InMemoryContract(String address, String owner) {
+        this.address = address;
+        this.owner = owner;
+    }
+
+    String getAddress() {
+        return this.address;
+    }
+
+    String getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * Register a method which only reads the state, i.e. a <code>view</code> function.
+     */
+    void view(String signature, List<TypeReference<?>> parameters, Handler handler) {
+        this.methods.put(selectorOf(signature), new Method(parameters, handler, true));
+    }
+
+    /**
+     * Register a method which changes the state and is therefore only run by transactions.
+     */
+    void transaction(String signature, List<TypeReference<?>> parameters, Handler handler) {
+        this.methods.put(selectorOf(signature), new Method(parameters, handler, false));
+    }
+
+    /**
+     * @param data       The hex encoded method selector and arguments.
+     * @param invocation The invocation by a call or transaction.
+     * @return The hex encoded return values.
+     * @throws Revert If the method does not exist or the contract reverted.
+     */
+    String invoke(String data, Invocation invocation) throws Revert {
+        if (null == data || data.length() < 10) {
+            throw new Revert("Missing method selector");
+        }
+
+        String selector = data.substring(0, 10).toLowerCase();
+        Method method = this.methods.get(selector);
+
+        if (null == method) {
+            throw new Revert("No method with selector " + selector);
+        }
+
+        // calls do not change the state, the transactions of our contracts return nothing anyway
+        if (! method.isView && invocation.isCall()) {
+            return "0x";
+        }
+
+        List<Type> arguments = decode(data.substring(10), method.parameters);
+
+        return encode(method.handler.handle(arguments, invocation));
+    }
+
+    static String selectorOf(String signature) {
+        return Hash.sha3String(signature).substring(0, 10);
+    }
+
+    /**
+     * @param data       The hex encoded values, without method selector.
+     * @param parameters The types of the values.
+     * @return The decoded values.
+     */
+    static List<Type> decode(String data, List<TypeReference<?>> parameters) {
+        if (parameters.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return FunctionReturnDecoder.decode(data, Utils.convert(parameters));
+    }
+
+    static String encode(List<Type> values) {
+        return "0x" + FunctionEncoder.encodeConstructor(values);
+    }
+
+    interface Handler {
+
+        /**
+         * @param arguments  The decoded arguments.
+         * @param invocation The invocation.
+         * @return The values to return.
+         * @throws Revert If the contract reverts.
+         */
+        List<Type> handle(List<Type> arguments, Invocation invocation) throws Revert;
+    }
+
+    /**
+     * Thrown if a contract reverts, so that a transaction fails without changing the state.
+     */
+    static class Revert extends Exception {
+
+        Revert(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A single call or transaction to a contract, collecting the events emitted by it.
+     */
+    static class Invocation {
+
+        private final String sender;
+        private final boolean isCall;
+        private final List<PendingLog> logs = new ArrayList<>();
+        private boolean isDestroyed;
+
+        Invocation(String sender, boolean isCall) {
+            this.sender = sender;
+            this.isCall = isCall;
+        }
+
+        String getSender() {
+            return this.sender;
+        }
+
+        boolean isCall() {
+            return this.isCall;
+        }
+
+        /**
+         * @param event       The event.
+         * @param indexed     The values of the indexed parameters, encoded as topics.
+         * @param nonIndexed  The values of the other parameters, encoded as data.
+         */
+        void emit(Event event, List<Type> indexed, List<Type> nonIndexed) {
+            List<String> topics = new ArrayList<>(indexed.size() + 1);
+            topics.add(EventEncoder.encode(event));
+
+            for (Type value : indexed) {
+                topics.add("0x" + TypeEncoder.encode(value));
+            }
+
+            this.logs.add(new PendingLog(topics, encode(nonIndexed)));
+        }
+
+        /**
+         * Remove the contract once the transaction succeeded.
+         */
+        void selfDestruct() {
+            this.isDestroyed = true;
+        }
+
+        boolean isDestroyed() {
+            return this.isDestroyed;
+        }
+
+        List<PendingLog> getLogs() {
+            return this.logs;
+        }
+    }
+
+    /**
+     * An event emitted by a transaction which is not yet part of a block.
+     */
+    static class PendingLog {
+
+        private final List<String> topics;
+        private final String data;
+
+        PendingLog(List<String> topics, String data) {
+            this.topics = topics;
+            this.data = data;
+        }
+
+        List<String> getTopics() {
+            return this.topics;
+        }
+
+        String getData() {
+            return this.data;
+        }
+    }
+
+    private static class Method {
+
+        private final List<TypeReference<?>> parameters;
+        private final Handler handler;
+        private final boolean isView;
+
+        private Method(List<TypeReference<?>> parameters, Handler handler, boolean isView) {
+            this.parameters = parameters;
+            this.handler = handler;
+            this.isView = isView;
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package org.provotum.backend.ethereum.memory;
+
+import org.provotum.backend.ethereum.wrappers.Ballot;
+import org.provotum.backend.ethereum.wrappers.Proxy;
+import org.provotum.backend.ethereum.wrappers.ZeroKnowledgeVerificator;
+import org.web3j.crypto.Hash;
+import org.web3j.tx.Contract;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * An Ethereum chain held in memory, running the contracts of this backend without a node.
+ * <p>
+ * Each transaction is mined right away in a block of its own, so receipts and events are available
+ * as soon as the transaction has been sent. Contracts are recognized by the binary of their
+ * Web3J wrapper and replaced by Java stand-ins, see {@link InMemoryBallot}, {@link InMemoryProxy}
+ * and {@link InMemoryZeroKnowledgeVerificator}. Neither gas nor balances are accounted for.
+ * <p>
+ * Chains are shared by name, so that e.g. a benchmark can cast votes on the chain the application is connected to.
+ * All operations are serialized, as on a real chain.
+ */
+public class InMemoryEthereum {
+
+    private static final Logger logger = Logger.getLogger(InMemoryEthereum.class.getName());
+
+    public static final String ZERO_ADDRESS = "0x0000000000000000000000000000000000000000";
+
+    private static final Map<String, InMemoryEthereum> chains = new ConcurrentHashMap<>();
+
+    private final Map<String, ContractFactory> factories = new LinkedHashMap<>();
+    private final Map<String, InMemoryContract> contracts = new HashMap<>();
+    private final Map<String, BigInteger> nonces = new HashMap<>();
+    private final Map<String, Receipt> receipts = new HashMap<>();
+    private final List<LogEntry> logs = new ArrayList<>();
+    private final Map<BigInteger, Filter> filters = new HashMap<>();
+
+    private long blockNumber;
+    private long transactionCount;
+    private long contractCount;
+    private long filterCount;
+
+    public InMemoryEthereum() {
+        this.register(Ballot.class, InMemoryBallot::new);
+        this.register(Proxy.class, InMemoryProxy::new);
+        this.register(ZeroKnowledgeVerificator.class, InMemoryZeroKnowledgeVerificator::new);
+    }
+
+    /**
+     * @param name The name of the chain.
+     * @return The chain of the given name, created if there is none yet.
+     */
+    public static InMemoryEthereum named(String name) {
+        return chains.computeIfAbsent(name, key -> new InMemoryEthereum());
+    }
+
+    /**
+     * Forget the chain of the given name, so that the next one of this name starts empty.
+     *
+     * @param name The name of the chain.
+     */
+    public static void discard(String name) {
+        chains.remove(name);
+    }
+
+    public synchronized BigInteger getBlockNumber() {
+        return BigInteger.valueOf(this.blockNumber);
+    }
+
+    /**
+     * @param address The address of an account.
+     * @return The number of transactions sent by the account.
+     */
+    public synchronized BigInteger getTransactionCount(String address) {
+        return this.nonces.getOrDefault(address.toLowerCase(), BigInteger.ZERO);
+    }
+
+    /**
+     * @param signedTransaction The hex encoded signed transaction.
+     * @return The hash of the mined transaction.
+     * @throws IllegalArgumentException If the transaction is malformed.
+     */
+    public synchronized String sendRawTransaction(String signedTransaction) {
+        SignedTransaction transaction = SignedTransaction.decode(signedTransaction);
+        String from = (null == transaction.getFrom()) ? ZERO_ADDRESS : transaction.getFrom();
+
+        BigInteger nonce = this.getTransactionCount(from);
+        this.nonces.put(from.toLowerCase(), nonce.max(transaction.getNonce().add(BigInteger.ONE)));
+
+        return this.execute(from, transaction.getTo(), transaction.getData()).getTransactionHash();
+    }
+
+    /**
+     * @param from The sender.
+     * @param to   The receiver, null to create a contract.
+     * @param data The hex encoded data.
+     * @return The hash of the mined transaction.
+     */
+    public synchronized String sendTransaction(String from, String to, String data) {
+        return this.execute(from, to, data).getTransactionHash();
+    }
+
+    /**
+     * @param from The sender, may be null.
+     * @param to   The address of the contract.
+     * @param data The hex encoded method selector and arguments.
+     * @return The hex encoded return values, empty if the contract does not exist or reverted.
+     */
+    public synchronized String call(String from, String to, String data) {
+        InMemoryContract contract = this.contracts.get(to.toLowerCase());
+
+        if (null == contract) {
+            return "0x";
+        }
+
+        try {
+            return contract.invoke(data, new InMemoryContract.Invocation((null == from) ? ZERO_ADDRESS : from, true));
+        } catch (InMemoryContract.Revert e) {
+            return "0x";
+        }
+    }
+
+    /**
+     * @param transactionHash The hash of a transaction.
+     * @return The receipt, null if there is no such transaction.
+     */
+    public synchronized Receipt getReceipt(String transactionHash) {
+        return this.receipts.get(transactionHash.toLowerCase());
+    }
+
+    /**
+     * Cast a vote on the given ballot as if the voter had sent a transaction.
+     * Useful to fill a ballot without signing a transaction for each voter.
+     *
+     * @param ballotAddress The address of the ballot.
+     * @param voter         The address of the voter.
+     * @param ciphertext    The serialized ciphertext.
+     * @param proof         The serialized membership proof.
+     * @param random        The encrypted random value.
+     * @return The receipt of the mined transaction.
+     * @throws IllegalArgumentException If there is no ballot at the given address.
+     */
+    public synchronized Receipt castVote(String ballotAddress, String voter, String ciphertext, String proof, byte[] random) {
+        InMemoryContract contract = this.contracts.get(ballotAddress.toLowerCase());
+
+        if (! (contract instanceof InMemoryBallot)) {
+            throw new IllegalArgumentException("No ballot at address " + ballotAddress);
+        }
+
+        InMemoryContract.Invocation invocation = new InMemoryContract.Invocation(voter, false);
+        ((InMemoryBallot) contract).vote(invocation, ciphertext, proof, random);
+
+        this.nonces.merge(voter.toLowerCase(), BigInteger.ONE, BigInteger::add);
+
+        return this.mine(voter, ballotAddress, null, invocation, true);
+    }
+
+    /**
+     * @param query The blocks, addresses and topics to match.
+     * @return The matching logs in the order they were emitted.
+     */
+    public synchronized List<LogEntry> getLogs(LogQuery query) {
+        return this.matching(query, 0);
+    }
+
+    /**
+     * @param query The blocks, addresses and topics to match.
+     * @return The id of the filter.
+     */
+    public synchronized BigInteger newFilter(LogQuery query) {
+        BigInteger id = BigInteger.valueOf(++this.filterCount);
+        this.filters.put(id, new Filter(query, this.logs.size(), this.blockNumber));
+
+        return id;
+    }
+
+    /**
+     * @return The id of a filter for new blocks.
+     */
+    public synchronized BigInteger newBlockFilter() {
+        return this.newFilter(null);
+    }
+
+    /**
+     * @param id The id of the filter.
+     * @return The logs emitted since the last poll, or the hashes of the blocks mined since for block filters.
+     * @throws IllegalArgumentException If there is no filter with the given id.
+     */
+    public synchronized List<Object> getFilterChanges(BigInteger id) {
+        Filter filter = this.getFilter(id);
+        List<Object> changes = new ArrayList<>();
+
+        if (null == filter.query) {
+            for (long block = filter.lastBlock + 1; block <= this.blockNumber; block++) {
+                changes.add(blockHashOf(block));
+            }
+        } else {
+            changes.addAll(this.matching(filter.query, filter.nextLog));
+        }
+
+        filter.nextLog = this.logs.size();
+        filter.lastBlock = this.blockNumber;
+
+        return changes;
+    }
+
+    /**
+     * @param id The id of a log filter.
+     * @return All logs matching the filter.
+     * @throws IllegalArgumentException If there is no log filter with the given id.
+     */
+    public synchronized List<LogEntry> getFilterLogs(BigInteger id) {
+        Filter filter = this.getFilter(id);
+
+        if (null == filter.query) {
+            throw new IllegalArgumentException("Filter " + id + " is a block filter");
+        }
+
+        return this.matching(filter.query, 0);
+    }
+
+    /**
+     * @param id The id of the filter.
+     * @return True, if the filter existed.
+     */
+    public synchronized boolean uninstallFilter(BigInteger id) {
+        return null != this.filters.remove(id);
+    }
+
+    /**
+     * @param binary  The binary of the contract, as in its Web3J wrapper.
+     * @param factory Creates the stand-in of the contract.
+     */
+    synchronized void register(String binary, ContractFactory factory) {
+        this.factories.put(binary.toLowerCase(), factory);
+    }
+
+    private void register(Class<? extends Contract> wrapper, ContractFactory factory) {
+        try {
+            Field binary = wrapper.getDeclaredField("BINARY");
+            binary.setAccessible(true);
+
+            this.register((String) binary.get(null), factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to read the binary of " + wrapper.getSimpleName(), e);
+        }
+    }
+
+    private Receipt execute(String from, String to, String data) {
+        InMemoryContract.Invocation invocation = new InMemoryContract.Invocation(from, false);
+        String contractAddress = null;
+        boolean isSuccess = true;
+
+        try {
+            if (null == to || to.isEmpty()) {
+                contractAddress = this.deploy(from, data);
+            } else {
+                InMemoryContract contract = this.contracts.get(to.toLowerCase());
+
+                // transactions to accounts without code succeed without doing anything
+                if (null != contract) {
+                    contract.invoke(data, invocation);
+
+                    if (invocation.isDestroyed()) {
+                        this.contracts.remove(to.toLowerCase());
+                    }
+                }
+            }
+        } catch (InMemoryContract.Revert e) {
+            logger.fine("Transaction of " + from + " to " + to + " reverted: " + e.getMessage());
+            isSuccess = false;
+        }
+
+        return this.mine(from, to, contractAddress, invocation, isSuccess);
+    }
+
+    private String deploy(String from, String data) throws InMemoryContract.Revert {
+        String code = (null == data) ? "" : data.toLowerCase();
+
+        if (code.startsWith("0x")) {
+            code = code.substring(2);
+        }
+
+        for (Map.Entry<String, ContractFactory> entry : this.factories.entrySet()) {
+            if (code.startsWith(entry.getKey())) {
+                // like Ethereum, take the last 20 bytes of a hash as address
+                String address = "0x" + Hash.sha3String("contract:" + (++this.contractCount)).substring(26);
+                this.contracts.put(address, entry.getValue().create(address, from, code.substring(entry.getKey().length())));
+
+                return address;
+            }
+        }
+
+        throw new InMemoryContract.Revert("Unknown contract code");
+    }
+
+    private Receipt mine(String from, String to, String contractAddress, InMemoryContract.Invocation invocation, boolean isSuccess) {
+        long block = ++this.blockNumber;
+        String transactionHash = Hash.sha3String("transaction:" + (++this.transactionCount));
+        List<LogEntry> entries = new ArrayList<>();
+
+        if (isSuccess) {
+            String emitter = (null == contractAddress) ? to : contractAddress;
+
+            for (InMemoryContract.PendingLog log : invocation.getLogs()) {
+                LogEntry entry = new LogEntry(emitter.toLowerCase(), log.getTopics(), log.getData(), block, transactionHash, entries.size());
+                entries.add(entry);
+                this.logs.add(entry);
+            }
+        }
+
+        Receipt receipt = new Receipt(transactionHash, block, from, to, contractAddress, isSuccess, entries);
+        this.receipts.put(transactionHash, receipt);
+
+        return receipt;
+    }
+
+    private List<LogEntry> matching(LogQuery query, int fromIndex) {
+        List<LogEntry> matching = new ArrayList<>();
+
+        for (int i = fromIndex; i < this.logs.size(); i++) {
+            LogEntry entry = this.logs.get(i);
+
+            if (query.matches(entry, this.blockNumber)) {
+                matching.add(entry);
+            }
+        }
+
+        return matching;
+    }
+
+    private Filter getFilter(BigInteger id) {
+        Filter filter = this.filters.get(id);
+
+        if (null == filter) {
+            throw new IllegalArgumentException("Filter not found");
+        }
+
+        return filter;
+    }
+
+    static String blockHashOf(long block) {
+        return Hash.sha3String("block:" + block);
+    }
+
+    interface ContractFactory {
+
+        /**
+         * @param address              The address of the new contract.
+         * @param owner                The account deploying the contract.
+         * @param constructorArguments The hex encoded constructor arguments.
+         * @return The contract.
+         */
+        InMemoryContract create(String address, String owner, String constructorArguments);
+    }
+
+    /**
+     * The blocks, addresses and topics logs are requested for.
+     */
+    public static class LogQuery {
+
+        private final Long fromBlock;
+        private final Long toBlock;
+        private final Set<String> addresses;
+        private final List<Set<String>> topics;
+
+        /**
+         * @param fromBlock The first block, null for the latest block.
+         * @param toBlock   The last block, null for the latest block.
+         * @param addresses The contracts emitting the logs, empty for any.
+         * @param topics    The accepted topics by position, null for any topic at the position.
+         */
+        public LogQuery(Long fromBlock, Long toBlock, Collection<String> addresses, List<Set<String>> topics) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.addresses = new HashSet<>();
+            this.topics = topics;
+
+            for (String address : addresses) {
+                this.addresses.add(address.toLowerCase());
+            }
+        }
+
+        private boolean matches(LogEntry entry, long latestBlock) {
+            long from = (null == this.fromBlock) ? latestBlock : this.fromBlock;
+            long to = (null == this.toBlock) ? latestBlock : this.toBlock;
+
+            if (entry.blockNumber < from || entry.blockNumber > to) {
+                return false;
+            }
+
+            if (! this.addresses.isEmpty() && ! this.addresses.contains(entry.address)) {
+                return false;
+            }
+
+            for (int i = 0; i < this.topics.size(); i++) {
+                Set<String> accepted = this.topics.get(i);
+
+                if (null != accepted && (i >= entry.topics.size() || ! accepted.contains(entry.topics.get(i)))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * An event emitted by a mined transaction.
+     */
+    public static class LogEntry {
+
+        private final String address;
+        private final List<String> topics;
+        private final String data;
+        private final long blockNumber;
+        private final String transactionHash;
+        private final int logIndex;
+
+        private LogEntry(String address, List<String> topics, String data, long blockNumber, String transactionHash, int logIndex) {
+            this.address = address;
+            this.topics = Collections.unmodifiableList(topics);
+            this.data = data;
+            this.blockNumber = blockNumber;
+            this.transactionHash = transactionHash;
+            this.logIndex = logIndex;
+        }
+
+        public String getAddress() {
+            return this.address;
+        }
+
+        public List<String> getTopics() {
+            return this.topics;
+        }
+
+        public String getData() {
+            return this.data;
+        }
+
+        public long getBlockNumber() {
+            return this.blockNumber;
+        }
+
+        public String getBlockHash() {
+            return blockHashOf(this.blockNumber);
+        }
+
+        public String getTransactionHash() {
+            return this.transactionHash;
+        }
+
+        public int getLogIndex() {
+            return this.logIndex;
+        }
+    }
+
+    /**
+     * The receipt of a mined transaction.
+     */
+    public static class Receipt {
+
+        private final String transactionHash;
+        private final long blockNumber;
+        private final String from;
+        private final String to;
+        private final String contractAddress;
+        private final boolean isSuccess;
+        private final List<LogEntry> logs;
+
+        private Receipt(String transactionHash, long blockNumber, String from, String to, String contractAddress, boolean isSuccess, List<LogEntry> logs) {
+            this.transactionHash = transactionHash;
+            this.blockNumber = blockNumber;
+            this.from = from;
+            this.to = to;
+            this.contractAddress = contractAddress;
+            this.isSuccess = isSuccess;
+            this.logs = Collections.unmodifiableList(logs);
+        }
+
+        public String getTransactionHash() {
+            return this.transactionHash;
+        }
+
+        public long getBlockNumber() {
+            return this.blockNumber;
+        }
+
+        public String getBlockHash() {
+            return blockHashOf(this.blockNumber);
+        }
+
+        public String getFrom() {
+            return this.from;
+        }
+
+        /**
+         * @return The receiver, null for contract creations.
+         */
+        public String getTo() {
+            return this.to;
+        }
+
+        /**
+         * @return The address of the created contract, null for other transactions.
+         */
+        public String getContractAddress() {
+            return this.contractAddress;
+        }
+
+        public boolean isSuccess() {
+            return this.isSuccess;
+        }
+
+        public List<LogEntry> getLogs() {
+            return this.logs;
+        }
+    }
+
+    private static class Filter {
+
+        /**
+         * Null for block filters.
+         */
+        private final LogQuery query;
+        private int nextLog;
+        private long lastBlock;
+
+        private Filter(LogQuery query, int nextLog, long lastBlock) {
+            this.query = query;
+            this.nextLog = nextLog;
+            this.lastBlock = lastBlock;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.provotum.backend.ethereum.memory;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+
+import java.util.Collections;
+
+/**
+ * Stands in for the proxy contract, which holds the address of the current ballot.
+ */
+class InMemoryProxy extends InMemoryContract {
+
+    private String ballotAddress = InMemoryEthereum.ZERO_ADDRESS;
+
+    /**
+     * @param address              The address of the proxy.
+     * @param owner                The account which deployed the proxy.
+     * @param constructorArguments Ignored, the proxy has no constructor arguments.
+     */
+    InMemoryProxy(String address, String owner, String constructorArguments) {
+        super(address, owner);
+
+        this.view("getAddress()", Collections.emptyList(), (args, invocation) ->
+            Collections.singletonList(new Address(this.ballotAddress))
+        );
+
+        this.transaction("setAddress(address)", Collections.singletonList(new TypeReference<Address>() {}), (args, invocation) -> {
+            this.ballotAddress = (String) args.get(0).getValue();
+
+            return Collections.emptyList();
+        });
+
+        this.transaction("destroy()", Collections.emptyList(), (args, invocation) -> {
+            if (! this.getOwner().equalsIgnoreCase(invocation.getSender())) {
+                throw new Revert("Only the owner may destroy the proxy");
+            }
+
+            invocation.selfDestruct();
+
+            return Collections.emptyList();
+        });
+    }
+}
@@ -0,0 +1,370 @@
+package org.provotum.backend.ethereum.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.provotum.backend.ethereum.base.TransactionReceiptStatus;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Async;
+import org.web3j.utils.Numeric;
+import rx.Observable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Serves the JSON-RPC methods used by the contract wrappers of this backend from an {@link InMemoryEthereum},
+ * so that ballots can be deployed, filled and tallied without a node.
+ * <p>
+ * Every request may be delayed by a fixed latency plus a random jitter. Errors can be injected
+ * at random, either as JSON-RPC error responses or as failures to reach the node. Randomness is seeded,
+ * so that a single-threaded workload sees the same errors on every run.
+ * <p>
+ * Created from an RPC host like <code>memory://benchmark?latency=5&amp;jitter=2&amp;errors=0.01&amp;failures=0.001&amp;seed=42</code>,
+ * where the host part names the shared chain.
+ */
+public class InMemoryWeb3jService implements Web3jService {
+
+    private static final Logger logger = Logger.getLogger(InMemoryWeb3jService.class.getName());
+
+    public static final String SCHEME = "memory://";
+
+    private static final String DEFAULT_CHAIN = "default";
+    private static final String NETWORK_ID = "1337";
+
+    private static final int INVALID_PARAMS = -32602;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int SERVER_ERROR = -32000;
+
+    private final InMemoryEthereum chain;
+    private final long latency;
+    private final long jitter;
+    private final double errorRate;
+    private final double failureRate;
+    private final Random random;
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+
+    /**
+     * @param chain       The chain to serve.
+     * @param latency     The delay of each request in milliseconds.
+     * @param jitter      The maximum random delay in milliseconds added to the latency.
+     * @param errorRate   The probability of answering a request with an error response.
+     * @param failureRate The probability of failing a request as if the node was unreachable.
+     * @param seed        The seed of the random jitter and errors.
+     */
+    public InMemoryWeb3jService(InMemoryEthereum chain, long latency, long jitter, double errorRate, double failureRate, long seed) {
+        if (latency < 0 || jitter < 0) {
+            throw new IllegalArgumentException("Latency and jitter must not be negative. Got " + latency + " and " + jitter);
+        }
+
+        if (errorRate < 0 || errorRate > 1 || failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Error and failure rates must be between 0 and 1. Got " + errorRate + " and " + failureRate);
+        }
+
+        this.chain = chain;
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param uri An RPC host starting with {@link #SCHEME}.
+     * @return The service for the chain named by the host part of the given URI.
+     * @throws IllegalArgumentException If the URI is malformed.
+     */
+    public static InMemoryWeb3jService fromUri(String uri) {
+        URI parsed = URI.create(uri);
+        String name = (null == parsed.getAuthority()) ? DEFAULT_CHAIN : parsed.getAuthority();
+
+        long latency = 0;
+        long jitter = 0;
+        double errorRate = 0;
+        double failureRate = 0;
+        long seed = 0;
+
+        if (null != parsed.getQuery()) {
+            for (String option : parsed.getQuery().split("&")) {
+                String[] pair = option.split("=", 2);
+                String value = (2 == pair.length) ? pair[1] : "";
+
+                switch (pair[0]) {
+                    case "latency":
+                        latency = Long.parseLong(value);
+                        break;
+                    case "jitter":
+                        jitter = Long.parseLong(value);
+                        break;
+                    case "errors":
+                        errorRate = Double.parseDouble(value);
+                        break;
+                    case "failures":
+                        failureRate = Double.parseDouble(value);
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + pair[0] + " of in-memory RPC host " + uri);
+                }
+            }
+        }
+
+        logger.info("Serving RPC requests from in-memory chain " + name);
+
+        return new InMemoryWeb3jService(InMemoryEthereum.named(name), latency, jitter, errorRate, failureRate, seed);
+    }
+
+    public InMemoryEthereum getChain() {
+        return this.chain;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        this.delay();
+
+        if (this.failureRate > 0 && this.random.nextDouble() < this.failureRate) {
+            throw new IOException("Injected failure of " + request.getMethod());
+        }
+
+        ObjectNode response = this.objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.put("id", request.getId());
+
+        if (this.errorRate > 0 && this.random.nextDouble() < this.errorRate) {
+            this.setError(response, SERVER_ERROR, "Injected error of " + request.getMethod());
+        } else {
+            try {
+                response.set("result", this.dispatch(request.getMethod(), this.objectMapper.valueToTree(request.getParams())));
+            } catch (UnsupportedOperationException e) {
+                this.setError(response, METHOD_NOT_FOUND, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                this.setError(response, INVALID_PARAMS, e.getMessage());
+            }
+        }
+
+        return this.objectMapper.treeToValue(response, responseType);
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return Async.run(() -> this.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        return Observable.error(new UnsupportedOperationException("The in-memory chain does not support subscriptions, use filters instead"));
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the chain holds no resources besides memory
+    }
+
+    private JsonNode dispatch(String method, JsonNode params) {
+        switch (method) {
+            case "web3_clientVersion":
+                return this.objectMapper.getNodeFactory().textNode("provotum/in-memory");
+            case "net_version":
+                return this.objectMapper.getNodeFactory().textNode(NETWORK_ID);
+            case "eth_blockNumber":
+                return quantity(this.chain.getBlockNumber());
+            case "eth_gasPrice":
+                return quantity(BigInteger.ONE);
+            case "eth_getTransactionCount":
+                return quantity(this.chain.getTransactionCount(text(params.path(0))));
+            case "eth_sendRawTransaction":
+                return this.objectMapper.getNodeFactory().textNode(this.chain.sendRawTransaction(text(params.path(0))));
+            case "eth_sendTransaction": {
+                JsonNode transaction = params.path(0);
+                return this.objectMapper.getNodeFactory().textNode(this.chain.sendTransaction(
+                    text(transaction.path("from")),
+                    transaction.path("to").isTextual() ? transaction.path("to").asText() : null,
+                    transaction.path("data").asText("0x")
+                ));
+            }
+            case "eth_call": {
+                JsonNode transaction = params.path(0);
+                return this.objectMapper.getNodeFactory().textNode(this.chain.call(
+                    transaction.path("from").isTextual() ? transaction.path("from").asText() : null,
+                    text(transaction.path("to")),
+                    transaction.path("data").asText("0x")
+                ));
+            }
+            case "eth_getTransactionReceipt": {
+                InMemoryEthereum.Receipt receipt = this.chain.getReceipt(text(params.path(0)));
+                return (null == receipt) ? this.objectMapper.getNodeFactory().nullNode() : this.toJson(receipt);
+            }
+            case "eth_getLogs":
+                return this.toJson(new ArrayList<>(this.chain.getLogs(this.toQuery(params.path(0)))));
+            case "eth_newFilter":
+                return quantity(this.chain.newFilter(this.toQuery(params.path(0))));
+            case "eth_newBlockFilter":
+                return quantity(this.chain.newBlockFilter());
+            case "eth_getFilterChanges":
+                return this.toJson(this.chain.getFilterChanges(Numeric.decodeQuantity(text(params.path(0)))));
+            case "eth_getFilterLogs":
+                return this.toJson(new ArrayList<>(this.chain.getFilterLogs(Numeric.decodeQuantity(text(params.path(0))))));
+            case "eth_uninstallFilter":
+                return this.objectMapper.getNodeFactory().booleanNode(this.chain.uninstallFilter(Numeric.decodeQuantity(text(params.path(0)))));
+            default:
+                throw new UnsupportedOperationException("The method " + method + " is not supported by the in-memory chain");
+        }
+    }
+
+    private InMemoryEthereum.LogQuery toQuery(JsonNode filter) {
+        List<String> addresses = new ArrayList<>();
+        JsonNode address = filter.path("address");
+
+        if (address.isTextual()) {
+            addresses.add(address.asText());
+        } else {
+            for (JsonNode element : address) {
+                addresses.add(element.asText());
+            }
+        }
+
+        List<Set<String>> topics = new ArrayList<>();
+
+        for (JsonNode topic : filter.path("topics")) {
+            if (topic.isNull()) {
+                topics.add(null);
+            } else if (topic.isArray()) {
+                Set<String> accepted = new HashSet<>();
+
+                for (JsonNode element : topic) {
+                    accepted.add(element.asText().toLowerCase());
+                }
+
+                topics.add(accepted);
+            } else {
+                topics.add(Collections.singleton(topic.asText().toLowerCase()));
+            }
+        }
+
+        return new InMemoryEthereum.LogQuery(toBlock(filter.path("fromBlock"), 0L), toBlock(filter.path("toBlock"), null), addresses, topics);
+    }
+
+    /**
+     * @return The block number, null for the latest block.
+     */
+    private static Long toBlock(JsonNode block, Long defaultBlock) {
+        if (! block.isTextual()) {
+            return defaultBlock;
+        }
+
+        switch (block.asText()) {
+            case "earliest":
+                return 0L;
+            case "latest":
+            case "pending":
+                return null;
+            default:
+                return Numeric.decodeQuantity(block.asText()).longValue();
+        }
+    }
+
+    private JsonNode toJson(InMemoryEthereum.Receipt receipt) {
+        ObjectNode json = this.objectMapper.createObjectNode();
+        json.put("transactionHash", receipt.getTransactionHash());
+        json.put("transactionIndex", "0x0");
+        json.put("blockHash", receipt.getBlockHash());
+        json.put("blockNumber", Numeric.encodeQuantity(BigInteger.valueOf(receipt.getBlockNumber())));
+        json.put("cumulativeGasUsed", "0x0");
+        json.put("gasUsed", "0x0");
+        json.put("contractAddress", receipt.getContractAddress());
+        json.put("from", receipt.getFrom());
+        json.put("to", receipt.getTo());
+        json.put("status", receipt.isSuccess() ? TransactionReceiptStatus.SUCCESS.getValue() : TransactionReceiptStatus.ERROR.getValue());
+        json.set("logs", this.toJson(new ArrayList<>(receipt.getLogs())));
+
+        return json;
+    }
+
+    /**
+     * @param entries Logs or hashes of blocks.
+     */
+    private ArrayNode toJson(List<Object> entries) {
+        ArrayNode json = this.objectMapper.createArrayNode();
+
+        for (Object entry : entries) {
+            if (! (entry instanceof InMemoryEthereum.LogEntry)) {
+                json.add(entry.toString());
+                continue;
+            }
+
+            InMemoryEthereum.LogEntry log = (InMemoryEthereum.LogEntry) entry;
+            ObjectNode logJson = json.addObject();
+            logJson.put("removed", false);
+            logJson.put("logIndex", Numeric.encodeQuantity(BigInteger.valueOf(log.getLogIndex())));
+            logJson.put("transactionIndex", "0x0");
+            logJson.put("transactionHash", log.getTransactionHash());
+            logJson.put("blockHash", log.getBlockHash());
+            logJson.put("blockNumber", Numeric.encodeQuantity(BigInteger.valueOf(log.getBlockNumber())));
+            logJson.put("address", log.getAddress());
+            logJson.put("data", log.getData());
+            logJson.put("type", "mined");
+
+            ArrayNode topics = logJson.putArray("topics");
+
+            for (String topic : log.getTopics()) {
+                topics.add(topic);
+            }
+        }
+
+        return json;
+    }
+
+    private void setError(ObjectNode response, int code, String message) {
+        ObjectNode error = response.putObject("error");
+        error.put("code", code);
+        error.put("message", message);
+    }
+
+    private void delay() throws IOException {
+        long delay = this.latency;
+
+        if (this.jitter > 0) {
+            delay += (long) (this.random.nextDouble() * (this.jitter + 1));
+        }
+
+        if (0 == delay) {
+            return;
+        }
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while simulating the latency of the node");
+        }
+    }
+
+    private JsonNode quantity(BigInteger value) {
+        return this.objectMapper.getNodeFactory().textNode(Numeric.encodeQuantity(value));
+    }
+
+    private static String text(JsonNode node) {
+        if (! node.isTextual()) {
+            throw new IllegalArgumentException("Missing or invalid parameter");
+        }
+
+        return node.asText();
+    }
+}
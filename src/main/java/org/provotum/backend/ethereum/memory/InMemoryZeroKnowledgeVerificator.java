@@ -0,0 +1,49 @@
+package org.provotum.backend.ethereum.memory;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Stands in for the zero-knowledge verificator contract.
+ * <p>
+ * Proofs are not verified on chain, every submitted proof is acknowledged by a <code>ProofEvent</code>.
+ */
+class InMemoryZeroKnowledgeVerificator extends InMemoryContract {
+
+    static final Event PROOF_EVENT = new Event(
+        "ProofEvent",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {})
+    );
+
+    /**
+     * @param address              The address of the verificator.
+     * @param owner                The account which deployed the verificator.
+     * @param constructorArguments Ignored, the verificator has no constructor arguments.
+     */
+    InMemoryZeroKnowledgeVerificator(String address, String owner, String constructorArguments) {
+        super(address, owner);
+
+        this.transaction("verifyProof(string)", Collections.singletonList(new TypeReference<Utf8String>() {}), (args, invocation) -> {
+            invocation.emit(PROOF_EVENT, Collections.singletonList(new Address(invocation.getSender())), Arrays.<Type>asList(new Bool(true), new Utf8String("Proof received")));
+
+            return Collections.emptyList();
+        });
+
+        this.transaction("destroy()", Collections.emptyList(), (args, invocation) -> {
+            if (! this.getOwner().equalsIgnoreCase(invocation.getSender())) {
+                throw new Revert("Only the owner may destroy the verificator");
+            }
+
+            invocation.selfDestruct();
+
+            return Collections.emptyList();
+        });
+    }
+}
@@ -0,0 +1,198 @@
+package org.provotum.backend.ethereum.memory;
+
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.Sign;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A transaction as sent by <code>eth_sendRawTransaction</code>, i.e. the RLP encoded list of
+ * nonce, gas price, gas limit, receiver, value, data and the signature.
+ * <p>
+ * The sender is recovered from the signature for transactions signed without chain id,
+ * as done by Web3J unless configured otherwise. For others, the sender is unknown.
+ */
+class SignedTransaction {
+
+    private static final int FIELDS = 9;
+
+    private final BigInteger nonce;
+    private final String to;
+    private final String data;
+    private final String from;
+
+    private SignedTransaction(BigInteger nonce, String to, String data, String from) {
+        this.nonce = nonce;
+        this.to = to;
+        this.data = data;
+        this.from = from;
+    }
+
+    /**
+     * @param signedTransaction The hex encoded signed transaction.
+     * @return The decoded transaction.
+     * @throws IllegalArgumentException If the transaction is malformed.
+     */
+    static SignedTransaction decode(String signedTransaction) {
+        List<byte[]> fields = decodeList(Numeric.hexStringToByteArray(signedTransaction));
+
+        if (FIELDS != fields.size()) {
+            throw new IllegalArgumentException("A signed transaction has " + FIELDS + " fields. Got " + fields.size());
+        }
+
+        BigInteger nonce = toBigInteger(fields.get(0));
+        BigInteger gasPrice = toBigInteger(fields.get(1));
+        BigInteger gasLimit = toBigInteger(fields.get(2));
+        String to = (0 == fields.get(3).length) ? null : Numeric.toHexString(toAddress(fields.get(3)));
+        BigInteger value = toBigInteger(fields.get(4));
+        String data = Numeric.toHexString(fields.get(5));
+        BigInteger v = toBigInteger(fields.get(6));
+
+        String from = null;
+
+        if (BigInteger.valueOf(27).equals(v) || BigInteger.valueOf(28).equals(v)) {
+            RawTransaction transaction = (null == to)
+                ? RawTransaction.createContractTransaction(nonce, gasPrice, gasLimit, value, data)
+                : RawTransaction.createTransaction(nonce, gasPrice, gasLimit, to, value, data);
+
+            Sign.SignatureData signature = new Sign.SignatureData(v.byteValue(), toWord(fields.get(7)), toWord(fields.get(8)));
+
+            try {
+                from = "0x" + Keys.getAddress(Sign.signedMessageToKey(TransactionEncoder.encode(transaction), signature));
+            } catch (SignatureException e) {
+                throw new IllegalArgumentException("Invalid signature: " + e.getMessage(), e);
+            }
+        }
+
+        return new SignedTransaction(nonce, to, data, from);
+    }
+
+    BigInteger getNonce() {
+        return this.nonce;
+    }
+
+    /**
+     * @return The receiver, null for contract creations.
+     */
+    String getTo() {
+        return this.to;
+    }
+
+    String getData() {
+        return this.data;
+    }
+
+    /**
+     * @return The sender, null if it could not be recovered.
+     */
+    String getFrom() {
+        return this.from;
+    }
+
+    /**
+     * Decode an RLP list of strings. Transactions do not contain nested lists.
+     */
+    private static List<byte[]> decodeList(byte[] input) {
+        if (0 == input.length || (input[0] & 0xFF) < 0xC0) {
+            throw new IllegalArgumentException("A signed transaction must be an RLP list");
+        }
+
+        int prefix = input[0] & 0xFF;
+        int offset;
+        int end;
+
+        if (prefix <= 0xF7) {
+            offset = 1;
+            end = offset + prefix - 0xC0;
+        } else {
+            int lengthOfLength = prefix - 0xF7;
+            offset = 1 + lengthOfLength;
+            end = offset + toLength(input, 1, lengthOfLength);
+        }
+
+        if (end > input.length) {
+            throw new IllegalArgumentException("Truncated RLP list");
+        }
+
+        List<byte[]> items = new ArrayList<>(FIELDS);
+
+        while (offset < end) {
+            int itemPrefix = input[offset] & 0xFF;
+            int start;
+            int length;
+
+            if (itemPrefix < 0x80) {
+                start = offset;
+                length = 1;
+            } else if (itemPrefix <= 0xB7) {
+                start = offset + 1;
+                length = itemPrefix - 0x80;
+            } else if (itemPrefix < 0xC0) {
+                int lengthOfLength = itemPrefix - 0xB7;
+                start = offset + 1 + lengthOfLength;
+                length = toLength(input, offset + 1, lengthOfLength);
+            } else {
+                throw new IllegalArgumentException("Unexpected nested RLP list");
+            }
+
+            if (start + length > end) {
+                throw new IllegalArgumentException("Truncated RLP string");
+            }
+
+            items.add(Arrays.copyOfRange(input, start, start + length));
+            offset = start + length;
+        }
+
+        return items;
+    }
+
+    private static int toLength(byte[] input, int offset, int length) {
+        if (length > 3 || offset + length > input.length) {
+            throw new IllegalArgumentException("Invalid RLP length");
+        }
+
+        int value = 0;
+
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (input[offset + i] & 0xFF);
+        }
+
+        return value;
+    }
+
+    private static BigInteger toBigInteger(byte[] value) {
+        return (0 == value.length) ? BigInteger.ZERO : new BigInteger(1, value);
+    }
+
+    /**
+     * Addresses may be encoded as numbers, i.e. without leading zeros.
+     */
+    private static byte[] toAddress(byte[] value) {
+        return leftPad(value, 20);
+    }
+
+    /**
+     * Signatures are encoded as numbers, i.e. without leading zeros, but are expected to be 32 bytes long.
+     */
+    private static byte[] toWord(byte[] value) {
+        return leftPad(value, 32);
+    }
+
+    private static byte[] leftPad(byte[] value, int length) {
+        if (value.length >= length) {
+            return value;
+        }
+
+        byte[] padded = new byte[length];
+        System.arraycopy(value, 0, padded, length - value.length, value.length);
+
+        return padded;
+    }
+}
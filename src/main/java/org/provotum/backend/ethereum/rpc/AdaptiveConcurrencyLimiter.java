@@ -0,0 +1,371 @@
+package org.provotum.backend.ethereum.rpc;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Limits the number of concurrent RPC requests to the Ethereum node.
+ * <p>
+ * The limit is adjusted using AIMD based on the observed latency: As long as
+ * the smoothed latency stays close to the baseline, i.e. the lowest latency
+ * observed within the recent samples, and the limit is fully used, the limit grows
+ * by one per window. Once requests fail or the smoothed latency exceeds the
+ * tolerated multiple of the baseline, requests are queueing up at the node and
+ * the limit is cut back multiplicatively, at most once per window.
+ * <p>
+ * Latencies are tracked per JSON-RPC method, since e.g. fetching the logs of many blocks
+ * takes far longer than reading a single value, even on an idle node. Comparing them
+ * to a common baseline would cut back the limit whenever the mix of methods changes.
+ * <p>
+ * Requests exceeding the limit are queued per {@link RpcPriority} and admitted
+ * in priority order, first-in-first-out within the same priority.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = Logger.getLogger(AdaptiveConcurrencyLimiter.class.getName());
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double SMOOTHING = 0.1;
+    private static final int BASELINE_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final long maxQueueTimeNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<RpcPriority, Deque<Condition>> queues = new EnumMap<>(RpcPriority.class);
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+
+    private final Map<String, Latency> latencies = new HashMap<>();
+
+    private int completedSinceBackoff;
+
+    private long admitted;
+    private long rejected;
+    private long timedOut;
+    private long dropped;
+
+    /**
+     * @param initialLimit      The concurrency limit to start with.
+     * @param minLimit          The limit is never decreased below this value.
+     * @param maxLimit          The limit is never increased above this value.
+     * @param maxQueueSize      The maximum number of requests waiting for admission. Further requests are rejected.
+     * @param maxQueueTimeMillis The maximum time in milliseconds a request waits for admission.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize, long maxQueueTimeMillis) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max. Got min " + minLimit + ", initial " + initialLimit + ", max " + maxLimit);
+        }
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.maxQueueTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueTimeMillis);
+
+        for (RpcPriority priority : RpcPriority.values()) {
+            this.queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Wait until a request of the given priority may be sent.
+     * Each successful call must be followed by exactly one call to {@link #release(long, String, boolean)}
+     * resp. {@link #cancel()}.
+     *
+     * @param priority The priority of the request.
+     * @return The start time of the request which has to be passed to {@link #release(long, String, boolean)}.
+     * @throws IOException If the queue is full, waiting timed out or the thread got interrupted.
+     */
+    public long acquire(RpcPriority priority) throws IOException {
+        this.lock.lock();
+        try {
+            if (this.inFlight < (int) this.limit && ! this.hasWaitersAtOrAbove(priority)) {
+                return this.admit();
+            }
+
+            if (this.queued >= this.maxQueueSize) {
+                this.rejected++;
+                throw new IOException("Rejected RPC request: " + this.queued + " requests are already waiting for the Ethereum node");
+            }
+
+            Deque<Condition> queue = this.queues.get(priority);
+            Condition condition = this.lock.newCondition();
+            queue.addLast(condition);
+            this.queued++;
+
+            long remaining = this.maxQueueTimeNanos;
+            try {
+                while (true) {
+                    if (this.inFlight < (int) this.limit && condition == this.nextWaiter()) {
+                        queue.pollFirst();
+                        this.queued--;
+                        long start = this.admit();
+                        // there might be more capacity left for the next one in line
+                        this.signalNextWaiter();
+
+                        return start;
+                    }
+
+                    if (remaining <= 0) {
+                        queue.remove(condition);
+                        this.queued--;
+                        this.timedOut++;
+                        this.signalNextWaiter();
+
+                        throw new IOException("Timed out waiting for admission of RPC request to the Ethereum node");
+                    }
+
+                    remaining = condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                queue.remove(condition);
+                this.queued--;
+                this.signalNextWaiter();
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while waiting for admission of RPC request");
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Mark a request as completed and adjust the limit based on its outcome.
+     *
+     * @param start      The start time as returned by {@link #acquire(RpcPriority)}.
+     * @param method     The JSON-RPC method of the request.
+     * @param successful Whether the node answered the request.
+     */
+    public void release(long start, String method, boolean successful) {
+        long latency = System.nanoTime() - start;
+
+        this.lock.lock();
+        try {
+            boolean wasSaturated = this.inFlight >= (int) this.limit;
+            this.inFlight--;
+
+            Latency methodLatency = this.latencies.computeIfAbsent(method, key -> new Latency());
+            methodLatency.record(latency);
+
+            this.completedSinceBackoff++;
+
+            double previousLimit = this.limit;
+            boolean isOverloaded = ! successful || methodLatency.smoothed > LATENCY_TOLERANCE * methodLatency.baseline;
+
+            if (isOverloaded && this.completedSinceBackoff >= (int) this.limit) {
+                this.dropped++;
+                this.completedSinceBackoff = 0;
+                this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+            } else if (! isOverloaded && wasSaturated) {
+                this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+            }
+
+            if ((int) previousLimit != (int) this.limit) {
+                logger.fine("Adjusted RPC concurrency limit from " + (int) previousLimit + " to " + (int) this.limit);
+            }
+
+            this.signalNextWaiter();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Mark a request as completed which never reached the node, e.g. since it was rejected
+     * by the circuit breaker. Neither its latency nor its failure says anything about the
+     * load of the node, so that the limit is kept as is.
+     */
+    public void cancel() {
+        this.lock.lock();
+        try {
+            this.inFlight--;
+            this.signalNextWaiter();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private long admit() {
+        this.inFlight++;
+        this.admitted++;
+
+        return System.nanoTime();
+    }
+
+    private boolean hasWaitersAtOrAbove(RpcPriority priority) {
+        for (RpcPriority p : RpcPriority.values()) {
+            if (! this.queues.get(p).isEmpty()) {
+                return true;
+            }
+
+            if (p == priority) {
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    private Condition nextWaiter() {
+        for (RpcPriority priority : RpcPriority.values()) {
+            Condition head = this.queues.get(priority).peekFirst();
+            if (null != head) {
+                return head;
+            }
+        }
+
+        return null;
+    }
+
+    private void signalNextWaiter() {
+        if (this.inFlight >= (int) this.limit) {
+            return;
+        }
+
+        Condition next = this.nextWaiter();
+        if (null != next) {
+            next.signal();
+        }
+    }
+
+    public int getLimit() {
+        this.lock.lock();
+        try {
+            return (int) this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        this.lock.lock();
+        try {
+            return this.inFlight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getQueued(RpcPriority priority) {
+        this.lock.lock();
+        try {
+            return this.queues.get(priority).size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param method The JSON-RPC method.
+     * @return The smoothed latency of completed requests of the given method in nanoseconds or -1 if none completed yet.
+     */
+    public long getSmoothedLatency(String method) {
+        this.lock.lock();
+        try {
+            Latency latency = this.latencies.get(method);
+
+            return (null == latency) ? -1 : (long) latency.smoothed;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param method The JSON-RPC method.
+     * @return The lowest latency of the given method within the recent samples in nanoseconds or -1 if none completed yet.
+     */
+    public long getBaselineLatency(String method) {
+        this.lock.lock();
+        try {
+            Latency latency = this.latencies.get(method);
+
+            return (null == latency) ? -1 : (long) latency.baseline;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long getAdmitted() {
+        this.lock.lock();
+        try {
+            return this.admitted;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        this.lock.lock();
+        try {
+            return this.rejected;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long getTimedOut() {
+        this.lock.lock();
+        try {
+            return this.timedOut;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of times the limit was decreased.
+     */
+    public long getDropped() {
+        this.lock.lock();
+        try {
+            return this.dropped;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * The latencies of the requests of one JSON-RPC method.
+     */
+    private static class Latency {
+
+        private long previousWindowMin = Long.MAX_VALUE;
+        private long currentWindowMin = Long.MAX_VALUE;
+        private int currentWindowSamples;
+
+        private double baseline = -1;
+        private double smoothed = -1;
+
+        private void record(long latency) {
+            // the baseline is the minimum over the current and the previous window of samples,
+            // so that it follows a node which became permanently slower or faster
+            this.currentWindowMin = Math.min(this.currentWindowMin, latency);
+            this.currentWindowSamples++;
+            this.baseline = Math.min(this.previousWindowMin, this.currentWindowMin);
+
+            if (this.currentWindowSamples >= BASELINE_SAMPLES) {
+                this.previousWindowMin = this.currentWindowMin;
+                this.currentWindowMin = Long.MAX_VALUE;
+                this.currentWindowSamples = 0;
+            }
+
+            this.smoothed = (this.smoothed < 0) ? latency : this.smoothed + SMOOTHING * (latency - this.smoothed);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.provotum.backend.ethereum.rpc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the health of the Ethereum node based on the outcome of RPC requests.
+ * <p>
+ * After a number of consecutive failures the breaker opens and requests are
+ * rejected immediately instead of waiting for the socket to time out. Once the
+ * open duration passed, the breaker becomes half-open and lets a single probe
+ * request through: If it succeeds the breaker closes again, otherwise it stays
+ * open for another period.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean isProbing;
+
+    private long rejected;
+    private long trips;
+
+    /**
+     * @param failureThreshold   The number of consecutive failures after which the breaker opens.
+     * @param openDurationMillis The time in milliseconds the breaker stays open before probing the node.
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold of the circuit breaker must be at least 1. Got " + failureThreshold);
+        }
+
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+    }
+
+    /**
+     * Check whether a request may be sent to the node. If this returns true,
+     * the outcome of the request must be reported using {@link #recordSuccess()},
+     * {@link #recordFailure()} resp. {@link #recordCancelled()}.
+     *
+     * @return True, if the request may be sent, false if it must be rejected.
+     */
+    public synchronized boolean allowRequest() {
+        switch (this.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - this.openedAt < this.openDurationNanos) {
+                    this.rejected++;
+                    return false;
+                }
+
+                logger.info("Probing whether the Ethereum node recovered.");
+                this.state = State.HALF_OPEN;
+                this.isProbing = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                // only a single probe at a time
+                if (this.isProbing) {
+                    this.rejected++;
+                    return false;
+                }
+
+                this.isProbing = true;
+                return true;
+        }
+    }
+
+    /**
+     * Record a request which got an answer from the node.
+     */
+    public synchronized void recordSuccess() {
+        if (State.CLOSED != this.state) {
+            logger.info("Ethereum node is healthy again. Closing circuit breaker.");
+        }
+
+        this.state = State.CLOSED;
+        this.consecutiveFailures = 0;
+        this.isProbing = false;
+    }
+
+    /**
+     * Record a request which failed to reach the node or timed out.
+     */
+    public synchronized void recordFailure() {
+        this.consecutiveFailures++;
+
+        if (State.HALF_OPEN == this.state || (State.CLOSED == this.state && this.consecutiveFailures >= this.failureThreshold)) {
+            logger.severe("Ethereum node is unhealthy after " + this.consecutiveFailures + " consecutive failures. Opening circuit breaker.");
+            this.trips++;
+            this.state = State.OPEN;
+            this.openedAt = System.nanoTime();
+        }
+
+        this.isProbing = false;
+    }
+
+    /**
+     * Record a request which was abandoned before the node answered, e.g. since the calling
+     * thread was interrupted. This says nothing about the node, but allows another probe.
+     */
+    public synchronized void recordCancelled() {
+        this.isProbing = false;
+    }
+
+    /**
+     * @return True, if requests are currently rejected without contacting the node.
+     */
+    public synchronized boolean isOpen() {
+        return State.OPEN == this.state && System.nanoTime() - this.openedAt < this.openDurationNanos;
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    public synchronized long getRejected() {
+        return this.rejected;
+    }
+
+    /**
+     * @return How many times the breaker opened.
+     */
+    public synchronized long getTrips() {
+        return this.trips;
+    }
+}
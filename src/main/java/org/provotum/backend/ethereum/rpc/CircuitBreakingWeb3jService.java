@@ -0,0 +1,89 @@
+package org.provotum.backend.ethereum.rpc;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Async;
+import rx.Observable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reports the outcome of every RPC request to a {@link CircuitBreaker}
+ * and rejects requests while the breaker is open. Requests abandoned
+ * because the calling thread was interrupted do not count as failures.
+ */
+public class CircuitBreakingWeb3jService implements Web3jService {
+
+    private final Web3jService delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakingWeb3jService(Web3jService delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (! this.circuitBreaker.allowRequest()) {
+            throw new NodeUnavailableException("Ethereum node is unavailable. Rejected " + request.getMethod() + " without contacting the node.");
+        }
+
+        T response;
+        try {
+            response = this.delegate.send(request, responseType);
+        } catch (Throwable e) {
+            // any outcome must be recorded, otherwise a failed probe would keep the breaker half-open
+            if (isInterruption(e)) {
+                this.circuitBreaker.recordCancelled();
+            } else {
+                this.circuitBreaker.recordFailure();
+            }
+
+            throw e;
+        }
+
+        // an error response is still an answer of a healthy node
+        this.circuitBreaker.recordSuccess();
+
+        return response;
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return Async.run(() -> this.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        return this.delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    /**
+     * @return True, if the request was abandoned since the calling thread was interrupted,
+     * e.g. as a tally was cancelled. A timeout is a failure of the node instead.
+     */
+    private static boolean isInterruption(Throwable e) {
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            if (cause instanceof ClosedByInterruptException || cause instanceof InterruptedException) {
+                return true;
+            }
+
+            if (cause instanceof InterruptedIOException && ! (cause instanceof SocketTimeoutException)) {
+                return true;
+            }
+        }
+
+        return Thread.currentThread().isInterrupted();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+}
@@ -0,0 +1,66 @@
+package org.provotum.backend.ethereum.rpc;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Async;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends all RPC requests through an {@link AdaptiveConcurrencyLimiter}
+ * before handing them to the underlying transport. Requests rejected
+ * without contacting the node, e.g. by an open circuit breaker, say nothing
+ * about its load and are not accounted for by the limiter.
+ */
+public class LimitedWeb3jService implements Web3jService {
+
+    private final Web3jService delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LimitedWeb3jService(Web3jService delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        long start = this.limiter.acquire(RpcPriority.of(request));
+
+        T response;
+        try {
+            response = this.delegate.send(request, responseType);
+        } catch (NodeUnavailableException e) {
+            this.limiter.cancel();
+
+            throw e;
+        } catch (Throwable e) {
+            this.limiter.release(start, request.getMethod(), false);
+
+            throw e;
+        }
+
+        this.limiter.release(start, request.getMethod(), true);
+
+        return response;
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return Async.run(() -> this.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        // subscriptions hold no request slot once established
+        return this.delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+}
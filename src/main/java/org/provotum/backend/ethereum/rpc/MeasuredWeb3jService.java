@@ -0,0 +1,64 @@
+package org.provotum.backend.ethereum.rpc;
+
+import org.provotum.backend.profiling.Profiling;
+import org.provotum.backend.profiling.Span;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Async;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Records the latency and outcome of every RPC request in {@link RpcMetrics}
+ * and emits it as Flight Recorder event while recording.
+ */
+public class MeasuredWeb3jService implements Web3jService {
+
+    private final Web3jService delegate;
+    private final RpcMetrics metrics;
+
+    public MeasuredWeb3jService(Web3jService delegate, RpcMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        Span span = Profiling.rpc(request.getMethod());
+        long start = System.nanoTime();
+
+        T response;
+        try {
+            response = this.delegate.send(request, responseType);
+        } catch (IOException | RuntimeException e) {
+            this.metrics.recordFailure(request.getMethod(), System.nanoTime() - start);
+            span.end(Profiling.FAILURE);
+            throw e;
+        }
+
+        boolean isError = null != response && response.hasError();
+        this.metrics.recordResponse(request.getMethod(), System.nanoTime() - start, isError);
+        span.end(isError ? Profiling.ERROR : Profiling.SUCCESS);
+
+        return response;
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return Async.run(() -> this.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        return this.delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+}
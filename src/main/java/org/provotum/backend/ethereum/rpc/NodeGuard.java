@@ -0,0 +1,101 @@
+package org.provotum.backend.ethereum.rpc;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Admits operations against the Ethereum node. Each {@link OperationClass} has its own
+ * bulkhead limiting the number of pending operations of that class. While the
+ * {@link CircuitBreaker} is open, operations are rejected before they occupy any thread.
+ */
+public class NodeGuard {
+
+    private static final Logger logger = Logger.getLogger(NodeGuard.class.getName());
+
+    private final CircuitBreaker circuitBreaker;
+    private final Map<OperationClass, Integer> capacities;
+    private final Map<OperationClass, Semaphore> bulkheads = new EnumMap<>(OperationClass.class);
+    private final Map<OperationClass, AtomicLong> rejections = new EnumMap<>(OperationClass.class);
+
+    /**
+     * @param circuitBreaker The breaker tracking the health of the node.
+     * @param capacities     The maximum number of pending operations per class.
+     */
+    public NodeGuard(CircuitBreaker circuitBreaker, Map<OperationClass, Integer> capacities) {
+        this.circuitBreaker = circuitBreaker;
+        this.capacities = new EnumMap<>(capacities);
+
+        for (OperationClass operationClass : OperationClass.values()) {
+            Integer capacity = capacities.get(operationClass);
+
+            if (null == capacity || capacity < 1) {
+                throw new IllegalArgumentException("Missing or invalid bulkhead capacity for operation class " + operationClass);
+            }
+
+            this.bulkheads.put(operationClass, new Semaphore(capacity));
+            this.rejections.put(operationClass, new AtomicLong());
+        }
+    }
+
+    /**
+     * Submit the given task to the executor if the node is healthy and the bulkhead
+     * of its operation class has capacity left. The capacity is returned once the task finished.
+     *
+     * @param executor       The executor to run the task on.
+     * @param operationClass The class of the operation the task performs.
+     * @param task           The task.
+     * @throws NodeUnavailableException If the node is unhealthy or the bulkhead is full.
+     */
+    public void submit(Executor executor, OperationClass operationClass, Runnable task) throws NodeUnavailableException {
+        if (this.circuitBreaker.isOpen()) {
+            this.rejections.get(operationClass).incrementAndGet();
+            throw new NodeUnavailableException("Ethereum node is unavailable. Try again later.");
+        }
+
+        Semaphore bulkhead = this.bulkheads.get(operationClass);
+        if (! bulkhead.tryAcquire()) {
+            this.rejections.get(operationClass).incrementAndGet();
+            logger.warning("Rejecting operation of class " + operationClass + ": " + this.capacities.get(operationClass) + " operations are already pending.");
+            throw new NodeUnavailableException("Too many pending operations of this kind. Try again later.");
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            this.rejections.get(operationClass).incrementAndGet();
+            throw new NodeUnavailableException("Failed to schedule operation: " + e.getMessage());
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * @param operationClass The operation class.
+     * @return The number of currently pending operations of the given class.
+     */
+    public int getPending(OperationClass operationClass) {
+        return this.capacities.get(operationClass) - this.bulkheads.get(operationClass).availablePermits();
+    }
+
+    /**
+     * @param operationClass The operation class.
+     * @return The number of operations of the given class which got rejected.
+     */
+    public long getRejected(OperationClass operationClass) {
+        return this.rejections.get(operationClass).get();
+    }
+}
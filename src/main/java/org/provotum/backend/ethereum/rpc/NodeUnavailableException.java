@@ -0,0 +1,14 @@
+package org.provotum.backend.ethereum.rpc;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of contacting the Ethereum node while it is considered unhealthy
+ * or while too many operations of the same class are already running.
+ */
+public class NodeUnavailableException extends IOException {
+
+    public NodeUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,34 @@
+package org.provotum.backend.ethereum.rpc;
+
+/**
+ * Classes of operations against the Ethereum node which are isolated
+ * from each other, so that e.g. a long running tally cannot exhaust
+ * the capacity for opening or closing a vote.
+ */
+public enum OperationClass {
+
+    /**
+     * Deploying or removing a contract.
+     */
+    DEPLOY,
+
+    /**
+     * Transactions changing the state of a deployed contract.
+     */
+    STATE_CHANGE,
+
+    /**
+     * Single reads, e.g. the voting question.
+     */
+    READ,
+
+    /**
+     * Fetching all votes of a ballot for tallying.
+     */
+    TALLY,
+
+    /**
+     * Verifying votes of an open ballot ahead of its tally.
+     */
+    BACKGROUND
+}
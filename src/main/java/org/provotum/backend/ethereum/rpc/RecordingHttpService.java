@@ -0,0 +1,131 @@
+package org.provotum.backend.ethereum.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Sends JSON-RPC requests over HTTP like {@link HttpService} and records every request
+ * together with its response and latency, so that the traffic can be served again
+ * by a {@link ReplayWeb3jService}.
+ * <p>
+ * Recordings are appended to the given file as one JSON object per line, containing
+ * <code>time</code> (when the request was sent, in milliseconds since the epoch),
+ * <code>latency</code> (until the response was received, in microseconds),
+ * the <code>request</code> and either the <code>response</code> or the <code>failure</code>
+ * message if the node could not be reached.
+ */
+public class RecordingHttpService extends HttpService implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(RecordingHttpService.class.getName());
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ObjectMapper recordMapper = ObjectMapperFactory.getObjectMapper();
+    private final File file;
+    private final Writer writer;
+
+    /**
+     * @param url  The URL of the node.
+     * @param file The file to append recordings to.
+     * @throws IOException If the file could not be opened.
+     */
+    public RecordingHttpService(String url, File file) throws IOException {
+        super(url);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (null != parent && ! parent.exists() && ! parent.mkdirs()) {
+            throw new IOException("Failed to create directory " + parent);
+        }
+
+        this.file = file;
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+
+        logger.info("Recording RPC traffic to " + file.getAbsolutePath());
+    }
+
+    @Override
+    protected InputStream performIO(String request) throws IOException {
+        long time = System.currentTimeMillis();
+        long start = System.nanoTime();
+
+        byte[] response;
+        try {
+            response = readFully(super.performIO(request));
+        } catch (IOException e) {
+            this.record(request, time, System.nanoTime() - start, null, e.getMessage());
+            throw e;
+        }
+
+        this.record(request, time, System.nanoTime() - start, response, null);
+
+        return new ByteArrayInputStream(response);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.writer) {
+            this.writer.close();
+        }
+    }
+
+    private void record(String request, long time, long elapsedNanos, byte[] response, String failure) {
+        try {
+            ObjectNode recording = this.recordMapper.createObjectNode();
+            recording.put("time", time);
+            recording.put("latency", TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+            recording.set("request", this.recordMapper.readTree(request));
+
+            if (null != response) {
+                recording.set("response", this.recordMapper.readTree(response));
+            } else {
+                recording.put("failure", String.valueOf(failure));
+            }
+
+            String line = this.recordMapper.writeValueAsString(recording);
+
+            // flushed right away, so that a recording is usable even if the backend is killed
+            synchronized (this.writer) {
+                this.writer.write(line);
+                this.writer.write('\n');
+                this.writer.flush();
+            }
+        } catch (IOException e) {
+            // a broken recording must not break the request
+            logger.warning("Failed to record RPC request to " + this.file + ": " + e.getMessage());
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        if (null == inputStream) {
+            return new byte[0];
+        }
+
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while (-1 != (read = in.read(buffer))) {
+                out.write(buffer, 0, read);
+            }
+
+            return out.toByteArray();
+        }
+    }
+}
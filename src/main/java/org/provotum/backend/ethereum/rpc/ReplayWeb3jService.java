@@ -0,0 +1,235 @@
+package org.provotum.backend.ethereum.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Async;
+import rx.Observable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Serves JSON-RPC requests from a recording of a {@link RecordingHttpService} instead of a node,
+ * delaying each response by its recorded latency times a configurable factor.
+ * <p>
+ * A request is answered by the next unused recording with the same method and parameters.
+ * If the request was not recorded at all, e.g. because a transaction was signed with another nonce,
+ * it is answered by the next unused recording of the same method. Once all recordings are used,
+ * the last one is repeated, as a node answers further polls for filter changes without any changes.
+ * <p>
+ * Created from an RPC host like <code>replay:///var/lib/provotum/tally.rpc?scale=0.5</code>,
+ * where the path names the recording.
+ */
+public class ReplayWeb3jService implements Web3jService {
+
+    private static final Logger logger = Logger.getLogger(ReplayWeb3jService.class.getName());
+
+    public static final String SCHEME = "replay://";
+
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    private final Map<String, Replay> byRequest = new HashMap<>();
+    private final Map<String, Replay> byMethod = new HashMap<>();
+
+    /**
+     * Recordings compared by identity, as the same request may be recorded several times.
+     */
+    private final Set<JsonNode> used = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final double latencyScale;
+
+    /**
+     * @param file         The recording to serve.
+     * @param latencyScale The factor to apply to recorded latencies, <code>0</code> to answer right away.
+     * @throws IOException If the recording could not be read.
+     */
+    public ReplayWeb3jService(File file, double latencyScale) throws IOException {
+        if (latencyScale < 0) {
+            throw new IllegalArgumentException("The latency scale must not be negative. Got " + latencyScale);
+        }
+
+        this.latencyScale = latencyScale;
+
+        int count = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+
+            while (null != (line = reader.readLine())) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                JsonNode recording = this.objectMapper.readTree(line);
+                JsonNode request = recording.path("request");
+
+                this.byRequest.computeIfAbsent(keyOf(request), k -> new Replay()).add(recording);
+                this.byMethod.computeIfAbsent(request.path("method").asText(), k -> new Replay()).add(recording);
+                count++;
+            }
+        }
+
+        logger.info("Replaying " + count + " recorded RPC requests from " + file.getAbsolutePath() + " with latencies scaled by " + latencyScale);
+    }
+
+    /**
+     * @param uri An RPC host starting with {@link #SCHEME}.
+     * @return The service replaying the recording at the path of the given URI.
+     * @throws IOException              If the recording could not be read.
+     * @throws IllegalArgumentException If the URI is malformed.
+     */
+    public static ReplayWeb3jService fromUri(String uri) throws IOException {
+        URI parsed = URI.create(uri);
+        double latencyScale = 1;
+
+        if (null != parsed.getQuery()) {
+            for (String option : parsed.getQuery().split("&")) {
+                String[] pair = option.split("=", 2);
+                String value = (2 == pair.length) ? pair[1] : "";
+
+                if (! "scale".equals(pair[0])) {
+                    throw new IllegalArgumentException("Unknown option " + pair[0] + " of replay RPC host " + uri);
+                }
+
+                latencyScale = Double.parseDouble(value);
+            }
+        }
+
+        if (null == parsed.getPath() || parsed.getPath().isEmpty()) {
+            throw new IllegalArgumentException("Replay RPC host " + uri + " does not name a recording");
+        }
+
+        return new ReplayWeb3jService(new File(parsed.getPath()), latencyScale);
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        JsonNode requestNode = this.objectMapper.valueToTree(request);
+        JsonNode recording = this.take(requestNode);
+
+        if (null == recording) {
+            throw new IOException("No recorded response for " + request.getMethod());
+        }
+
+        this.delay(recording.path("latency").asLong());
+
+        if (recording.has("failure")) {
+            throw new IOException(recording.path("failure").asText());
+        }
+
+        if (! recording.path("response").isObject()) {
+            throw new IOException("Empty recorded response for " + request.getMethod());
+        }
+
+        // answer with the id of this request, as Web3J numbers requests per process
+        ObjectNode response = ((ObjectNode) recording.path("response")).deepCopy();
+        response.set("id", requestNode.path("id"));
+
+        return this.objectMapper.treeToValue(response, responseType);
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        return Async.run(() -> this.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        return Observable.error(new UnsupportedOperationException("Subscriptions are not recorded, filters are polled instead"));
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the recording is read completely when the service is created
+    }
+
+    private synchronized JsonNode take(JsonNode request) {
+        Replay replay = this.byRequest.get(keyOf(request));
+
+        if (null == replay) {
+            replay = this.byMethod.get(request.path("method").asText());
+        }
+
+        if (null == replay) {
+            return null;
+        }
+
+        // marked in both indices at once, so that a recording is served once unless repeated
+        JsonNode recording = replay.next(this.used);
+        this.used.add(recording);
+
+        return recording;
+    }
+
+    private void delay(long latencyMicros) throws InterruptedIOException {
+        long delay = (long) (latencyMicros * this.latencyScale);
+
+        if (delay <= 0) {
+            return;
+        }
+
+        try {
+            TimeUnit.MICROSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying the latency of the node");
+        }
+    }
+
+    private static String keyOf(JsonNode request) {
+        return request.path("method").asText() + request.path("params").toString();
+    }
+
+    /**
+     * The recordings of one request resp. method in recorded order.
+     * The last recording is kept once all others are used.
+     */
+    private static class Replay {
+
+        private final Deque<JsonNode> recordings = new ArrayDeque<>();
+        private JsonNode last;
+
+        void add(JsonNode recording) {
+            this.recordings.add(recording);
+            this.last = recording;
+        }
+
+        boolean isUsed(Set<JsonNode> used) {
+            this.skip(used);
+
+            return this.recordings.isEmpty();
+        }
+
+        JsonNode next(Set<JsonNode> used) {
+            this.skip(used);
+
+            return this.recordings.isEmpty() ? this.last : this.recordings.peekFirst();
+        }
+
+        private void skip(Set<JsonNode> used) {
+            while (! this.recordings.isEmpty() && used.contains(this.recordings.peekFirst())) {
+                this.recordings.pollFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.provotum.backend.ethereum.rpc;
+
+import org.provotum.backend.timer.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of the RPC requests sent to the Ethereum node, by JSON-RPC method.
+ */
+public class RpcMetrics {
+
+    private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    /**
+     * @param method        The JSON-RPC method.
+     * @param durationNanos The time until the node answered.
+     * @param isError       Whether the node answered with an error.
+     */
+    public void recordResponse(String method, long durationNanos, boolean isError) {
+        MethodMetrics metrics = this.get(method);
+        metrics.latency.record(durationNanos);
+
+        if (isError) {
+            metrics.errorResponses.increment();
+        }
+    }
+
+    /**
+     * @param method        The JSON-RPC method.
+     * @param durationNanos The time until the request failed.
+     */
+    public void recordFailure(String method, long durationNanos) {
+        MethodMetrics metrics = this.get(method);
+        metrics.latency.record(durationNanos);
+        metrics.failures.increment();
+    }
+
+    /**
+     * @return The metrics of every method which has been called so far.
+     */
+    public Map<String, MethodMetrics> getMethods() {
+        return Collections.unmodifiableMap(this.methods);
+    }
+
+    private MethodMetrics get(String method) {
+        MethodMetrics metrics = this.methods.get(method);
+
+        if (null == metrics) {
+            metrics = this.methods.computeIfAbsent(method, key -> new MethodMetrics());
+        }
+
+        return metrics;
+    }
+
+    public static class MethodMetrics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errorResponses = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        /**
+         * @return The latencies of all requests, whether they succeeded or not.
+         */
+        public LatencyHistogram getLatency() {
+            return this.latency;
+        }
+
+        /**
+         * @return The number of requests the node answered with an error.
+         */
+        public long getErrorResponses() {
+            return this.errorResponses.sum();
+        }
+
+        /**
+         * @return The number of requests which failed without an answer, e.g. on a closed connection.
+         */
+        public long getFailures() {
+            return this.failures.sum();
+        }
+    }
+}
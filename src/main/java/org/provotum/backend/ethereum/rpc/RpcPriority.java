@@ -0,0 +1,95 @@
+package org.provotum.backend.ethereum.rpc;
+
+import org.web3j.protocol.core.Request;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The priority with which an RPC request is admitted to the Ethereum node
+ * once the concurrency limit has been reached. Declared from highest to lowest.
+ */
+public enum RpcPriority {
+
+    /**
+     * Sending transactions, i.e. anything changing the state of the chain.
+     * Polling for their receipts is a read.
+     */
+    WRITE,
+
+    /**
+     * Reads issued while tallying a ballot.
+     */
+    TALLY,
+
+    /**
+     * Any other read, e.g. fetching the voting question for a dashboard.
+     */
+    READ,
+
+    /**
+     * Reads of the background verification, which may wait for anything else.
+     */
+    BACKGROUND;
+
+    private static final Set<String> WRITE_METHODS = new HashSet<>(Arrays.asList(
+        "eth_sendRawTransaction",
+        "eth_sendTransaction",
+        "eth_getTransactionCount",
+        "eth_estimateGas"
+    ));
+
+    private static final ThreadLocal<RpcPriority> declared = new ThreadLocal<>();
+
+    /**
+     * Declare the priority of all reads issued by the current thread
+     * until the returned previous priority is restored.
+     *
+     * @param priority The priority to declare.
+     * @return The previously declared priority, may be null.
+     */
+    public static RpcPriority declare(RpcPriority priority) {
+        RpcPriority previous = declared.get();
+        declared.set(priority);
+
+        return previous;
+    }
+
+    /**
+     * Restore the priority which was declared before calling {@link #declare(RpcPriority)}.
+     *
+     * @param previous The priority returned by {@link #declare(RpcPriority)}.
+     */
+    public static void restore(RpcPriority previous) {
+        if (null == previous) {
+            declared.remove();
+        } else {
+            declared.set(previous);
+        }
+    }
+
+    /**
+     * @return The priority declared by the current thread, may be null.
+     */
+    public static RpcPriority current() {
+        return declared.get();
+    }
+
+    /**
+     * Determine the priority of the given request. Writes are recognized by their
+     * JSON-RPC method, reads take the priority declared by the current thread.
+     *
+     * @param request The request to send.
+     * @return The priority of the request.
+     */
+    public static RpcPriority of(Request request) {
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            return WRITE;
+        }
+
+        RpcPriority priority = declared.get();
+
+        return (null == priority) ? READ : priority;
+    }
+}
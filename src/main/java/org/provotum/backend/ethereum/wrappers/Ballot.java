@@ -54,8 +54,7 @@ public class Ballot extends Contract {
 
     public List<VoteEventEventResponse> getVoteEventEvents(TransactionReceipt transactionReceipt) {
         final Event event = new Event("VoteEvent", 
-                Arrays.<TypeReference<?>>asList(new TypeReference<Address>() {}),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
+                Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
         List<EventValues> valueList = extractEventParameters(event, transactionReceipt);
         ArrayList<VoteEventEventResponse> responses = new ArrayList<VoteEventEventResponse>(valueList.size());
         for (EventValues eventValues : valueList) {
@@ -70,8 +69,7 @@ public class Ballot extends Contract {
 
     public Observable<VoteEventEventResponse> voteEventEventObservable(DefaultBlockParameter startBlock, DefaultBlockParameter endBlock) {
         final Event event = new Event("VoteEvent", 
-                Arrays.<TypeReference<?>>asList(new TypeReference<Address>() {}),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
+                Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
         EthFilter filter = new EthFilter(startBlock, endBlock, getContractAddress());
         filter.addSingleTopic(EventEncoder.encode(event));
         return web3j.ethLogObservable(filter).map(new Func1<Log, VoteEventEventResponse>() {
@@ -89,8 +87,7 @@ public class Ballot extends Contract {
 
     public List<ChangeEventEventResponse> getChangeEventEvents(TransactionReceipt transactionReceipt) {
         final Event event = new Event("ChangeEvent", 
-                Arrays.<TypeReference<?>>asList(new TypeReference<Address>() {}),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
+                Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
         List<EventValues> valueList = extractEventParameters(event, transactionReceipt);
         ArrayList<ChangeEventEventResponse> responses = new ArrayList<ChangeEventEventResponse>(valueList.size());
         for (EventValues eventValues : valueList) {
@@ -105,8 +102,7 @@ public class Ballot extends Contract {
 
     public Observable<ChangeEventEventResponse> changeEventEventObservable(DefaultBlockParameter startBlock, DefaultBlockParameter endBlock) {
         final Event event = new Event("ChangeEvent", 
-                Arrays.<TypeReference<?>>asList(new TypeReference<Address>() {}),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
+                Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
         EthFilter filter = new EthFilter(startBlock, endBlock, getContractAddress());
         filter.addSingleTopic(EventEncoder.encode(event));
         return web3j.ethLogObservable(filter).map(new Func1<Log, ChangeEventEventResponse>() {
@@ -48,8 +48,7 @@ public class ZeroKnowledgeVerificator extends Contract {
 
     public List<ProofEventEventResponse> getProofEventEvents(TransactionReceipt transactionReceipt) {
         final Event event = new Event("ProofEvent", 
-                Arrays.<TypeReference<?>>asList(new TypeReference<Address>() {}),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
+                Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
         List<EventValues> valueList = extractEventParameters(event, transactionReceipt);
         ArrayList<ProofEventEventResponse> responses = new ArrayList<ProofEventEventResponse>(valueList.size());
         for (EventValues eventValues : valueList) {
@@ -64,8 +63,7 @@ public class ZeroKnowledgeVerificator extends Contract {
 
     public Observable<ProofEventEventResponse> proofEventEventObservable(DefaultBlockParameter startBlock, DefaultBlockParameter endBlock) {
         final Event event = new Event("ProofEvent", 
-                Arrays.<TypeReference<?>>asList(new TypeReference<Address>() {}),
-                Arrays.<TypeReference<?>>asList(new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
+                Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Bool>() {}, new TypeReference<Utf8String>() {}));
         EthFilter filter = new EthFilter(startBlock, endBlock, getContractAddress());
         filter.addSingleTopic(EventEncoder.encode(event));
         return web3j.ethLogObservable(filter).map(new Func1<Log, ProofEventEventResponse>() {
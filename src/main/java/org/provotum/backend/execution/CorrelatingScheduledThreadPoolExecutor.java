@@ -0,0 +1,30 @@
+package org.provotum.backend.execution;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each one-shot task with the {@link CorrelationId} of the thread which scheduled it.
+ */
+class CorrelatingScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+
+    CorrelatingScheduledThreadPoolExecutor(int corePoolSize, ThreadFactory threadFactory) {
+        super(corePoolSize, threadFactory);
+    }
+
+    // execute() and submit() end up in schedule() as well, while periodic tasks like
+    // polling contract events run without id, as they outlive the request which started them
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return super.schedule(CorrelationId.wrap(command), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return super.schedule(CorrelationId.wrap(callable), delay, unit);
+    }
+}
@@ -0,0 +1,22 @@
+package org.provotum.backend.execution;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each task with the {@link CorrelationId} of the thread which submitted it.
+ */
+class CorrelatingThreadPoolExecutor extends ThreadPoolExecutor {
+
+    CorrelatingThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        // submit() ends up here as well
+        super.execute(CorrelationId.wrap(command));
+    }
+}
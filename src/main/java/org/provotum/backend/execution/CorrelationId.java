@@ -0,0 +1,137 @@
+package org.provotum.backend.execution;
+
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * The id correlating everything done on behalf of a single request:
+ * its log records, its measurements and the responses published for it.
+ * <p>
+ * The id is bound to the current thread and carried over to the tasks it hands to
+ * the executors of the {@link ExecutionManager}. It is also put into the logging MDC
+ * under {@link #MDC_KEY}, so that log records can be filtered by it.
+ */
+public final class CorrelationId {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String MDC_KEY = "correlationId";
+
+    private static final int MAX_LENGTH = 64;
+
+    private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+    private CorrelationId() {
+    }
+
+    /**
+     * @return The id bound to the current thread, may be null.
+     */
+    public static String current() {
+        return current.get();
+    }
+
+    /**
+     * Bind the given id to the current thread until the returned previous id is restored.
+     *
+     * @param id The id to bind, may be null.
+     * @return The previously bound id, may be null.
+     */
+    public static String declare(String id) {
+        String previous = current.get();
+        bind(id);
+
+        return previous;
+    }
+
+    /**
+     * Restore the id which was bound before calling {@link #declare(String)}.
+     *
+     * @param previous The id returned by {@link #declare(String)}.
+     */
+    public static void restore(String previous) {
+        bind(previous);
+    }
+
+    /**
+     * @return A new random id.
+     */
+    public static String generate() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * @param id An id received from a client, may be null.
+     * @return True, if the given id is short and consists of letters, digits, dashes and underscores only.
+     */
+    public static boolean isValid(String id) {
+        if (null == id || id.isEmpty() || id.length() > MAX_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+
+            if (! (Character.isLetterOrDigit(c) && c < 128) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param task The task.
+     * @return The task running with the id bound to the current thread or the task itself if there is none.
+     */
+    public static Runnable wrap(Runnable task) {
+        String id = current.get();
+
+        if (null == id) {
+            return task;
+        }
+
+        return () -> {
+            String previous = declare(id);
+
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @param task The task.
+     * @return The task running with the id bound to the current thread or the task itself if there is none.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        String id = current.get();
+
+        if (null == id) {
+            return task;
+        }
+
+        return () -> {
+            String previous = declare(id);
+
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void bind(String id) {
+        if (null == id) {
+            current.remove();
+            MDC.remove(MDC_KEY);
+        } else {
+            current.set(id);
+            MDC.put(MDC_KEY, id);
+        }
+    }
+}
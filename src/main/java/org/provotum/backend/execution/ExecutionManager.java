@@ -0,0 +1,186 @@
+package org.provotum.backend.execution;
+
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.plugins.RxJavaHooks;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Owns all threads doing work in the background:
+ * <ul>
+ * <li><b>io</b>: A bounded pool for tasks mostly waiting on the Ethereum node.</li>
+ * <li><b>cpu</b>: A pool sized to the available cores for cryptographic operations.</li>
+ * <li><b>event</b>: A scheduler polling for and handling contract events.</li>
+ * </ul>
+ * Operations on a single ballot are serialized through per-ballot mailboxes running on the io pool.
+ * Each pool has a bounded number of threads, work exceeding the capacity of a pool's queue
+ * is rejected. All pools are shut down gracefully with the application.
+ * <p>
+ * Tasks and Rx actions run with the {@link CorrelationId} of the thread which submitted them,
+ * except for periodic tasks like polling contract events.
+ */
+public class ExecutionManager {
+
+    private static final Logger logger = Logger.getLogger(ExecutionManager.class.getName());
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final MonitoredExecutor io;
+    private final MonitoredExecutor cpu;
+    private final MonitoredExecutor event;
+    private final Scheduler eventScheduler;
+    private final KeyedSerialExecutor ballotMailboxes;
+    private final long shutdownTimeoutMillis;
+    private final Func1<Action0, Action0> previousScheduleAction;
+    private final Func1<Action0, Action0> scheduleAction;
+
+    public ExecutionManager(int ioThreads, int ioQueueSize, int cpuThreads, int cpuQueueSize, int eventThreads, int mailboxCapacity, long shutdownTimeoutMillis) {
+        this.io = new MonitoredExecutor("io", this.createPool("io", ioThreads, ioQueueSize));
+        this.cpu = new MonitoredExecutor("cpu", this.createPool("cpu", cpuThreads, cpuQueueSize));
+
+        ScheduledThreadPoolExecutor eventExecutor = new CorrelatingScheduledThreadPoolExecutor(eventThreads, new NamedThreadFactory("event"));
+        eventExecutor.setRemoveOnCancelPolicy(true);
+        this.event = new MonitoredExecutor("event", eventExecutor);
+        this.eventScheduler = Schedulers.from(eventExecutor);
+
+        this.ballotMailboxes = new KeyedSerialExecutor(this.io.getExecutor(), mailboxCapacity);
+
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        // Rx schedulers queue actions internally, so the id has to be captured per action
+        this.previousScheduleAction = RxJavaHooks.getOnScheduleAction();
+        this.scheduleAction = action -> {
+            Action0 correlated = correlate(action);
+
+            return (null == this.previousScheduleAction) ? correlated : this.previousScheduleAction.call(correlated);
+        };
+        RxJavaHooks.setOnScheduleAction(this.scheduleAction);
+
+        logger.info("Started executors with " + ioThreads + " io, " + cpuThreads + " cpu and " + eventThreads + " event threads.");
+    }
+
+    private static Action0 correlate(Action0 action) {
+        String id = CorrelationId.current();
+
+        if (null == id) {
+            return action;
+        }
+
+        return () -> {
+            String previous = CorrelationId.declare(id);
+
+            try {
+                action.call();
+            } finally {
+                CorrelationId.restore(previous);
+            }
+        };
+    }
+
+    private ThreadPoolExecutor createPool(String name, int threads, int queueSize) {
+        ThreadPoolExecutor executor = new CorrelatingThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(queueSize),
+            new NamedThreadFactory(name)
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * @return The pool for tasks waiting on RPC requests.
+     */
+    public ExecutorService getIoExecutor() {
+        return this.io.getExecutor();
+    }
+
+    /**
+     * @return The pool for cryptographic operations.
+     */
+    public ExecutorService getCpuExecutor() {
+        return this.cpu.getExecutor();
+    }
+
+    /**
+     * @return The executor on which contract events are polled.
+     */
+    public ScheduledExecutorService getEventExecutor() {
+        return (ScheduledExecutorService) this.event.getExecutor();
+    }
+
+    /**
+     * @return A scheduler for observing contract events backed by the event executor.
+     */
+    public Scheduler getEventScheduler() {
+        return this.eventScheduler;
+    }
+
+    /**
+     * @return The mailboxes serializing operations per ballot contract address on the io pool.
+     */
+    public KeyedSerialExecutor getBallotMailboxes() {
+        return this.ballotMailboxes;
+    }
+
+    /**
+     * @return All managed pools.
+     */
+    public List<MonitoredExecutor> getExecutors() {
+        List<MonitoredExecutor> executors = new ArrayList<>();
+        executors.add(this.io);
+        executors.add(this.cpu);
+        executors.add(this.event);
+
+        return Collections.unmodifiableList(executors);
+    }
+
+    /**
+     * Stop accepting new tasks and wait for running ones to complete.
+     * Tasks still running once the timeout elapsed are interrupted.
+     */
+    public void shutdown() {
+        logger.info("Shutting down executors...");
+
+        // the hook is global, so it must not outlive this instance, e.g. across application contexts in tests
+        if (this.scheduleAction == RxJavaHooks.getOnScheduleAction()) {
+            RxJavaHooks.setOnScheduleAction(this.previousScheduleAction);
+        }
+
+        for (MonitoredExecutor executor : this.getExecutors()) {
+            executor.getExecutor().shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.shutdownTimeoutMillis);
+        for (MonitoredExecutor executor : this.getExecutors()) {
+            try {
+                long remaining = deadline - System.nanoTime();
+
+                if (! executor.getExecutor().awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    logger.warning("Executor " + executor.getName() + " did not terminate in time. Interrupting " + executor.getActiveThreads() + " running tasks.");
+                    executor.getExecutor().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.getExecutor().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        logger.info("Executors shut down.");
+    }
+}
@@ -0,0 +1,228 @@
+package org.provotum.backend.execution;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks submitted for the same key one after another in submission order,
+ * while tasks of different keys run in parallel on a shared executor.
+ * <p>
+ * Each key has its own bounded mailbox. A mailbox occupies at most one thread
+ * of the shared executor and hands the thread back after each task, so that
+ * busy keys cannot starve others. Empty mailboxes are discarded.
+ * <p>
+ * Tasks never run on the submitting thread. If the executor rejects to run a mailbox,
+ * the submitted task is rejected, while tasks accepted before stay pending until the next
+ * task of the key is submitted or a thread of the executor frees up.
+ */
+public class KeyedSerialExecutor {
+
+    private static final Logger logger = Logger.getLogger(KeyedSerialExecutor.class.getName());
+
+    private final Executor executor;
+    private final int capacity;
+    private final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Queue<Mailbox> stranded = new ConcurrentLinkedQueue<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private class Mailbox {
+        private final String key;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean isScheduled;
+
+        private Mailbox(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * @param executor The executor running the tasks.
+     * @param capacity The maximum number of pending tasks per key.
+     */
+    public KeyedSerialExecutor(Executor executor, int capacity) {
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Run the given task once all previously submitted tasks for the same key completed.
+     *
+     * @param key  The key, e.g. a contract address.
+     * @param task The task.
+     * @throws RejectedExecutionException If the mailbox of the key is full or the executor rejected the task.
+     */
+    public void execute(String key, Runnable task) {
+        boolean[] needsScheduling = new boolean[1];
+        Runnable correlatedTask = CorrelationId.wrap(task);
+
+        Mailbox mailbox = this.mailboxes.compute(key, (k, existing) -> {
+            Mailbox m = (null == existing) ? new Mailbox(k) : existing;
+
+            synchronized (m) {
+                if (m.tasks.size() >= this.capacity) {
+                    this.rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Mailbox for " + k + " is full: " + this.capacity + " operations are pending.");
+                }
+
+                m.tasks.addLast(correlatedTask);
+
+                if (! m.isScheduled) {
+                    m.isScheduled = true;
+                    needsScheduling[0] = true;
+                }
+            }
+
+            return m;
+        });
+
+        if (! needsScheduling[0]) {
+            return;
+        }
+
+        try {
+            this.executor.execute(() -> this.drain(mailbox));
+        } catch (RejectedExecutionException e) {
+            // only this task is rejected, others may have been accepted meanwhile as the mailbox looked scheduled
+            boolean[] hasMore = new boolean[1];
+            this.mailboxes.compute(key, (k, m) -> {
+                synchronized (mailbox) {
+                    mailbox.tasks.removeFirstOccurrence(correlatedTask);
+                    mailbox.isScheduled = false;
+
+                    if (mailbox.tasks.isEmpty()) {
+                        return null;
+                    }
+
+                    hasMore[0] = true;
+                    return mailbox;
+                }
+            });
+
+            this.rejected.incrementAndGet();
+
+            if (hasMore[0]) {
+                // accepted tasks must not get lost, but must not block the submitter either, which might
+                // be a request thread. They are scheduled by the next task of the key or once a thread frees up
+                logger.warning("Postponed pending tasks for " + key + " as the executor is saturated.");
+                this.stranded.add(mailbox);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * @return An executor running all tasks within the mailbox of the given key.
+     */
+    public Executor forKey(String key) {
+        return task -> this.execute(key, task);
+    }
+
+    private void drain(Mailbox mailbox) {
+        while (true) {
+            Runnable task;
+            synchronized (mailbox) {
+                task = mailbox.tasks.peekFirst();
+            }
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.severe("Task for " + mailbox.key + " failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+
+            boolean[] hasMore = new boolean[1];
+            this.mailboxes.compute(mailbox.key, (k, m) -> {
+                synchronized (mailbox) {
+                    mailbox.tasks.pollFirst();
+
+                    if (mailbox.tasks.isEmpty()) {
+                        mailbox.isScheduled = false;
+                        return null;
+                    }
+
+                    hasMore[0] = true;
+                    return mailbox;
+                }
+            });
+
+            if (! hasMore[0]) {
+                this.scheduleStranded();
+                return;
+            }
+
+            try {
+                // hand back the thread and continue at the end of the executor's queue
+                this.executor.execute(() -> this.drain(mailbox));
+                return;
+            } catch (RejectedExecutionException e) {
+                // the executor is saturated, keep on working through this mailbox on the current thread
+            }
+        }
+    }
+
+    /**
+     * Schedule the mailboxes whose tasks were accepted while the executor rejected to run them.
+     */
+    private void scheduleStranded() {
+        Mailbox mailbox;
+
+        while (null != (mailbox = this.stranded.poll())) {
+            synchronized (mailbox) {
+                // scheduled by a task submitted since, or even drained already
+                if (mailbox.isScheduled || mailbox.tasks.isEmpty()) {
+                    continue;
+                }
+
+                mailbox.isScheduled = true;
+            }
+
+            Mailbox scheduled = mailbox;
+            try {
+                this.executor.execute(() -> this.drain(scheduled));
+            } catch (RejectedExecutionException e) {
+                synchronized (mailbox) {
+                    mailbox.isScheduled = false;
+                }
+
+                this.stranded.add(mailbox);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of keys with pending tasks.
+     */
+    public int getActiveKeys() {
+        return this.mailboxes.size();
+    }
+
+    /**
+     * @return The number of pending tasks over all keys, including running ones.
+     */
+    public int getPendingTasks() {
+        int pending = 0;
+
+        for (Mailbox mailbox : this.mailboxes.values()) {
+            synchronized (mailbox) {
+                pending += mailbox.tasks.size();
+            }
+        }
+
+        return pending;
+    }
+
+    public long getRejectedTasks() {
+        return this.rejected.get();
+    }
+}
@@ -0,0 +1,58 @@
+package org.provotum.backend.execution;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of a named thread pool and counts the tasks it rejected.
+ */
+public class MonitoredExecutor {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public MonitoredExecutor(String name, ThreadPoolExecutor executor) {
+        this.name = name;
+        this.executor = executor;
+
+        this.executor.setRejectedExecutionHandler((runnable, pool) -> {
+            this.rejected.incrementAndGet();
+
+            throw new RejectedExecutionException("Executor " + this.name + " is saturated or shutting down. Rejected task.");
+        });
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return this.executor;
+    }
+
+    public int getQueueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    public int getActiveThreads() {
+        return this.executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return this.executor.getPoolSize();
+    }
+
+    public int getMaximumPoolSize() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    public long getCompletedTasks() {
+        return this.executor.getCompletedTaskCount();
+    }
+
+    public long getRejectedTasks() {
+        return this.rejected.get();
+    }
+}
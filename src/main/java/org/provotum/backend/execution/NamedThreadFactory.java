@@ -0,0 +1,32 @@
+package org.provotum.backend.execution;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads named after their pool, e.g. <code>provotum-io-3</code>.
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final int priority;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public NamedThreadFactory(String poolName) {
+        this(poolName, Thread.NORM_PRIORITY);
+    }
+
+    public NamedThreadFactory(String poolName, int priority) {
+        this.prefix = "provotum-" + poolName + "-";
+        this.priority = priority;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, this.prefix + this.counter.incrementAndGet());
+        thread.setDaemon(true);
+        thread.setPriority(this.priority);
+
+        return thread;
+    }
+}
@@ -0,0 +1,243 @@
+package org.provotum.backend.metrics;
+
+import org.provotum.backend.communication.socket.publisher.TopicPublisher;
+import org.provotum.backend.ethereum.rpc.AdaptiveConcurrencyLimiter;
+import org.provotum.backend.ethereum.rpc.CircuitBreaker;
+import org.provotum.backend.ethereum.rpc.NodeGuard;
+import org.provotum.backend.ethereum.rpc.OperationClass;
+import org.provotum.backend.ethereum.rpc.RpcMetrics;
+import org.provotum.backend.ethereum.rpc.RpcPriority;
+import org.provotum.backend.execution.ExecutionManager;
+import org.provotum.backend.execution.KeyedSerialExecutor;
+import org.provotum.backend.execution.MonitoredExecutor;
+import org.provotum.backend.security.VerificationCache;
+import org.provotum.backend.tally.TallyJob;
+import org.provotum.backend.tally.TallyJobManager;
+import org.provotum.backend.tally.TallyJobState;
+import org.provotum.backend.timer.EvaluationTimer;
+import org.provotum.backend.timer.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the statistics of all components into the Prometheus text format.
+ * Everything is read from counters the components maintain anyway,
+ * so collecting does not slow down the measured operations.
+ */
+@Component
+public class MetricsExporter {
+
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private final EvaluationTimer evaluationTimer;
+    private final RpcMetrics rpcMetrics;
+    private final AdaptiveConcurrencyLimiter rpcConcurrencyLimiter;
+    private final NodeGuard nodeGuard;
+    private final ExecutionManager executionManager;
+    private final TopicPublisher topicPublisher;
+    private final TallyJobManager tallyJobManager;
+    private final VerificationCache verificationCache;
+
+    @Autowired
+    public MetricsExporter(
+        EvaluationTimer evaluationTimer,
+        RpcMetrics rpcMetrics,
+        AdaptiveConcurrencyLimiter rpcConcurrencyLimiter,
+        NodeGuard nodeGuard,
+        ExecutionManager executionManager,
+        TopicPublisher topicPublisher,
+        TallyJobManager tallyJobManager,
+        VerificationCache verificationCache
+    ) {
+        this.evaluationTimer = evaluationTimer;
+        this.rpcMetrics = rpcMetrics;
+        this.rpcConcurrencyLimiter = rpcConcurrencyLimiter;
+        this.nodeGuard = nodeGuard;
+        this.executionManager = executionManager;
+        this.topicPublisher = topicPublisher;
+        this.tallyJobManager = tallyJobManager;
+        this.verificationCache = verificationCache;
+    }
+
+    /**
+     * @return The current value of all metrics in the Prometheus text format.
+     */
+    public String export() {
+        PrometheusWriter writer = new PrometheusWriter();
+
+        this.writeCrypto(writer);
+        this.writeRpc(writer);
+        this.writeExecutors(writer);
+        this.writeTopics(writer);
+        this.writeTallies(writer);
+        this.writeVerificationCache(writer);
+
+        return writer.toString();
+    }
+
+    private void writeCrypto(PrometheusWriter writer) {
+        Map<EvaluationTimer.LogCategory, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(EvaluationTimer.LogCategory.class);
+        for (EvaluationTimer.LogCategory category : EvaluationTimer.LogCategory.values()) {
+            snapshots.put(category, this.evaluationTimer.getHistogram(category).getSnapshot());
+        }
+
+        writer.family("provotum_crypto_duration_seconds", PrometheusWriter.SUMMARY, "Duration of cryptographic operations by category.");
+        snapshots.forEach((category, snapshot) -> writer.latencies("provotum_crypto_duration_seconds", snapshot, "category", category.name()));
+
+        writer.family("provotum_crypto_duration_max_seconds", PrometheusWriter.GAUGE, "Longest duration of a cryptographic operation by category.");
+        snapshots.forEach((category, snapshot) -> writer.sample("provotum_crypto_duration_max_seconds", snapshot.getMax() / NANOS_PER_SECOND, "category", category.name()));
+
+        writer.family("provotum_evaluation_dropped_total", PrometheusWriter.COUNTER, "Measurements not written to the evaluation file.");
+        writer.sample("provotum_evaluation_dropped_total", this.evaluationTimer.getDroppedLines());
+    }
+
+    private void writeRpc(PrometheusWriter writer) {
+        Map<String, RpcMetrics.MethodMetrics> methods = new TreeMap<>(this.rpcMetrics.getMethods());
+
+        writer.family("provotum_rpc_duration_seconds", PrometheusWriter.SUMMARY, "Latency of RPC requests to the Ethereum node by JSON-RPC method.");
+        methods.forEach((method, metrics) -> writer.latencies("provotum_rpc_duration_seconds", metrics.getLatency().getSnapshot(), "method", method));
+
+        writer.family("provotum_rpc_errors_total", PrometheusWriter.COUNTER, "RPC requests answered with an error or failed without answer by JSON-RPC method.");
+        methods.forEach((method, metrics) -> {
+            writer.sample("provotum_rpc_errors_total", metrics.getErrorResponses(), "method", method, "kind", "response");
+            writer.sample("provotum_rpc_errors_total", metrics.getFailures(), "method", method, "kind", "transport");
+        });
+
+        AdaptiveConcurrencyLimiter limiter = this.rpcConcurrencyLimiter;
+
+        writer.family("provotum_rpc_limit", PrometheusWriter.GAUGE, "Current limit of concurrent RPC requests.");
+        writer.sample("provotum_rpc_limit", limiter.getLimit());
+        writer.family("provotum_rpc_in_flight", PrometheusWriter.GAUGE, "RPC requests currently sent to the node.");
+        writer.sample("provotum_rpc_in_flight", limiter.getInFlight());
+
+        writer.family("provotum_rpc_queued", PrometheusWriter.GAUGE, "RPC requests waiting for admission by priority.");
+        for (RpcPriority priority : RpcPriority.values()) {
+            writer.sample("provotum_rpc_queued", limiter.getQueued(priority), "priority", priority.name());
+        }
+
+        writer.family("provotum_rpc_admitted_total", PrometheusWriter.COUNTER, "RPC requests admitted to the node.");
+        writer.sample("provotum_rpc_admitted_total", limiter.getAdmitted());
+        writer.family("provotum_rpc_rejected_total", PrometheusWriter.COUNTER, "RPC requests rejected because the admission queue was full.");
+        writer.sample("provotum_rpc_rejected_total", limiter.getRejected());
+        writer.family("provotum_rpc_timed_out_total", PrometheusWriter.COUNTER, "RPC requests which waited too long for admission.");
+        writer.sample("provotum_rpc_timed_out_total", limiter.getTimedOut());
+
+        CircuitBreaker breaker = this.nodeGuard.getCircuitBreaker();
+        CircuitBreaker.State breakerState = breaker.getState();
+
+        writer.family("provotum_breaker_state", PrometheusWriter.GAUGE, "Whether the circuit breaker of the Ethereum node is in the given state.");
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            writer.sample("provotum_breaker_state", (state == breakerState) ? 1 : 0, "state", state.name());
+        }
+
+        writer.family("provotum_breaker_rejected_total", PrometheusWriter.COUNTER, "RPC requests rejected while the circuit breaker was open.");
+        writer.sample("provotum_breaker_rejected_total", breaker.getRejected());
+        writer.family("provotum_breaker_trips_total", PrometheusWriter.COUNTER, "Times the circuit breaker opened.");
+        writer.sample("provotum_breaker_trips_total", breaker.getTrips());
+
+        writer.family("provotum_bulkhead_pending", PrometheusWriter.GAUGE, "Pending operations against the Ethereum node by operation class.");
+        for (OperationClass operationClass : OperationClass.values()) {
+            writer.sample("provotum_bulkhead_pending", this.nodeGuard.getPending(operationClass), "class", operationClass.name());
+        }
+
+        writer.family("provotum_bulkhead_rejected_total", PrometheusWriter.COUNTER, "Operations rejected because their bulkhead was full by operation class.");
+        for (OperationClass operationClass : OperationClass.values()) {
+            writer.sample("provotum_bulkhead_rejected_total", this.nodeGuard.getRejected(operationClass), "class", operationClass.name());
+        }
+    }
+
+    private void writeExecutors(PrometheusWriter writer) {
+        List<MonitoredExecutor> executors = this.executionManager.getExecutors();
+
+        writer.family("provotum_executor_queue_depth", PrometheusWriter.GAUGE, "Tasks waiting for a thread by pool.");
+        executors.forEach(executor -> writer.sample("provotum_executor_queue_depth", executor.getQueueDepth(), "executor", executor.getName()));
+
+        writer.family("provotum_executor_active_threads", PrometheusWriter.GAUGE, "Threads running a task by pool.");
+        executors.forEach(executor -> writer.sample("provotum_executor_active_threads", executor.getActiveThreads(), "executor", executor.getName()));
+
+        writer.family("provotum_executor_pool_size", PrometheusWriter.GAUGE, "Threads by pool.");
+        executors.forEach(executor -> writer.sample("provotum_executor_pool_size", executor.getPoolSize(), "executor", executor.getName()));
+
+        writer.family("provotum_executor_max_pool_size", PrometheusWriter.GAUGE, "Maximum number of threads by pool.");
+        executors.forEach(executor -> writer.sample("provotum_executor_max_pool_size", executor.getMaximumPoolSize(), "executor", executor.getName()));
+
+        writer.family("provotum_executor_completed_total", PrometheusWriter.COUNTER, "Completed tasks by pool.");
+        executors.forEach(executor -> writer.sample("provotum_executor_completed_total", executor.getCompletedTasks(), "executor", executor.getName()));
+
+        writer.family("provotum_executor_rejected_total", PrometheusWriter.COUNTER, "Rejected tasks by pool.");
+        executors.forEach(executor -> writer.sample("provotum_executor_rejected_total", executor.getRejectedTasks(), "executor", executor.getName()));
+
+        KeyedSerialExecutor mailboxes = this.executionManager.getBallotMailboxes();
+
+        writer.family("provotum_mailbox_active_ballots", PrometheusWriter.GAUGE, "Ballots with pending operations.");
+        writer.sample("provotum_mailbox_active_ballots", mailboxes.getActiveKeys());
+        writer.family("provotum_mailbox_pending_tasks", PrometheusWriter.GAUGE, "Pending operations over all ballots.");
+        writer.sample("provotum_mailbox_pending_tasks", mailboxes.getPendingTasks());
+        writer.family("provotum_mailbox_rejected_total", PrometheusWriter.COUNTER, "Operations rejected because the mailbox of their ballot was full.");
+        writer.sample("provotum_mailbox_rejected_total", mailboxes.getRejectedTasks());
+    }
+
+    private void writeTopics(PrometheusWriter writer) {
+        writer.family("provotum_stomp_published_total", PrometheusWriter.COUNTER, "Messages published by STOMP topic.");
+        this.topicPublisher.getPublished().forEach((topic, count) -> writer.sample("provotum_stomp_published_total", count, "topic", topic));
+        writer.family("provotum_stomp_dropped_total", PrometheusWriter.COUNTER, "Messages dropped because the queue of the publisher was full.");
+        writer.sample("provotum_stomp_dropped_total", this.topicPublisher.getDropped());
+    }
+
+    private void writeTallies(PrometheusWriter writer) {
+        List<TallyJob> jobs = new ArrayList<>(this.tallyJobManager.getJobs());
+        Map<TallyJobState, Integer> states = new EnumMap<>(TallyJobState.class);
+        // operations on a ballot run one after another, so there is at most one running job per ballot.
+        // Job ids are not used as labels, since every tally would add new series
+        Map<String, TallyJob> running = new TreeMap<>();
+
+        for (TallyJobState state : TallyJobState.values()) {
+            states.put(state, 0);
+        }
+
+        for (TallyJob job : jobs) {
+            TallyJobState state = job.getState();
+            states.put(state, states.get(state) + 1);
+
+            if (TallyJobState.RUNNING == state) {
+                running.put(job.getContractAddress().toLowerCase(), job);
+            }
+        }
+
+        writer.family("provotum_tally_jobs", PrometheusWriter.GAUGE, "Tally jobs by state, including recently finished ones.");
+        states.forEach((state, count) -> writer.sample("provotum_tally_jobs", count, "state", state.name()));
+
+        writer.family("provotum_tally_votes", PrometheusWriter.GAUGE, "Votes of running tally jobs by ballot and stage.");
+        running.forEach((ballot, job) -> {
+            writer.sample("provotum_tally_votes", job.getTotalVotes(), "ballot", ballot, "stage", "total");
+            writer.sample("provotum_tally_votes", job.getFetched(), "ballot", ballot, "stage", "fetched");
+            writer.sample("provotum_tally_votes", job.getVerified(), "ballot", ballot, "stage", "verified");
+            writer.sample("provotum_tally_votes", job.getInvalid(), "ballot", ballot, "stage", "invalid");
+        });
+
+        writer.family("provotum_tally_remaining_seconds", PrometheusWriter.GAUGE, "Estimated remaining time of running tally jobs by ballot.");
+        running.forEach((ballot, job) -> {
+            long remaining = job.getEstimatedRemainingMillis();
+
+            // not known until the first votes were processed
+            if (remaining >= 0) {
+                writer.sample("provotum_tally_remaining_seconds", remaining / 1000.0, "ballot", ballot);
+            }
+        });
+    }
+
+    private void writeVerificationCache(PrometheusWriter writer) {
+        writer.family("provotum_verification_cache_size", PrometheusWriter.GAUGE, "Cached results of proof verifications.");
+        writer.sample("provotum_verification_cache_size", this.verificationCache.getSize());
+        writer.family("provotum_verification_cache_hits_total", PrometheusWriter.COUNTER, "Proof verifications answered from the cache.");
+        writer.sample("provotum_verification_cache_hits_total", this.verificationCache.getHits());
+        writer.family("provotum_verification_cache_misses_total", PrometheusWriter.COUNTER, "Proof verifications not found in the cache.");
+        writer.sample("provotum_verification_cache_misses_total", this.verificationCache.getMisses());
+    }
+}
@@ -0,0 +1,118 @@
+package org.provotum.backend.metrics;
+
+import org.provotum.backend.timer.LatencyHistogram;
+
+/**
+ * Writes metrics in the Prometheus text exposition format, version 0.0.4.
+ * <p>
+ * Each metric family is started with {@link #family(String, String, String)},
+ * followed by its samples. Labels are passed as alternating names and values.
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public static final String COUNTER = "counter";
+    public static final String GAUGE = "gauge";
+    public static final String SUMMARY = "summary";
+
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final StringBuilder output = new StringBuilder();
+
+    /**
+     * @param name The name of the metric family.
+     * @param type One of {@link #COUNTER}, {@link #GAUGE} or {@link #SUMMARY}.
+     * @param help A description of the metric.
+     * @return This writer.
+     */
+    public PrometheusWriter family(String name, String type, String help) {
+        this.output.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        this.output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+
+        return this;
+    }
+
+    /**
+     * @param name   The name of the sample.
+     * @param value  The value.
+     * @param labels Alternating label names and values.
+     * @return This writer.
+     */
+    public PrometheusWriter sample(String name, double value, String... labels) {
+        this.output.append(name);
+
+        if (labels.length > 0) {
+            this.output.append('{');
+
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    this.output.append(',');
+                }
+
+                this.output.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+
+            this.output.append('}');
+        }
+
+        this.output.append(' ').append(format(value)).append('\n');
+
+        return this;
+    }
+
+    /**
+     * Write the samples of a summary of latencies, converted to seconds.
+     * The family has to be started as {@link #SUMMARY}.
+     *
+     * @param name     The name of the metric family.
+     * @param snapshot The recorded latencies.
+     * @param labels   Alternating label names and values.
+     * @return This writer.
+     */
+    public PrometheusWriter latencies(String name, LatencyHistogram.Snapshot snapshot, String... labels) {
+        String[] quantileLabels = new String[labels.length + 2];
+        System.arraycopy(labels, 0, quantileLabels, 0, labels.length);
+        quantileLabels[labels.length] = "quantile";
+
+        for (double quantile : QUANTILES) {
+            quantileLabels[labels.length + 1] = Double.toString(quantile);
+            this.sample(name, snapshot.getPercentile(quantile * 100) / NANOS_PER_SECOND, quantileLabels);
+        }
+
+        this.sample(name + "_sum", snapshot.getSum() / NANOS_PER_SECOND, labels);
+        this.sample(name + "_count", snapshot.getCount(), labels);
+
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return this.output.toString();
+    }
+
+    private static String escape(String value) {
+        if (null == value) {
+            return "";
+        }
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+
+        if (Double.isInfinite(value)) {
+            return (value > 0) ? "+Inf" : "-Inf";
+        }
+
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,157 @@
+package org.provotum.backend.profiling;
+
+import java.util.logging.Logger;
+
+/**
+ * Emits JDK Flight Recorder events around crypto operations, RPC calls and tally stages.
+ * <p>
+ * Flight Recorder is accessed only if the JVM provides it, otherwise all spans are no-ops.
+ * While no recording is enabled for an event type, the shared {@link Span#NOOP} is returned,
+ * so profiling costs a single check per operation.
+ * <p>
+ * Ballot address and vote index are taken from the {@link Scope} the current thread entered,
+ * so that e.g. a proof verification is attributed to the vote it belongs to.
+ */
+public final class Profiling {
+
+    private static final Logger logger = Logger.getLogger(Profiling.class.getName());
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String VALID = "valid";
+    public static final String INVALID = "invalid";
+    public static final String ERROR = "error";
+    public static final String CANCELLED = "cancelled";
+
+    private static final long NO_INDEX = -1;
+
+    private static final SpanFactory factory = createFactory();
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private Profiling() {
+    }
+
+    /**
+     * @return True, if events are emitted to Flight Recorder.
+     */
+    public static boolean isAvailable() {
+        return null != factory;
+    }
+
+    /**
+     * @param operation The name of the crypto operation.
+     * @return The started span.
+     */
+    public static Span crypto(String operation) {
+        if (null == factory) {
+            return Span.NOOP;
+        }
+
+        Scope scope = current.get();
+
+        return (null == scope) ? factory.crypto(operation, null, NO_INDEX) : factory.crypto(operation, scope.ballot, scope.voteIndex);
+    }
+
+    /**
+     * @param method The JSON-RPC method.
+     * @return The started span.
+     */
+    public static Span rpc(String method) {
+        if (null == factory) {
+            return Span.NOOP;
+        }
+
+        Scope scope = current.get();
+
+        return (null == scope) ? factory.rpc(method, null, NO_INDEX) : factory.rpc(method, scope.ballot, scope.voteIndex);
+    }
+
+    /**
+     * @param stage  The name of the tally stage.
+     * @param ballot The address of the tallied ballot.
+     * @return The started span.
+     */
+    public static Span tallyStage(String stage, String ballot) {
+        if (null == factory) {
+            return Span.NOOP;
+        }
+
+        return factory.tallyStage(stage, ballot, NO_INDEX);
+    }
+
+    /**
+     * Attribute all spans started by the current thread to the given ballot
+     * until the returned scope is closed.
+     *
+     * @param ballot The address of the ballot.
+     * @return The scope to close.
+     */
+    public static Scope enter(String ballot) {
+        return enter(ballot, NO_INDEX);
+    }
+
+    /**
+     * Attribute all spans started by the current thread to the given vote
+     * until the returned scope is closed.
+     *
+     * @param ballot    The address of the ballot.
+     * @param voteIndex The index of the vote in the ballot.
+     * @return The scope to close.
+     */
+    public static Scope enter(String ballot, long voteIndex) {
+        if (null == factory) {
+            return Scope.NOOP;
+        }
+
+        Scope scope = new Scope(ballot, voteIndex, current.get());
+        current.set(scope);
+
+        return scope;
+    }
+
+    private static SpanFactory createFactory() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+
+            // only refer to the events once we know their super class exists, they are missing if built on JDK 8
+            return (SpanFactory) Class.forName(Profiling.class.getPackage().getName() + ".JfrSpanFactory").newInstance();
+        } catch (ClassNotFoundException | LinkageError e) {
+            logger.info("Flight Recorder is not available on this JVM, or the events were not compiled. Profiling events are disabled.");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warning("Failed to register Flight Recorder events. Profiling events are disabled: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private static final Scope NOOP = new Scope(null, NO_INDEX, null);
+
+        private final String ballot;
+        private final long voteIndex;
+        private final Scope previous;
+
+        private Scope(String ballot, long voteIndex, Scope previous) {
+            this.ballot = ballot;
+            this.voteIndex = voteIndex;
+            this.previous = previous;
+        }
+
+        /**
+         * Restore the scope which was entered before.
+         */
+        @Override
+        public void close() {
+            if (this == NOOP) {
+                return;
+            }
+
+            if (null == this.previous) {
+                current.remove();
+            } else {
+                current.set(this.previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.provotum.backend.profiling;
+
+/**
+ * A profiled operation, started when created and recorded once ended.
+ */
+public interface Span {
+
+    /**
+     * Used while the event type is not recorded.
+     */
+    Span NOOP = outcome -> {
+    };
+
+    /**
+     * Record the operation.
+     *
+     * @param outcome One of the outcomes declared in {@link Profiling}.
+     */
+    void end(String outcome);
+}
@@ -0,0 +1,13 @@
+package org.provotum.backend.profiling;
+
+/**
+ * Creates the spans of each kind of profiled operation.
+ */
+interface SpanFactory {
+
+    Span crypto(String operation, String ballot, long voteIndex);
+
+    Span rpc(String method, String ballot, long voteIndex);
+
+    Span tallyStage(String stage, String ballot, long voteIndex);
+}
@@ -0,0 +1,111 @@
+package org.provotum.backend.security;
+
+import org.provotum.security.arithmetic.ModInteger;
+import org.provotum.security.elgamal.additive.CipherText;
+
+import java.math.BigInteger;
+
+/**
+ * A mutable homomorphic sum of ciphertexts.
+ * <p>
+ * Adding a ciphertext to another using {@link CipherText#operate(CipherText)} allocates
+ * a new ciphertext with new components for every vote. This accumulator instead multiplies
+ * the components G and H into a {@link MontgomeryProduct} each and adds up the random
+ * values in place, so that a ciphertext is only created once the sum is read.
+ * <p>
+ * Ciphertexts of which the components lack an odd modulus
+ * are summed up using {@link CipherText#operate(CipherText)}.
+ * Not thread-safe.
+ */
+public class CipherTextAccumulator {
+
+    private static final long MASK = 0xFFFFFFFFL;
+
+    private final MontgomeryProduct g;
+    private final MontgomeryProduct h;
+
+    private final BigInteger randomModulus;
+    private final int[] random;
+    private final int[] randomSummand;
+
+    private CipherText fallback;
+
+    /**
+     * @param initial The ciphertext to start with, e.g. an encryption of zero.
+     */
+    public CipherTextAccumulator(CipherText initial) {
+        BigInteger modulus = initial.getG().getModulus();
+        BigInteger randomModulus = initial.getR().getModulus();
+
+        // components without a modulus may carry a modulus of zero
+        if (null == modulus || null == randomModulus || randomModulus.signum() <= 0 || ! modulus.equals(initial.getH().getModulus()) || modulus.signum() <= 0 || ! modulus.testBit(0)) {
+            this.g = null;
+            this.h = null;
+            this.randomModulus = null;
+            this.random = null;
+            this.randomSummand = null;
+            this.fallback = initial;
+
+            return;
+        }
+
+        this.g = new MontgomeryProduct(modulus, initial.getG().asBigInteger());
+        this.h = new MontgomeryProduct(modulus, initial.getH().asBigInteger());
+
+        this.randomModulus = randomModulus;
+        int words = (randomModulus.bitLength() + 31) / 32;
+        // two spare words take the carries of up to 2^64 additions before the sum is reduced
+        this.random = new int[words + 2];
+        this.randomSummand = new int[words + 2];
+
+        MontgomeryProduct.load(initial.getR().asBigInteger().mod(randomModulus), this.random);
+    }
+
+    /**
+     * Add the given ciphertext to the sum.
+     *
+     * @param cipherText The ciphertext to add.
+     */
+    public void add(CipherText cipherText) {
+        if (null != this.fallback) {
+            this.fallback = this.fallback.operate(cipherText);
+
+            return;
+        }
+
+        this.g.multiply(cipherText.getG().asBigInteger());
+        this.h.multiply(cipherText.getH().asBigInteger());
+
+        BigInteger summand = cipherText.getR().asBigInteger();
+
+        if (summand.signum() < 0 || summand.compareTo(this.randomModulus) >= 0) {
+            summand = summand.mod(this.randomModulus);
+        }
+
+        MontgomeryProduct.load(summand, this.randomSummand);
+
+        long carry = 0;
+        for (int i = 0; i < this.random.length; i++) {
+            long sum = (this.random[i] & MASK) + (this.randomSummand[i] & MASK) + carry;
+            this.random[i] = (int) sum;
+            carry = sum >>> 32;
+        }
+    }
+
+    /**
+     * @return The sum of all ciphertexts added so far.
+     */
+    public CipherText toCipherText() {
+        if (null != this.fallback) {
+            return this.fallback;
+        }
+
+        BigInteger randomSum = MontgomeryProduct.toBigInteger(this.random, this.random.length);
+
+        return new CipherText(
+            new ModInteger(this.g.get(), this.g.getModulus()),
+            new ModInteger(this.h.get(), this.h.getModulus()),
+            new ModInteger(randomSum.mod(this.randomModulus), this.randomModulus)
+        );
+    }
+}
@@ -1,18 +1,13 @@
 package org.provotum.backend.security;
 
-import org.bouncycastle.math.raw.Mod;
+import org.bouncycastle.util.encoders.Hex;
 import org.provotum.backend.config.SecurityConfiguration;
+import org.provotum.backend.profiling.Profiling;
+import org.provotum.backend.profiling.Span;
+import org.provotum.backend.security.engine.EncryptionEngine;
+import org.provotum.backend.security.engine.VoteCipherText;
+import org.provotum.backend.security.engine.VoteProof;
 import org.provotum.backend.timer.EvaluationTimer;
-import org.provotum.security.api.IHomomorphicEncryption;
-import org.provotum.security.api.IMembershipProof;
-import org.provotum.security.arithmetic.ModInteger;
-import org.provotum.security.elgamal.PrivateKey;
-import org.provotum.security.elgamal.PublicKey;
-import org.provotum.security.elgamal.additive.CipherText;
-import org.provotum.security.elgamal.additive.Encryption;
-import org.provotum.security.elgamal.proof.noninteractive.MembershipProof;
-import org.provotum.security.serializer.CipherTextSerializer;
-import org.provotum.security.serializer.MembershipProofSerializer;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.BadPaddingException;
@@ -20,12 +15,13 @@ import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.KeyPair;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 import java.util.logging.Logger;
 
 @Component
@@ -34,39 +30,52 @@ public class EncryptionManager {
     private static final Logger logger = Logger.getLogger(EncryptionManager.class.getName());
 
     private SecurityConfiguration securityConfiguration;
-    private List<ModInteger> voteDomain;
+    private EncryptionEngine engine;
+    private List<BigInteger> voteDomain;
     private EvaluationTimer timer;
+    private VerificationCache verificationCache;
+    private volatile String publicKeyFingerprint;
 
-    public EncryptionManager(SecurityConfiguration securityConfiguration, EvaluationTimer timer) {
+    public EncryptionManager(SecurityConfiguration securityConfiguration, EncryptionEngine engine, EvaluationTimer timer, VerificationCache verificationCache) {
         this.securityConfiguration = securityConfiguration;
+        this.engine = engine;
         this.timer = timer;
+        this.verificationCache = verificationCache;
 
         // add the values which we currently accept as a valid vote
         this.voteDomain = new ArrayList<>();
-        this.voteDomain.add(ModInteger.ZERO);
-        this.voteDomain.add(ModInteger.ONE);
+        this.voteDomain.add(BigInteger.ZERO);
+        this.voteDomain.add(BigInteger.ONE);
     }
 
-    public CipherText generateZeroVote() {
-        ModInteger votingMessage = new ModInteger("0", this.securityConfiguration.getPublicKey().getP());
-        IHomomorphicEncryption<CipherText> encryption = new Encryption();
-
-        return encryption.encrypt(this.securityConfiguration.getPublicKey(), votingMessage);
+    public VoteCipherText generateZeroVote() {
+        return this.engine.encrypt(BigInteger.ZERO);
     }
 
     public CipherTextWrapper encryptVoteAndGenerateProof(int vote) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
+        Span span = Profiling.crypto("encryptVoteAndGenerateProof");
+
+        try {
+            CipherTextWrapper wrapper = this.encryptAndProve(vote);
+            span.end(Profiling.SUCCESS);
+
+            return wrapper;
+        } catch (Exception e) {
+            span.end(Profiling.FAILURE);
+            throw e;
+        }
+    }
+
+    private CipherTextWrapper encryptAndProve(int vote) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
         logger.info("Starting to encrypt vote and generate corresponding proof.");
 
-        // set the vote modulus the prime number
-        ModInteger votingMessage = new ModInteger(Integer.toString(vote), this.securityConfiguration.getPublicKey().getP());
+        BigInteger votingMessage = BigInteger.valueOf(vote);
 
         // encrypt the message
         logger.info("Starting to encrypt vote.");
-        IHomomorphicEncryption<CipherText> encryption = new Encryption();
-        UUID uuid = this.timer.start();
-        CipherText cipherText = encryption.encrypt(this.securityConfiguration.getPublicKey(), votingMessage);
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.ENCRYPTION_CIPHERTEXT, duration);
+        long start = this.timer.start();
+        VoteCipherText cipherText = this.engine.encrypt(votingMessage);
+        this.timer.stop(EvaluationTimer.LogCategory.ENCRYPTION_CIPHERTEXT, start);
         logger.info("Vote encrypted.");
 
         // We also need to add the random value used to the public parameters.
@@ -75,27 +84,23 @@ public class EncryptionManager {
 
         // encrypt the plaintext using the public key
         cipher.init(Cipher.ENCRYPT_MODE, this.securityConfiguration.getRsaKeyPair().getPublic());
-        uuid = this.timer.start();
-        byte[] randomValueCipherText = cipher.doFinal(cipherText.getR().finalized().toByteArray());
-        duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.ENCRYPTION_RANDOM, duration);
+        start = this.timer.start();
+        byte[] randomValueCipherText = cipher.doFinal(cipherText.getRandom().toByteArray());
+        this.timer.stop(EvaluationTimer.LogCategory.ENCRYPTION_RANDOM, start);
 
         logger.info("Generating proof.");
-        uuid = this.timer.start();
-        MembershipProof proof = MembershipProof.commit(this.securityConfiguration.getPublicKey(), votingMessage, cipherText, this.voteDomain);
-        duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.GENERATING_PROOF, duration);
+        start = this.timer.start();
+        VoteProof proof = this.engine.commit(votingMessage, cipherText, this.voteDomain);
+        this.timer.stop(EvaluationTimer.LogCategory.GENERATING_PROOF, start);
         logger.info("Proof generated.");
 
         // serialize both messages
-        uuid = this.timer.start();
-        String serializedCiphertext = CipherTextSerializer.serialize(cipherText);
-        duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.SERIALIZATION_CIPHERTEXT, duration);
-        uuid = this.timer.start();
-        String serializedProof = MembershipProofSerializer.serialize(proof);
-        duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.SERIALIZATION_PROOF, duration);
+        start = this.timer.start();
+        String serializedCiphertext = cipherText.serialize();
+        this.timer.stop(EvaluationTimer.LogCategory.SERIALIZATION_CIPHERTEXT, start);
+        start = this.timer.start();
+        String serializedProof = proof.serialize();
+        this.timer.stop(EvaluationTimer.LogCategory.SERIALIZATION_PROOF, start);
 
         return new CipherTextWrapper(
             serializedCiphertext,
@@ -104,79 +109,179 @@ public class EncryptionManager {
         );
     }
 
-    public CipherText deserializeCiphertext(String ciphertext, byte[] encryptedRandom) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        cipher.init(Cipher.DECRYPT_MODE, this.securityConfiguration.getRsaKeyPair().getPrivate());
-        UUID uuid = this.timer.start();
-        BigInteger random = new BigInteger(cipher.doFinal(encryptedRandom));
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.DECRYPTION_RANDOM, duration);
-
-        uuid = this.timer.start();
-        CipherText cipherText = CipherTextSerializer.fromString(ciphertext, new ModInteger(random.toString(), this.securityConfiguration.getPublicKey().getQ()));
-        duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.DESERIALIZATION_CIPHERTEXT, duration);
-
-        return cipherText;
-    }
+    public VoteCipherText deserializeCiphertext(String ciphertext, byte[] encryptedRandom) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, BadPaddingException, IllegalBlockSizeException {
+        Span span = Profiling.crypto("deserializeCiphertext");
 
+        try {
+            Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+            cipher.init(Cipher.DECRYPT_MODE, this.securityConfiguration.getRsaKeyPair().getPrivate());
+            long start = this.timer.start();
+            BigInteger random = new BigInteger(cipher.doFinal(encryptedRandom));
+            this.timer.stop(EvaluationTimer.LogCategory.DECRYPTION_RANDOM, start);
 
-    public MembershipProof deserializeMembershipProof(String proof) {
-        UUID uuid = this.timer.start();
-        MembershipProof membershipProof = MembershipProofSerializer.fromString(proof);
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.DESERIALIZATION_PROOF, duration);
+            start = this.timer.start();
+            VoteCipherText cipherText = this.engine.deserializeCipherText(ciphertext, random);
+            this.timer.stop(EvaluationTimer.LogCategory.DESERIALIZATION_CIPHERTEXT, start);
 
-        return membershipProof;
+            span.end(Profiling.SUCCESS);
+
+            return cipherText;
+        } catch (Exception e) {
+            span.end(Profiling.FAILURE);
+            throw e;
+        }
     }
 
-    public ModInteger decryptSum(CipherText cipherText) {
-        IHomomorphicEncryption<CipherText> encryption = new Encryption();
-        UUID uuid = this.timer.start();
-        ModInteger result = encryption.decrypt(this.securityConfiguration.getPrivateKey(), cipherText);
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.DECRYPTION_CIPHERTEXT, duration);
+    /**
+     * @param ciphertext The serialized ciphertext.
+     * @return The ciphertext, of which the random value is unknown.
+     */
+    public VoteCipherText deserializeCiphertext(String ciphertext) {
+        Span span = Profiling.crypto("deserializeCiphertext");
+
+        try {
+            VoteCipherText cipherText = this.engine.deserializeCipherText(ciphertext);
+            span.end(Profiling.SUCCESS);
+
+            return cipherText;
+        } catch (RuntimeException e) {
+            span.end(Profiling.FAILURE);
+            throw e;
+        }
+    }
 
-        return result;
+    /**
+     * Restore a ciphertext of which the random value is known in plain, e.g. a partial sum of votes.
+     *
+     * @param ciphertext The serialized ciphertext.
+     * @param random     The random value of the ciphertext.
+     * @return The ciphertext.
+     */
+    public VoteCipherText restoreCiphertext(String ciphertext, BigInteger random) {
+        return this.engine.deserializeCipherText(ciphertext, random);
     }
 
-    public boolean verifyProof(CipherText cipherText, IMembershipProof<CipherText> proof) {
-        UUID uuid = this.timer.start();
-        boolean isSuccess = proof.verify(this.securityConfiguration.getPublicKey(), cipherText, this.voteDomain);
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
+    /**
+     * @return A hex encoded SHA-256 hash identifying the election public key.
+     */
+    public String getPublicKeyFingerprint() {
+        // keys are initialized once on startup, after this manager has been created
+        if (null != this.publicKeyFingerprint) {
+            return this.publicKeyFingerprint;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(this.engine.serializePublicKey().getBytes(StandardCharsets.UTF_8));
+            this.publicKeyFingerprint = Hex.toHexString(hash);
 
-        if (isSuccess) {
-            this.timer.logDuration(EvaluationTimer.LogCategory.VERIFICATION_PROOF_SUCCESSFUL, duration);
-        } else {
-            this.timer.logDuration(EvaluationTimer.LogCategory.VERIFICATION_PROOF_UNSUCCESSFUL, duration);
+            return this.publicKeyFingerprint;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
+    }
 
-        return isSuccess;
+    public VoteProof deserializeMembershipProof(String proof) {
+        long start = this.timer.start();
+        VoteProof membershipProof = this.engine.deserializeProof(proof);
+        this.timer.stop(EvaluationTimer.LogCategory.DESERIALIZATION_PROOF, start);
+
+        return membershipProof;
+    }
+
+    public BigInteger decryptSum(VoteCipherText cipherText) {
+        Span span = Profiling.crypto("decryptSum");
+
+        try {
+            long start = this.timer.start();
+            BigInteger result = this.engine.decrypt(cipherText);
+            this.timer.stop(EvaluationTimer.LogCategory.DECRYPTION_CIPHERTEXT, start);
+
+            span.end(Profiling.SUCCESS);
+
+            return result;
+        } catch (RuntimeException e) {
+            span.end(Profiling.FAILURE);
+            throw e;
+        }
     }
 
-    public MembershipProof createSumProof(BigInteger sum, CipherText sumCipherText) {
-        List<ModInteger> domain = new ArrayList<>();
-        domain.add(new ModInteger(sum));
+    public boolean verifyProof(VoteCipherText cipherText, VoteProof proof) {
+        Span span = Profiling.crypto("verifyProof");
 
-        UUID uuid = this.timer.start();
-        MembershipProof resultProof = MembershipProof.commit(this.securityConfiguration.getPublicKey(), new ModInteger(sum), sumCipherText, domain);
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
-        this.timer.logDuration(EvaluationTimer.LogCategory.SUM_PROOF, duration);
+        try {
+            boolean isValid = this.verifyCached(cipherText, proof, this.voteDomain);
+            span.end(isValid ? Profiling.VALID : Profiling.INVALID);
+
+            return isValid;
+        } catch (RuntimeException e) {
+            span.end(Profiling.FAILURE);
+            throw e;
+        }
+    }
+
+    public VoteProof createSumProof(BigInteger sum, VoteCipherText sumCipherText) {
+        long start = this.timer.start();
+        VoteProof resultProof = this.engine.commit(sum, sumCipherText, Collections.singletonList(sum));
+        this.timer.stop(EvaluationTimer.LogCategory.SUM_PROOF, start);
 
         return resultProof;
     }
 
-    public boolean verifySumProof(CipherText cipherText, IMembershipProof<CipherText> proof, List<ModInteger> domain) {
-        UUID uuid = this.timer.start();
-        boolean isSuccess = proof.verify(this.securityConfiguration.getPublicKey(), cipherText, domain);
-        EvaluationTimer.Duration duration = this.timer.end(uuid);
+    public boolean verifySumProof(VoteCipherText cipherText, VoteProof proof, BigInteger sum) {
+        return this.verifyCached(cipherText, proof, Collections.singletonList(sum));
+    }
+
+    /**
+     * Verify the given proof unless it has already been verified against the same key and domain.
+     */
+    private boolean verifyCached(VoteCipherText cipherText, VoteProof proof, List<BigInteger> domain) {
+        String digest = this.digestOf(cipherText, proof, domain);
+
+        if (null != digest) {
+            Boolean isCached = this.verificationCache.get(digest);
+
+            if (null != isCached) {
+                return isCached;
+            }
+        }
+
+        long start = this.timer.start();
+        boolean isSuccess = this.engine.verify(cipherText, proof, domain);
+        this.timer.stop(isSuccess ? EvaluationTimer.LogCategory.VERIFICATION_PROOF_SUCCESSFUL : EvaluationTimer.LogCategory.VERIFICATION_PROOF_UNSUCCESSFUL, start);
 
-        if (isSuccess) {
-            this.timer.logDuration(EvaluationTimer.LogCategory.VERIFICATION_PROOF_SUCCESSFUL, duration);
-        } else {
-            this.timer.logDuration(EvaluationTimer.LogCategory.VERIFICATION_PROOF_UNSUCCESSFUL, duration);
+        if (null != digest) {
+            this.verificationCache.put(digest, isSuccess);
         }
 
         return isSuccess;
     }
+
+    /**
+     * @return A SHA-256 digest over the public key, ciphertext, proof and domain
+     * or null if the verification cannot be cached.
+     */
+    private String digestOf(VoteCipherText cipherText, VoteProof proof, List<BigInteger> domain) {
+        if (! this.verificationCache.isEnabled()) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.getPublicKeyFingerprint().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(cipherText.serialize().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(proof.serialize().getBytes(StandardCharsets.UTF_8));
+
+            for (BigInteger value : domain) {
+                digest.update((byte) 0);
+                digest.update(value.toByteArray());
+            }
+
+            return Hex.toHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
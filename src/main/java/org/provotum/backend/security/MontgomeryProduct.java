@@ -0,0 +1,208 @@
+package org.provotum.backend.security;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A running product modulo an odd modulus, which is multiplied in place.
+ * <p>
+ * Factors are multiplied using Montgomery multiplication on reusable buffers of 32 bit words,
+ * i.e. each multiplication computes <code>a * b * R^-1 mod n</code> with <code>R = 2^(32 * words)</code>
+ * without any division and without allocating new numbers. Instead of converting every factor
+ * into Montgomery form, the number of multiplications is counted and the accumulated factors
+ * <code>R^-1</code> are corrected once the product is read.
+ */
+final class MontgomeryProduct {
+
+    private static final long MASK = 0xFFFFFFFFL;
+
+    private final BigInteger modulus;
+    private final int size;
+    private final int[] modulusWords;
+    private final int inverse;
+
+    private int[] product;
+    private int[] scratch;
+    private final int[] factor;
+
+    private long multiplications;
+
+    /**
+     * @param modulus The odd modulus.
+     * @param initial The initial value of the product.
+     */
+    MontgomeryProduct(BigInteger modulus, BigInteger initial) {
+        if (modulus.signum() <= 0 || ! modulus.testBit(0)) {
+            throw new IllegalArgumentException("Montgomery multiplication requires an odd, positive modulus");
+        }
+
+        this.modulus = modulus;
+        this.size = (modulus.bitLength() + 31) / 32;
+        this.modulusWords = new int[this.size];
+        this.product = new int[this.size + 2];
+        this.scratch = new int[this.size + 2];
+        this.factor = new int[this.size];
+
+        load(modulus, this.modulusWords);
+        load(this.reduce(initial), this.product);
+
+        // -n^-1 mod 2^32 by Newton iteration, each step doubles the number of correct bits
+        int n0 = this.modulusWords[0];
+        int x = n0;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - n0 * x;
+        }
+        this.inverse = -x;
+    }
+
+    /**
+     * Multiply the product by the given factor.
+     *
+     * @param value The factor.
+     */
+    void multiply(BigInteger value) {
+        load(this.reduce(value), this.factor);
+
+        int[] a = this.factor;
+        int[] b = this.product;
+        int[] n = this.modulusWords;
+        int[] t = this.scratch;
+        int s = this.size;
+
+        Arrays.fill(t, 0);
+
+        // coarsely integrated operand scanning, see Koc et al.: Analyzing and comparing Montgomery multiplication algorithms
+        for (int i = 0; i < s; i++) {
+            long ai = a[i] & MASK;
+            long carry = 0;
+
+            for (int j = 0; j < s; j++) {
+                long sum = (t[j] & MASK) + ai * (b[j] & MASK) + carry;
+                t[j] = (int) sum;
+                carry = sum >>> 32;
+            }
+
+            long sum = (t[s] & MASK) + carry;
+            t[s] = (int) sum;
+            t[s + 1] = (int) (sum >>> 32);
+
+            long m = (t[0] * this.inverse) & MASK;
+            sum = (t[0] & MASK) + m * (n[0] & MASK);
+            carry = sum >>> 32;
+
+            for (int j = 1; j < s; j++) {
+                sum = (t[j] & MASK) + m * (n[j] & MASK) + carry;
+                t[j - 1] = (int) sum;
+                carry = sum >>> 32;
+            }
+
+            sum = (t[s] & MASK) + carry;
+            t[s - 1] = (int) sum;
+            t[s] = t[s + 1] + (int) (sum >>> 32);
+            t[s + 1] = 0;
+        }
+
+        if (this.isAtLeastModulus(t)) {
+            this.subtractModulus(t);
+        }
+
+        this.scratch = this.product;
+        this.product = t;
+        this.multiplications++;
+    }
+
+    /**
+     * @return The product modulo the modulus.
+     */
+    BigInteger get() {
+        BigInteger value = toBigInteger(this.product, this.size);
+
+        if (0 == this.multiplications) {
+            return value;
+        }
+
+        BigInteger correction = BigInteger.ONE.shiftLeft(32 * this.size)
+            .mod(this.modulus)
+            .modPow(BigInteger.valueOf(this.multiplications), this.modulus);
+
+        return value.multiply(correction).mod(this.modulus);
+    }
+
+    BigInteger getModulus() {
+        return this.modulus;
+    }
+
+    private BigInteger reduce(BigInteger value) {
+        if (value.signum() < 0 || value.compareTo(this.modulus) >= 0) {
+            return value.mod(this.modulus);
+        }
+
+        return value;
+    }
+
+    private boolean isAtLeastModulus(int[] t) {
+        if (0 != t[this.size]) {
+            return true;
+        }
+
+        for (int i = this.size - 1; i >= 0; i--) {
+            int comparison = Integer.compareUnsigned(t[i], this.modulusWords[i]);
+
+            if (0 != comparison) {
+                return comparison > 0;
+            }
+        }
+
+        return true;
+    }
+
+    private void subtractModulus(int[] t) {
+        long borrow = 0;
+
+        for (int i = 0; i < this.size; i++) {
+            long difference = (t[i] & MASK) - (this.modulusWords[i] & MASK) - borrow;
+            t[i] = (int) difference;
+            borrow = (difference >> 32) & 1;
+        }
+
+        t[this.size] -= (int) borrow;
+    }
+
+    /**
+     * Write the magnitude of the given non-negative value into the given words, least significant first.
+     * <p>
+     * {@link BigInteger} only hands out copies of its magnitude, e.g. by {@link BigInteger#toByteArray()},
+     * which would allocate an array per factor. {@link BigInteger#testBit(int)} reads the magnitude in place,
+     * so the words are assembled bit by bit instead. Bits beyond the given words are ignored.
+     */
+    static void load(BigInteger value, int[] words) {
+        Arrays.fill(words, 0);
+
+        int bits = Math.min(value.bitLength(), 32 * words.length);
+
+        for (int i = 0; i < bits; i++) {
+            if (value.testBit(i)) {
+                words[i >>> 5] |= 1 << (i & 31);
+            }
+        }
+    }
+
+    /**
+     * @return The non-negative number of the given words, least significant first.
+     */
+    static BigInteger toBigInteger(int[] words, int size) {
+        byte[] bytes = new byte[4 * size + 1];
+
+        for (int i = 0; i < size; i++) {
+            int word = words[i];
+            int offset = bytes.length - 1 - 4 * i;
+
+            bytes[offset] = (byte) word;
+            bytes[offset - 1] = (byte) (word >>> 8);
+            bytes[offset - 2] = (byte) (word >>> 16);
+            bytes[offset - 3] = (byte) (word >>> 24);
+        }
+
+        return new BigInteger(bytes);
+    }
+}
@@ -0,0 +1,256 @@
+package org.provotum.backend.security;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the outcome of proof verifications by a digest over everything the outcome
+ * depends on. Holds a bounded number of entries and evicts the least recently used one.
+ * <p>
+ * Optionally, entries are read from a file once a key is known and written back on shutdown.
+ * Each line of the file carries an HMAC-SHA256 over the entry, keyed with the given key,
+ * so that entries which were altered or written with another key are ignored instead of
+ * e.g. accepting an invalid proof.
+ */
+public class VerificationCache {
+
+    private static final Logger logger = Logger.getLogger(VerificationCache.class.getName());
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final int capacity;
+    private final File file;
+    private final Map<String, Boolean> entries;
+
+    private volatile SecretKeySpec key;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity The maximum number of entries. Zero or less disables the cache.
+     * @param file     The file to persist entries to or null to keep them in memory only.
+     *                 Entries are only read from and written to it once {@link #load(byte[])} was called.
+     */
+    public VerificationCache(int capacity, File file) {
+        this.capacity = capacity;
+        this.file = file;
+        this.entries = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return this.size() > VerificationCache.this.capacity;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return this.capacity > 0;
+    }
+
+    /**
+     * @param digest The digest of the verification.
+     * @return The outcome of the verification or null if it is unknown.
+     */
+    public Boolean get(String digest) {
+        if (! this.isEnabled()) {
+            return null;
+        }
+
+        Boolean isValid;
+        synchronized (this.entries) {
+            isValid = this.entries.get(digest);
+        }
+
+        if (null == isValid) {
+            this.misses.incrementAndGet();
+        } else {
+            this.hits.incrementAndGet();
+        }
+
+        return isValid;
+    }
+
+    /**
+     * @param digest  The digest of the verification.
+     * @param isValid The outcome of the verification.
+     */
+    public void put(String digest, boolean isValid) {
+        if (! this.isEnabled()) {
+            return;
+        }
+
+        synchronized (this.entries) {
+            this.entries.put(digest, isValid);
+        }
+    }
+
+    /**
+     * Read the entries of the configured file which were written with the given key.
+     * Entries remembered so far are kept as the most recently used ones.
+     * Entries are written back with the same key by {@link #persist()}.
+     *
+     * @param key The key to authenticate the entries of the file with, e.g. the encoded private key of the backend.
+     */
+    public void load(byte[] key) {
+        this.key = new SecretKeySpec(key, MAC_ALGORITHM);
+
+        if (null == this.file || ! this.file.exists() || ! this.isEnabled()) {
+            return;
+        }
+
+        Map<String, Boolean> loaded = new LinkedHashMap<>();
+        int ignored = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(this.file.toPath(), StandardCharsets.UTF_8)) {
+            Mac mac = this.mac();
+            String line;
+
+            while (null != (line = reader.readLine())) {
+                int separator = line.lastIndexOf(',');
+
+                if (separator < 0 || ! this.isAuthentic(mac, line.substring(0, separator), line.substring(separator + 1))) {
+                    ignored++;
+                    continue;
+                }
+
+                String entry = line.substring(0, separator);
+                int outcomeSeparator = entry.indexOf(',');
+
+                if (outcomeSeparator > 0) {
+                    loaded.put(entry.substring(0, outcomeSeparator), "1".equals(entry.substring(outcomeSeparator + 1)));
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Ignoring unreadable verification results in " + this.file.getAbsolutePath() + ": " + e.getMessage());
+
+            return;
+        }
+
+        if (ignored > 0) {
+            logger.warning("Ignoring " + ignored + " verification results in " + this.file.getAbsolutePath() + " which were altered or written with another key");
+        }
+
+        synchronized (this.entries) {
+            Map<String, Boolean> current = new LinkedHashMap<>(this.entries);
+
+            this.entries.clear();
+            this.entries.putAll(loaded);
+            this.entries.putAll(current);
+        }
+
+        logger.info("Loaded " + loaded.size() + " verification results from " + this.file.getAbsolutePath());
+    }
+
+    /**
+     * Write all entries to the configured file, least recently used first.
+     * Nothing is written unless a key was given by {@link #load(byte[])}.
+     */
+    public void persist() {
+        if (null == this.file || ! this.isEnabled()) {
+            return;
+        }
+
+        if (null == this.key) {
+            logger.warning("Not persisting verification results as there is no key to authenticate them with");
+
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        Mac mac = this.mac();
+        synchronized (this.entries) {
+            for (Map.Entry<String, Boolean> entry : this.entries.entrySet()) {
+                String line = entry.getKey() + (entry.getValue() ? ",1" : ",0");
+                lines.add(line + "," + Hex.toHexString(mac.doFinal(line.getBytes(StandardCharsets.UTF_8))));
+            }
+        }
+
+        File temporaryFile = new File(this.file.getAbsolutePath() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile.toPath(), StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+
+            try {
+                Files.move(temporaryFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            logger.info("Persisted " + lines.size() + " verification results to " + this.file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.severe("Failed to persist verification results: " + e.getMessage());
+        }
+    }
+
+    private Mac mac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(this.key);
+
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private boolean isAuthentic(Mac mac, String entry, String tag) {
+        byte[] expected = mac.doFinal(entry.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            // compared in constant time
+            return MessageDigest.isEqual(expected, Hex.decode(tag));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public int getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return The share of lookups which found an entry or 0 if there were none yet.
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + this.misses.get();
+
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+}
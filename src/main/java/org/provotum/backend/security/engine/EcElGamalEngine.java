@@ -0,0 +1,462 @@
+package org.provotum.backend.security.engine;
+
+import org.bouncycastle.asn1.x9.ECNamedCurveTable;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Additive ElGamal over a prime-order elliptic curve: A message <code>m</code> is encrypted
+ * as <code>(rG, mG + rY)</code> with the public key <code>Y = xG</code>, so that adding
+ * ciphertexts pointwise adds their messages.
+ * <p>
+ * Decryption yields <code>mG</code>, from which the message is recovered by a baby-step
+ * giant-step search, which is feasible since the messages are sums of votes and thus bounded.
+ * <p>
+ * Membership proofs are disjunctive Chaum-Pedersen proofs, made non-interactive using
+ * Fiat-Shamir with SHA-256 over the public key, the ciphertext, the domain and all commitments.
+ * <p>
+ * Points are serialized in compressed form as hex, the components of ciphertexts
+ * and proofs are separated by commas and the proofs for each value of the domain by semicolons.
+ */
+public class EcElGamalEngine implements EncryptionEngine {
+
+    public static final String NAME = "ec-elgamal";
+
+    private static final String COMPONENT_SEPARATOR = ",";
+    private static final String VALUE_SEPARATOR = ";";
+
+    private final String curveName;
+    private final ECCurve curve;
+    private final ECPoint generator;
+    private final BigInteger order;
+    private final long maxMessage;
+
+    private final ECMultiplier generatorMultiplier = new FixedPointCombMultiplier();
+    private final SecureRandom random = new SecureRandom();
+
+    private BigInteger privateKey;
+    private ECPoint publicKey;
+
+    private Map<String, Long> babySteps;
+    private long babyStepCount;
+
+    /**
+     * @param curveName  The name of a standard curve of prime order, e.g. <code>secp256r1</code>.
+     * @param maxMessage The largest message which can be decrypted, i.e. the maximum number of votes.
+     */
+    public EcElGamalEngine(String curveName, long maxMessage) {
+        X9ECParameters parameters = CustomNamedCurves.getByName(curveName);
+
+        if (null == parameters) {
+            parameters = ECNamedCurveTable.getByName(curveName);
+        }
+
+        if (null == parameters) {
+            throw new IllegalArgumentException("Unknown elliptic curve " + curveName);
+        }
+
+        if (! BigInteger.ONE.equals(parameters.getH())) {
+            throw new IllegalArgumentException("Elliptic curve " + curveName + " must have prime order, but has cofactor " + parameters.getH());
+        }
+
+        if (maxMessage < 1) {
+            throw new IllegalArgumentException("The largest message must be positive. Got " + maxMessage);
+        }
+
+        this.curveName = curveName;
+        this.curve = parameters.getCurve();
+        this.generator = parameters.getG();
+        this.order = parameters.getN();
+        this.maxMessage = maxMessage;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void generateKeys() {
+        this.privateKey = this.randomScalar();
+        this.publicKey = this.multiplyGenerator(this.privateKey);
+    }
+
+    @Override
+    public void loadKeys(String publicKey, String privateKey) {
+        String[] publicParts = publicKey.trim().split(COMPONENT_SEPARATOR);
+        String[] privateParts = privateKey.trim().split(COMPONENT_SEPARATOR);
+
+        if (2 != publicParts.length || 2 != privateParts.length || ! this.curveName.equals(publicParts[0]) || ! this.curveName.equals(privateParts[0])) {
+            throw new IllegalArgumentException("Election keys are not keys on elliptic curve " + this.curveName);
+        }
+
+        this.publicKey = this.decodePoint(publicParts[1]);
+        this.privateKey = new BigInteger(privateParts[1], 16);
+
+        if (! this.multiplyGenerator(this.privateKey).equals(this.publicKey)) {
+            throw new IllegalArgumentException("Election public key does not match the private key");
+        }
+    }
+
+    @Override
+    public String serializePublicKey() {
+        return this.curveName + COMPONENT_SEPARATOR + encodePoint(this.publicKey);
+    }
+
+    @Override
+    public String serializePrivateKey() {
+        return this.curveName + COMPONENT_SEPARATOR + this.privateKey.toString(16);
+    }
+
+    @Override
+    public VoteCipherText encrypt(BigInteger message) {
+        BigInteger r = this.randomScalar();
+
+        return new EcCipherText(
+            this.multiplyGenerator(r),
+            this.multiplyGenerator(message.mod(this.order)).add(this.publicKey.multiply(r)),
+            r
+        );
+    }
+
+    @Override
+    public BigInteger decrypt(VoteCipherText cipherText) {
+        EcCipherText ec = unwrap(cipherText);
+        ECPoint target = ec.c2.subtract(ec.c1.multiply(this.privateKey)).normalize();
+
+        Map<String, Long> table = this.getBabySteps();
+        ECPoint giantStep = this.multiplyGenerator(BigInteger.valueOf(this.babyStepCount)).negate();
+        ECPoint current = target;
+
+        // the search covers a bit more than the largest message, which must not be decrypted either
+        for (long i = 0; i <= this.babyStepCount && i * this.babyStepCount <= this.maxMessage; i++) {
+            Long j = table.get(encodePoint(current));
+
+            if (null != j && i * this.babyStepCount + j <= this.maxMessage) {
+                return BigInteger.valueOf(i * this.babyStepCount + j);
+            }
+
+            current = current.add(giantStep).normalize();
+        }
+
+        throw new IllegalArgumentException("Ciphertext does not decrypt to a message of at most " + this.maxMessage);
+    }
+
+    @Override
+    public VoteProof commit(BigInteger message, VoteCipherText cipherText, List<BigInteger> domain) {
+        EcCipherText ec = unwrap(cipherText);
+
+        if (null == ec.random) {
+            throw new IllegalArgumentException("The random value of the ciphertext is required to create a proof");
+        }
+
+        int index = domain.indexOf(message);
+
+        if (index < 0) {
+            throw new IllegalArgumentException("Message " + message + " is not part of the domain");
+        }
+
+        int size = domain.size();
+        ECPoint[] a = new ECPoint[size];
+        ECPoint[] b = new ECPoint[size];
+        BigInteger[] c = new BigInteger[size];
+        BigInteger[] z = new BigInteger[size];
+
+        // simulate the proofs for all other values of the domain
+        BigInteger simulatedChallenges = BigInteger.ZERO;
+        for (int i = 0; i < size; i++) {
+            if (i == index) {
+                continue;
+            }
+
+            c[i] = this.randomScalar();
+            z[i] = this.randomScalar();
+            a[i] = this.multiplyGenerator(z[i]).subtract(ec.c1.multiply(c[i]));
+            b[i] = this.publicKey.multiply(z[i]).subtract(this.shifted(ec, domain.get(i)).multiply(c[i]));
+            simulatedChallenges = simulatedChallenges.add(c[i]);
+        }
+
+        BigInteger w = this.randomScalar();
+        a[index] = this.multiplyGenerator(w);
+        b[index] = this.publicKey.multiply(w);
+
+        BigInteger challenge = this.challenge(ec, domain, a, b);
+        c[index] = challenge.subtract(simulatedChallenges).mod(this.order);
+        z[index] = w.add(c[index].multiply(ec.random)).mod(this.order);
+
+        return new EcMembershipProof(a, b, c, z);
+    }
+
+    @Override
+    public boolean verify(VoteCipherText cipherText, VoteProof proof, List<BigInteger> domain) {
+        EcCipherText ec = unwrap(cipherText);
+
+        if (! (proof instanceof EcMembershipProof)) {
+            throw new IllegalArgumentException("Proof of another engine: " + proof.getClass().getName());
+        }
+
+        EcMembershipProof ecProof = (EcMembershipProof) proof;
+
+        if (domain.isEmpty() || ecProof.c.length != domain.size()) {
+            return false;
+        }
+
+        BigInteger challenges = BigInteger.ZERO;
+
+        for (int i = 0; i < domain.size(); i++) {
+            // the values are taken from the chain as they are, multiplying the generator
+            // by a scalar beyond the order of the curve would throw instead of failing the proof
+            if (! this.isScalar(ecProof.c[i]) || ! this.isScalar(ecProof.z[i])) {
+                return false;
+            }
+
+            // zG = a + cA and zY = b + c(B - dG)
+            if (! this.multiplyGenerator(ecProof.z[i]).equals(ecProof.a[i].add(ec.c1.multiply(ecProof.c[i])))) {
+                return false;
+            }
+
+            if (! this.publicKey.multiply(ecProof.z[i]).equals(ecProof.b[i].add(this.shifted(ec, domain.get(i)).multiply(ecProof.c[i])))) {
+                return false;
+            }
+
+            challenges = challenges.add(ecProof.c[i]);
+        }
+
+        return challenges.mod(this.order).equals(this.challenge(ec, domain, ecProof.a, ecProof.b));
+    }
+
+    @Override
+    public VoteCipherText deserializeCipherText(String cipherText) {
+        return this.deserializeCipherText(cipherText, null);
+    }
+
+    @Override
+    public VoteCipherText deserializeCipherText(String cipherText, BigInteger random) {
+        String[] parts = cipherText.trim().split(COMPONENT_SEPARATOR);
+
+        if (2 != parts.length) {
+            throw new IllegalArgumentException("Invalid elliptic curve ciphertext");
+        }
+
+        return new EcCipherText(this.decodePoint(parts[0]), this.decodePoint(parts[1]), random);
+    }
+
+    @Override
+    public VoteProof deserializeProof(String proof) {
+        String[] values = proof.trim().split(VALUE_SEPARATOR);
+        int size = values.length;
+
+        ECPoint[] a = new ECPoint[size];
+        ECPoint[] b = new ECPoint[size];
+        BigInteger[] c = new BigInteger[size];
+        BigInteger[] z = new BigInteger[size];
+
+        for (int i = 0; i < size; i++) {
+            String[] parts = values[i].split(COMPONENT_SEPARATOR);
+
+            if (4 != parts.length) {
+                throw new IllegalArgumentException("Invalid elliptic curve membership proof");
+            }
+
+            a[i] = this.decodePoint(parts[0]);
+            b[i] = this.decodePoint(parts[1]);
+            c[i] = new BigInteger(parts[2], 16);
+            z[i] = new BigInteger(parts[3], 16);
+        }
+
+        return new EcMembershipProof(a, b, c, z);
+    }
+
+    /**
+     * @return True, if the given value is in <code>[0, n)</code> with <code>n</code> being the order of the curve.
+     */
+    private boolean isScalar(BigInteger value) {
+        return value.signum() >= 0 && value.compareTo(this.order) < 0;
+    }
+
+    /**
+     * @return <code>B - dG</code>, which is <code>rY</code> if the ciphertext encrypts <code>d</code>.
+     */
+    private ECPoint shifted(EcCipherText cipherText, BigInteger value) {
+        return cipherText.c2.subtract(this.multiplyGenerator(value.mod(this.order)));
+    }
+
+    private BigInteger challenge(EcCipherText cipherText, List<BigInteger> domain, ECPoint[] a, ECPoint[] b) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.serializePublicKey().getBytes(StandardCharsets.UTF_8));
+            digest.update(cipherText.c1.getEncoded(true));
+            digest.update(cipherText.c2.getEncoded(true));
+
+            for (BigInteger value : domain) {
+                digest.update(value.toByteArray());
+            }
+
+            for (int i = 0; i < a.length; i++) {
+                digest.update(a[i].getEncoded(true));
+                digest.update(b[i].getEncoded(true));
+            }
+
+            return new BigInteger(1, digest.digest()).mod(this.order);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return A table of <code>jG</code> for all <code>j</code> up to the square root of the largest message.
+     */
+    private synchronized Map<String, Long> getBabySteps() {
+        if (null == this.babySteps) {
+            long count = (long) Math.ceil(Math.sqrt(this.maxMessage + 1.0));
+            Map<String, Long> table = new HashMap<>();
+            ECPoint current = this.curve.getInfinity();
+
+            for (long j = 0; j < count; j++) {
+                table.put(encodePoint(current), j);
+                current = current.add(this.generator).normalize();
+            }
+
+            this.babyStepCount = count;
+            this.babySteps = table;
+        }
+
+        return this.babySteps;
+    }
+
+    private ECPoint multiplyGenerator(BigInteger scalar) {
+        return this.generatorMultiplier.multiply(this.generator, scalar);
+    }
+
+    private BigInteger randomScalar() {
+        BigInteger scalar;
+
+        do {
+            scalar = new BigInteger(this.order.bitLength(), this.random);
+        } while (scalar.signum() == 0 || scalar.compareTo(this.order) >= 0);
+
+        return scalar;
+    }
+
+    private ECPoint decodePoint(String hex) {
+        return this.curve.decodePoint(Hex.decode(hex));
+    }
+
+    private static String encodePoint(ECPoint point) {
+        return Hex.toHexString(point.getEncoded(true));
+    }
+
+    private static EcCipherText unwrap(VoteCipherText cipherText) {
+        if (! (cipherText instanceof EcCipherText)) {
+            throw new IllegalArgumentException("Ciphertext of another engine: " + cipherText.getClass().getName());
+        }
+
+        return (EcCipherText) cipherText;
+    }
+
+    private class EcCipherText implements VoteCipherText {
+
+        private final ECPoint c1;
+        private final ECPoint c2;
+        private final BigInteger random;
+
+        private EcCipherText(ECPoint c1, ECPoint c2, BigInteger random) {
+            this.c1 = c1;
+            this.c2 = c2;
+            this.random = random;
+        }
+
+        @Override
+        public String serialize() {
+            return encodePoint(this.c1) + COMPONENT_SEPARATOR + encodePoint(this.c2);
+        }
+
+        @Override
+        public BigInteger getRandom() {
+            return this.random;
+        }
+
+        @Override
+        public VoteAccumulator createAccumulator() {
+            return new EcAccumulator(this);
+        }
+    }
+
+    private class EcAccumulator implements VoteAccumulator {
+
+        private ECPoint c1;
+        private ECPoint c2;
+        private BigInteger random;
+
+        private EcAccumulator(EcCipherText initial) {
+            this.c1 = initial.c1;
+            this.c2 = initial.c2;
+            this.random = initial.random;
+        }
+
+        @Override
+        public void add(VoteCipherText cipherText) {
+            EcCipherText ec = unwrap(cipherText);
+
+            // points are kept in projective coordinates, so that adding does not need any inversion
+            this.c1 = this.c1.add(ec.c1);
+            this.c2 = this.c2.add(ec.c2);
+            this.random = (null == this.random || null == ec.random) ? null : this.random.add(ec.random);
+        }
+
+        @Override
+        public VoteCipherText toCipherText() {
+            return new EcCipherText(
+                this.c1.normalize(),
+                this.c2.normalize(),
+                (null == this.random) ? null : this.random.mod(EcElGamalEngine.this.order)
+            );
+        }
+    }
+
+    private static class EcMembershipProof implements VoteProof {
+
+        private final ECPoint[] a;
+        private final ECPoint[] b;
+        private final BigInteger[] c;
+        private final BigInteger[] z;
+
+        private EcMembershipProof(ECPoint[] a, ECPoint[] b, BigInteger[] c, BigInteger[] z) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.z = z;
+        }
+
+        @Override
+        public String serialize() {
+            List<String> values = new ArrayList<>(this.c.length);
+
+            for (int i = 0; i < this.c.length; i++) {
+                values.add(
+                    encodePoint(this.a[i]) + COMPONENT_SEPARATOR
+                        + encodePoint(this.b[i]) + COMPONENT_SEPARATOR
+                        + this.c[i].toString(16) + COMPONENT_SEPARATOR
+                        + this.z[i].toString(16)
+                );
+            }
+
+            return String.join(VALUE_SEPARATOR, values);
+        }
+    }
+}
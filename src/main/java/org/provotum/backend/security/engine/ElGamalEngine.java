@@ -0,0 +1,199 @@
+package org.provotum.backend.security.engine;
+
+import org.bouncycastle.crypto.generators.ElGamalParametersGenerator;
+import org.bouncycastle.crypto.params.ElGamalParameters;
+import org.bouncycastle.jce.interfaces.ElGamalPrivateKey;
+import org.bouncycastle.jce.interfaces.ElGamalPublicKey;
+import org.bouncycastle.jce.spec.ElGamalParameterSpec;
+import org.provotum.backend.security.CipherTextAccumulator;
+import org.provotum.security.arithmetic.ModInteger;
+import org.provotum.security.elgamal.PrivateKey;
+import org.provotum.security.elgamal.PublicKey;
+import org.provotum.security.elgamal.additive.CipherText;
+import org.provotum.security.elgamal.additive.Encryption;
+import org.provotum.security.elgamal.proof.noninteractive.MembershipProof;
+import org.provotum.security.serializer.CipherTextSerializer;
+import org.provotum.security.serializer.KeyPairSerializer;
+import org.provotum.security.serializer.MembershipProofSerializer;
+
+import java.math.BigInteger;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGeneratorSpi;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Additive ElGamal over a multiplicative group of a prime field, as implemented by provotum-security.
+ */
+public class ElGamalEngine implements EncryptionEngine {
+
+    public static final String NAME = "elgamal";
+
+    private final int keyLength;
+
+    private PublicKey publicKey;
+    private PrivateKey privateKey;
+
+    /**
+     * @param keyLength The bit length of the prime of newly generated keys.
+     */
+    public ElGamalEngine(int keyLength) {
+        this.keyLength = keyLength;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void generateKeys() {
+        ElGamalParametersGenerator generator = new ElGamalParametersGenerator();
+        generator.init(this.keyLength, 20, new SecureRandom());
+        ElGamalParameters parameters = generator.generateParameters();
+
+        ElGamalParameterSpec elGamalParameterSpec = new ElGamalParameterSpec(parameters.getP(), parameters.getG());
+
+        KeyPairGeneratorSpi keyPairGeneratorSpi = new org.bouncycastle.jcajce.provider.asymmetric.elgamal.KeyPairGeneratorSpi();
+
+        try {
+            keyPairGeneratorSpi.initialize(elGamalParameterSpec, new SecureRandom());
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new IllegalStateException("Failed to initialize ElGamal key generation", e);
+        }
+
+        KeyPair keyPair = keyPairGeneratorSpi.generateKeyPair();
+
+        this.publicKey = new PublicKey((ElGamalPublicKey) keyPair.getPublic());
+        this.privateKey = new PrivateKey((ElGamalPrivateKey) keyPair.getPrivate());
+    }
+
+    @Override
+    public void loadKeys(String publicKey, String privateKey) {
+        this.publicKey = KeyPairSerializer.publicKeyFromString(publicKey);
+        this.privateKey = KeyPairSerializer.privateKeyFromString(privateKey);
+    }
+
+    @Override
+    public String serializePublicKey() {
+        return KeyPairSerializer.serializePublicKey(this.publicKey);
+    }
+
+    @Override
+    public String serializePrivateKey() {
+        return KeyPairSerializer.serializePrivateKey(this.privateKey);
+    }
+
+    @Override
+    public VoteCipherText encrypt(BigInteger message) {
+        return new ElGamalCipherText(new Encryption().encrypt(this.publicKey, this.toMessage(message)));
+    }
+
+    @Override
+    public BigInteger decrypt(VoteCipherText cipherText) {
+        return new Encryption().decrypt(this.privateKey, unwrap(cipherText)).asBigInteger();
+    }
+
+    @Override
+    public VoteProof commit(BigInteger message, VoteCipherText cipherText, List<BigInteger> domain) {
+        return new ElGamalProof(MembershipProof.commit(this.publicKey, this.toMessage(message), unwrap(cipherText), toDomain(domain)));
+    }
+
+    @Override
+    public boolean verify(VoteCipherText cipherText, VoteProof proof, List<BigInteger> domain) {
+        if (! (proof instanceof ElGamalProof)) {
+            throw new IllegalArgumentException("Proof of another engine: " + proof.getClass().getName());
+        }
+
+        return ((ElGamalProof) proof).proof.verify(this.publicKey, unwrap(cipherText), toDomain(domain));
+    }
+
+    @Override
+    public VoteCipherText deserializeCipherText(String cipherText) {
+        return new ElGamalCipherText(CipherTextSerializer.fromString(cipherText));
+    }
+
+    @Override
+    public VoteCipherText deserializeCipherText(String cipherText, BigInteger random) {
+        return new ElGamalCipherText(CipherTextSerializer.fromString(cipherText, new ModInteger(random.toString(), this.publicKey.getQ())));
+    }
+
+    @Override
+    public VoteProof deserializeProof(String proof) {
+        return new ElGamalProof(MembershipProofSerializer.fromString(proof));
+    }
+
+    private ModInteger toMessage(BigInteger message) {
+        return new ModInteger(message.toString(), this.publicKey.getP());
+    }
+
+    private static List<ModInteger> toDomain(List<BigInteger> domain) {
+        List<ModInteger> values = new ArrayList<>(domain.size());
+
+        for (BigInteger value : domain) {
+            values.add(new ModInteger(value));
+        }
+
+        return values;
+    }
+
+    private static CipherText unwrap(VoteCipherText cipherText) {
+        if (! (cipherText instanceof ElGamalCipherText)) {
+            throw new IllegalArgumentException("Ciphertext of another engine: " + cipherText.getClass().getName());
+        }
+
+        return ((ElGamalCipherText) cipherText).cipherText;
+    }
+
+    private static class ElGamalCipherText implements VoteCipherText {
+
+        private final CipherText cipherText;
+
+        private ElGamalCipherText(CipherText cipherText) {
+            this.cipherText = cipherText;
+        }
+
+        @Override
+        public String serialize() {
+            return CipherTextSerializer.serialize(this.cipherText);
+        }
+
+        @Override
+        public BigInteger getRandom() {
+            return (null == this.cipherText.getR()) ? null : this.cipherText.getR().finalized();
+        }
+
+        @Override
+        public VoteAccumulator createAccumulator() {
+            CipherTextAccumulator accumulator = new CipherTextAccumulator(this.cipherText);
+
+            return new VoteAccumulator() {
+                @Override
+                public void add(VoteCipherText cipherText) {
+                    accumulator.add(unwrap(cipherText));
+                }
+
+                @Override
+                public VoteCipherText toCipherText() {
+                    return new ElGamalCipherText(accumulator.toCipherText());
+                }
+            };
+        }
+    }
+
+    private static class ElGamalProof implements VoteProof {
+
+        private final MembershipProof proof;
+
+        private ElGamalProof(MembershipProof proof) {
+            this.proof = proof;
+        }
+
+        @Override
+        public String serialize() {
+            return MembershipProofSerializer.serialize(this.proof);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.provotum.backend.security.engine;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * An additively homomorphic encryption scheme along with membership proofs,
+ * i.e. non-interactive zero-knowledge proofs that a ciphertext encrypts one value of a given domain.
+ * <p>
+ * Keys have to be either generated or loaded before anything is encrypted or decrypted.
+ */
+public interface EncryptionEngine {
+
+    /**
+     * @return The name of the engine as used in the configuration.
+     */
+    String getName();
+
+    /**
+     * Generate a new election key pair.
+     */
+    void generateKeys();
+
+    /**
+     * @param publicKey  The serialized public key.
+     * @param privateKey The serialized private key.
+     */
+    void loadKeys(String publicKey, String privateKey);
+
+    String serializePublicKey();
+
+    String serializePrivateKey();
+
+    /**
+     * @param message The message to encrypt.
+     * @return The ciphertext, along with the random value used to encrypt.
+     */
+    VoteCipherText encrypt(BigInteger message);
+
+    /**
+     * @param cipherText The ciphertext to decrypt.
+     * @return The message.
+     */
+    BigInteger decrypt(VoteCipherText cipherText);
+
+    /**
+     * @param message    The message encrypted by the given ciphertext.
+     * @param cipherText The ciphertext, of which the random value must be known.
+     * @param domain     The values the message is proven to be one of.
+     * @return The proof.
+     */
+    VoteProof commit(BigInteger message, VoteCipherText cipherText, List<BigInteger> domain);
+
+    /**
+     * @param cipherText The ciphertext.
+     * @param proof      The proof.
+     * @param domain     The values the message is proven to be one of.
+     * @return Whether the proof shows that the ciphertext encrypts one of the given values.
+     */
+    boolean verify(VoteCipherText cipherText, VoteProof proof, List<BigInteger> domain);
+
+    /**
+     * @param cipherText The serialized ciphertext.
+     * @return The ciphertext, of which the random value is unknown.
+     */
+    VoteCipherText deserializeCipherText(String cipherText);
+
+    /**
+     * @param cipherText The serialized ciphertext.
+     * @param random     The random value of the ciphertext.
+     * @return The ciphertext.
+     */
+    VoteCipherText deserializeCipherText(String cipherText, BigInteger random);
+
+    /**
+     * @param proof The serialized proof.
+     * @return The proof.
+     */
+    VoteProof deserializeProof(String proof);
+}
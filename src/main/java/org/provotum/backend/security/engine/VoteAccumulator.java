@@ -0,0 +1,17 @@
+package org.provotum.backend.security.engine;
+
+/**
+ * A mutable homomorphic sum of ciphertexts of the same {@link EncryptionEngine}. Not thread-safe.
+ */
+public interface VoteAccumulator {
+
+    /**
+     * @param cipherText The ciphertext to add.
+     */
+    void add(VoteCipherText cipherText);
+
+    /**
+     * @return The sum of all ciphertexts added so far.
+     */
+    VoteCipherText toCipherText();
+}
@@ -0,0 +1,21 @@
+package org.provotum.backend.security.engine;
+
+import java.math.BigInteger;
+
+/**
+ * A ciphertext of an {@link EncryptionEngine}.
+ */
+public interface VoteCipherText {
+
+    String serialize();
+
+    /**
+     * @return The random value used to encrypt, or null if unknown.
+     */
+    BigInteger getRandom();
+
+    /**
+     * @return A mutable sum starting with this ciphertext.
+     */
+    VoteAccumulator createAccumulator();
+}
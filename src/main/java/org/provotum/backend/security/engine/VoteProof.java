@@ -0,0 +1,9 @@
+package org.provotum.backend.security.engine;
+
+/**
+ * A membership proof of an {@link EncryptionEngine}.
+ */
+public interface VoteProof {
+
+    String serialize();
+}
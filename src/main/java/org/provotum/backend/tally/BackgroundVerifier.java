@@ -0,0 +1,106 @@
+package org.provotum.backend.tally;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Periodically verifies the votes cast on open ballots, so that their tally
+ * only has to deal with the votes cast since the last pass once the ballot is closed.
+ * Each pass verifies at most a batch of votes and advances the checkpoint of the ballot.
+ */
+public class BackgroundVerifier {
+
+    private static final Logger logger = Logger.getLogger(BackgroundVerifier.class.getName());
+
+    private final long batchSize;
+    private final Map<String, Runnable> passes = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> task;
+
+    /**
+     * @param scheduler      The executor on which passes are triggered.
+     * @param intervalMillis The interval between two passes. Zero or less disables background verification.
+     * @param batchSize      The maximum number of votes verified per ballot and pass.
+     */
+    public BackgroundVerifier(ScheduledExecutorService scheduler, long intervalMillis, long batchSize) {
+        this.batchSize = batchSize;
+
+        if (intervalMillis <= 0) {
+            logger.info("Background verification of votes is disabled.");
+            this.task = null;
+
+            return;
+        }
+
+        this.task = scheduler.scheduleWithFixedDelay(
+            this::triggerPasses,
+            intervalMillis,
+            intervalMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public boolean isEnabled() {
+        return null != this.task;
+    }
+
+    /**
+     * Start verifying the votes of the given ballot in the background.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param pass            Schedules a single pass over the votes cast since the last one.
+     */
+    public void watch(String contractAddress, Runnable pass) {
+        if (! this.isEnabled()) {
+            return;
+        }
+
+        logger.info("Verifying votes of ballot at " + contractAddress + " in the background.");
+        this.passes.put(contractAddress.toLowerCase(), pass);
+    }
+
+    /**
+     * Stop verifying the votes of the given ballot, e.g. once it is closed.
+     *
+     * @param contractAddress The address of the ballot contract.
+     */
+    public void unwatch(String contractAddress) {
+        if (null != this.passes.remove(contractAddress.toLowerCase())) {
+            logger.info("Stopped verifying votes of ballot at " + contractAddress + " in the background.");
+        }
+    }
+
+    /**
+     * @return The addresses of all ballots of which votes are verified in the background.
+     */
+    public Set<String> getWatchedBallots() {
+        return Collections.unmodifiableSet(this.passes.keySet());
+    }
+
+    public long getBatchSize() {
+        return this.batchSize;
+    }
+
+    public void shutdown() {
+        if (null != this.task) {
+            this.task.cancel(false);
+        }
+    }
+
+    private void triggerPasses() {
+        for (Map.Entry<String, Runnable> entry : this.passes.entrySet()) {
+            try {
+                entry.getValue().run();
+            } catch (Exception e) {
+                // an exception would stop the periodic task altogether
+                logger.severe("Failed to schedule background verification of ballot at " + entry.getKey() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.provotum.backend.tally;
+
+import org.provotum.backend.security.engine.VoteAccumulator;
+import org.provotum.backend.security.engine.VoteCipherText;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The homomorphic sum over a contiguous range of the votes of a ballot,
+ * starting at the first vote unless it is a shard of a distributed tally.
+ * Votes have to be added in the order they are stored in the contract.
+ * Besides the sum, the indices of all votes with an invalid proof are recorded,
+ * so that the verdict on every vote in the range is known.
+ * <p>
+ * Votes are added to a {@link VoteAccumulator}, the sum as a ciphertext
+ * is only created once it is read.
+ */
+public class PartialTally {
+
+    private final long startIndex;
+    private final List<Long> invalidIndices;
+    private final VoteAccumulator accumulator;
+    private VoteCipherText sum;
+    private long nextIndex;
+
+    /**
+     * @param sum            The sum of all valid votes before the next index.
+     * @param nextIndex      The index of the next vote to add.
+     * @param invalidIndices The indices of the invalid votes before the next index.
+     */
+    public PartialTally(VoteCipherText sum, long nextIndex, List<Long> invalidIndices) {
+        this(sum, 0, nextIndex, invalidIndices);
+    }
+
+    /**
+     * @param sum            The sum of all valid votes from the start index up to the next index.
+     * @param startIndex     The index of the first vote in the range.
+     * @param nextIndex      The index of the next vote to add.
+     * @param invalidIndices The indices of the invalid votes within the range.
+     */
+    public PartialTally(VoteCipherText sum, long startIndex, long nextIndex, List<Long> invalidIndices) {
+        this.accumulator = sum.createAccumulator();
+        this.sum = sum;
+        this.startIndex = startIndex;
+        this.nextIndex = nextIndex;
+        this.invalidIndices = new ArrayList<>(invalidIndices);
+    }
+
+    /**
+     * Add the vote at the next index.
+     *
+     * @param vote The ciphertext of the vote or null, if its proof is invalid.
+     */
+    public void add(VoteCipherText vote) {
+        if (null == vote) {
+            this.invalidIndices.add(this.nextIndex);
+        } else {
+            this.accumulator.add(vote);
+            this.sum = null;
+        }
+
+        this.nextIndex++;
+    }
+
+    /**
+     * Append the range tallied by the given one.
+     *
+     * @param following A tally starting where this one ends.
+     */
+    public void merge(PartialTally following) {
+        if (following.startIndex != this.nextIndex) {
+            throw new IllegalArgumentException("Cannot merge tally of votes from index " + following.startIndex + " into tally ending at " + this.nextIndex);
+        }
+
+        this.accumulator.add(following.getSum());
+        this.sum = null;
+        this.nextIndex = following.nextIndex;
+        this.invalidIndices.addAll(following.invalidIndices);
+    }
+
+    public long getStartIndex() {
+        return this.startIndex;
+    }
+
+    public VoteCipherText getSum() {
+        if (null == this.sum) {
+            this.sum = this.accumulator.toCipherText();
+        }
+
+        return this.sum;
+    }
+
+    public long getNextIndex() {
+        return this.nextIndex;
+    }
+
+    /**
+     * @return The indices of the votes with an invalid proof in ascending order.
+     */
+    public List<Long> getInvalidIndices() {
+        return Collections.unmodifiableList(this.invalidIndices);
+    }
+
+    public long getInvalidVotes() {
+        return this.invalidIndices.size();
+    }
+
+    public long getValidVotes() {
+        return this.nextIndex - this.startIndex - this.invalidIndices.size();
+    }
+}
@@ -0,0 +1,60 @@
+package org.provotum.backend.tally;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The state of a tally after a prefix of the votes of a ballot has been accumulated.
+ */
+public class TallyCheckpoint {
+
+    private final String contractAddress;
+    private final String keyFingerprint;
+    private final long nextIndex;
+    private final List<Long> invalidIndices;
+    private final String cipherText;
+    private final BigInteger random;
+
+    /**
+     * @param contractAddress The address of the ballot contract.
+     * @param keyFingerprint  The fingerprint of the public key the votes are encrypted with.
+     * @param nextIndex       The index of the first vote not yet accumulated.
+     * @param invalidIndices  The indices of the votes with an invalid proof up to the next index.
+     * @param cipherText      The serialized sum of all valid votes up to the next index.
+     * @param random          The random value of the sum.
+     */
+    public TallyCheckpoint(String contractAddress, String keyFingerprint, long nextIndex, List<Long> invalidIndices, String cipherText, BigInteger random) {
+        this.contractAddress = contractAddress;
+        this.keyFingerprint = keyFingerprint;
+        this.nextIndex = nextIndex;
+        this.invalidIndices = new ArrayList<>(invalidIndices);
+        this.cipherText = cipherText;
+        this.random = random;
+    }
+
+    public String getContractAddress() {
+        return this.contractAddress;
+    }
+
+    public String getKeyFingerprint() {
+        return this.keyFingerprint;
+    }
+
+    public long getNextIndex() {
+        return this.nextIndex;
+    }
+
+    public List<Long> getInvalidIndices() {
+        return Collections.unmodifiableList(this.invalidIndices);
+    }
+
+    public String getCipherText() {
+        return this.cipherText;
+    }
+
+    public BigInteger getRandom() {
+        return this.random;
+    }
+}
@@ -0,0 +1,171 @@
+package org.provotum.backend.tally;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Stores one checkpoint per ballot as properties file in a local directory.
+ * Checkpoints are written to a temporary file first and then moved into place,
+ * so that a crash while saving leaves the previous checkpoint intact.
+ */
+public class TallyCheckpointStore {
+
+    private static final Logger logger = Logger.getLogger(TallyCheckpointStore.class.getName());
+
+    private static final String SUFFIX = ".checkpoint";
+
+    private static final String CONTRACT_ADDRESS = "contractAddress";
+    private static final String KEY_FINGERPRINT = "keyFingerprint";
+    private static final String NEXT_INDEX = "nextIndex";
+    private static final String INVALID_INDICES = "invalidIndices";
+    private static final String CIPHER_TEXT = "cipherText";
+    private static final String RANDOM = "random";
+
+    private final File directory;
+    private final long interval;
+
+    /**
+     * @param directory The directory to store checkpoints in. Created if missing.
+     * @param interval  The number of votes after which a tally saves a checkpoint.
+     */
+    public TallyCheckpointStore(File directory, long interval) {
+        this.directory = directory;
+        this.interval = interval;
+
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IllegalArgumentException("Failed to create tally checkpoint directory " + directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return The number of votes after which a tally saves a checkpoint.
+     */
+    public long getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * @param contractAddress The address of the ballot contract.
+     * @param keyFingerprint  The fingerprint of the public key the votes are currently encrypted with.
+     * @return The last checkpoint of the given ballot or null if there is none, it is unreadable
+     * or it was saved for another key, as its sum then cannot be continued.
+     */
+    public TallyCheckpoint load(String contractAddress, String keyFingerprint) {
+        File file = this.fileOf(contractAddress);
+
+        if (! file.exists()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+
+            if (! keyFingerprint.equals(properties.getProperty(KEY_FINGERPRINT))) {
+                logger.warning("Ignoring tally checkpoint " + file.getAbsolutePath() + " which was saved for another key");
+
+                return null;
+            }
+
+            return new TallyCheckpoint(
+                properties.getProperty(CONTRACT_ADDRESS),
+                properties.getProperty(KEY_FINGERPRINT),
+                Long.parseLong(properties.getProperty(NEXT_INDEX)),
+                parseIndices(properties.getProperty(INVALID_INDICES)),
+                properties.getProperty(CIPHER_TEXT),
+                new BigInteger(properties.getProperty(RANDOM), 16)
+            );
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Ignoring unreadable tally checkpoint " + file.getAbsolutePath() + ": " + e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Replace the checkpoint of the ballot.
+     *
+     * @param checkpoint The checkpoint to save.
+     * @throws IOException If the checkpoint could not be written.
+     */
+    public void save(TallyCheckpoint checkpoint) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(CONTRACT_ADDRESS, checkpoint.getContractAddress());
+        properties.setProperty(KEY_FINGERPRINT, checkpoint.getKeyFingerprint());
+        properties.setProperty(NEXT_INDEX, Long.toString(checkpoint.getNextIndex()));
+        properties.setProperty(INVALID_INDICES, formatIndices(checkpoint.getInvalidIndices()));
+        properties.setProperty(CIPHER_TEXT, checkpoint.getCipherText());
+        properties.setProperty(RANDOM, checkpoint.getRandom().toString(16));
+
+        File file = this.fileOf(checkpoint.getContractAddress());
+        File temporaryFile = new File(this.directory, file.getName() + ".tmp");
+
+        try (FileOutputStream output = new FileOutputStream(temporaryFile)) {
+            properties.store(output, "Tally checkpoint");
+            output.getFD().sync();
+        }
+
+        try {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        logger.fine("Saved tally checkpoint for ballot at " + checkpoint.getContractAddress() + " at index " + checkpoint.getNextIndex());
+    }
+
+    /**
+     * Remove the checkpoint of the given ballot, e.g. once its tally completed.
+     *
+     * @param contractAddress The address of the ballot contract.
+     */
+    public void delete(String contractAddress) {
+        File file = this.fileOf(contractAddress);
+
+        if (file.exists() && ! file.delete()) {
+            logger.warning("Failed to delete tally checkpoint " + file.getAbsolutePath());
+        }
+    }
+
+    private static String formatIndices(List<Long> indices) {
+        StringBuilder builder = new StringBuilder();
+
+        for (Long index : indices) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+
+            builder.append(index);
+        }
+
+        return builder.toString();
+    }
+
+    private static List<Long> parseIndices(String value) {
+        List<Long> indices = new ArrayList<>();
+
+        for (String index : value.split(",")) {
+            if (! index.isEmpty()) {
+                indices.add(Long.parseLong(index));
+            }
+        }
+
+        return indices;
+    }
+
+    private File fileOf(String contractAddress) {
+        // addresses are hex strings, hence safe to use as file name
+        return new File(this.directory, contractAddress.toLowerCase().replaceAll("[^0-9a-zx]", "") + SUFFIX);
+    }
+}
@@ -0,0 +1,250 @@
+package org.provotum.backend.tally;
+
+import java.math.BigInteger;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single run tallying the votes of a ballot as of the block at which it started.
+ * The tally reports its progress to the job and checks for cancellation between votes.
+ */
+public class TallyJob {
+
+    private final String id;
+    private final String contractAddress;
+    private final long createdAt;
+
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+
+    private volatile TallyJobState state = TallyJobState.QUEUED;
+    private volatile long totalVotes = -1;
+    private volatile long resumedVotes;
+    private volatile long startedAt = -1;
+    private volatile long finishedAt = -1;
+    private volatile String message;
+    private volatile boolean isCancelled;
+    private volatile BigInteger blockNumber;
+    private volatile BigInteger yes;
+    private volatile BigInteger no;
+
+    private Thread runner;
+
+    public TallyJob(String contractAddress) {
+        this.id = UUID.randomUUID().toString();
+        this.contractAddress = contractAddress;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Mark the job as running on the current thread.
+     *
+     * @throws CancellationException If the job was cancelled while it was queued.
+     */
+    public synchronized void start() {
+        this.checkCancelled();
+
+        this.runner = Thread.currentThread();
+        this.startedAt = System.currentTimeMillis();
+        this.state = TallyJobState.RUNNING;
+    }
+
+    /**
+     * Mark the job as finished. Must be called by the thread which started the job.
+     *
+     * @param state   The final state.
+     * @param message A description of the outcome.
+     */
+    public synchronized void finish(TallyJobState state, String message) {
+        this.state = state;
+        this.message = message;
+        this.finishedAt = System.currentTimeMillis();
+
+        if (this.runner == Thread.currentThread()) {
+            // do not hand an interrupted thread back to the pool
+            Thread.interrupted();
+        }
+
+        this.runner = null;
+    }
+
+    /**
+     * Request the job to stop. A running job is interrupted,
+     * a queued one will not start at all.
+     *
+     * @return False, if the job has already finished.
+     */
+    public synchronized boolean cancel() {
+        if (this.state.isFinished()) {
+            return false;
+        }
+
+        this.isCancelled = true;
+
+        if (null != this.runner) {
+            this.runner.interrupt();
+        }
+
+        return true;
+    }
+
+    /**
+     * @throws CancellationException If the job was cancelled.
+     */
+    public void checkCancelled() {
+        if (this.isCancelled) {
+            throw new CancellationException("Tally " + this.id + " was cancelled.");
+        }
+    }
+
+    public void setTotalVotes(long totalVotes) {
+        this.totalVotes = totalVotes;
+    }
+
+    /**
+     * Account for votes which were already tallied by a previous run.
+     *
+     * @param verified The number of valid votes.
+     * @param invalid  The number of invalid votes.
+     */
+    public void resume(long verified, long invalid) {
+        this.fetched.addAndGet(verified + invalid);
+        this.verified.addAndGet(verified);
+        this.invalid.addAndGet(invalid);
+        this.resumedVotes = verified + invalid;
+    }
+
+    /**
+     * Account for votes tallied by a worker.
+     *
+     * @param verified The number of valid votes.
+     * @param invalid  The number of invalid votes.
+     */
+    public void shardTallied(long verified, long invalid) {
+        this.fetched.addAndGet(verified + invalid);
+        this.verified.addAndGet(verified);
+        this.invalid.addAndGet(invalid);
+    }
+
+    public void voteFetched() {
+        this.fetched.incrementAndGet();
+    }
+
+    public void voteVerified() {
+        this.verified.incrementAndGet();
+    }
+
+    public void voteInvalid() {
+        this.invalid.incrementAndGet();
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getContractAddress() {
+        return this.contractAddress;
+    }
+
+    /**
+     * @return The block up to which votes are tallied, or null if the job did not start yet.
+     */
+    public BigInteger getBlockNumber() {
+        return this.blockNumber;
+    }
+
+    public void setBlockNumber(BigInteger blockNumber) {
+        this.blockNumber = blockNumber;
+    }
+
+    /**
+     * @param yes The number of yes votes.
+     * @param no  The number of no votes.
+     */
+    public void setResult(BigInteger yes, BigInteger no) {
+        this.yes = yes;
+        this.no = no;
+    }
+
+    /**
+     * @return The number of yes votes or null if the job did not complete (yet).
+     */
+    public BigInteger getYes() {
+        return this.yes;
+    }
+
+    /**
+     * @return The number of no votes or null if the job did not complete (yet).
+     */
+    public BigInteger getNo() {
+        return this.no;
+    }
+
+    public long getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public TallyJobState getState() {
+        return this.state;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public boolean isCancelled() {
+        return this.isCancelled;
+    }
+
+    /**
+     * @return The number of votes to tally or -1 if not known yet.
+     */
+    public long getTotalVotes() {
+        return this.totalVotes;
+    }
+
+    public long getFetched() {
+        return this.fetched.get();
+    }
+
+    public long getVerified() {
+        return this.verified.get();
+    }
+
+    public long getInvalid() {
+        return this.invalid.get();
+    }
+
+    /**
+     * @return The time the job finished in milliseconds since the epoch or -1 if it is not finished yet.
+     */
+    public long getFinishedAt() {
+        return this.finishedAt;
+    }
+
+    /**
+     * Estimate the remaining time based on the rate at which votes were processed so far.
+     *
+     * @return The estimated remaining time in milliseconds, 0 if finished or -1 if not known yet.
+     */
+    public long getEstimatedRemainingMillis() {
+        if (this.state.isFinished()) {
+            return 0;
+        }
+
+        // votes taken over from a checkpoint do not tell anything about the current rate
+        long processed = this.verified.get() + this.invalid.get() - this.resumedVotes;
+        long total = this.totalVotes - this.resumedVotes;
+        long started = this.startedAt;
+
+        if (processed == 0 || total < 0 || started < 0) {
+            return -1;
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+
+        return (total - processed) * elapsed / processed;
+    }
+}
@@ -0,0 +1,218 @@
+package org.provotum.backend.tally;
+
+import org.provotum.backend.communication.message.base.Status;
+import org.provotum.backend.communication.socket.message.meta.TallyProgressResponse;
+import org.provotum.backend.communication.socket.publisher.TopicPublisher;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of all tally jobs. Requesting a tally of a ballot for which a job is still
+ * queued joins that job instead of starting another one, as the job tallies all votes
+ * up to the block at which it starts. The last completed job of each ballot is kept,
+ * so that a later job finding no new votes can take over its result.
+ * The progress of unfinished jobs is published periodically, finished jobs are
+ * forgotten once the retention time elapsed.
+ */
+public class TallyJobManager {
+
+    private static final Logger logger = Logger.getLogger(TallyJobManager.class.getName());
+
+    private final TopicPublisher topicPublisher;
+    private final long retentionMillis;
+
+    private final Map<String, TallyJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, TallyJob> pendingJobs = new ConcurrentHashMap<>();
+    private final Map<String, TallyJob> completedJobs = new ConcurrentHashMap<>();
+
+    private final ScheduledFuture<?> progressTask;
+
+    /**
+     * @param topicPublisher        The publisher to send progress messages with.
+     * @param scheduler             The executor on which progress is published.
+     * @param progressIntervalMillis The interval in which progress is published.
+     * @param retentionMillis       How long finished jobs can be looked up.
+     */
+    public TallyJobManager(TopicPublisher topicPublisher, ScheduledExecutorService scheduler, long progressIntervalMillis, long retentionMillis) {
+        this.topicPublisher = topicPublisher;
+        this.retentionMillis = retentionMillis;
+
+        this.progressTask = scheduler.scheduleWithFixedDelay(
+            this::publishProgress,
+            progressIntervalMillis,
+            progressIntervalMillis,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Returns the queued job tallying the given ballot or creates a new one if there is none.
+     * Cancelled jobs are never joined, even if they did not finish yet.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @return The job and whether it was created by this call.
+     */
+    public JoinResult join(String contractAddress) {
+        boolean[] isCreated = new boolean[1];
+
+        TallyJob job = this.pendingJobs.compute(contractAddress.toLowerCase(), (k, existing) -> {
+            if (null != existing && TallyJobState.QUEUED == existing.getState() && ! existing.isCancelled()) {
+                return existing;
+            }
+
+            isCreated[0] = true;
+            return new TallyJob(contractAddress);
+        });
+
+        if (isCreated[0]) {
+            this.jobs.put(job.getId(), job);
+            logger.info("Created tally job " + job.getId() + " for ballot at " + contractAddress);
+        } else {
+            logger.info("Joined queued tally job " + job.getId() + " for ballot at " + contractAddress);
+        }
+
+        return new JoinResult(job, isCreated[0]);
+    }
+
+    /**
+     * Mark the given job as finished and publish its final progress.
+     *
+     * @param job     The job.
+     * @param state   The final state.
+     * @param message A description of the outcome.
+     */
+    public void finish(TallyJob job, TallyJobState state, String message) {
+        job.finish(state, message);
+        this.pendingJobs.remove(job.getContractAddress().toLowerCase(), job);
+
+        if (TallyJobState.COMPLETED == state) {
+            this.completedJobs.put(job.getContractAddress().toLowerCase(), job);
+        }
+
+        logger.info("Tally job " + job.getId() + " finished with state " + state);
+        this.topicPublisher.send(TopicPublisher.META_TOPIC, toResponse(job));
+    }
+
+    /**
+     * @param contractAddress The address of the ballot contract.
+     * @return The job which last completed the tally of the given ballot or null if there is none
+     * or publishing its sum failed.
+     */
+    public TallyJob getLastCompleted(String contractAddress) {
+        return this.completedJobs.get(contractAddress.toLowerCase());
+    }
+
+    /**
+     * Forget the result of the given job, as its sum could not be published to the ballot contract.
+     * A later tally then has to decrypt and publish the sum again.
+     *
+     * @param id The id of the job.
+     */
+    public void discardResult(String id) {
+        this.completedJobs.values().removeIf(job -> job.getId().equals(id));
+    }
+
+    /**
+     * @param id The id of the job.
+     * @return The job or null if there is none with the given id.
+     */
+    public TallyJob get(String id) {
+        return this.jobs.get(id);
+    }
+
+    /**
+     * @return All jobs which are unfinished or finished within the retention time.
+     */
+    public Collection<TallyJob> getJobs() {
+        return Collections.unmodifiableCollection(this.jobs.values());
+    }
+
+    /**
+     * @param id The id of the job.
+     * @return True, if a job with the given id was cancelled. False if there is none or it is finished.
+     */
+    public boolean cancel(String id) {
+        TallyJob job = this.jobs.get(id);
+
+        if (null == job) {
+            return false;
+        }
+
+        logger.info("Cancelling tally job " + id);
+
+        return job.cancel();
+    }
+
+    public void shutdown() {
+        this.progressTask.cancel(false);
+    }
+
+    private void publishProgress() {
+        long now = System.currentTimeMillis();
+
+        try {
+            for (TallyJob job : this.jobs.values()) {
+                if (! job.getState().isFinished()) {
+                    this.topicPublisher.send(TopicPublisher.META_TOPIC, toResponse(job));
+                } else if (now - job.getFinishedAt() > this.retentionMillis) {
+                    this.jobs.remove(job.getId());
+                }
+            }
+        } catch (Exception e) {
+            // an exception would stop the periodic task altogether
+            logger.severe("Failed to publish tally progress: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param job The job.
+     * @return A message describing the current progress of the given job.
+     */
+    public static TallyProgressResponse toResponse(TallyJob job) {
+        Status status = (job.getState() == TallyJobState.FAILED) ? Status.ERROR : Status.SUCCESS;
+        String message = (null == job.getMessage()) ? "Tally is " + job.getState().name().toLowerCase() + "." : job.getMessage();
+
+        return new TallyProgressResponse(
+            status,
+            message,
+            job.getId(),
+            job.getContractAddress(),
+            job.getState().name(),
+            job.getTotalVotes(),
+            job.getFetched(),
+            job.getVerified(),
+            job.getInvalid(),
+            job.getEstimatedRemainingMillis()
+        );
+    }
+
+    public static class JoinResult {
+
+        private final TallyJob job;
+        private final boolean isCreated;
+
+        private JoinResult(TallyJob job, boolean isCreated) {
+            this.job = job;
+            this.isCreated = isCreated;
+        }
+
+        public TallyJob getJob() {
+            return this.job;
+        }
+
+        /**
+         * @return True, if the job was created and has to be started by the caller.
+         */
+        public boolean isCreated() {
+            return this.isCreated;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.provotum.backend.tally;
+
+public enum TallyJobState {
+
+    /**
+     * The job waits for preceding operations on its ballot.
+     */
+    QUEUED,
+
+    /**
+     * Votes are fetched and verified.
+     */
+    RUNNING,
+
+    COMPLETED,
+
+    FAILED,
+
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,242 @@
+package org.provotum.backend.tally;
+
+import org.provotum.backend.communication.rest.message.tally.TallyShardRequest;
+import org.provotum.backend.communication.rest.message.tally.TallyShardResponse;
+import org.provotum.backend.security.EncryptionManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Splits the votes of a ballot into shards of consecutive indices and tallies them
+ * on other backend instances acting as workers. The coordinator tallies shards itself
+ * as well and takes over the shards of a worker once it fails.
+ * Shards are merged into the tally in index order as they complete.
+ */
+public class TallyShardCoordinator {
+
+    private static final Logger logger = Logger.getLogger(TallyShardCoordinator.class.getName());
+
+    public static final String SHARD_PATH = "/tally/shard";
+
+    /**
+     * The header carrying the secret shared by the coordinator and its workers.
+     */
+    public static final String SECRET_HEADER = "X-Tally-Secret";
+
+    /**
+     * Tallies a shard on this instance.
+     */
+    public interface LocalShardTally {
+        PartialTally tally(long fromIndex, long toIndex) throws Exception;
+    }
+
+    /**
+     * Notified whenever the tally advanced, e.g. to save a checkpoint.
+     */
+    public interface MergeListener {
+        void onMerged(PartialTally tally);
+    }
+
+    private final RestTemplate restTemplate;
+    private final List<String> workers;
+    private final long shardSize;
+    private final ExecutorService executor;
+    private final EncryptionManager encryptionManager;
+    private final String secret;
+
+    /**
+     * @param restTemplate      The client to send shards to the workers with.
+     * @param workers           The base URLs of the workers, e.g. <code>http://localhost:8081</code>.
+     * @param shardSize         The number of votes per shard.
+     * @param executor          The executor on which requests to the workers are waited for.
+     * @param encryptionManager The manager to restore the sums of the workers with.
+     * @param secret            The secret shared with the workers. Required if there are any workers.
+     */
+    public TallyShardCoordinator(RestTemplate restTemplate, List<String> workers, long shardSize, ExecutorService executor, EncryptionManager encryptionManager, String secret) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Shard size must be positive. Got " + shardSize);
+        }
+
+        if (! workers.isEmpty() && (null == secret || secret.isEmpty())) {
+            throw new IllegalArgumentException("A secret shared with the workers is required to coordinate tallies");
+        }
+
+        this.restTemplate = restTemplate;
+        this.workers = new ArrayList<>(workers);
+        this.shardSize = shardSize;
+        this.executor = executor;
+        this.encryptionManager = encryptionManager;
+        this.secret = secret;
+    }
+
+    /**
+     * @return True, if any workers are configured.
+     */
+    public boolean isEnabled() {
+        return ! this.workers.isEmpty();
+    }
+
+    /**
+     * Tally all votes from the next index of the given tally up to the total number of votes.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param tally           The tally to add the votes to.
+     * @param totalVotes      The number of votes to tally.
+     * @param job             The job to report progress of remote shards to.
+     * @param local           Tallies a shard on this instance.
+     * @param listener        Notified whenever shards got merged into the tally.
+     * @throws Exception If a shard could be tallied neither remotely nor locally.
+     */
+    public void tally(String contractAddress, PartialTally tally, long totalVotes, TallyJob job, LocalShardTally local, MergeListener listener) throws Exception {
+        AtomicLong nextShard = new AtomicLong(tally.getNextIndex());
+        AtomicBoolean isAborted = new AtomicBoolean();
+        Merger merger = new Merger(tally, listener);
+
+        logger.info("Tallying votes " + tally.getNextIndex() + " to " + totalVotes + " of ballot at " + contractAddress + " in shards of " + this.shardSize + " on " + this.workers.size() + " workers");
+
+        List<Future<?>> participants = new ArrayList<>();
+        for (String worker : this.workers) {
+            try {
+                participants.add(this.executor.submit(() -> {
+                    this.participate(worker, contractAddress, nextShard, totalVotes, isAborted, job, local, merger);
+                    return null;
+                }));
+            } catch (RejectedExecutionException e) {
+                logger.warning("Not enough threads to dispatch shards to worker " + worker + ". Continuing without it.");
+            }
+        }
+
+        Exception failure = null;
+
+        // the coordinator tallies shards as well
+        try {
+            this.participate(null, contractAddress, nextShard, totalVotes, isAborted, job, local, merger);
+        } catch (Exception e) {
+            isAborted.set(true);
+            failure = e;
+        }
+
+        for (Future<?> participant : participants) {
+            try {
+                participant.get();
+            } catch (ExecutionException e) {
+                isAborted.set(true);
+
+                if (null == failure) {
+                    failure = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+            } catch (InterruptedException e) {
+                isAborted.set(true);
+                throw e;
+            }
+        }
+
+        if (null != failure) {
+            throw failure;
+        }
+
+        if (tally.getNextIndex() != totalVotes) {
+            throw new IllegalStateException("Tally ended at vote " + tally.getNextIndex() + " instead of " + totalVotes);
+        }
+    }
+
+    private void participate(String worker, String contractAddress, AtomicLong nextShard, long totalVotes, AtomicBoolean isAborted, TallyJob job, LocalShardTally local, Merger merger) throws Exception {
+        boolean isRemote = null != worker;
+
+        while (! isAborted.get()) {
+            job.checkCancelled();
+
+            long fromIndex = nextShard.getAndAdd(this.shardSize);
+            if (fromIndex >= totalVotes) {
+                return;
+            }
+
+            long toIndex = Math.min(fromIndex + this.shardSize, totalVotes);
+            PartialTally shard = null;
+
+            if (isRemote) {
+                try {
+                    shard = this.requestShard(worker, contractAddress, fromIndex, toIndex);
+                    job.shardTallied(shard.getValidVotes(), shard.getInvalidVotes());
+                } catch (RuntimeException e) {
+                    logger.warning("Worker " + worker + " failed to tally votes " + fromIndex + " to " + toIndex + ": " + e.getMessage() + ". Tallying its shards locally.");
+                    isRemote = false;
+                }
+            }
+
+            if (null == shard) {
+                shard = local.tally(fromIndex, toIndex);
+            }
+
+            merger.offer(shard);
+        }
+    }
+
+    private PartialTally requestShard(String worker, String contractAddress, long fromIndex, long toIndex) {
+        logger.info("Requesting worker " + worker + " to tally votes " + fromIndex + " to " + toIndex);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(SECRET_HEADER, this.secret);
+
+        TallyShardResponse response = this.restTemplate.postForObject(
+            worker + SHARD_PATH,
+            new HttpEntity<>(new TallyShardRequest(contractAddress, fromIndex, toIndex, this.encryptionManager.getPublicKeyFingerprint()), headers),
+            TallyShardResponse.class
+        );
+
+        if (null == response || response.getFromIndex() != fromIndex || response.getToIndex() != toIndex) {
+            throw new IllegalStateException("Worker " + worker + " answered with an unexpected shard");
+        }
+
+        return new PartialTally(
+            this.encryptionManager.restoreCiphertext(response.getCiphertext(), new BigInteger(response.getRandom(), 16)),
+            fromIndex,
+            toIndex,
+            response.getInvalid()
+        );
+    }
+
+    /**
+     * Merges completed shards into the tally once all preceding shards are merged.
+     */
+    private static class Merger {
+
+        private final PartialTally tally;
+        private final MergeListener listener;
+        private final Map<Long, PartialTally> completed = new TreeMap<>();
+
+        private Merger(PartialTally tally, MergeListener listener) {
+            this.tally = tally;
+            this.listener = listener;
+        }
+
+        private synchronized void offer(PartialTally shard) {
+            this.completed.put(shard.getStartIndex(), shard);
+
+            boolean isAdvanced = false;
+            PartialTally next;
+            while (null != (next = this.completed.remove(this.tally.getNextIndex()))) {
+                this.tally.merge(next);
+                isAdvanced = true;
+            }
+
+            if (isAdvanced) {
+                this.listener.onMerged(this.tally);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.provotum.backend.tally;
+
+import org.provotum.backend.ethereum.rpc.RpcPriority;
+import org.provotum.backend.ethereum.wrappers.Ballot;
+import org.web3j.tuples.generated.Tuple4;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fetches the votes of a ballot in order, either from the storage of the contract or,
+ * if a {@link VoteLogScanner} is given, from the events emitted for accepted votes.
+ * <p>
+ * Votes are read from storage in pages: While the votes are consumed in order,
+ * the calls for up to a page of following votes are in flight concurrently,
+ * so that the round trips to the node overlap. Votes of ballots whose contract
+ * does not emit events are read from storage as well, once a scan found none.
+ */
+public class VoteFetcher {
+
+    private final ExecutorService executor;
+    private final int pageSize;
+    private final VoteLogScanner logScanner;
+
+    /**
+     * @param executor   The executor on which calls are sent.
+     * @param pageSize   The maximum number of calls in flight per cursor.
+     * @param logScanner The scanner to read votes from logs, or null to read votes from storage only.
+     */
+    public VoteFetcher(ExecutorService executor, int pageSize, VoteLogScanner logScanner) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive. Got " + pageSize);
+        }
+
+        this.executor = executor;
+        this.pageSize = pageSize;
+        this.logScanner = logScanner;
+    }
+
+    /**
+     * @param ballot    The ballot contract.
+     * @param fromIndex The index of the first vote.
+     * @param toIndex   The index after the last vote.
+     * @return A cursor over the votes in the given range. Must be closed once done.
+     */
+    public Cursor open(Ballot ballot, long fromIndex, long toIndex) {
+        if (null != this.logScanner && this.logScanner.isEmitting(ballot.getContractAddress())) {
+            return new LogCursor(ballot, fromIndex, toIndex);
+        }
+
+        return new StorageCursor(ballot, fromIndex, toIndex);
+    }
+
+    /**
+     * Remember the block in which the given ballot was deployed, so that votes are not searched before.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param blockNumber     The number of the block.
+     */
+    public void deployed(String contractAddress, BigInteger blockNumber) {
+        if (null != this.logScanner) {
+            this.logScanner.deployed(contractAddress, blockNumber);
+        }
+    }
+
+    /**
+     * Forget anything remembered about the given ballot, e.g. once it got removed.
+     *
+     * @param contractAddress The address of the ballot contract.
+     */
+    public void forget(String contractAddress) {
+        if (null != this.logScanner) {
+            this.logScanner.forget(contractAddress);
+        }
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    public boolean isReadingLogs() {
+        return null != this.logScanner;
+    }
+
+    public interface Cursor extends AutoCloseable {
+
+        /**
+         * @return The next vote.
+         * @throws Exception If the vote could not be fetched.
+         */
+        Tuple4<String, String, String, byte[]> next() throws Exception;
+
+        @Override
+        void close();
+    }
+
+    private class StorageCursor implements Cursor {
+
+        private final Ballot ballot;
+        private final long toIndex;
+        private final RpcPriority priority;
+        private final Deque<FutureTask<Tuple4<String, String, String, byte[]>>> pending = new ArrayDeque<>();
+
+        private long nextRequestIndex;
+
+        private StorageCursor(Ballot ballot, long fromIndex, long toIndex) {
+            this.ballot = ballot;
+            this.toIndex = toIndex;
+            this.nextRequestIndex = fromIndex;
+            // calls are sent from other threads, but with the priority of the consumer
+            this.priority = RpcPriority.current();
+        }
+
+        @Override
+        public Tuple4<String, String, String, byte[]> next() throws Exception {
+            this.fill();
+
+            FutureTask<Tuple4<String, String, String, byte[]>> head = this.pending.pollFirst();
+
+            if (null == head) {
+                throw new IllegalStateException("No more votes to fetch");
+            }
+
+            // fetch the vote on this thread if no thread of the executor has picked it up yet,
+            // which also ensures to make progress if all threads of the executor are busy waiting
+            head.run();
+
+            try {
+                return head.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+
+                throw e;
+            }
+        }
+
+        private void fill() {
+            while (this.pending.size() < VoteFetcher.this.pageSize && this.nextRequestIndex < this.toIndex) {
+                BigInteger index = BigInteger.valueOf(this.nextRequestIndex++);
+
+                FutureTask<Tuple4<String, String, String, byte[]>> call = new FutureTask<>(() -> {
+                    RpcPriority previous = RpcPriority.declare(this.priority);
+
+                    try {
+                        return this.ballot.getVote(index).send();
+                    } finally {
+                        RpcPriority.restore(previous);
+                    }
+                });
+                this.pending.addLast(call);
+
+                try {
+                    VoteFetcher.this.executor.execute(call);
+                } catch (RejectedExecutionException e) {
+                    // the call is run by the consumer once it gets to it
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            for (FutureTask<Tuple4<String, String, String, byte[]>> call : this.pending) {
+                call.cancel(true);
+            }
+
+            this.pending.clear();
+        }
+    }
+
+    private class LogCursor implements Cursor {
+
+        private final Ballot ballot;
+        private final long toIndex;
+        private final Map<Long, Tuple4<String, String, String, byte[]>> buffered = new HashMap<>();
+
+        private long nextIndex;
+        private BigInteger nextBlock;
+        private BigInteger latestBlock;
+        private boolean hasFoundEvents;
+        private StorageCursor storage;
+
+        private LogCursor(Ballot ballot, long fromIndex, long toIndex) {
+            this.ballot = ballot;
+            this.toIndex = toIndex;
+            this.nextIndex = fromIndex;
+            this.nextBlock = VoteFetcher.this.logScanner.getStartBlock(ballot.getContractAddress(), fromIndex);
+        }
+
+        @Override
+        public Tuple4<String, String, String, byte[]> next() throws Exception {
+            if (null != this.storage) {
+                return this.storage.next();
+            }
+
+            if (this.nextIndex >= this.toIndex) {
+                throw new IllegalStateException("No more votes to fetch");
+            }
+
+            Tuple4<String, String, String, byte[]> vote = this.buffered.remove(this.nextIndex);
+
+            while (null == vote && ! this.isExhausted()) {
+                this.scanNextBlocks();
+                vote = this.buffered.remove(this.nextIndex);
+            }
+
+            if (null == vote && this.buffered.isEmpty()) {
+                if (! this.hasFoundEvents) {
+                    // the ballot holds this vote, so its contract does not emit events at all
+                    VoteFetcher.this.logScanner.markSilent(this.ballot.getContractAddress());
+                }
+
+                // no event is left for the remaining votes, so read them from storage in pages
+                this.storage = new StorageCursor(this.ballot, this.nextIndex, this.toIndex);
+
+                return this.storage.next();
+            }
+
+            if (null == vote) {
+                // no event was found for this vote, e.g. because it was cast
+                // before the contract started to emit them, so read it from storage
+                vote = this.ballot.getVote(BigInteger.valueOf(this.nextIndex)).send();
+            }
+
+            this.nextIndex++;
+
+            return vote;
+        }
+
+        private boolean isExhausted() {
+            return null != this.latestBlock && this.nextBlock.compareTo(this.latestBlock) > 0;
+        }
+
+        private void scanNextBlocks() throws IOException {
+            if (null == this.latestBlock) {
+                this.latestBlock = VoteFetcher.this.logScanner.getLatestBlock();
+            }
+
+            BigInteger toBlock = this.nextBlock
+                .add(BigInteger.valueOf(VoteFetcher.this.logScanner.getBlockRange() - 1))
+                .min(this.latestBlock);
+
+            Map<Long, Tuple4<String, String, String, byte[]>> votes = VoteFetcher.this.logScanner.scan(this.ballot.getContractAddress(), this.nextBlock, toBlock);
+            this.hasFoundEvents |= ! votes.isEmpty();
+
+            for (Map.Entry<Long, Tuple4<String, String, String, byte[]>> vote : votes.entrySet()) {
+                if (vote.getKey() >= this.nextIndex && vote.getKey() < this.toIndex) {
+                    this.buffered.put(vote.getKey(), vote.getValue());
+                }
+            }
+
+            this.nextBlock = toBlock.add(BigInteger.ONE);
+        }
+
+        @Override
+        public void close() {
+            this.buffered.clear();
+
+            if (null != this.storage) {
+                this.storage.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.provotum.backend.tally;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.tuples.generated.Tuple4;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Reads the votes of a ballot from the events its contract emits for each accepted vote:
+ * <pre>event VoteAccepted(address indexed voter, uint256 index, string ciphertext, string proof, bytes random)</pre>
+ * <p>
+ * Logs are requested for a range of blocks at once, which is considerably cheaper
+ * than reading each vote from the storage of the contract. The block of the first vote
+ * found by each scan is remembered, so that later scans of the same ballot,
+ * e.g. by the background verification, do not have to start at the block the ballot
+ * was deployed in, resp. the genesis block for ballots deployed by other instances.
+ * Ballots found to hold votes without having emitted any event are remembered as well,
+ * so that their votes are read from storage right away.
+ */
+public class VoteLogScanner {
+
+    public static final Event VOTE_ACCEPTED_EVENT = new Event(
+        "VoteAccepted",
+        Arrays.<TypeReference<?>>asList(new TypeReference<Address>(true) {}, new TypeReference<Uint256>() {}, new TypeReference<Utf8String>() {}, new TypeReference<Utf8String>() {}, new TypeReference<DynamicBytes>() {})
+    );
+
+    private static final String VOTE_ACCEPTED_TOPIC = EventEncoder.encode(VOTE_ACCEPTED_EVENT);
+
+    private final Web3j web3j;
+    private final long blockRange;
+
+    /**
+     * The block in which a vote was found by the index of the vote, per ballot.
+     */
+    private final Map<String, NavigableMap<Long, BigInteger>> blockHints = new ConcurrentHashMap<>();
+
+    /**
+     * The block in which a ballot was deployed, for ballots deployed by this instance.
+     */
+    private final Map<String, BigInteger> deploymentBlocks = new ConcurrentHashMap<>();
+
+    /**
+     * The ballots whose contract does not emit events for accepted votes.
+     */
+    private final Set<String> silentBallots = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param web3j      The connection to the Ethereum node.
+     * @param blockRange The number of blocks requested per scan.
+     */
+    public VoteLogScanner(Web3j web3j, long blockRange) {
+        if (blockRange < 1) {
+            throw new IllegalArgumentException("Block range must be positive. Got " + blockRange);
+        }
+
+        this.web3j = web3j;
+        this.blockRange = blockRange;
+    }
+
+    /**
+     * @return The number of the most recent block.
+     * @throws IOException If the node could not be reached.
+     */
+    public BigInteger getLatestBlock() throws IOException {
+        return this.web3j.ethBlockNumber().send().getBlockNumber();
+    }
+
+    /**
+     * @param contractAddress The address of the ballot contract.
+     * @param index           The index of a vote.
+     * @return The block at which scanning for the vote with the given index may start.
+     */
+    public BigInteger getStartBlock(String contractAddress, long index) {
+        NavigableMap<Long, BigInteger> hints = this.blockHints.get(contractAddress.toLowerCase());
+        Map.Entry<Long, BigInteger> hint = (null == hints) ? null : hints.floorEntry(index);
+
+        if (null != hint) {
+            return hint.getValue();
+        }
+
+        return this.deploymentBlocks.getOrDefault(contractAddress.toLowerCase(), BigInteger.ZERO);
+    }
+
+    /**
+     * Remember the block in which the given ballot was deployed, as no votes can be found before.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param blockNumber     The number of the block.
+     */
+    public void deployed(String contractAddress, BigInteger blockNumber) {
+        this.deploymentBlocks.put(contractAddress.toLowerCase(), blockNumber);
+    }
+
+    /**
+     * Remember that a scan of the given ballot up to the latest block found no events,
+     * although the ballot holds votes in the scanned blocks.
+     *
+     * @param contractAddress The address of the ballot contract.
+     */
+    public void markSilent(String contractAddress) {
+        this.silentBallots.add(contractAddress.toLowerCase());
+    }
+
+    /**
+     * @param contractAddress The address of the ballot contract.
+     * @return False, if the contract of the given ballot was found not to emit events for accepted votes.
+     */
+    public boolean isEmitting(String contractAddress) {
+        return ! this.silentBallots.contains(contractAddress.toLowerCase());
+    }
+
+    /**
+     * Fetch the votes accepted by the given ballot within the given blocks.
+     *
+     * @param contractAddress The address of the ballot contract.
+     * @param fromBlock       The first block to scan.
+     * @param toBlock         The last block to scan.
+     * @return The votes found by their index.
+     * @throws IOException If the logs could not be fetched.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Tuple4<String, String, String, byte[]>> scan(String contractAddress, BigInteger fromBlock, BigInteger toBlock) throws IOException {
+        EthFilter filter = new EthFilter(
+            new DefaultBlockParameterNumber(fromBlock),
+            new DefaultBlockParameterNumber(toBlock),
+            contractAddress
+        );
+        filter.addSingleTopic(VOTE_ACCEPTED_TOPIC);
+
+        EthLog response = this.web3j.ethGetLogs(filter).send();
+
+        if (response.hasError()) {
+            throw new IOException("Failed to fetch logs of ballot contract at " + contractAddress + ": " + response.getError().getMessage());
+        }
+
+        Map<Long, Tuple4<String, String, String, byte[]>> votes = new HashMap<>();
+        long firstIndex = Long.MAX_VALUE;
+        BigInteger firstBlock = null;
+
+        for (EthLog.LogResult result : response.getLogs()) {
+            Log log = (Log) result.get();
+
+            List<Type> values = FunctionReturnDecoder.decode(log.getData(), VOTE_ACCEPTED_EVENT.getNonIndexedParameters());
+            String voter = (String) FunctionReturnDecoder.decodeIndexedValue(log.getTopics().get(1), new TypeReference<Address>() {}).getValue();
+            long index = ((BigInteger) values.get(0).getValue()).longValue();
+
+            votes.put(index, new Tuple4<>(
+                voter,
+                (String) values.get(1).getValue(),
+                (String) values.get(2).getValue(),
+                (byte[]) values.get(3).getValue()
+            ));
+
+            if (index < firstIndex) {
+                firstIndex = index;
+                firstBlock = log.getBlockNumber();
+            }
+        }
+
+        if (null != firstBlock) {
+            this.blockHints
+                .computeIfAbsent(contractAddress.toLowerCase(), address -> new ConcurrentSkipListMap<>())
+                .putIfAbsent(firstIndex, firstBlock);
+        }
+
+        return votes;
+    }
+
+    /**
+     * Forget anything remembered for the given ballot.
+     *
+     * @param contractAddress The address of the ballot contract.
+     */
+    public void forget(String contractAddress) {
+        this.blockHints.remove(contractAddress.toLowerCase());
+        this.deploymentBlocks.remove(contractAddress.toLowerCase());
+        this.silentBallots.remove(contractAddress.toLowerCase());
+    }
+
+    public long getBlockRange() {
+        return this.blockRange;
+    }
+}
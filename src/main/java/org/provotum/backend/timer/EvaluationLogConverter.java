@@ -0,0 +1,124 @@
+package org.provotum.backend.timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts an evaluation file written in the binary format of {@link EvaluationLogWriter}
+ * to the text format.
+ * <p>
+ * Categories are resolved by the names stored in the header of the file,
+ * so files remain readable when categories are added later on.
+ */
+public class EvaluationLogConverter {
+
+    /**
+     * Usage: <code>EvaluationLogConverter &lt;input.bin&gt; &lt;output.log&gt;</code>
+     */
+    public static void main(String[] args) throws IOException {
+        if (2 != args.length) {
+            System.err.println("Usage: EvaluationLogConverter <input.bin> <output.log>");
+            System.exit(1);
+        }
+
+        try (
+            InputStream input = new BufferedInputStream(new FileInputStream(args[0]));
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(args[1]))
+        ) {
+            long records = convert(input, output);
+            System.out.println("Converted " + records + " measurements");
+        }
+    }
+
+    /**
+     * @param input  The binary evaluation file.
+     * @param output The stream to write the text format to.
+     * @return The number of converted measurements.
+     * @throws IOException If the input is not a binary evaluation file or cannot be read.
+     */
+    public static long convert(InputStream input, OutputStream output) throws IOException {
+        DataInputStream data = new DataInputStream(input);
+
+        if (EvaluationLogWriter.MAGIC != data.readInt()) {
+            throw new IOException("Not a binary evaluation file");
+        }
+
+        // version 1 did not store correlation ids
+        int version = data.readInt();
+        if (1 != version && EvaluationLogWriter.VERSION != version) {
+            throw new IOException("Unsupported version " + version + " of binary evaluation file");
+        }
+
+        String[] categories = new String[data.readInt()];
+        for (int i = 0; i < categories.length; i++) {
+            byte[] name = new byte[data.readShort()];
+            data.readFully(name);
+            categories[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        long records = 0;
+        byte[] record = new byte[EvaluationLogWriter.RECORD_SIZE];
+
+        while (readRecord(data, record)) {
+            int category = readInt(record, 0);
+            long duration = readLong(record, 4 + 8);
+            String correlationId = null;
+
+            if (category < 0 || category >= categories.length) {
+                throw new IOException("Unknown category " + category + " in record " + records);
+            }
+
+            if (1 != version) {
+                byte[] id;
+
+                try {
+                    id = new byte[data.readShort()];
+                    data.readFully(id);
+                } catch (EOFException e) {
+                    // the last record was written partially
+                    break;
+                }
+
+                correlationId = (0 == id.length) ? null : new String(id, StandardCharsets.UTF_8);
+            }
+
+            output.write(EvaluationLogWriter.toText(categories[category], duration, correlationId).getBytes(StandardCharsets.UTF_8));
+            records++;
+        }
+
+        output.flush();
+
+        return records;
+    }
+
+    /**
+     * @return False if the end of the input has been reached, ignoring a partially written last record.
+     */
+    private static boolean readRecord(DataInputStream data, byte[] record) throws IOException {
+        try {
+            data.readFully(record);
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+            | ((bytes[offset + 1] & 0xFF) << 16)
+            | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + 4) & 0xFFFFFFFFL);
+    }
+}
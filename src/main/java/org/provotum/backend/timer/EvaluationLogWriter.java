@@ -0,0 +1,371 @@
+package org.provotum.backend.timer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Appends measured durations to the evaluation file without blocking the measuring thread.
+ * <p>
+ * Measurements are put into a ring buffer of primitive arrays, from which a background
+ * thread takes them in batches and writes them through a {@link FileChannel}.
+ * If the ring buffer is full, measurements are dropped and counted.
+ * <p>
+ * Measurements are written either as text, one line per duration, or in a compact
+ * binary format, which {@link EvaluationLogConverter} converts to the text format:
+ * <pre>
+ * header:  int magic, int version, int number of categories, per category: short length, UTF-8 name
+ * records: int category, long start in ns, long duration in ns, long thread id,
+ *          short length, UTF-8 correlation id (length 0 if there is none)
+ * </pre>
+ * All numbers are big-endian. An existing file is only appended to if it is written in the same
+ * format and, if binary, its header matches the one of this version. Otherwise a rotated file is written instead.
+ */
+public class EvaluationLogWriter {
+
+    private static final Logger logger = Logger.getLogger(EvaluationLogWriter.class.getName());
+
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    static final int MAGIC = 0x5045564C;
+    static final int VERSION = 2;
+    static final int RECORD_SIZE = 4 + 8 + 8 + 8;
+    static final int MAX_CORRELATION_ID_LENGTH = 256;
+
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final File file;
+    private final FileChannel channel;
+    private final Format format;
+    private final int capacity;
+    private final int mask;
+
+    private final int[] categories;
+    private final long[] starts;
+    private final long[] durations;
+    private final long[] threads;
+    private final String[] correlationIds;
+
+    /**
+     * The sequence after the one stored in each slot, once the slot may be read.
+     */
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    private final LongAdder dropped = new LongAdder();
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+    private final Thread flusher;
+    private volatile boolean isRunning = true;
+
+    /**
+     * @param file     The file to append to, see {@link #getFile()}.
+     * @param format   The format to write.
+     * @param capacity The number of measurements the ring buffer holds, rounded up to a power of two.
+     * @throws IOException If the file cannot be opened.
+     */
+    public EvaluationLogWriter(File file, Format format, int capacity) throws IOException {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30. Got " + capacity);
+        }
+
+        this.format = format;
+        this.capacity = (1 == capacity) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+
+        this.categories = new int[this.capacity];
+        this.starts = new long[this.capacity];
+        this.durations = new long[this.capacity];
+        this.threads = new long[this.capacity];
+        this.correlationIds = new String[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+
+        this.file = compatibleFile(file, format);
+        this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        if (Format.BINARY == format && 0 == this.channel.size()) {
+            this.batch.put(header());
+            this.flush();
+        }
+
+        this.flusher = new Thread(this::run, "provotum-evaluation-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.setPriority(Thread.MIN_PRIORITY);
+        this.flusher.start();
+    }
+
+    /**
+     * Append a measurement. Never blocks.
+     *
+     * @param category      The category of the measured operation.
+     * @param start         The start of the operation in nanoseconds.
+     * @param duration      The duration of the operation in nanoseconds.
+     * @param correlationId The id of the request the operation belongs to, may be null.
+     */
+    public void append(EvaluationTimer.LogCategory category, long start, long duration, String correlationId) {
+        while (true) {
+            long sequence = this.claimed.get();
+
+            if (sequence - this.consumed >= this.capacity) {
+                this.dropped.increment();
+                return;
+            }
+
+            if (this.claimed.compareAndSet(sequence, sequence + 1)) {
+                int index = (int) (sequence & this.mask);
+
+                this.categories[index] = category.ordinal();
+                this.starts[index] = start;
+                this.durations[index] = duration;
+                this.threads[index] = Thread.currentThread().getId();
+                this.correlationIds[index] = correlationId;
+                this.published.lazySet(index, sequence + 1);
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of measurements dropped because the ring buffer was full.
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * @return The number of measurements waiting to be written.
+     */
+    public long getPending() {
+        return this.claimed.get() - this.consumed;
+    }
+
+    public Format getFormat() {
+        return this.format;
+    }
+
+    /**
+     * @return The file written to, which differs from the requested one if that one did not match the format.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Write all pending measurements and close the file.
+     */
+    public void close() {
+        this.isRunning = false;
+        LockSupport.unpark(this.flusher);
+
+        try {
+            this.flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close evaluation file: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        while (true) {
+            boolean wasRunning = this.isRunning;
+            int written = 0;
+
+            try {
+                written = this.drain();
+            } catch (IOException e) {
+                logger.warning("Failed to write to evaluation file: " + e.getMessage());
+            }
+
+            if (! wasRunning) {
+                // everything appended before closing has been written
+                return;
+            }
+
+            if (0 == written) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * @return The number of measurements taken from the ring buffer.
+     */
+    private int drain() throws IOException {
+        long next = this.consumed;
+        int count = 0;
+
+        while (this.published.get((int) (next & this.mask)) == next + 1) {
+            int index = (int) (next & this.mask);
+
+            String correlationId = this.correlationIds[index];
+            this.correlationIds[index] = null;
+
+            // ids received from clients are short, anything else must not overflow a batch
+            if (null != correlationId && correlationId.length() > MAX_CORRELATION_ID_LENGTH) {
+                correlationId = null;
+            }
+
+            if (Format.BINARY == this.format) {
+                byte[] id = (null == correlationId) ? new byte[0] : correlationId.getBytes(StandardCharsets.UTF_8);
+
+                this.ensureSpace(RECORD_SIZE + 2 + id.length);
+                this.batch.putInt(this.categories[index]);
+                this.batch.putLong(this.starts[index]);
+                this.batch.putLong(this.durations[index]);
+                this.batch.putLong(this.threads[index]);
+                this.batch.putShort((short) id.length);
+                this.batch.put(id);
+            } else {
+                byte[] line = toText(EvaluationTimer.LogCategory.values()[this.categories[index]].name(), this.durations[index], correlationId).getBytes(StandardCharsets.UTF_8);
+                this.ensureSpace(line.length);
+                this.batch.put(line);
+            }
+
+            next++;
+            count++;
+
+            // free the slots taken so far once in a while, so that producers do not have to drop
+            if (0 == count % 1024) {
+                this.consumed = next;
+            }
+        }
+
+        this.flush();
+        this.consumed = next;
+
+        return count;
+    }
+
+    private void ensureSpace(int bytes) throws IOException {
+        if (this.batch.remaining() < bytes) {
+            this.flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        this.batch.flip();
+
+        while (this.batch.hasRemaining()) {
+            this.channel.write(this.batch);
+        }
+
+        this.batch.clear();
+    }
+
+    /**
+     * @return The header of a binary file written by this version, including the names of all categories.
+     */
+    static byte[] header() {
+        EvaluationTimer.LogCategory[] values = EvaluationTimer.LogCategory.values();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream header = new DataOutputStream(bytes)) {
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(values.length);
+
+            for (EvaluationTimer.LogCategory category : values) {
+                byte[] name = category.name().getBytes(StandardCharsets.UTF_8);
+                header.writeShort(name.length);
+                header.write(name);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create header of evaluation file", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The given file if it is empty or written in the same format, otherwise the first
+     * rotated file next to it which is, so that records are never appended to a file they do not match.
+     */
+    private static File compatibleFile(File file, Format format) throws IOException {
+        File candidate = file;
+
+        for (int i = 1; ! isCompatible(candidate, format); i++) {
+            candidate = rotated(file, i);
+        }
+
+        if (candidate != file) {
+            logger.warning("Evaluation file " + file + " has another format or version. Writing to " + candidate + " instead.");
+        }
+
+        return candidate;
+    }
+
+    private static boolean isCompatible(File file, Format format) throws IOException {
+        if (! file.exists() || 0 == file.length()) {
+            return true;
+        }
+
+        if (Format.TEXT == format) {
+            // every line starts with the category in brackets, which a binary header never does
+            try (FileInputStream input = new FileInputStream(file)) {
+                return '[' == input.read();
+            }
+        }
+
+        byte[] expected = header();
+        byte[] actual = new byte[expected.length];
+
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            input.readFully(actual);
+        } catch (EOFException e) {
+            return false;
+        }
+
+        return Arrays.equals(expected, actual);
+    }
+
+    /**
+     * @return E.g. <code>evaluation-1.bin</code> for <code>evaluation.bin</code> and index 1.
+     */
+    static File rotated(File file, int index) {
+        String name = file.getName();
+        int extension = name.lastIndexOf('.');
+        String rotatedName = (extension > 0)
+            ? name.substring(0, extension) + "-" + index + name.substring(extension)
+            : name + "-" + index;
+
+        return new File(file.getAbsoluteFile().getParentFile(), rotatedName);
+    }
+
+    /**
+     * @return The line of the text format for the given measurement.
+     */
+    static String toText(String category, long duration, String correlationId) {
+        String line = "[" + category + "] " + Long.toString(duration) + "ns (Seconds: " + (double) duration / 1000000000.0 + "s)";
+
+        if (null != correlationId) {
+            line += " (Correlation: " + correlationId + ")";
+        }
+
+        return line + "\n";
+    }
+}
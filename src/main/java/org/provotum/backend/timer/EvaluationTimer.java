@@ -1,18 +1,20 @@
 package org.provotum.backend.timer;
 
-import org.provotum.backend.config.EvaluationConfiguration;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
+import org.provotum.backend.execution.CorrelationId;
 
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.UUID;
 
-@Component
+/**
+ * Measures the duration of operations by {@link LogCategory}.
+ * <p>
+ * A measurement is started by {@link #start()}, which returns the current time as token,
+ * and completed by {@link #stop(LogCategory, long)}, which records the duration in the
+ * lock-free histogram of the category. Each duration is also handed to the {@link EvaluationLogWriter},
+ * which appends it along with the current {@link CorrelationId} to the evaluation file from a background
+ * thread. If the file cannot keep up, durations are dropped rather than blocking the measured thread.
+ */
 public class EvaluationTimer {
 
     public enum LogCategory {
@@ -32,43 +34,65 @@ public class EvaluationTimer {
         VERIFICATION_PROOF_UNSUCCESSFUL
     }
 
-    public class Duration {
-        public long start;
-        public long end;
-        public long duration;
-    }
+    private final Map<LogCategory, LatencyHistogram> histograms;
+    private final EvaluationLogWriter writer;
+
+    /**
+     * @param writer The writer to append the durations to the evaluation file.
+     */
+    public EvaluationTimer(EvaluationLogWriter writer) {
+        Map<LogCategory, LatencyHistogram> histograms = new EnumMap<>(LogCategory.class);
 
-    private Map<UUID, Duration> durations = new HashMap<>();
-    private FileOutputStream output;
+        for (LogCategory category : LogCategory.values()) {
+            histograms.put(category, new LatencyHistogram());
+        }
 
-    @Autowired
-    public EvaluationTimer(EvaluationConfiguration evaluationConfiguration) throws IOException {
-        this.output = new FileOutputStream(evaluationConfiguration.getOutputFile(), true);
+        this.histograms = Collections.unmodifiableMap(histograms);
+        this.writer = writer;
     }
 
-    public UUID start() {
-        Duration d = new Duration();
-        d.start = System.nanoTime();
+    /**
+     * @return The token to pass to {@link #stop(LogCategory, long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
 
-        UUID uuid = UUID.randomUUID();
+    /**
+     * Complete the measurement started with the given token.
+     *
+     * @param category The category of the measured operation.
+     * @param start    The token returned by {@link #start()}.
+     * @return The duration in nanoseconds.
+     */
+    public long stop(LogCategory category, long start) {
+        long duration = System.nanoTime() - start;
 
-        this.durations.put(uuid, d);
-        return uuid;
+        this.histograms.get(category).record(duration);
+        this.writer.append(category, start, duration, CorrelationId.current());
+
+        return duration;
     }
 
-    public Duration end(UUID identifier) {
-        Duration d = this.durations.get(identifier);
-        d.end = System.nanoTime();
-        d.duration = d.end - d.start;
+    /**
+     * @param category The category.
+     * @return The histogram of the durations of the given category.
+     */
+    public LatencyHistogram getHistogram(LogCategory category) {
+        return this.histograms.get(category);
+    }
 
-        return d;
+    /**
+     * @return The number of durations which were not written to the evaluation file.
+     */
+    public long getDroppedLines() {
+        return this.writer.getDropped();
     }
 
-    public void logDuration(LogCategory category, Duration duration) {
-        try {
-            this.output.write(("[" + category.name() + "] " + Long.toString(duration.duration) + "ns (Seconds: " + (double) duration.duration/ 1000000000.0 + "s)\n").getBytes(StandardCharsets.UTF_8));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Write the pending durations and close the evaluation file.
+     */
+    public void shutdown() {
+        this.writer.close();
     }
 }
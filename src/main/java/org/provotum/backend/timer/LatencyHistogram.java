@@ -0,0 +1,144 @@
+package org.provotum.backend.timer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: Each power of two is split into
+ * 16 buckets of equal width, so that percentiles are exact up to 1/16 of the value,
+ * while recording is a single atomic increment regardless of the number of values.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos The latency to record, negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        this.buckets.incrementAndGet(indexOf(value));
+        this.count.increment();
+        this.sum.add(value);
+
+        long currentMax = this.max.get();
+        while (value > currentMax && ! this.max.compareAndSet(currentMax, value)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    /**
+     * @return A copy of the current state, which may miss values recorded concurrently.
+     */
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+
+        return new Snapshot(counts, total, this.sum.sum(), this.max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The largest value counted in the bucket with the given index.
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * @return The sum of all recorded values in nanoseconds.
+         */
+        public long getSum() {
+            return this.sum;
+        }
+
+        /**
+         * @return The largest recorded value in nanoseconds.
+         */
+        public long getMax() {
+            return this.max;
+        }
+
+        /**
+         * @return The mean of all recorded values in nanoseconds, 0 if none has been recorded.
+         */
+        public double getMean() {
+            return (0 == this.count) ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * @param percentile The percentile between 0 and 100.
+         * @return The value in nanoseconds below or at which the given percentage of values lies, 0 if none has been recorded.
+         */
+        public long getPercentile(double percentile) {
+            if (0 == this.count) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+            long seen = 0;
+
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), this.max);
+                }
+            }
+
+            return this.max;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.provotum.backend.communication.message.base;
+
+import junit.framework.TestCase;
+import org.provotum.backend.execution.CorrelationId;
+
+public class AResponseTest extends TestCase {
+
+    public void testUncorrelatedResponse() {
+        AResponse response = new TestResponse();
+
+        assertNotNull(response.getId());
+        assertNull(response.getCorrelationId());
+    }
+
+    public void testCorrelatedResponse() {
+        String previous = CorrelationId.declare("request-1");
+
+        try {
+            AResponse first = new TestResponse();
+            AResponse second = new TestResponse();
+
+            // each response is identified on its own
+            assertEquals("request-1", first.getCorrelationId());
+            assertEquals("request-1", second.getCorrelationId());
+            assertFalse(first.getId().equals(second.getId()));
+            assertFalse("request-1".equals(first.getId()));
+        } finally {
+            CorrelationId.restore(previous);
+        }
+    }
+
+    private static class TestResponse extends AResponse {
+
+        private TestResponse() {
+            super(Status.SUCCESS, "message");
+        }
+    }
+}
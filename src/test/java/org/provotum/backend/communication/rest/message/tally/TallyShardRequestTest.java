@@ -0,0 +1,15 @@
+package org.provotum.backend.communication.rest.message.tally;
+
+import junit.framework.TestCase;
+
+public class TallyShardRequestTest extends TestCase {
+
+    public void testAccessors() {
+        TallyShardRequest request = new TallyShardRequest("0x1", 10, 20, "fingerprint");
+
+        assertEquals("0x1", request.getContractAddress());
+        assertEquals(10, request.getFromIndex());
+        assertEquals(20, request.getToIndex());
+        assertEquals("fingerprint", request.getKeyFingerprint());
+    }
+}
@@ -0,0 +1,19 @@
+package org.provotum.backend.communication.rest.message.tally;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+public class TallyShardResponseTest extends TestCase {
+
+    public void testAccessors() {
+        TallyShardResponse response = new TallyShardResponse("0x1", 10, 20, "ciphertext", "ff", Arrays.asList(12L, 15L));
+
+        assertEquals("0x1", response.getContractAddress());
+        assertEquals(10, response.getFromIndex());
+        assertEquals(20, response.getToIndex());
+        assertEquals("ciphertext", response.getCiphertext());
+        assertEquals("ff", response.getRandom());
+        assertEquals(Arrays.asList(12L, 15L), response.getInvalid());
+    }
+}
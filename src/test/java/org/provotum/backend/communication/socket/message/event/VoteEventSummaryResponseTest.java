@@ -0,0 +1,34 @@
+package org.provotum.backend.communication.socket.message.event;
+
+import junit.framework.TestCase;
+import org.provotum.backend.communication.message.base.ResponseType;
+import org.provotum.backend.communication.message.base.Status;
+
+import java.util.Arrays;
+
+public class VoteEventSummaryResponseTest extends TestCase {
+
+    public void testAccessors1() {
+        VoteEventSummaryResponse response = new VoteEventSummaryResponse("1", Status.SUCCESS, "message", 2, 1, Arrays.asList("sender1", "sender2", "sender3"));
+
+        assertEquals("1", response.getId());
+        assertEquals(Status.SUCCESS, response.getStatus());
+        assertEquals("message", response.getMessage());
+        assertEquals(2, response.getAccepted());
+        assertEquals(1, response.getRejected());
+        assertEquals(Arrays.asList("sender1", "sender2", "sender3"), response.getSenderAddresses());
+        assertEquals(ResponseType.VOTE_EVENT_SUMMARY, response.getResponseType());
+    }
+
+    public void testAccessors2() {
+        VoteEventSummaryResponse response = new VoteEventSummaryResponse(Status.SUCCESS, "message", 2, 1, Arrays.asList("sender1", "sender2", "sender3"));
+
+        assertNotNull(response.getId());
+        assertEquals(Status.SUCCESS, response.getStatus());
+        assertEquals("message", response.getMessage());
+        assertEquals(2, response.getAccepted());
+        assertEquals(1, response.getRejected());
+        assertEquals(Arrays.asList("sender1", "sender2", "sender3"), response.getSenderAddresses());
+        assertEquals(ResponseType.VOTE_EVENT_SUMMARY, response.getResponseType());
+    }
+}
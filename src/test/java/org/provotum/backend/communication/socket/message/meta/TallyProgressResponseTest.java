@@ -0,0 +1,38 @@
+package org.provotum.backend.communication.socket.message.meta;
+
+import junit.framework.TestCase;
+import org.provotum.backend.communication.message.base.ResponseType;
+import org.provotum.backend.communication.message.base.Status;
+
+public class TallyProgressResponseTest extends TestCase {
+
+    public void testAccessors1() {
+        TallyProgressResponse response = new TallyProgressResponse("1", Status.SUCCESS, "message", "job", "0x1", "RUNNING", 10, 5, 3, 1, 200);
+
+        assertEquals("1", response.getId());
+        assertEquals(Status.SUCCESS, response.getStatus());
+        assertEquals("message", response.getMessage());
+        assertEquals("job", response.getJob());
+        assertEquals("0x1", response.getContract());
+        assertEquals("RUNNING", response.getState());
+        assertEquals(Long.valueOf(10), response.getProgress().get("total"));
+        assertEquals(Long.valueOf(5), response.getProgress().get("fetched"));
+        assertEquals(Long.valueOf(3), response.getProgress().get("verified"));
+        assertEquals(Long.valueOf(1), response.getProgress().get("invalid"));
+        assertEquals(Long.valueOf(200), response.getProgress().get("eta"));
+        assertEquals(ResponseType.TALLY_PROGRESS_EVENT, response.getResponseType());
+    }
+
+    public void testAccessors2() {
+        TallyProgressResponse response = new TallyProgressResponse(Status.ERROR, "message", "job", "0x1", "FAILED", -1, 0, 0, 0, 0);
+
+        assertNotNull(response.getId());
+        assertEquals(Status.ERROR, response.getStatus());
+        assertEquals("message", response.getMessage());
+        assertEquals("job", response.getJob());
+        assertEquals("0x1", response.getContract());
+        assertEquals("FAILED", response.getState());
+        assertEquals(Long.valueOf(-1), response.getProgress().get("total"));
+        assertEquals(ResponseType.TALLY_PROGRESS_EVENT, response.getResponseType());
+    }
+}
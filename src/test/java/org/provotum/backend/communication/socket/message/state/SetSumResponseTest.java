@@ -0,0 +1,28 @@
+package org.provotum.backend.communication.socket.message.state;
+
+import junit.framework.TestCase;
+import org.provotum.backend.communication.message.base.ResponseType;
+import org.provotum.backend.communication.message.base.Status;
+
+public class SetSumResponseTest extends TestCase {
+
+    public void testAccessors1() {
+        SetSumResponse response = new SetSumResponse("1", Status.SUCCESS, "message", "transaction");
+
+        assertEquals("1", response.getId());
+        assertEquals(Status.SUCCESS, response.getStatus());
+        assertEquals("message", response.getMessage());
+        assertEquals("transaction", response.getTransaction());
+        assertEquals(ResponseType.SET_SUM, response.getResponseType());
+    }
+
+    public void testAccessors2() {
+        SetSumResponse response = new SetSumResponse(Status.SUCCESS, "message", "transaction");
+
+        assertNotNull(response.getId());
+        assertEquals(Status.SUCCESS, response.getStatus());
+        assertEquals("message", response.getMessage());
+        assertEquals("transaction", response.getTransaction());
+        assertEquals(ResponseType.SET_SUM, response.getResponseType());
+    }
+}
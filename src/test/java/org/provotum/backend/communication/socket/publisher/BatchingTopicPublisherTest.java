@@ -0,0 +1,210 @@
+package org.provotum.backend.communication.socket.publisher;
+
+import junit.framework.TestCase;
+import org.provotum.backend.communication.message.base.AResponse;
+import org.provotum.backend.communication.message.base.Status;
+import org.provotum.backend.communication.socket.message.event.ChangeEventResponse;
+import org.provotum.backend.communication.socket.message.event.VoteEventResponse;
+import org.provotum.backend.communication.socket.message.event.VoteEventSummaryResponse;
+import org.provotum.backend.communication.socket.message.removal.BallotRemovalResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchingTopicPublisherTest extends TestCase {
+
+    /**
+     * Long enough for the queued responses to be sent on shutdown only.
+     */
+    private static final long INTERVAL = 3600000;
+
+    private final List<Frame> frames = Collections.synchronizedList(new ArrayList<>());
+
+    public void testSendsBatchPerTopicInOrder() {
+        BatchingTopicPublisher publisher = this.publisher(INTERVAL, 10, false);
+
+        AResponse firstVote = vote(Status.SUCCESS, "0x1");
+        AResponse removal = new BallotRemovalResponse(Status.SUCCESS, "removed", "0xtx");
+        AResponse secondVote = vote(Status.ERROR, "0x2");
+
+        publisher.send(TopicPublisher.EVENT_TOPIC, firstVote);
+        publisher.send(TopicPublisher.REMOVAL_TOPIC, removal);
+        publisher.send(TopicPublisher.EVENT_TOPIC, secondVote);
+
+        assertTrue(this.frames.isEmpty());
+
+        publisher.shutdown();
+
+        assertEquals(2, this.frames.size());
+        assertEquals(TopicPublisher.EVENT_TOPIC, this.frames.get(0).topic);
+        assertEquals(Arrays.asList(firstVote, secondVote), this.frames.get(0).responses);
+        assertEquals(TopicPublisher.REMOVAL_TOPIC, this.frames.get(1).topic);
+        assertEquals(Collections.singletonList(removal), this.frames.get(1).responses);
+
+        assertEquals(Long.valueOf(2), publisher.getPublished().get(TopicPublisher.EVENT_TOPIC));
+        assertEquals(0, publisher.getDropped());
+    }
+
+    public void testSendsInInterval() throws InterruptedException {
+        BatchingTopicPublisher publisher = this.publisher(10, 10, false);
+
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x1"));
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.frames.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, this.frames.size());
+        publisher.shutdown();
+        assertEquals(1, this.frames.size());
+    }
+
+    public void testCoalescesRunsOfVoteEvents() {
+        BatchingTopicPublisher publisher = this.publisher(INTERVAL, 20, true);
+
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x1"));
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.ERROR, "0x2"));
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x3"));
+        AResponse change = new ChangeEventResponse(Status.SUCCESS, "Opened voting", "0x0");
+        publisher.send(TopicPublisher.EVENT_TOPIC, change);
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.ERROR, "0x4"));
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.ERROR, "0x5"));
+        publisher.send(TopicPublisher.EVENT_TOPIC, change);
+        AResponse single = vote(Status.SUCCESS, "0x6");
+        publisher.send(TopicPublisher.EVENT_TOPIC, single);
+
+        publisher.shutdown();
+
+        assertEquals(1, this.frames.size());
+        List<AResponse> responses = this.frames.get(0).responses;
+        assertEquals(5, responses.size());
+
+        VoteEventSummaryResponse first = (VoteEventSummaryResponse) responses.get(0);
+        assertEquals(Status.SUCCESS, first.getStatus());
+        assertEquals(2, first.getAccepted());
+        assertEquals(1, first.getRejected());
+        assertEquals(Arrays.asList("0x1", "0x2", "0x3"), first.getSenderAddresses());
+
+        assertSame(change, responses.get(1));
+
+        // none of the votes was accepted
+        VoteEventSummaryResponse second = (VoteEventSummaryResponse) responses.get(2);
+        assertEquals(Status.ERROR, second.getStatus());
+        assertEquals(0, second.getAccepted());
+        assertEquals(2, second.getRejected());
+
+        assertSame(change, responses.get(3));
+        assertSame(single, responses.get(4));
+
+        // the frame holds all responses, however merged
+        assertEquals(Long.valueOf(8), publisher.getPublished().get(TopicPublisher.EVENT_TOPIC));
+    }
+
+    public void testDropsEventsWhileFull() {
+        BatchingTopicPublisher publisher = this.publisher(INTERVAL, 2, false);
+
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x1"));
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x2"));
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x3"));
+
+        assertEquals(1, publisher.getDropped());
+
+        publisher.shutdown();
+
+        assertEquals(1, this.frames.size());
+        assertEquals(2, this.frames.get(0).responses.size());
+    }
+
+    public void testNeverDropsOtherResponses() {
+        BatchingTopicPublisher publisher = this.publisher(INTERVAL, 2, false);
+
+        AResponse firstVote = vote(Status.SUCCESS, "0x1");
+        AResponse secondVote = vote(Status.SUCCESS, "0x2");
+        AResponse removal = new BallotRemovalResponse(Status.SUCCESS, "removed", "0xtx");
+
+        publisher.send(TopicPublisher.EVENT_TOPIC, firstVote);
+        publisher.send(TopicPublisher.EVENT_TOPIC, secondVote);
+        publisher.send(TopicPublisher.REMOVAL_TOPIC, removal);
+
+        // sent right away, after the responses queued before it
+        assertEquals(2, this.frames.size());
+        assertEquals(Arrays.asList(firstVote, secondVote), this.frames.get(0).responses);
+        assertEquals(TopicPublisher.REMOVAL_TOPIC, this.frames.get(1).topic);
+        assertEquals(Collections.singletonList(removal), this.frames.get(1).responses);
+        assertEquals(0, publisher.getDropped());
+
+        publisher.shutdown();
+        assertEquals(2, this.frames.size());
+    }
+
+    public void testFailingTopicDoesNotStopOthers() {
+        BatchingTopicPublisher publisher = new BatchingTopicPublisher(new RecordingTemplate() {
+            @Override
+            public void convertAndSend(String destination, Object payload) {
+                if (TopicPublisher.EVENT_TOPIC.equals(destination)) {
+                    throw new IllegalStateException("broker gone");
+                }
+
+                super.convertAndSend(destination, payload);
+            }
+        }, INTERVAL, 10, false);
+
+        publisher.send(TopicPublisher.EVENT_TOPIC, vote(Status.SUCCESS, "0x1"));
+        publisher.send(TopicPublisher.REMOVAL_TOPIC, new BallotRemovalResponse(Status.SUCCESS, "removed", "0xtx"));
+        publisher.shutdown();
+
+        assertEquals(1, this.frames.size());
+        assertEquals(TopicPublisher.REMOVAL_TOPIC, this.frames.get(0).topic);
+    }
+
+    private BatchingTopicPublisher publisher(long intervalMillis, int queueCapacity, boolean isCoalescingVotes) {
+        return new BatchingTopicPublisher(new RecordingTemplate(), intervalMillis, queueCapacity, isCoalescingVotes);
+    }
+
+    private static VoteEventResponse vote(Status status, String senderAddress) {
+        return new VoteEventResponse(status, (Status.SUCCESS == status) ? "Accepted vote" : "Voter already voted", senderAddress);
+    }
+
+    /**
+     * Records the frames sent instead of passing them to a broker.
+     */
+    private class RecordingTemplate extends SimpMessagingTemplate {
+
+        private RecordingTemplate() {
+            super(new MessageChannel() {
+                @Override
+                public boolean send(Message<?> message) {
+                    return true;
+                }
+
+                @Override
+                public boolean send(Message<?> message, long timeout) {
+                    return true;
+                }
+            });
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void convertAndSend(String destination, Object payload) {
+            frames.add(new Frame(destination, new ArrayList<>((List<AResponse>) payload)));
+        }
+    }
+
+    private static class Frame {
+
+        private final String topic;
+        private final List<AResponse> responses;
+
+        private Frame(String topic, List<AResponse> responses) {
+            this.topic = topic;
+            this.responses = responses;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.provotum.backend.ethereum.rpc;
+
+import junit.framework.TestCase;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import rx.Observable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class AdaptiveConcurrencyLimiterTest extends TestCase {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public void testIncreasesLimitWhileSaturated() throws IOException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, 10, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            saturate(limiter);
+            release(limiter, "eth_call", MILLISECOND, true);
+        }
+
+        releaseAll(limiter, "eth_call", MILLISECOND);
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getDropped());
+    }
+
+    public void testKeepsLimitWhileNotSaturated() throws IOException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, 10, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(RpcPriority.READ);
+            release(limiter, "eth_call", MILLISECOND, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    public void testDecreasesLimitOnRisingLatency() throws IOException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 10, 10, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(RpcPriority.READ);
+            release(limiter, "eth_call", MILLISECOND, true);
+        }
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(MILLISECOND, limiter.getBaselineLatency("eth_call"), MILLISECOND / 10);
+
+        // the node got ten times slower, the limit is cut back once per window
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(RpcPriority.READ);
+            release(limiter, "eth_call", 10 * MILLISECOND, true);
+        }
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(1, limiter.getDropped());
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire(RpcPriority.READ);
+            release(limiter, "eth_call", 10 * MILLISECOND, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    public void testDecreasesLimitOnFailures() throws IOException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 1, 10, 10, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(RpcPriority.READ);
+            release(limiter, "eth_call", MILLISECOND, false);
+        }
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(1, limiter.getDropped());
+    }
+
+    public void testTracksLatencyPerMethod() throws IOException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 10, 1000);
+
+        // scanning logs is always much slower than a call, which is no sign of an overloaded node
+        for (int i = 0; i < 200; i++) {
+            saturate(limiter);
+            release(limiter, "eth_call", MILLISECOND, true);
+            saturate(limiter);
+            release(limiter, "eth_getLogs", 50 * MILLISECOND, true);
+        }
+
+        releaseAll(limiter, "eth_call", MILLISECOND);
+
+        assertEquals(0, limiter.getDropped());
+        assertEquals(8, limiter.getLimit());
+        assertEquals(MILLISECOND, limiter.getBaselineLatency("eth_call"), MILLISECOND / 10);
+        assertEquals(50 * MILLISECOND, limiter.getBaselineLatency("eth_getLogs"), MILLISECOND);
+        assertEquals(-1, limiter.getBaselineLatency("eth_blockNumber"));
+    }
+
+    public void testRecoversLimitAfterOpenCircuitBreaker() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 10, 1000);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, 50);
+        AtomicBoolean isHealthy = new AtomicBoolean(true);
+
+        LimitedWeb3jService service = new LimitedWeb3jService(new CircuitBreakingWeb3jService(new Web3jService() {
+            @Override
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+
+                if (! isHealthy.get()) {
+                    throw new IOException("Connection refused");
+                }
+
+                return null;
+            }
+
+            @Override
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+        }, circuitBreaker), limiter);
+
+        for (int i = 0; i < 20; i++) {
+            sendSaturated(service, limiter);
+        }
+
+        int limitBeforeOutage = limiter.getLimit();
+
+        // the node goes down, the breaker opens and rejects all further requests right away
+        isHealthy.set(false);
+        for (int i = 0; i < 1000; i++) {
+            try {
+                service.send(request("eth_call"), Response.class);
+                fail("Requests must fail while the node is down");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+
+        assertTrue(circuitBreaker.isOpen());
+        assertTrue(circuitBreaker.getRejected() >= 990);
+        assertEquals(0, limiter.getInFlight());
+
+        // only the failed requests which reached the node cut back the limit, once per window
+        assertEquals((int) (limitBeforeOutage * 0.9), limiter.getLimit());
+        assertEquals(1, limiter.getDropped());
+        assertTrue(limiter.getBaselineLatency("eth_call") >= 5 * MILLISECOND);
+
+        isHealthy.set(true);
+        Thread.sleep(60);
+
+        for (int i = 0; i < 200 && limiter.getLimit() < 8; i++) {
+            sendSaturated(service, limiter);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(8, limiter.getLimit());
+    }
+
+    public void testTimesOutWaitingForAdmission() throws IOException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, 50);
+        limiter.acquire(RpcPriority.READ);
+
+        long start = System.nanoTime();
+        try {
+            limiter.acquire(RpcPriority.WRITE);
+            fail("Admission must time out while the limit is used");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertTrue(System.nanoTime() - start >= 50 * MILLISECOND);
+        assertEquals(1, limiter.getTimedOut());
+        assertEquals(0, limiter.getQueued(RpcPriority.WRITE));
+
+        // the slot is still usable once released
+        release(limiter, "eth_call", MILLISECOND, true);
+        limiter.acquire(RpcPriority.READ);
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, 10000);
+        limiter.acquire(RpcPriority.READ);
+
+        Thread waiting = this.waitFor(limiter, RpcPriority.READ, Collections.synchronizedList(new ArrayList<>()), "waiting");
+
+        try {
+            limiter.acquire(RpcPriority.WRITE);
+            fail("Requests exceeding the queue must be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertEquals(1, limiter.getRejected());
+
+        release(limiter, "eth_call", MILLISECOND, true);
+        waiting.join(10000);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    public void testAdmitsByPriority() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10, 10000);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        limiter.acquire(RpcPriority.READ);
+
+        // queued from lowest to highest priority
+        threads.add(this.waitFor(limiter, RpcPriority.BACKGROUND, admitted, "background"));
+        threads.add(this.waitFor(limiter, RpcPriority.READ, admitted, "first read"));
+        threads.add(this.waitFor(limiter, RpcPriority.READ, admitted, "second read"));
+        threads.add(this.waitFor(limiter, RpcPriority.TALLY, admitted, "tally"));
+        threads.add(this.waitFor(limiter, RpcPriority.WRITE, admitted, "write"));
+
+        release(limiter, "eth_call", MILLISECOND, true);
+
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertEquals(Arrays.asList("write", "tally", "first read", "second read", "background"), admitted);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    public void testTransactionReceiptIsRead() {
+        assertEquals(RpcPriority.WRITE, RpcPriority.of(request("eth_sendRawTransaction")));
+        assertEquals(RpcPriority.READ, RpcPriority.of(request("eth_getTransactionReceipt")));
+
+        RpcPriority previous = RpcPriority.declare(RpcPriority.TALLY);
+        try {
+            assertEquals(RpcPriority.TALLY, RpcPriority.of(request("eth_getTransactionReceipt")));
+            assertEquals(RpcPriority.WRITE, RpcPriority.of(request("eth_sendRawTransaction")));
+        } finally {
+            RpcPriority.restore(previous);
+        }
+    }
+
+    /**
+     * Start a thread which waits for admission with the given priority, records its name once admitted
+     * and releases right away. Returns once the thread is queued.
+     */
+    private Thread waitFor(AdaptiveConcurrencyLimiter limiter, RpcPriority priority, List<String> admitted, String name) throws InterruptedException {
+        int queued = limiter.getQueued(priority);
+
+        Thread thread = new Thread(() -> {
+            try {
+                limiter.acquire(priority);
+                admitted.add(name);
+                release(limiter, "eth_call", MILLISECOND, true);
+            } catch (IOException e) {
+                admitted.add(name + " failed: " + e.getMessage());
+            }
+        });
+        thread.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (limiter.getQueued(priority) == queued && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(queued + 1, limiter.getQueued(priority));
+
+        return thread;
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter) throws IOException {
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            limiter.acquire(RpcPriority.READ);
+        }
+    }
+
+    /**
+     * Send a request through the given service while all other slots of the limiter are used.
+     */
+    private static void sendSaturated(LimitedWeb3jService service, AdaptiveConcurrencyLimiter limiter) throws IOException {
+        int held = 0;
+        while (limiter.getInFlight() < limiter.getLimit() - 1) {
+            limiter.acquire(RpcPriority.READ);
+            held++;
+        }
+
+        service.send(request("eth_call"), Response.class);
+
+        for (int i = 0; i < held; i++) {
+            release(limiter, "eth_call", 5 * MILLISECOND, true);
+        }
+    }
+
+    private static void releaseAll(AdaptiveConcurrencyLimiter limiter, String method, long latency) {
+        while (limiter.getInFlight() > 0) {
+            release(limiter, method, latency, true);
+        }
+    }
+
+    /**
+     * Release a request as if it had taken the given latency in nanoseconds.
+     */
+    private static void release(AdaptiveConcurrencyLimiter limiter, String method, long latency, boolean successful) {
+        limiter.release(System.nanoTime() - latency, method, successful);
+    }
+
+    private static Request<?, Response> request(String method) {
+        return new Request<>(method, Collections.emptyList(), null, Response.class);
+    }
+}
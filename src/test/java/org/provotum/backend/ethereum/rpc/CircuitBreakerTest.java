@@ -0,0 +1,89 @@
+package org.provotum.backend.ethereum.rpc;
+
+import junit.framework.TestCase;
+
+public class CircuitBreakerTest extends TestCase {
+
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 60000);
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+
+        // a success in between resets the count
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertEquals(1, breaker.getTrips());
+
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getRejected());
+    }
+
+    public void testSuccessfulProbeCloses() {
+        CircuitBreaker breaker = this.tripped();
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // only a single probe at a time
+        assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    public void testFailedProbeOpensAgain() {
+        CircuitBreaker breaker = this.tripped();
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTrips());
+    }
+
+    public void testCancelledProbeAllowsAnotherProbe() {
+        CircuitBreaker breaker = this.tripped();
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordCancelled();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertEquals(1, breaker.getTrips());
+    }
+
+    public void testInvalidThreshold() {
+        try {
+            new CircuitBreaker(0, 1000);
+            fail("A threshold below one must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * @return A breaker which opened once and probes right away.
+     */
+    private CircuitBreaker tripped() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        return breaker;
+    }
+}
@@ -0,0 +1,140 @@
+package org.provotum.backend.ethereum.rpc;
+
+import junit.framework.TestCase;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+import rx.Observable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.CompletableFuture;
+
+public class CircuitBreakingWeb3jServiceTest extends TestCase {
+
+    private final Request request = new Request();
+
+    public void testSuccessCloses() throws IOException {
+        CircuitBreaker breaker = tripped();
+        CircuitBreakingWeb3jService service = new CircuitBreakingWeb3jService(new FailingService(null), breaker);
+
+        assertNotNull(service.send(this.request, Response.class));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    public void testIOExceptionOpens() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60000);
+        CircuitBreakingWeb3jService service = new CircuitBreakingWeb3jService(new FailingService(new IOException("refused")), breaker);
+
+        this.sendFailing(service, IOException.class);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // rejected without contacting the node
+        this.sendFailing(service, NodeUnavailableException.class);
+    }
+
+    public void testTimeoutIsFailure() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60000);
+        CircuitBreakingWeb3jService service = new CircuitBreakingWeb3jService(new FailingService(new SocketTimeoutException("timeout")), breaker);
+
+        this.sendFailing(service, SocketTimeoutException.class);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    public void testRuntimeExceptionInProbeOpens() {
+        CircuitBreaker breaker = tripped();
+        CircuitBreakingWeb3jService service = new CircuitBreakingWeb3jService(new FailingService(new IllegalStateException("malformed")), breaker);
+
+        this.sendFailing(service, IllegalStateException.class);
+
+        // the probe is over, the breaker must not stay half-open
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTrips());
+    }
+
+    public void testInterruptionIsNoFailure() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60000);
+
+        this.sendFailing(new CircuitBreakingWeb3jService(new FailingService(new InterruptedIOException("interrupted")), breaker), InterruptedIOException.class);
+        this.sendFailing(new CircuitBreakingWeb3jService(new FailingService(new ClosedByInterruptException()), breaker), ClosedByInterruptException.class);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getTrips());
+    }
+
+    public void testInterruptedProbeAllowsAnotherProbe() throws IOException {
+        CircuitBreaker breaker = tripped();
+
+        this.sendFailing(new CircuitBreakingWeb3jService(new FailingService(new InterruptedIOException("interrupted")), breaker), InterruptedIOException.class);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        new CircuitBreakingWeb3jService(new FailingService(null), breaker).send(this.request, Response.class);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void sendFailing(CircuitBreakingWeb3jService service, Class<? extends Exception> expected) {
+        try {
+            service.send(this.request, Response.class);
+            fail("Expected " + expected.getSimpleName());
+        } catch (IOException | RuntimeException e) {
+            assertEquals(expected, e.getClass());
+        }
+    }
+
+    /**
+     * @return A breaker which opened once and probes right away.
+     */
+    private static CircuitBreaker tripped() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.allowRequest();
+        breaker.recordFailure();
+
+        return breaker;
+    }
+
+    /**
+     * Throws the given exception on each request, or answers if there is none.
+     */
+    private static class FailingService implements Web3jService {
+
+        private final Exception failure;
+
+        private FailingService(Exception failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+            if (this.failure instanceof IOException) {
+                throw (IOException) this.failure;
+            }
+
+            if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            }
+
+            try {
+                return responseType.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.provotum.backend.execution;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CorrelatingScheduledThreadPoolExecutorTest extends TestCase {
+
+    private CorrelatingScheduledThreadPoolExecutor executor;
+
+    @Override
+    protected void setUp() {
+        this.executor = new CorrelatingScheduledThreadPoolExecutor(1, new NamedThreadFactory("test"));
+    }
+
+    @Override
+    protected void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    public void testOneShotTaskRunsWithId() throws Exception {
+        String previous = CorrelationId.declare("request-1");
+
+        try {
+            assertEquals("request-1", this.executor.submit(CorrelationId::current).get(10, TimeUnit.SECONDS));
+            assertEquals("request-1", this.executor.schedule(CorrelationId::current, 1, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS));
+        } finally {
+            CorrelationId.restore(previous);
+        }
+
+        // the id does not stick to the thread
+        assertNull(this.executor.submit(CorrelationId::current).get(10, TimeUnit.SECONDS));
+    }
+
+    public void testPeriodicTaskRunsWithoutId() throws InterruptedException {
+        AtomicReference<String> id = new AtomicReference<>("unset");
+        CountDownLatch ran = new CountDownLatch(2);
+        String previous = CorrelationId.declare("request-1");
+
+        ScheduledFuture<?> future;
+        try {
+            future = this.executor.scheduleWithFixedDelay(() -> {
+                id.set(CorrelationId.current());
+                ran.countDown();
+            }, 0, 1, TimeUnit.MILLISECONDS);
+        } finally {
+            CorrelationId.restore(previous);
+        }
+
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        future.cancel(false);
+
+        assertNull(id.get());
+    }
+}
@@ -0,0 +1,227 @@
+package org.provotum.backend.execution;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class KeyedSerialExecutorTest extends TestCase {
+
+    public void testRunsTasksOfKeyInOrder() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 1000);
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            executor.execute("first", () -> {
+                first.add(value);
+                done.countDown();
+            });
+            executor.execute("second", () -> {
+                second.add(value);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), first.get(i));
+            assertEquals(Integer.valueOf(i), second.get(i));
+        }
+
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getActiveKeys());
+        assertEquals(0, executor.getPendingTasks());
+    }
+
+    public void testRejectsWhenMailboxIsFull() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute("key", () -> await(release));
+        executor.execute("key", () -> {
+        });
+
+        try {
+            executor.execute("key", () -> {
+            });
+            fail("The third task must be rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+
+        // other keys are not affected
+        executor.execute("other", () -> {
+        });
+
+        assertEquals(1, executor.getRejectedTasks());
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getPendingTasks());
+    }
+
+    public void testRejectionByExecutorKeepsConcurrentlyAcceptedTasks() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch scheduling = new CountDownLatch(1);
+        CountDownLatch enqueued = new CountDownLatch(1);
+        AtomicBoolean isSaturated = new AtomicBoolean(true);
+
+        // rejects the first task only once another one was accepted for the same key
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(command -> {
+            if (isSaturated.getAndSet(false)) {
+                scheduling.countDown();
+                await(enqueued);
+
+                throw new RejectedExecutionException("saturated");
+            }
+
+            pool.execute(command);
+        }, 10);
+
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<RejectedExecutionException> rejection = new AtomicReference<>();
+
+        Thread submitter = new Thread(() -> {
+            try {
+                executor.execute("key", () -> ran.add("rejected"));
+            } catch (RejectedExecutionException e) {
+                rejection.set(e);
+            }
+        });
+        submitter.start();
+
+        assertTrue(scheduling.await(10, TimeUnit.SECONDS));
+
+        // the mailbox is marked as scheduled, so this one is accepted
+        executor.execute("key", () -> {
+            ran.add("accepted");
+            threads.add(Thread.currentThread());
+        });
+        enqueued.countDown();
+
+        submitter.join(10000);
+
+        // the accepted task is not run on the rejected submitter, but stays pending
+        assertNotNull(rejection.get());
+        assertEquals(Collections.emptyList(), ran);
+        assertEquals(1, executor.getRejectedTasks());
+        assertEquals(1, executor.getActiveKeys());
+        assertEquals(1, executor.getPendingTasks());
+
+        // and runs ahead of the next task of the key
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("key", () -> {
+            ran.add("next");
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("accepted", "next"), ran);
+        assertFalse(threads.contains(submitter));
+        assertFalse(threads.contains(Thread.currentThread()));
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getActiveKeys());
+        assertEquals(0, executor.getPendingTasks());
+    }
+
+    public void testSchedulesPendingTasksOnceThreadFreesUp() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch scheduling = new CountDownLatch(1);
+        CountDownLatch enqueued = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        // rejects the mailbox of the key only, once another task was accepted for it
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(command -> {
+            if (2 == calls.incrementAndGet()) {
+                scheduling.countDown();
+                await(enqueued);
+
+                throw new RejectedExecutionException("saturated");
+            }
+
+            pool.execute(command);
+        }, 10);
+
+        executor.execute("busy", () -> await(release));
+
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        Thread submitter = new Thread(() -> {
+            try {
+                executor.execute("key", () -> ran.add("rejected"));
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+        });
+        submitter.start();
+
+        assertTrue(scheduling.await(10, TimeUnit.SECONDS));
+        executor.execute("key", () -> {
+            ran.add("accepted");
+            done.countDown();
+        });
+        enqueued.countDown();
+        submitter.join(10000);
+
+        // the busy task and the accepted one
+        assertEquals(2, executor.getPendingTasks());
+        assertEquals(Collections.emptyList(), ran);
+
+        // no other task of the key is submitted, the busy mailbox schedules it once drained
+        release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("accepted"), ran);
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getPendingTasks());
+    }
+
+    public void testRejectionByExecutorDiscardsMailbox() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(command -> {
+            throw new RejectedExecutionException("shut down");
+        }, 10);
+
+        try {
+            executor.execute("key", () -> fail("A rejected task must not run"));
+            fail("The task must be rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+
+        assertEquals(0, executor.getActiveKeys());
+        assertEquals(1, executor.getRejectedTasks());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
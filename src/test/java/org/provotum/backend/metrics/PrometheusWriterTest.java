@@ -0,0 +1,99 @@
+package org.provotum.backend.metrics;
+
+import junit.framework.TestCase;
+import org.provotum.backend.timer.LatencyHistogram;
+
+public class PrometheusWriterTest extends TestCase {
+
+    public void testFamilyWithLabels() {
+        String output = new PrometheusWriter()
+            .family("provotum_rpc_errors_total", PrometheusWriter.COUNTER, "RPC errors by method.")
+            .sample("provotum_rpc_errors_total", 3, "method", "eth_call", "kind", "response")
+            .sample("provotum_rpc_errors_total", 0, "method", "eth_getLogs", "kind", "transport")
+            .toString();
+
+        assertEquals(
+            "# HELP provotum_rpc_errors_total RPC errors by method.\n" +
+                "# TYPE provotum_rpc_errors_total counter\n" +
+                "provotum_rpc_errors_total{method=\"eth_call\",kind=\"response\"} 3\n" +
+                "provotum_rpc_errors_total{method=\"eth_getLogs\",kind=\"transport\"} 0\n",
+            output
+        );
+    }
+
+    public void testSampleWithoutLabels() {
+        String output = new PrometheusWriter()
+            .family("provotum_rpc_limit", PrometheusWriter.GAUGE, "Current limit.")
+            .sample("provotum_rpc_limit", 12)
+            .toString();
+
+        assertEquals("# HELP provotum_rpc_limit Current limit.\n# TYPE provotum_rpc_limit gauge\nprovotum_rpc_limit 12\n", output);
+    }
+
+    public void testEscapesLabelValues() {
+        String output = new PrometheusWriter()
+            .sample("metric", 1, "path", "C:\\votes", "quote", "say \"yes\"", "lines", "a\nb", "missing", null)
+            .toString();
+
+        assertEquals("metric{path=\"C:\\\\votes\",quote=\"say \\\"yes\\\"\",lines=\"a\\nb\",missing=\"\"} 1\n", output);
+    }
+
+    public void testEscapesHelp() {
+        String output = new PrometheusWriter()
+            .family("metric", PrometheusWriter.GAUGE, "Backslash \\ and\nnewline, \"quotes\" stay")
+            .toString();
+
+        // quotes are only escaped in label values
+        assertEquals("# HELP metric Backslash \\\\ and\\nnewline, \"quotes\" stay\n# TYPE metric gauge\n", output);
+    }
+
+    public void testFormatsValues() {
+        String output = new PrometheusWriter()
+            .sample("a", 0.25)
+            .sample("b", -7)
+            .sample("c", Double.NaN)
+            .sample("d", Double.POSITIVE_INFINITY)
+            .sample("e", Double.NEGATIVE_INFINITY)
+            .sample("f", 1e20)
+            .toString();
+
+        assertEquals("a 0.25\nb -7\nc NaN\nd +Inf\ne -Inf\nf 1.0E20\n", output);
+    }
+
+    public void testLatenciesInSeconds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2000000000L);
+        histogram.record(2000000000L);
+
+        String output = new PrometheusWriter()
+            .family("provotum_rpc_duration_seconds", PrometheusWriter.SUMMARY, "Latency.")
+            .latencies("provotum_rpc_duration_seconds", histogram.getSnapshot(), "method", "eth_call")
+            .toString();
+
+        assertEquals(
+            "# HELP provotum_rpc_duration_seconds Latency.\n" +
+                "# TYPE provotum_rpc_duration_seconds summary\n" +
+                "provotum_rpc_duration_seconds{method=\"eth_call\",quantile=\"0.5\"} 2\n" +
+                "provotum_rpc_duration_seconds{method=\"eth_call\",quantile=\"0.9\"} 2\n" +
+                "provotum_rpc_duration_seconds{method=\"eth_call\",quantile=\"0.99\"} 2\n" +
+                "provotum_rpc_duration_seconds_sum{method=\"eth_call\"} 4\n" +
+                "provotum_rpc_duration_seconds_count{method=\"eth_call\"} 2\n",
+            output
+        );
+    }
+
+    public void testLatenciesWithoutLabels() {
+        String output = new PrometheusWriter()
+            .latencies("duration_seconds", new LatencyHistogram().getSnapshot())
+            .toString();
+
+        assertEquals(
+            "duration_seconds{quantile=\"0.5\"} 0\n" +
+                "duration_seconds{quantile=\"0.9\"} 0\n" +
+                "duration_seconds{quantile=\"0.99\"} 0\n" +
+                "duration_seconds_sum 0\n" +
+                "duration_seconds_count 0\n",
+            output
+        );
+    }
+}
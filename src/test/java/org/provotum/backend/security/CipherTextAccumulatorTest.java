@@ -0,0 +1,83 @@
+package org.provotum.backend.security;
+
+import junit.framework.TestCase;
+import org.provotum.security.arithmetic.ModInteger;
+import org.provotum.security.elgamal.additive.CipherText;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class CipherTextAccumulatorTest extends TestCase {
+
+    private static final int[] BIT_LENGTHS = {2, 31, 32, 33, 63, 64, 65, 512, 2048};
+
+    private final Random random = new Random(7);
+
+    public void testMatchesBigIntegerForRandomModuli() {
+        for (int bitLength : BIT_LENGTHS) {
+            BigInteger modulus = new BigInteger(bitLength, this.random).setBit(bitLength - 1).setBit(0);
+            // the random values live in the group of the exponents, which is of another size
+            BigInteger randomModulus = new BigInteger(bitLength, this.random).setBit(bitLength - 1);
+
+            this.assertSums(modulus, randomModulus);
+        }
+    }
+
+    public void testMatchesBigIntegerForLargestModuli() {
+        for (int bitLength : BIT_LENGTHS) {
+            BigInteger modulus = BigInteger.ONE.shiftLeft(bitLength).subtract(BigInteger.ONE);
+
+            this.assertSums(modulus, modulus);
+        }
+    }
+
+    public void testEvenModulusFallsBack() {
+        BigInteger modulus = BigInteger.valueOf(1L << 40);
+
+        this.assertSums(modulus, modulus.add(BigInteger.ONE));
+    }
+
+    private void assertSums(BigInteger modulus, BigInteger randomModulus) {
+        CipherText initial = this.cipherText(modulus, randomModulus);
+        CipherTextAccumulator accumulator = new CipherTextAccumulator(initial);
+
+        BigInteger g = initial.getG().asBigInteger();
+        BigInteger h = initial.getH().asBigInteger();
+        BigInteger r = initial.getR().asBigInteger();
+
+        for (int i = 0; i < 40; i++) {
+            CipherText cipherText = this.cipherText(modulus, randomModulus);
+            accumulator.add(cipherText);
+
+            g = g.multiply(cipherText.getG().asBigInteger()).mod(modulus);
+            h = h.multiply(cipherText.getH().asBigInteger()).mod(modulus);
+            r = r.add(cipherText.getR().asBigInteger()).mod(randomModulus);
+        }
+
+        CipherText sum = accumulator.toCipherText();
+        String message = "modulus " + modulus.toString(16);
+
+        assertEquals(message, g, sum.getG().asBigInteger().mod(modulus));
+        assertEquals(message, h, sum.getH().asBigInteger().mod(modulus));
+        assertEquals(message, r, sum.getR().asBigInteger().mod(randomModulus));
+    }
+
+    private CipherText cipherText(BigInteger modulus, BigInteger randomModulus) {
+        return new CipherText(
+            new ModInteger(this.value(modulus), modulus),
+            new ModInteger(this.value(modulus), modulus),
+            new ModInteger(this.value(randomModulus), randomModulus)
+        );
+    }
+
+    /**
+     * @return A random value modulo the given modulus, at times its largest value.
+     */
+    private BigInteger value(BigInteger modulus) {
+        if (this.random.nextInt(5) == 0) {
+            return modulus.subtract(BigInteger.ONE);
+        }
+
+        return new BigInteger(modulus.bitLength() + 8, this.random).mod(modulus);
+    }
+}
@@ -0,0 +1,126 @@
+package org.provotum.backend.security;
+
+import junit.framework.TestCase;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MontgomeryProductTest extends TestCase {
+
+    /**
+     * Bit lengths of the moduli, including those at and around word boundaries.
+     */
+    private static final int[] BIT_LENGTHS = {1, 2, 3, 31, 32, 33, 63, 64, 65, 95, 96, 97, 127, 128, 129, 512, 1024, 2048};
+
+    private final Random random = new Random(42);
+
+    public void testMatchesBigIntegerForRandomModuli() {
+        for (BigInteger modulus : this.moduli()) {
+            BigInteger initial = this.factor(modulus);
+            MontgomeryProduct product = new MontgomeryProduct(modulus, initial);
+            BigInteger expected = initial.mod(modulus);
+
+            for (int i = 0; i < 50; i++) {
+                BigInteger factor = this.factor(modulus);
+
+                product.multiply(factor);
+                expected = expected.multiply(factor).mod(modulus);
+
+                assertEquals("modulus " + modulus.toString(16) + " after " + (i + 1) + " factors", expected, product.get());
+            }
+        }
+    }
+
+    public void testMatchesBigIntegerForEdgeFactors() {
+        for (BigInteger modulus : this.moduli()) {
+            BigInteger maximum = modulus.subtract(BigInteger.ONE);
+            BigInteger[] factors = {
+                maximum,
+                maximum,
+                BigInteger.ONE,
+                modulus,
+                modulus.add(maximum),
+                modulus.shiftLeft(40).add(BigInteger.ONE),
+                maximum.negate(),
+                BigInteger.ZERO,
+                maximum
+            };
+
+            MontgomeryProduct product = new MontgomeryProduct(modulus, maximum);
+            BigInteger expected = maximum;
+
+            for (BigInteger factor : factors) {
+                product.multiply(factor);
+                expected = expected.multiply(factor).mod(modulus);
+
+                assertEquals("modulus " + modulus.toString(16) + " and factor " + factor.toString(16), expected, product.get());
+            }
+        }
+    }
+
+    public void testWithoutFactors() {
+        for (BigInteger modulus : this.moduli()) {
+            BigInteger initial = this.factor(modulus);
+
+            assertEquals(initial.mod(modulus), new MontgomeryProduct(modulus, initial).get());
+        }
+    }
+
+    public void testRejectsEvenModulus() {
+        for (BigInteger modulus : new BigInteger[]{BigInteger.ZERO, BigInteger.valueOf(2), BigInteger.valueOf(-7), BigInteger.ONE.shiftLeft(64)}) {
+            try {
+                new MontgomeryProduct(modulus, BigInteger.ONE);
+                fail("Modulus " + modulus + " must be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testLoadAndToBigInteger() {
+        for (int bitLength : BIT_LENGTHS) {
+            BigInteger value = new BigInteger(bitLength, this.random);
+            int[] words = new int[(bitLength + 31) / 32 + 2];
+
+            // stale words must be overwritten
+            Arrays.fill(words, -1);
+            MontgomeryProduct.load(value, words);
+
+            assertEquals(value, MontgomeryProduct.toBigInteger(words, words.length));
+        }
+
+        // bits beyond the words are ignored
+        int[] words = new int[1];
+        MontgomeryProduct.load(BigInteger.ONE.shiftLeft(32).add(BigInteger.valueOf(0xFFFFFFFFL)), words);
+        assertEquals(-1, words[0]);
+    }
+
+    /**
+     * @return Random odd moduli of each bit length, and the largest odd modulus of each bit length.
+     */
+    private List<BigInteger> moduli() {
+        List<BigInteger> moduli = new ArrayList<>();
+
+        for (int bitLength : BIT_LENGTHS) {
+            for (int i = 0; i < 3; i++) {
+                moduli.add(new BigInteger(bitLength, this.random).setBit(bitLength - 1).setBit(0));
+            }
+
+            moduli.add(BigInteger.ONE.shiftLeft(bitLength).subtract(BigInteger.ONE));
+        }
+
+        return moduli;
+    }
+
+    /**
+     * @return A random factor, which is at times not reduced modulo the given modulus.
+     */
+    private BigInteger factor(BigInteger modulus) {
+        BigInteger factor = new BigInteger(modulus.bitLength() + 8, this.random);
+
+        return this.random.nextInt(4) == 0 ? factor : factor.mod(modulus);
+    }
+}
@@ -0,0 +1,141 @@
+package org.provotum.backend.security;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VerificationCacheTest extends TestCase {
+
+    private static final byte[] KEY = "backend-key".getBytes(StandardCharsets.UTF_8);
+
+    private File file;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.file = File.createTempFile("verification", ".cache");
+        assertTrue(this.file.delete());
+    }
+
+    @Override
+    protected void tearDown() {
+        this.file.delete();
+    }
+
+    public void testEvictsLeastRecentlyUsed() {
+        VerificationCache cache = new VerificationCache(2, null);
+
+        cache.put("a", true);
+        cache.put("b", false);
+        // a is now used more recently than b
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        cache.put("c", true);
+
+        assertEquals(2, cache.getSize());
+        assertNull(cache.get("b"));
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        assertEquals(Boolean.TRUE, cache.get("c"));
+
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.75, cache.getHitRate(), 0.0001);
+    }
+
+    public void testDisabled() {
+        VerificationCache cache = new VerificationCache(0, this.file);
+
+        cache.put("a", true);
+        cache.load(KEY);
+        cache.persist();
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("a"));
+        assertFalse(this.file.exists());
+    }
+
+    public void testPersistAndLoad() {
+        VerificationCache cache = new VerificationCache(3, this.file);
+        cache.load(KEY);
+        cache.put("a", true);
+        cache.put("b", false);
+        cache.put("c", true);
+        cache.get("a");
+        cache.persist();
+
+        VerificationCache loaded = new VerificationCache(3, this.file);
+        assertEquals(0, loaded.getSize());
+
+        loaded.put("d", true);
+        loaded.load(KEY);
+
+        // entries remembered before loading count as the most recently used
+        assertEquals(3, loaded.getSize());
+        assertNull(loaded.get("b"));
+        assertEquals(Boolean.TRUE, loaded.get("d"));
+        assertEquals(Boolean.TRUE, loaded.get("a"));
+        assertEquals(Boolean.TRUE, loaded.get("c"));
+    }
+
+    public void testPersistsOutcomes() {
+        VerificationCache cache = new VerificationCache(10, this.file);
+        cache.load(KEY);
+        cache.put("valid", true);
+        cache.put("invalid", false);
+        cache.persist();
+
+        VerificationCache loaded = new VerificationCache(10, this.file);
+        loaded.load(KEY);
+
+        assertEquals(Boolean.TRUE, loaded.get("valid"));
+        assertEquals(Boolean.FALSE, loaded.get("invalid"));
+    }
+
+    public void testIgnoresAlteredEntries() throws IOException {
+        VerificationCache cache = new VerificationCache(10, this.file);
+        cache.load(KEY);
+        cache.put("valid", true);
+        cache.put("invalid", false);
+        cache.persist();
+
+        // claim the invalid proof verified, keep its tag
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(this.file.toPath(), StandardCharsets.UTF_8)) {
+            lines.add(line.startsWith("invalid,0,") ? line.replace("invalid,0,", "invalid,1,") : line);
+        }
+        lines.add("forged,1");
+        lines.add("forged,1,00");
+        Files.write(this.file.toPath(), lines, StandardCharsets.UTF_8);
+
+        VerificationCache loaded = new VerificationCache(10, this.file);
+        loaded.load(KEY);
+
+        assertEquals(1, loaded.getSize());
+        assertEquals(Boolean.TRUE, loaded.get("valid"));
+        assertNull(loaded.get("invalid"));
+        assertNull(loaded.get("forged"));
+    }
+
+    public void testIgnoresEntriesOfOtherKey() {
+        VerificationCache cache = new VerificationCache(10, this.file);
+        cache.load(KEY);
+        cache.put("a", true);
+        cache.persist();
+
+        VerificationCache loaded = new VerificationCache(10, this.file);
+        loaded.load("other-key".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, loaded.getSize());
+    }
+
+    public void testDoesNotPersistWithoutKey() {
+        VerificationCache cache = new VerificationCache(10, this.file);
+        cache.put("a", true);
+        cache.persist();
+
+        assertFalse(this.file.exists());
+    }
+}
@@ -0,0 +1,207 @@
+package org.provotum.backend.security.engine;
+
+import junit.framework.TestCase;
+import org.bouncycastle.asn1.x9.ECNamedCurveTable;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class EcElGamalEngineTest extends TestCase {
+
+    private static final List<BigInteger> DOMAIN = Arrays.asList(BigInteger.ZERO, BigInteger.ONE);
+
+    private EcElGamalEngine engine;
+
+    @Override
+    protected void setUp() {
+        this.engine = new EcElGamalEngine("secp256r1", 100);
+        this.engine.generateKeys();
+    }
+
+    public void testEncryptDecrypt() {
+        for (long message : new long[]{0, 1, 7, 99, 100}) {
+            VoteCipherText cipherText = this.engine.encrypt(BigInteger.valueOf(message));
+
+            assertNotNull(cipherText.getRandom());
+            assertEquals(BigInteger.valueOf(message), this.engine.decrypt(cipherText));
+
+            // the random value is lost when serialized
+            VoteCipherText deserialized = this.engine.deserializeCipherText(cipherText.serialize());
+            assertEquals(cipherText.serialize(), deserialized.serialize());
+            assertEquals(BigInteger.valueOf(message), this.engine.decrypt(deserialized));
+        }
+    }
+
+    public void testLoadKeys() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.valueOf(3));
+
+        EcElGamalEngine loaded = new EcElGamalEngine("secp256r1", 100);
+        loaded.loadKeys(this.engine.serializePublicKey(), this.engine.serializePrivateKey());
+
+        assertEquals(this.engine.serializePublicKey(), loaded.serializePublicKey());
+        assertEquals(BigInteger.valueOf(3), loaded.decrypt(loaded.deserializeCipherText(cipherText.serialize())));
+    }
+
+    public void testLoadMismatchingKeys() {
+        EcElGamalEngine other = new EcElGamalEngine("secp256r1", 100);
+        other.generateKeys();
+
+        try {
+            this.engine.loadKeys(other.serializePublicKey(), this.engine.serializePrivateKey());
+            fail("Keys of different pairs must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testHomomorphicSum() {
+        int[] votes = {1, 0, 1, 1, 0, 1};
+
+        VoteCipherText first = this.engine.encrypt(BigInteger.valueOf(votes[0]));
+        VoteAccumulator accumulator = first.createAccumulator();
+        BigInteger random = first.getRandom();
+
+        for (int i = 1; i < votes.length; i++) {
+            VoteCipherText cipherText = this.engine.encrypt(BigInteger.valueOf(votes[i]));
+            random = random.add(cipherText.getRandom());
+            accumulator.add(cipherText);
+        }
+
+        VoteCipherText sum = accumulator.toCipherText();
+
+        assertEquals(BigInteger.valueOf(4), this.engine.decrypt(sum));
+        assertNotNull(sum.getRandom());
+
+        // the sum of the random values is known, so the sum can be proven as well
+        List<BigInteger> sums = Arrays.asList(BigInteger.valueOf(3), BigInteger.valueOf(4), BigInteger.valueOf(5));
+        VoteProof proof = this.engine.commit(BigInteger.valueOf(4), sum, sums);
+        assertTrue(this.engine.verify(sum, proof, sums));
+    }
+
+    public void testSumWithUnknownRandom() {
+        VoteCipherText first = this.engine.encrypt(BigInteger.ONE);
+        VoteAccumulator accumulator = this.engine.deserializeCipherText(first.serialize()).createAccumulator();
+        accumulator.add(this.engine.encrypt(BigInteger.ONE));
+
+        VoteCipherText sum = accumulator.toCipherText();
+
+        assertNull(sum.getRandom());
+        assertEquals(BigInteger.valueOf(2), this.engine.decrypt(sum));
+    }
+
+    public void testValidProofVerifies() {
+        for (BigInteger vote : DOMAIN) {
+            VoteCipherText cipherText = this.engine.encrypt(vote);
+            VoteProof proof = this.engine.commit(vote, cipherText, DOMAIN);
+
+            assertTrue(this.engine.verify(cipherText, proof, DOMAIN));
+
+            // as received from a voter
+            VoteCipherText receivedCipherText = this.engine.deserializeCipherText(cipherText.serialize());
+            VoteProof receivedProof = this.engine.deserializeProof(proof.serialize());
+            assertTrue(this.engine.verify(receivedCipherText, receivedProof, DOMAIN));
+        }
+    }
+
+    public void testTamperedProofFails() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.ONE);
+        String proof = this.engine.commit(BigInteger.ONE, cipherText, DOMAIN).serialize();
+
+        // change the last digit of the last response of the proof
+        char last = proof.charAt(proof.length() - 1);
+        String tampered = proof.substring(0, proof.length() - 1) + ('0' == last ? '1' : '0');
+
+        assertFalse(this.engine.verify(cipherText, this.engine.deserializeProof(tampered), DOMAIN));
+    }
+
+    public void testProofWithScalarOutOfRangeFails() {
+        BigInteger order = ECNamedCurveTable.getByName("secp256r1").getN();
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.ONE);
+        String proof = this.engine.commit(BigInteger.ONE, cipherText, DOMAIN).serialize();
+
+        // as crafted by a voter, the last response and challenge of the proof beyond the order of the curve
+        assertFalse(this.engine.verify(cipherText, this.engine.deserializeProof(replaceComponent(proof, 3, order.add(BigInteger.ONE).toString(16))), DOMAIN));
+        assertFalse(this.engine.verify(cipherText, this.engine.deserializeProof(replaceComponent(proof, 3, order.toString(16))), DOMAIN));
+        assertFalse(this.engine.verify(cipherText, this.engine.deserializeProof(replaceComponent(proof, 3, order.shiftLeft(1).add(BigInteger.ONE).toString(16))), DOMAIN));
+        assertFalse(this.engine.verify(cipherText, this.engine.deserializeProof(replaceComponent(proof, 2, order.add(BigInteger.ONE).toString(16))), DOMAIN));
+        assertFalse(this.engine.verify(cipherText, this.engine.deserializeProof(replaceComponent(proof, 2, "-1")), DOMAIN));
+    }
+
+    public void testProofOfEmptyDomainFails() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.ONE);
+        VoteProof proof = this.engine.commit(BigInteger.ONE, cipherText, DOMAIN);
+
+        assertFalse(this.engine.verify(cipherText, proof, Collections.emptyList()));
+
+        try {
+            this.engine.deserializeProof("");
+            fail("An empty proof must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testProofOfOtherCipherTextFails() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.ONE);
+        VoteCipherText other = this.engine.encrypt(BigInteger.ONE);
+        VoteProof proof = this.engine.commit(BigInteger.ONE, cipherText, DOMAIN);
+
+        assertFalse(this.engine.verify(other, proof, DOMAIN));
+    }
+
+    public void testProofOfOtherDomainFails() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.ONE);
+        VoteProof proof = this.engine.commit(BigInteger.ONE, cipherText, DOMAIN);
+
+        assertFalse(this.engine.verify(cipherText, proof, Arrays.asList(BigInteger.ONE, BigInteger.valueOf(2))));
+        assertFalse(this.engine.verify(cipherText, proof, Arrays.asList(BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(2))));
+    }
+
+    public void testOutOfDomainVote() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.valueOf(2));
+
+        try {
+            this.engine.commit(BigInteger.valueOf(2), cipherText, DOMAIN);
+            fail("A proof for a vote outside of the domain must not be created");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // a proof claiming another value of the domain does not verify
+        VoteProof forged = this.engine.commit(BigInteger.ONE, this.engine.deserializeCipherText(cipherText.serialize(), cipherText.getRandom()), DOMAIN);
+        assertFalse(this.engine.verify(cipherText, forged, DOMAIN));
+    }
+
+    public void testDecryptAboveMaximum() {
+        VoteCipherText cipherText = this.engine.encrypt(BigInteger.valueOf(101));
+
+        try {
+            this.engine.decrypt(cipherText);
+            fail("Messages above the maximum must not be decrypted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testUnknownCurve() {
+        try {
+            new EcElGamalEngine("no-such-curve", 100);
+            fail("Unknown curves must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * @return The given serialized proof with the component at the given index of its last value replaced.
+     */
+    private static String replaceComponent(String proof, int index, String component) {
+        int valueStart = proof.lastIndexOf(';') + 1;
+        String[] parts = proof.substring(valueStart).split(",");
+        parts[index] = component;
+
+        return proof.substring(0, valueStart) + String.join(",", parts);
+    }
+}
@@ -0,0 +1,136 @@
+package org.provotum.backend.tally;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TallyCheckpointStoreTest extends TestCase {
+
+    private static final String BALLOT = "0xAbC123";
+    private static final String KEY = "key-fingerprint";
+
+    private File directory;
+    private TallyCheckpointStore store;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("checkpoints").toFile();
+        this.store = new TallyCheckpointStore(this.directory, 50);
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = this.directory.listFiles();
+
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        this.directory.delete();
+    }
+
+    public void testSaveLoad() throws IOException {
+        this.store.save(checkpoint(KEY, 7, Arrays.asList(2L, 5L)));
+
+        TallyCheckpoint loaded = this.store.load(BALLOT, KEY);
+
+        assertNotNull(loaded);
+        assertEquals(BALLOT, loaded.getContractAddress());
+        assertEquals(KEY, loaded.getKeyFingerprint());
+        assertEquals(7, loaded.getNextIndex());
+        assertEquals(Arrays.asList(2L, 5L), loaded.getInvalidIndices());
+        assertEquals("cipher-text-7", loaded.getCipherText());
+        assertEquals(BigInteger.valueOf(7).shiftLeft(200), loaded.getRandom());
+
+        // addresses are not case sensitive
+        assertNotNull(this.store.load(BALLOT.toLowerCase(), KEY));
+    }
+
+    public void testSaveLoadWithoutInvalidVotes() throws IOException {
+        this.store.save(checkpoint(KEY, 3, Collections.emptyList()));
+
+        assertEquals(Collections.emptyList(), this.store.load(BALLOT, KEY).getInvalidIndices());
+    }
+
+    public void testSaveReplacesCheckpoint() throws IOException {
+        this.store.save(checkpoint(KEY, 50, Collections.singletonList(1L)));
+        this.store.save(checkpoint(KEY, 100, Arrays.asList(1L, 60L)));
+
+        TallyCheckpoint loaded = this.store.load(BALLOT, KEY);
+
+        assertEquals(100, loaded.getNextIndex());
+        assertEquals(Arrays.asList(1L, 60L), loaded.getInvalidIndices());
+        assertEquals("cipher-text-100", loaded.getCipherText());
+
+        // the checkpoint was moved into place, nothing is left behind
+        assertEquals(Collections.singletonList(this.checkpointFile().getName()), Arrays.asList(this.directory.list()));
+    }
+
+    public void testIgnoresTemporaryFileOfInterruptedSave() throws IOException {
+        this.store.save(checkpoint(KEY, 50, Collections.emptyList()));
+
+        // as left by a crash while writing the next checkpoint
+        write(new File(this.directory, this.checkpointFile().getName() + ".tmp"), "nextIndex=10");
+
+        assertEquals(50, this.store.load(BALLOT, KEY).getNextIndex());
+
+        // and is overwritten by the next save
+        this.store.save(checkpoint(KEY, 100, Collections.emptyList()));
+        assertEquals(100, this.store.load(BALLOT, KEY).getNextIndex());
+        assertEquals(1, this.directory.list().length);
+    }
+
+    public void testRejectsCheckpointOfOtherKey() throws IOException {
+        this.store.save(checkpoint(KEY, 7, Collections.emptyList()));
+
+        assertNull(this.store.load(BALLOT, "other-key-fingerprint"));
+
+        // the checkpoint is kept, it is replaced by the next save of the new tally
+        assertNotNull(this.store.load(BALLOT, KEY));
+    }
+
+    public void testIgnoresUnreadableCheckpoint() throws IOException {
+        write(this.checkpointFile(), "keyFingerprint=" + KEY + "\nnextIndex=seven\n");
+
+        assertNull(this.store.load(BALLOT, KEY));
+    }
+
+    public void testLoadMissing() {
+        assertNull(this.store.load(BALLOT, KEY));
+    }
+
+    public void testDelete() throws IOException {
+        this.store.save(checkpoint(KEY, 7, Collections.emptyList()));
+        this.store.delete(BALLOT);
+
+        assertNull(this.store.load(BALLOT, KEY));
+        assertEquals(0, this.directory.list().length);
+
+        // nothing to delete
+        this.store.delete(BALLOT);
+    }
+
+    private File checkpointFile() {
+        return new File(this.directory, BALLOT.toLowerCase() + ".checkpoint");
+    }
+
+    private static TallyCheckpoint checkpoint(String keyFingerprint, long nextIndex, List<Long> invalidIndices) {
+        return new TallyCheckpoint(BALLOT, keyFingerprint, nextIndex, invalidIndices, "cipher-text-" + nextIndex, BigInteger.valueOf(nextIndex).shiftLeft(200));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+}
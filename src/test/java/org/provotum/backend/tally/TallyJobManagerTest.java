@@ -0,0 +1,117 @@
+package org.provotum.backend.tally;
+
+import junit.framework.TestCase;
+import org.provotum.backend.communication.message.base.AResponse;
+import org.provotum.backend.communication.socket.publisher.TopicPublisher;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class TallyJobManagerTest extends TestCase {
+
+    private static final String BALLOT = "0xBallot";
+
+    private final List<AResponse> published = new ArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private TallyJobManager manager;
+
+    @Override
+    protected void setUp() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.manager = new TallyJobManager(new TopicPublisher(null) {
+            @Override
+            public void send(String topic, AResponse response) {
+                published.add(response);
+            }
+        }, this.scheduler, 60000, 60000);
+    }
+
+    @Override
+    protected void tearDown() {
+        this.manager.shutdown();
+        this.scheduler.shutdownNow();
+    }
+
+    public void testJoinsQueuedJob() {
+        TallyJobManager.JoinResult first = this.manager.join(BALLOT);
+        TallyJobManager.JoinResult second = this.manager.join(BALLOT.toLowerCase());
+
+        assertTrue(first.isCreated());
+        assertFalse(second.isCreated());
+        assertSame(first.getJob(), second.getJob());
+        assertSame(first.getJob(), this.manager.get(first.getJob().getId()));
+
+        // other ballots get their own job
+        assertTrue(this.manager.join("0xOther").isCreated());
+    }
+
+    public void testDoesNotJoinStartedJob() {
+        TallyJob running = this.manager.join(BALLOT).getJob();
+        running.start();
+
+        // votes cast since the job started are not covered by it, the next job only
+        // takes over its result once it finds that no votes were cast since
+        TallyJobManager.JoinResult next = this.manager.join(BALLOT);
+
+        assertTrue(next.isCreated());
+        assertNotSame(running, next.getJob());
+        assertNull(this.manager.getLastCompleted(BALLOT));
+    }
+
+    public void testKeepsLastCompletedJob() {
+        TallyJob first = this.manager.join(BALLOT).getJob();
+        first.start();
+        first.setTotalVotes(10);
+        first.setResult(BigInteger.valueOf(6), BigInteger.valueOf(3));
+        this.manager.finish(first, TallyJobState.COMPLETED, "completed");
+
+        assertSame(first, this.manager.getLastCompleted(BALLOT.toLowerCase()));
+        assertEquals(BigInteger.valueOf(6), this.manager.getLastCompleted(BALLOT).getYes());
+        assertEquals(BigInteger.valueOf(3), this.manager.getLastCompleted(BALLOT).getNo());
+        assertEquals(10, this.manager.getLastCompleted(BALLOT).getTotalVotes());
+
+        // a failed job does not replace the last result
+        TallyJob failed = this.manager.join(BALLOT).getJob();
+        this.manager.finish(failed, TallyJobState.FAILED, "failed");
+        assertSame(first, this.manager.getLastCompleted(BALLOT));
+
+        // the sum of another job failed to be published
+        this.manager.discardResult(failed.getId());
+        assertSame(first, this.manager.getLastCompleted(BALLOT));
+
+        this.manager.discardResult(first.getId());
+        assertNull(this.manager.getLastCompleted(BALLOT));
+        assertNull(this.manager.getLastCompleted("0xOther"));
+    }
+
+    public void testDoesNotJoinCancelledJob() {
+        TallyJob cancelled = this.manager.join(BALLOT).getJob();
+
+        assertTrue(this.manager.cancel(cancelled.getId()));
+
+        // the cancelled job has not finished yet, as it waits for its turn
+        assertFalse(cancelled.getState().isFinished());
+
+        TallyJobManager.JoinResult next = this.manager.join(BALLOT);
+
+        assertTrue(next.isCreated());
+        assertNotSame(cancelled, next.getJob());
+    }
+
+    public void testDoesNotJoinFinishedJob() {
+        TallyJob finished = this.manager.join(BALLOT).getJob();
+        this.manager.finish(finished, TallyJobState.FAILED, "failed");
+
+        assertEquals(1, this.published.size());
+        assertTrue(this.manager.join(BALLOT).isCreated());
+
+        // a finished job does not remove its successor
+        TallyJob next = this.manager.join(BALLOT).getJob();
+        this.manager.finish(finished, TallyJobState.FAILED, "failed");
+        assertSame(next, this.manager.join(BALLOT).getJob());
+    }
+}
@@ -0,0 +1,208 @@
+package org.provotum.backend.tally;
+
+import junit.framework.TestCase;
+import org.provotum.backend.communication.rest.message.tally.TallyShardRequest;
+import org.provotum.backend.communication.rest.message.tally.TallyShardResponse;
+import org.provotum.backend.security.EncryptionManager;
+import org.provotum.backend.security.engine.EcElGamalEngine;
+import org.provotum.backend.security.engine.VoteCipherText;
+import org.provotum.backend.security.engine.VoteProof;
+import org.springframework.http.HttpEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TallyShardCoordinatorTest extends TestCase {
+
+    private static final String BALLOT = "0xBallot";
+    private static final String WORKER = "http://worker";
+    private static final String FAILING_WORKER = "http://failing-worker";
+    private static final String SECRET = "shared-secret";
+
+    /**
+     * The votes of the ballot, <code>null</code> for votes with an invalid proof.
+     */
+    private static final Integer[] VOTES = {1, 0, null, 1, 1, 0, 1, null, 0, 1, 1, 1, 0};
+
+    private EcElGamalEngine engine;
+    private EncryptionManager encryptionManager;
+    private List<VoteCipherText> cipherTexts;
+    private ExecutorService executor;
+
+    private final AtomicInteger localShards = new AtomicInteger();
+    private final AtomicInteger remoteShards = new AtomicInteger();
+
+    @Override
+    protected void setUp() {
+        this.engine = new EcElGamalEngine("secp256r1", 100);
+        this.engine.generateKeys();
+        this.encryptionManager = new EncryptionManager(null, this.engine, null, null);
+        this.executor = Executors.newCachedThreadPool();
+
+        this.cipherTexts = new ArrayList<>();
+        for (Integer vote : VOTES) {
+            this.cipherTexts.add((null == vote) ? null : this.engine.encrypt(BigInteger.valueOf(vote)));
+        }
+    }
+
+    @Override
+    protected void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    public void testMergesShardsOfWorkers() throws Exception {
+        PartialTally tally = this.tally(Arrays.asList(WORKER, WORKER), 2);
+
+        this.assertTallied(tally);
+        assertTrue(this.remoteShards.get() > 0);
+    }
+
+    public void testResumesFromCheckpoint() throws Exception {
+        // the first three votes were tallied before
+        PartialTally tally = this.tallyOf(0, 3);
+        List<PartialTally> merged = new ArrayList<>();
+
+        this.coordinator(Collections.singletonList(WORKER), 4).tally(BALLOT, tally, VOTES.length, new TallyJob(BALLOT), this::tallyOf, merged::add);
+
+        this.assertTallied(tally);
+        assertFalse(merged.isEmpty());
+    }
+
+    public void testTalliesShardsOfFailingWorkerLocally() throws Exception {
+        PartialTally tally = this.tally(Collections.singletonList(FAILING_WORKER), 3);
+
+        this.assertTallied(tally);
+        assertEquals(0, this.remoteShards.get());
+        assertEquals((VOTES.length + 2) / 3, this.localShards.get());
+    }
+
+    public void testFailingLocalShardFailsTally() {
+        PartialTally tally = this.tallyOf(0, 0);
+        TallyShardCoordinator coordinator = this.coordinator(Collections.singletonList(FAILING_WORKER), 3);
+
+        try {
+            coordinator.tally(BALLOT, tally, VOTES.length, new TallyJob(BALLOT), (fromIndex, toIndex) -> {
+                if (fromIndex >= 6) {
+                    throw new IllegalStateException("node gone");
+                }
+
+                return this.tallyOf(fromIndex, toIndex);
+            }, merged -> {
+            });
+            fail("The tally must fail if a shard cannot be tallied");
+        } catch (Exception e) {
+            assertEquals("node gone", e.getMessage());
+        }
+
+        // shards are merged in order only, so nothing past the failed shard
+        assertTrue(tally.getNextIndex() <= 6);
+    }
+
+    public void testRequiresSecretForWorkers() {
+        try {
+            new TallyShardCoordinator(new RestTemplate(), Collections.singletonList(WORKER), 3, this.executor, this.encryptionManager, "");
+            fail("Workers must not be used without a shared secret");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // tallying locally only does not need one
+        assertFalse(new TallyShardCoordinator(new RestTemplate(), Collections.emptyList(), 3, this.executor, this.encryptionManager, "").isEnabled());
+    }
+
+    private PartialTally tally(List<String> workers, long shardSize) throws Exception {
+        PartialTally tally = this.tallyOf(0, 0);
+        List<Long> checkpoints = new ArrayList<>();
+
+        this.coordinator(workers, shardSize).tally(BALLOT, tally, VOTES.length, new TallyJob(BALLOT), (fromIndex, toIndex) -> {
+            this.localShards.incrementAndGet();
+            return this.tallyOf(fromIndex, toIndex);
+        }, merged -> checkpoints.add(merged.getNextIndex()));
+
+        // the listener sees the tally advance in order
+        List<Long> sorted = new ArrayList<>(checkpoints);
+        Collections.sort(sorted);
+        assertEquals(sorted, checkpoints);
+        assertEquals(Long.valueOf(VOTES.length), checkpoints.get(checkpoints.size() - 1));
+
+        return tally;
+    }
+
+    private void assertTallied(PartialTally tally) {
+        long yes = 0;
+        List<Long> invalid = new ArrayList<>();
+
+        for (int i = 0; i < VOTES.length; i++) {
+            if (null == VOTES[i]) {
+                invalid.add((long) i);
+            } else {
+                yes += VOTES[i];
+            }
+        }
+
+        assertEquals(VOTES.length, tally.getNextIndex());
+        assertEquals(invalid, tally.getInvalidIndices());
+        assertEquals(VOTES.length - invalid.size(), tally.getValidVotes());
+
+        VoteCipherText sum = tally.getSum();
+        assertEquals(BigInteger.valueOf(yes), this.engine.decrypt(sum));
+
+        // the random values of all shards add up, so that the sum can be proven
+        assertNotNull(sum.getRandom());
+        List<BigInteger> domain = Arrays.asList(BigInteger.valueOf(yes - 1), BigInteger.valueOf(yes), BigInteger.valueOf(yes + 1));
+        VoteProof proof = this.engine.commit(BigInteger.valueOf(yes), sum, domain);
+        assertTrue(this.engine.verify(this.engine.deserializeCipherText(sum.serialize()), proof, domain));
+    }
+
+    private TallyShardCoordinator coordinator(List<String> workers, long shardSize) {
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T postForObject(String url, Object request, Class<T> responseType, Object... uriVariables) {
+                if (url.startsWith(FAILING_WORKER)) {
+                    throw new IllegalStateException("Connection refused");
+                }
+
+                assertEquals(WORKER + TallyShardCoordinator.SHARD_PATH, url);
+
+                HttpEntity<?> entity = (HttpEntity<?>) request;
+                assertEquals(SECRET, entity.getHeaders().getFirst(TallyShardCoordinator.SECRET_HEADER));
+
+                TallyShardRequest shardRequest = (TallyShardRequest) entity.getBody();
+                assertEquals(encryptionManager.getPublicKeyFingerprint(), shardRequest.getKeyFingerprint());
+
+                // as a worker answers, with the sum serialized
+                PartialTally shard = tallyOf(shardRequest.getFromIndex(), shardRequest.getToIndex());
+                remoteShards.incrementAndGet();
+
+                return (T) new TallyShardResponse(
+                    shardRequest.getContractAddress(),
+                    shard.getStartIndex(),
+                    shard.getNextIndex(),
+                    shard.getSum().serialize(),
+                    shard.getSum().getRandom().toString(16),
+                    shard.getInvalidIndices()
+                );
+            }
+        };
+
+        return new TallyShardCoordinator(restTemplate, workers, shardSize, this.executor, this.encryptionManager, SECRET);
+    }
+
+    private PartialTally tallyOf(long fromIndex, long toIndex) {
+        PartialTally shard = new PartialTally(this.engine.encrypt(BigInteger.ZERO), fromIndex, fromIndex, Collections.emptyList());
+
+        for (long i = fromIndex; i < toIndex; i++) {
+            shard.add(this.cipherTexts.get((int) i));
+        }
+
+        return shard;
+    }
+}
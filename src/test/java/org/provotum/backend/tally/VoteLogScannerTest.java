@@ -0,0 +1,212 @@
+package org.provotum.backend.tally;
+
+import junit.framework.TestCase;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.TypeEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.tuples.generated.Tuple4;
+import org.web3j.utils.Numeric;
+import rx.Observable;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class VoteLogScannerTest extends TestCase {
+
+    private static final String BALLOT = "0x00000000000000000000000000000000000000b1";
+    private static final String VOTER = "0x00000000000000000000000000000000000000a1";
+
+    /**
+     * The logs of the chain, as returned by the node.
+     */
+    private final List<EthLog.LogObject> logs = new ArrayList<>();
+
+    private String error;
+    private VoteLogScanner scanner;
+
+    @Override
+    protected void setUp() {
+        this.scanner = new VoteLogScanner(Web3j.build(new Web3jService() {
+            @Override
+            public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+                switch (request.getMethod()) {
+                    case "eth_blockNumber":
+                        EthBlockNumber blockNumber = new EthBlockNumber();
+                        blockNumber.setResult(Numeric.encodeQuantity(BigInteger.valueOf(100)));
+
+                        return responseType.cast(blockNumber);
+                    case "eth_getLogs":
+                        return responseType.cast(getLogs((EthFilter) request.getParams().get(0)));
+                    default:
+                        throw new IOException("Unexpected request " + request.getMethod());
+                }
+            }
+
+            @Override
+            public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T extends Notification<?>> Observable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+        }), 10);
+    }
+
+    public void testDecodesVotes() throws IOException {
+        this.vote(12, 0, "ciphertext-0", "proof-0", new byte[]{1, 2, 3});
+        this.vote(15, 1, "ciphertext-1", "proof-1", new byte[0]);
+        this.vote(30, 2, "ciphertext-2", "proof-2", new byte[]{4});
+
+        Map<Long, Tuple4<String, String, String, byte[]>> votes = this.scanner.scan(BALLOT, BigInteger.valueOf(10), BigInteger.valueOf(20));
+
+        // only the votes within the scanned blocks
+        assertEquals(2, votes.size());
+
+        Tuple4<String, String, String, byte[]> first = votes.get(0L);
+        assertEquals(VOTER, first.getValue1());
+        assertEquals("ciphertext-0", first.getValue2());
+        assertEquals("proof-0", first.getValue3());
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3}, first.getValue4()));
+
+        Tuple4<String, String, String, byte[]> second = votes.get(1L);
+        assertEquals("ciphertext-1", second.getValue2());
+        assertEquals("proof-1", second.getValue3());
+        assertEquals(0, second.getValue4().length);
+
+        assertEquals(BigInteger.valueOf(100), this.scanner.getLatestBlock());
+    }
+
+    public void testRemembersBlockOfFirstVote() throws IOException {
+        this.vote(15, 4, "ciphertext-4", "proof-4", new byte[0]);
+        this.vote(12, 3, "ciphertext-3", "proof-3", new byte[0]);
+
+        assertEquals(BigInteger.ZERO, this.scanner.getStartBlock(BALLOT, 3));
+
+        this.scanner.scan(BALLOT, BigInteger.valueOf(10), BigInteger.valueOf(19));
+
+        assertEquals(BigInteger.valueOf(12), this.scanner.getStartBlock(BALLOT, 3));
+        assertEquals(BigInteger.valueOf(12), this.scanner.getStartBlock(BALLOT.toUpperCase().replace("0X", "0x"), 7));
+
+        // earlier votes may have been cast in earlier blocks
+        assertEquals(BigInteger.ZERO, this.scanner.getStartBlock(BALLOT, 2));
+
+        this.scanner.forget(BALLOT);
+        assertEquals(BigInteger.ZERO, this.scanner.getStartBlock(BALLOT, 3));
+    }
+
+    public void testStartsAtDeploymentBlock() throws IOException {
+        this.scanner.deployed(BALLOT, BigInteger.valueOf(8));
+        assertEquals(BigInteger.valueOf(8), this.scanner.getStartBlock(BALLOT, 0));
+
+        this.vote(12, 3, "ciphertext-3", "proof-3", new byte[0]);
+        this.scanner.scan(BALLOT, BigInteger.valueOf(8), BigInteger.valueOf(17));
+
+        assertEquals(BigInteger.valueOf(8), this.scanner.getStartBlock(BALLOT, 2));
+        assertEquals(BigInteger.valueOf(12), this.scanner.getStartBlock(BALLOT, 3));
+
+        this.scanner.forget(BALLOT);
+        assertEquals(BigInteger.ZERO, this.scanner.getStartBlock(BALLOT, 0));
+    }
+
+    public void testRemembersSilentBallots() {
+        assertTrue(this.scanner.isEmitting(BALLOT));
+
+        this.scanner.markSilent(BALLOT.toUpperCase().replace("0X", "0x"));
+
+        assertFalse(this.scanner.isEmitting(BALLOT));
+        assertTrue(this.scanner.isEmitting(VOTER));
+
+        this.scanner.forget(BALLOT);
+        assertTrue(this.scanner.isEmitting(BALLOT));
+    }
+
+    public void testFailsOnErrorResponse() {
+        this.error = "query returned more than 10000 results";
+
+        try {
+            this.scanner.scan(BALLOT, BigInteger.ZERO, BigInteger.TEN);
+            fail("An error response must not be taken as no votes");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(this.error));
+        }
+    }
+
+    public void testRejectsEmptyBlockRange() {
+        try {
+            new VoteLogScanner(null, 0);
+            fail("The block range must be positive");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Add the event of an accepted vote in the given block.
+     */
+    @SuppressWarnings("unchecked")
+    private void vote(long block, long index, String ciphertext, String proof, byte[] random) {
+        EthLog.LogObject log = new EthLog.LogObject();
+        log.setAddress(BALLOT);
+        log.setBlockNumber(Numeric.encodeQuantity(BigInteger.valueOf(block)));
+        log.setTopics(Arrays.asList(
+            "0x" + Numeric.toHexStringNoPrefix(new byte[32]),
+            "0x" + TypeEncoder.encode(new Address(VOTER))
+        ));
+        log.setData("0x" + FunctionEncoder.encodeConstructor(Arrays.<Type>asList(
+            new Uint256(BigInteger.valueOf(index)),
+            new Utf8String(ciphertext),
+            new Utf8String(proof),
+            new DynamicBytes(random)
+        )));
+
+        this.logs.add(log);
+    }
+
+    @SuppressWarnings("unchecked")
+    private EthLog getLogs(EthFilter filter) {
+        EthLog response = new EthLog();
+
+        if (null != this.error) {
+            response.setError(new Response.Error(-32005, this.error));
+
+            return response;
+        }
+
+        BigInteger fromBlock = Numeric.decodeQuantity(filter.getFromBlock().getValue());
+        BigInteger toBlock = Numeric.decodeQuantity(filter.getToBlock().getValue());
+        List<EthLog.LogResult> results = new ArrayList<>();
+
+        for (EthLog.LogObject log : this.logs) {
+            if (log.getBlockNumber().compareTo(fromBlock) >= 0 && log.getBlockNumber().compareTo(toBlock) <= 0) {
+                results.add(log);
+            }
+        }
+
+        response.setResult(results);
+
+        return response;
+    }
+}
@@ -0,0 +1,75 @@
+package org.provotum.backend.timer;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class EvaluationLogConverterTest extends TestCase {
+
+    public void testConvertsBinaryToText() throws IOException {
+        File directory = Files.createTempDirectory("evaluation").toFile();
+        File binaryFile = new File(directory, "evaluation.bin");
+        File textFile = new File(directory, "evaluation.log");
+
+        try {
+            EvaluationLogWriter binary = new EvaluationLogWriter(binaryFile, EvaluationLogWriter.Format.BINARY, 16);
+            EvaluationLogWriter text = new EvaluationLogWriter(textFile, EvaluationLogWriter.Format.TEXT, 16);
+
+            for (EvaluationLogWriter writer : new EvaluationLogWriter[]{binary, text}) {
+                writer.append(EvaluationTimer.LogCategory.SUM_PROOF, 10, 1500000000L, null);
+                writer.append(EvaluationTimer.LogCategory.GENERATING_PROOF, 20, 42, "request-1");
+                writer.close();
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            long records = EvaluationLogConverter.convert(new ByteArrayInputStream(Files.readAllBytes(binaryFile.toPath())), output);
+
+            assertEquals(2, records);
+            assertEquals(new String(Files.readAllBytes(textFile.toPath()), StandardCharsets.UTF_8), new String(output.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            binaryFile.delete();
+            textFile.delete();
+            directory.delete();
+        }
+    }
+
+    public void testConvertsVersionOne() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeInt(EvaluationLogWriter.MAGIC);
+            data.writeInt(1);
+            data.writeInt(1);
+            data.writeShort(3);
+            data.write("OLD".getBytes(StandardCharsets.UTF_8));
+
+            data.writeInt(0);
+            data.writeLong(0);
+            data.writeLong(7);
+            data.writeLong(1);
+
+            // a partially written record is ignored
+            data.writeInt(0);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertEquals(1, EvaluationLogConverter.convert(new ByteArrayInputStream(bytes.toByteArray()), output));
+        assertEquals("[OLD] 7ns (Seconds: 7.0E-9s)\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    public void testRejectsOtherFiles() {
+        try {
+            EvaluationLogConverter.convert(new ByteArrayInputStream("[SUM_PROOF] 1ns\n".getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream());
+            fail("A text file must be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.provotum.backend.timer;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class EvaluationLogWriterTest extends TestCase {
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("evaluation").toFile();
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = this.directory.listFiles();
+
+        if (null != files) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        this.directory.delete();
+    }
+
+    public void testAppendsToBinaryFileOfSameVersion() throws IOException {
+        File file = new File(this.directory, "evaluation.bin");
+
+        EvaluationLogWriter first = new EvaluationLogWriter(file, EvaluationLogWriter.Format.BINARY, 16);
+        first.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, 1, null);
+        first.close();
+
+        EvaluationLogWriter second = new EvaluationLogWriter(file, EvaluationLogWriter.Format.BINARY, 16);
+        second.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, 2, null);
+        second.close();
+
+        assertEquals(file, second.getFile());
+        assertEquals(EvaluationLogWriter.header().length + 2 * (EvaluationLogWriter.RECORD_SIZE + 2), file.length());
+    }
+
+    public void testRotatesBinaryFileOfOtherVersion() throws IOException {
+        File file = new File(this.directory, "evaluation.bin");
+
+        // a version 1 file without correlation ids
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream header = new DataOutputStream(bytes)) {
+            header.writeInt(EvaluationLogWriter.MAGIC);
+            header.writeInt(1);
+            header.writeInt(0);
+        }
+
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(bytes.toByteArray());
+        }
+
+        EvaluationLogWriter writer = new EvaluationLogWriter(file, EvaluationLogWriter.Format.BINARY, 16);
+        writer.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, 1, null);
+        writer.close();
+
+        assertEquals(new File(this.directory, "evaluation-1.bin"), writer.getFile());
+        assertEquals(12, file.length());
+        assertEquals(EvaluationLogWriter.header().length + EvaluationLogWriter.RECORD_SIZE + 2, writer.getFile().length());
+    }
+
+    public void testTextRoundTrip() throws IOException {
+        File file = new File(this.directory, "evaluation.log");
+
+        EvaluationLogWriter writer = new EvaluationLogWriter(file, EvaluationLogWriter.Format.TEXT, 16);
+        writer.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, 1500000000L, null);
+        writer.append(EvaluationTimer.LogCategory.GENERATING_PROOF, 0, 42, "request-1");
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+        assertEquals(2, lines.size());
+        assertEquals("[SUM_PROOF] 1500000000ns (Seconds: 1.5s)", lines.get(0));
+        assertEquals("[GENERATING_PROOF] 42ns (Seconds: 4.2E-8s) (Correlation: request-1)", lines.get(1));
+    }
+
+    public void testRingBufferKeepsAllMeasurementsOfConcurrentProducers() throws Exception {
+        File file = new File(this.directory, "evaluation.log");
+        int threads = 4;
+        int perThread = 5000;
+
+        // large enough that nothing is dropped even if the flusher does not get to run
+        EvaluationLogWriter writer = new EvaluationLogWriter(file, EvaluationLogWriter.Format.TEXT, threads * perThread);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int i = 0; i < perThread; i++) {
+                    writer.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, i, null);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        writer.close();
+
+        assertEquals(0, writer.getDropped());
+        assertEquals(0, writer.getPending());
+
+        // each duration was written once per producer
+        Map<String, Integer> counts = new HashMap<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            counts.merge(line, 1, Integer::sum);
+        }
+
+        assertEquals(perThread, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(threads, count);
+        }
+    }
+
+    public void testRejectsInvalidCapacity() throws IOException {
+        try {
+            new EvaluationLogWriter(new File(this.directory, "evaluation.log"), EvaluationLogWriter.Format.TEXT, 0);
+            fail("A capacity of zero must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testRotatesTextFileWhenWritingBinary() throws IOException {
+        File file = new File(this.directory, "evaluation");
+
+        EvaluationLogWriter text = new EvaluationLogWriter(file, EvaluationLogWriter.Format.TEXT, 16);
+        text.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, 1, null);
+        text.close();
+
+        EvaluationLogWriter binary = new EvaluationLogWriter(file, EvaluationLogWriter.Format.BINARY, 16);
+        binary.close();
+
+        assertEquals(new File(this.directory, "evaluation-1"), binary.getFile());
+        assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    public void testRotatesBinaryFileWhenWritingText() throws IOException {
+        File file = new File(this.directory, "evaluation");
+
+        EvaluationLogWriter binary = new EvaluationLogWriter(file, EvaluationLogWriter.Format.BINARY, 16);
+        binary.close();
+
+        // the first rotated file is taken as well
+        Files.write(EvaluationLogWriter.rotated(file, 1).toPath(), EvaluationLogWriter.header());
+
+        EvaluationLogWriter text = new EvaluationLogWriter(file, EvaluationLogWriter.Format.TEXT, 16);
+        text.append(EvaluationTimer.LogCategory.SUM_PROOF, 0, 1, null);
+        text.close();
+
+        assertEquals(new File(this.directory, "evaluation-2"), text.getFile());
+        assertEquals(EvaluationLogWriter.header().length, file.length());
+    }
+
+    public void testRotatedName() {
+        assertEquals("evaluation-2.bin", EvaluationLogWriter.rotated(new File("evaluation.bin"), 2).getName());
+        assertEquals("evaluation-1", EvaluationLogWriter.rotated(new File("evaluation"), 1).getName());
+    }
+}
@@ -0,0 +1,158 @@
+package org.provotum.backend.timer;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest extends TestCase {
+
+    /**
+     * The relative error of a percentile, given by the 16 buckets per power of two.
+     */
+    private static final double PRECISION = 1.0 / 16;
+
+    public void testBucketsAtBoundaries() {
+        int previousIndex = -1;
+
+        for (int bit = 0; bit < 63; bit++) {
+            long power = 1L << bit;
+
+            for (long value : new long[]{power - 1, power, power + 1, power + power / 16, power + power / 2, 2 * power - 1}) {
+                if (value < 0) {
+                    continue;
+                }
+
+                int index = LatencyHistogram.indexOf(value);
+                long upperBound = LatencyHistogram.upperBoundOf(index);
+                long lowerBound = (0 == index) ? 0 : LatencyHistogram.upperBoundOf(index - 1) + 1;
+
+                assertTrue("value " + value + " above its bucket " + upperBound, value <= upperBound);
+                assertTrue("value " + value + " below its bucket " + lowerBound, value >= lowerBound);
+                assertTrue("bucket of " + value + " too wide", upperBound - lowerBound <= Math.max(0, (long) (value * PRECISION)));
+            }
+
+            // buckets are ordered by value
+            int index = LatencyHistogram.indexOf(power);
+            assertTrue(index > previousIndex || 0 == bit);
+            previousIndex = index;
+        }
+
+        // values below 16 are exact
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.upperBoundOf(value));
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    public void testPercentilesMatchSortedValues() {
+        Random random = new Random(11);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[10000];
+
+        for (int i = 0; i < values.length; i++) {
+            // spread over many powers of two, from nanoseconds to minutes
+            values[i] = (long) Math.pow(2, random.nextDouble() * 36);
+            histogram.record(values[i]);
+        }
+
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        for (double percentile : new double[]{0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.max(0, Math.ceil(percentile / 100 * values.length) - 1)];
+            long estimate = snapshot.getPercentile(percentile);
+
+            assertTrue("p" + percentile + " " + estimate + " below " + exact, estimate >= exact);
+            assertTrue("p" + percentile + " " + estimate + " too far above " + exact, estimate <= exact + exact * PRECISION);
+        }
+
+        assertEquals(values[values.length - 1], snapshot.getPercentile(100));
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        assertEquals(values.length, snapshot.getCount());
+    }
+
+    public void testPercentileAtBucketBoundary() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // buckets are 32 wide below 1024 and 64 wide above: [992, 1023], [1024, 1087], [1088, 1151]
+        for (int i = 0; i < 50; i++) {
+            histogram.record(1000);
+        }
+        for (int i = 0; i < 49; i++) {
+            histogram.record(1030);
+        }
+        histogram.record(1100);
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(1023, snapshot.getPercentile(50));
+        assertEquals(1087, snapshot.getPercentile(50.5));
+        assertEquals(1087, snapshot.getPercentile(99));
+        // the upper bound of the last bucket is capped by the largest value
+        assertEquals(1100, snapshot.getPercentile(100));
+    }
+
+    public void testEmptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Snapshot empty = histogram.getSnapshot();
+
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getPercentile(99));
+        assertEquals(0.0, empty.getMean(), 0);
+
+        histogram.record(-5);
+        histogram.record(10);
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(10, snapshot.getSum());
+        assertEquals(0, snapshot.getPercentile(50));
+        assertEquals(5.0, snapshot.getMean(), 0);
+    }
+
+    public void testConcurrentRecord() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 100000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                for (int i = 1; i <= perThread; i++) {
+                    histogram.record(thread * perThread + i);
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        long total = (long) threads * perThread;
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        // values 1 to total, each recorded once
+        assertEquals(total, snapshot.getCount());
+        assertEquals(total * (total + 1) / 2, snapshot.getSum());
+        assertEquals(total, snapshot.getMax());
+
+        long median = snapshot.getPercentile(50);
+        assertTrue(median >= total / 2 && median <= total / 2 + total / 2 * PRECISION);
+    }
+}